@@ -0,0 +1,148 @@
+package ca.pfv.spmf.benchmarks;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Compares the results of a benchmark run with a baseline, both in the JSON
+ * format of JMH. A benchmark is identified by its name and its parameters. It
+ * is a regression if its score is worse than the score of the baseline by more
+ * than a tolerance (a higher time, or a lower throughput). The benchmarks that
+ * are not in the baseline are reported but are not regressions.
+ */
+public class BenchmarkComparison {
+
+	/** the score of a benchmark */
+	static class Score {
+		final String mode;
+		final double value;
+
+		Score(String mode, double value) {
+			this.mode = mode;
+			this.value = value;
+		}
+
+		/**
+		 * Check if a higher score is better (for the throughput)
+		 */
+		boolean isHigherBetter() {
+			return "thrpt".equals(mode);
+		}
+	}
+
+	/**
+	 * Compare two files of results
+	 *
+	 * @param arg the baseline file, the results file and optionally the tolerance
+	 *            (default 0.10, which is 10%)
+	 */
+	public static void main(String[] arg) throws IOException {
+		double tolerance = arg.length > 2 ? Double.parseDouble(arg[2]) : 0.10;
+		int regressionCount = compare(new File(arg[0]), new File(arg[1]), tolerance, System.out).size();
+		if (regressionCount > 0) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Compare the results of a run with a baseline and print the comparison
+	 *
+	 * @param baselineFile the baseline (JSON results of JMH)
+	 * @param resultFile   the results of the run (JSON results of JMH)
+	 * @param tolerance    the tolerated slowdown (0.10 means 10%)
+	 * @param out          the stream where the comparison is printed
+	 * @return the benchmarks that are regressions
+	 * @throws IOException if error while reading a file
+	 */
+	public static List<String> compare(File baselineFile, File resultFile, double tolerance, PrintStream out)
+			throws IOException {
+		Map<String, Score> baseline = readScores(baselineFile);
+		Map<String, Score> results = readScores(resultFile);
+		List<String> regressions = new ArrayList<String>();
+		out.println(String.format("%-90s %14s %14s %9s", "benchmark", "baseline", "current", "change"));
+		for (Map.Entry<String, Score> entry : results.entrySet()) {
+			Score score = entry.getValue();
+			Score baselineScore = baseline.get(entry.getKey());
+			if (baselineScore == null || !baselineScore.mode.equals(score.mode)) {
+				out.println(String.format("%-90s %14s %14.3f %9s", entry.getKey(), "-", score.value, "new"));
+				continue;
+			}
+			double change = baselineScore.value == 0 ? 0 : (score.value - baselineScore.value) / baselineScore.value;
+			// a positive slowdown means that the score is worse
+			double slowdown = score.isHigherBetter() ? -change : change;
+			String status = "";
+			if (slowdown > tolerance) {
+				regressions.add(entry.getKey());
+				status = "  REGRESSION";
+			}
+			out.println(String.format("%-90s %14.3f %14.3f %+8.1f%%%s", entry.getKey(), baselineScore.value,
+					score.value, change * 100, status));
+		}
+		out.println(regressions.size() + " regression(s) with a tolerance of " + Math.round(tolerance * 100) + "%");
+		return regressions;
+	}
+
+	/**
+	 * Read the scores of a file of results of JMH
+	 *
+	 * @param file the file
+	 * @return the scores by benchmark (with its parameters), in the order of the
+	 *         file
+	 * @throws IOException if error while reading the file
+	 */
+	static Map<String, Score> readScores(File file) throws IOException {
+		Object json;
+		Reader reader = new FileReader(file);
+		try {
+			json = new JSONParser().parse(reader);
+		} catch (ParseException e) {
+			throw new IOException("Invalid JSON in " + file + ": " + e, e);
+		} finally {
+			reader.close();
+		}
+		Map<String, Score> scores = new LinkedHashMap<String, Score>();
+		for (Object element : (JSONArray) json) {
+			JSONObject result = (JSONObject) element;
+			StringBuilder key = new StringBuilder((String) result.get("benchmark"));
+			JSONObject params = (JSONObject) result.get("params");
+			if (params != null) {
+				// the parameters are sorted by name, so that the key does not depend on
+				// their order in the file
+				for (Object param : new TreeMap<Object, Object>(params).entrySet()) {
+					key.append(key.indexOf(":") == -1 ? ":" : ",").append(param);
+				}
+			}
+			JSONObject primaryMetric = (JSONObject) result.get("primaryMetric");
+			scores.put(key.toString(),
+					new Score((String) result.get("mode"), ((Number) primaryMetric.get("score")).doubleValue()));
+		}
+		return scores;
+	}
+}
@@ -0,0 +1,168 @@
+package ca.pfv.spmf.benchmarks;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+
+import ca.pfv.spmf.tools.dataset_generator.SequenceDatabaseGenerator;
+import ca.pfv.spmf.tools.dataset_generator.TransactionDatabaseGenerator;
+import ca.pfv.spmf.tools.dataset_generator.TransactionDatasetUtilityGenerator;
+
+/**
+ * The synthetic datasets of the benchmarks. They are generated with a fixed
+ * seed, so that a benchmark with the same parameters always mines the same
+ * data. The files are temporary files, deleted when the JVM exits.
+ */
+final class BenchmarkDatasets {
+
+	/** the seed of the random number generators */
+	static final long SEED = 42;
+
+	private BenchmarkDatasets() {
+	}
+
+	/**
+	 * Generate a transaction database
+	 *
+	 * @param transactionCount the number of transactions
+	 * @param distinctItems    the number of distinct items
+	 * @param density          the maximum number of items of a transaction, as a
+	 *                         percentage of the distinct items
+	 * @return the file
+	 * @throws IOException if error while writing the file
+	 */
+	static File transactions(int transactionCount, int distinctItems, int density) throws IOException {
+		File file = temporaryFile("transactions");
+		TransactionDatabaseGenerator generator = new TransactionDatabaseGenerator();
+		generator.setSeed(SEED);
+		generator.generateDatabase(transactionCount, distinctItems, Math.max(1, distinctItems * density / 100),
+				file.getPath());
+		return file;
+	}
+
+	/**
+	 * Generate a transaction database with utilities
+	 *
+	 * @param transactionCount the number of transactions
+	 * @param distinctItems    the number of distinct items
+	 * @param density          the maximum number of items of a transaction, as a
+	 *                         percentage of the distinct items
+	 * @return the file
+	 * @throws IOException if error while writing the file
+	 */
+	static File utilityTransactions(int transactionCount, int distinctItems, int density) throws IOException {
+		File transactions = transactions(transactionCount, distinctItems, density);
+		File file = temporaryFile("utilities");
+		TransactionDatasetUtilityGenerator generator = new TransactionDatasetUtilityGenerator();
+		generator.setSeed(SEED);
+		generator.convert(transactions.getPath(), file.getPath(), 10, 1d);
+		transactions.delete();
+		return file;
+	}
+
+	/**
+	 * Calculate the total utility of a transaction database with utilities (the
+	 * sum of the transaction utilities)
+	 *
+	 * @param file the file
+	 * @return the total utility
+	 * @throws IOException if error while reading the file
+	 */
+	static long totalUtility(File file) throws IOException {
+		long total = 0;
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == '%' || line.charAt(0) == '@') {
+					continue;
+				}
+				total += Long.parseLong(line.split(":")[1]);
+			}
+		} finally {
+			reader.close();
+		}
+		return total;
+	}
+
+	/**
+	 * Generate a sequence database
+	 *
+	 * @param sequenceCount          the number of sequences
+	 * @param distinctItems          the number of distinct items
+	 * @param itemCountByItemset     the number of items by itemset
+	 * @param itemsetCountBySequence the number of itemsets by sequence
+	 * @return the file
+	 * @throws IOException if error while writing the file
+	 */
+	static File sequences(int sequenceCount, int distinctItems, int itemCountByItemset, int itemsetCountBySequence)
+			throws IOException {
+		File file = temporaryFile("sequences");
+		SequenceDatabaseGenerator generator = new SequenceDatabaseGenerator();
+		generator.setSeed(SEED);
+		generator.generateDatabase(sequenceCount, distinctItems, itemCountByItemset, itemsetCountBySequence,
+				file.getPath(), false);
+		return file;
+	}
+
+	/**
+	 * Generate points in two dimensions, around some centers (with a normal
+	 * distribution), separated by spaces
+	 *
+	 * @param pointCount  the number of points
+	 * @param centerCount the number of centers
+	 * @return the file
+	 * @throws IOException if error while writing the file
+	 */
+	static File points(int pointCount, int centerCount) throws IOException {
+		File file = temporaryFile("points");
+		Random random = new Random(SEED);
+		double[][] centers = new double[centerCount][2];
+		for (double[] center : centers) {
+			center[0] = random.nextDouble() * 1000;
+			center[1] = random.nextDouble() * 1000;
+		}
+		BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+		try {
+			for (int i = 0; i < pointCount; i++) {
+				double[] center = centers[i % centerCount];
+				writer.write((center[0] + random.nextGaussian() * 20) + " " + (center[1] + random.nextGaussian() * 20));
+				writer.newLine();
+			}
+		} finally {
+			writer.close();
+		}
+		return file;
+	}
+
+	/**
+	 * Create a temporary file deleted when the JVM exits
+	 *
+	 * @param prefix the prefix of the name of the file
+	 * @return the file
+	 * @throws IOException if the file cannot be created
+	 */
+	static File temporaryFile(String prefix) throws IOException {
+		File file = File.createTempFile("benchmark-" + prefix, ".txt");
+		file.deleteOnExit();
+		return file;
+	}
+}
@@ -0,0 +1,89 @@
+package ca.pfv.spmf.benchmarks;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.File;
+import java.io.IOException;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with JMH and writes the results as JSON. If a baseline
+ * is given, the results are then compared with it (see BenchmarkComparison),
+ * and the exit status is 1 if a benchmark is slower than the baseline by more
+ * than the tolerance. It is configured by system properties (an empty value is
+ * the default value):
+ * <ul>
+ * <li>benchmark.include: a regular expression selecting the benchmarks (all
+ * benchmarks by default)</li>
+ * <li>benchmark.result: the JSON file of the results
+ * (target/benchmarks/result.json by default)</li>
+ * <li>benchmark.baseline: the JSON file of the baseline, the results of a
+ * previous run (no comparison by default)</li>
+ * <li>benchmark.tolerance: the tolerated slowdown (0.10 by default, which is
+ * 10%)</li>
+ * <li>benchmark.quick: if true, each benchmark is measured with fewer
+ * iterations, to check quickly that they all run</li>
+ * </ul>
+ * It is run by the "benchmarks" profile of Maven, for example:
+ *
+ * <pre>
+ * mvn -P benchmarks verify -Dbenchmark.include=FrequentItemset
+ * mvn -P benchmarks verify -Dbenchmark.baseline=benchmarks/baseline.json
+ * </pre>
+ *
+ * To store a new baseline, copy the result file of a run on the reference
+ * machine.
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] arg) throws RunnerException, IOException {
+		String include = property("benchmark.include", ".*");
+		File result = new File(property("benchmark.result", "target/benchmarks/result.json"));
+		String baseline = property("benchmark.baseline", null);
+		double tolerance = Double.parseDouble(property("benchmark.tolerance", "0.10"));
+
+		result.getAbsoluteFile().getParentFile().mkdirs();
+		ChainedOptionsBuilder options = new OptionsBuilder().include(include).resultFormat(ResultFormatType.JSON)
+				.result(result.getPath());
+		if (Boolean.parseBoolean(property("benchmark.quick", "false"))) {
+			options.warmupIterations(1).measurementIterations(1);
+		}
+		new Runner(options.build()).run();
+		System.out.println("Results written to " + result);
+
+		if (baseline != null) {
+			if (BenchmarkComparison.compare(new File(baseline), result, tolerance, System.out).size() > 0) {
+				System.exit(1);
+			}
+		}
+	}
+
+	/**
+	 * Get the value of a system property
+	 *
+	 * @param name         the name of the property
+	 * @param defaultValue the value if the property is not set or empty
+	 * @return the value
+	 */
+	private static String property(String name, String defaultValue) {
+		String value = System.getProperty(name);
+		return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+	}
+}
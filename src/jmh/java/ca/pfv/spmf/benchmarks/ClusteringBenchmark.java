@@ -0,0 +1,92 @@
+package ca.pfv.spmf.benchmarks;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ca.pfv.spmf.algorithms.clustering.dbscan.AlgoDBSCAN;
+import ca.pfv.spmf.algorithms.clustering.distanceFunctions.DistanceEuclidian;
+import ca.pfv.spmf.algorithms.clustering.kmeans.AlgoKMeans;
+import ca.pfv.spmf.patterns.cluster.Cluster;
+import ca.pfv.spmf.patterns.cluster.ClusterWithMean;
+
+/**
+ * Benchmarks of the clustering algorithms, on synthetic points in two
+ * dimensions generated around some centers. The size is the number of points.
+ * The time includes reading the points.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ClusteringBenchmark {
+
+	/** the number of points */
+	@Param({ "2000", "10000" })
+	public int size;
+
+	/** the number of centers around which the points are generated */
+	@Param({ "10" })
+	public int centerCount;
+
+	/** the minimum number of points of DBSCAN */
+	@Param({ "5" })
+	public int minPts;
+
+	/** the epsilon of DBSCAN */
+	@Param({ "10" })
+	public double epsilon;
+
+	private File input;
+
+	@Setup(Level.Trial)
+	public void generatePoints() throws IOException {
+		input = BenchmarkDatasets.points(size, centerCount);
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteFiles() {
+		input.delete();
+	}
+
+	@Benchmark
+	public List<Cluster> dbscan() throws IOException {
+		return new AlgoDBSCAN().runAlgorithm(input.getPath(), minPts, epsilon, " ");
+	}
+
+	@Benchmark
+	public List<ClusterWithMean> kMeans() throws IOException {
+		return new AlgoKMeans().runAlgorithm(input.getPath(), centerCount, new DistanceEuclidian(), " ");
+	}
+}
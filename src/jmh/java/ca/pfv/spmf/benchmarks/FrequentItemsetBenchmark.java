@@ -0,0 +1,137 @@
+package ca.pfv.spmf.benchmarks;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.apriori.AlgoApriori;
+import ca.pfv.spmf.algorithms.frequentpatterns.charm.AlgoCharm_Bitset;
+import ca.pfv.spmf.algorithms.frequentpatterns.eclat.AlgoEclat;
+import ca.pfv.spmf.algorithms.frequentpatterns.fpgrowth.AlgoFPGrowth;
+import ca.pfv.spmf.algorithms.frequentpatterns.lcm.AlgoLCM;
+import ca.pfv.spmf.algorithms.frequentpatterns.lcm.Dataset;
+import ca.pfv.spmf.algorithms.frequentpatterns.zart.AlgoZart;
+import ca.pfv.spmf.algorithms.frequentpatterns.zart.TZTableClosed;
+import ca.pfv.spmf.input.transaction_database_array_integers.TransactionDatabase;
+
+/**
+ * Benchmarks of the frequent and closed itemset miners, on synthetic
+ * transaction databases (see TransactionDatabaseGenerator). The size is the
+ * number of transactions and the density is the maximum number of items of a
+ * transaction, as a percentage of the distinct items. The itemsets are written
+ * to a temporary file. Apriori, FP-Growth and LCM read the database from its
+ * file, so their time includes reading it, while Eclat, Charm and Zart mine a
+ * database loaded before the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FrequentItemsetBenchmark {
+
+	/** the number of transactions */
+	@Param({ "5000", "20000" })
+	public int size;
+
+	/** the maximum number of items of a transaction, in % of the distinct items */
+	@Param({ "5", "10" })
+	public int density;
+
+	/** the number of distinct items */
+	@Param({ "200" })
+	public int distinctItems;
+
+	/** the minimum support */
+	@Param({ "0.01" })
+	public double minsup;
+
+	private File input;
+	private File output;
+	private TransactionDatabase database;
+
+	@Setup(Level.Trial)
+	public void generateDatabase() throws IOException {
+		input = BenchmarkDatasets.transactions(size, distinctItems, density);
+		output = BenchmarkDatasets.temporaryFile("itemsets");
+		database = new TransactionDatabase();
+		database.loadFile(input.getPath());
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteFiles() {
+		input.delete();
+		output.delete();
+	}
+
+	@Benchmark
+	public Object apriori() throws IOException {
+		AlgoApriori algo = new AlgoApriori();
+		algo.runAlgorithm(minsup, input.getPath(), output.getPath());
+		return algo;
+	}
+
+	@Benchmark
+	public Object fpGrowth() throws IOException {
+		AlgoFPGrowth algo = new AlgoFPGrowth();
+		algo.runAlgorithm(input.getPath(), output.getPath(), minsup);
+		return algo;
+	}
+
+	@Benchmark
+	public Object eclat() throws IOException {
+		AlgoEclat algo = new AlgoEclat();
+		algo.runAlgorithm(output.getPath(), database, minsup, true);
+		return algo;
+	}
+
+	@Benchmark
+	public Object lcm() throws IOException {
+		// LCM modifies the dataset, so it is read again
+		Dataset dataset = new Dataset(input.getPath());
+		AlgoLCM algo = new AlgoLCM();
+		algo.runAlgorithm(minsup, dataset, output.getPath());
+		return algo;
+	}
+
+	@Benchmark
+	public Object charm() throws IOException {
+		AlgoCharm_Bitset algo = new AlgoCharm_Bitset();
+		algo.runAlgorithm(output.getPath(), database, minsup, true, 10000);
+		return algo;
+	}
+
+	@Benchmark
+	public TZTableClosed zart() {
+		return new AlgoZart().runAlgorithm(database, minsup);
+	}
+}
@@ -0,0 +1,101 @@
+package ca.pfv.spmf.benchmarks;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.efim.AlgoEFIM;
+import ca.pfv.spmf.algorithms.frequentpatterns.hui_miner.AlgoFHM;
+
+/**
+ * Benchmarks of the high utility itemset miners, on synthetic transaction
+ * databases with utilities (see TransactionDatabaseGenerator and
+ * TransactionDatasetUtilityGenerator). The size is the number of transactions
+ * and the density is the maximum number of items of a transaction, as a
+ * percentage of the distinct items. The minimum utility is a ratio of the total
+ * utility of the database. The itemsets are written to a temporary file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class HighUtilityItemsetBenchmark {
+
+	/** the number of transactions */
+	@Param({ "5000", "20000" })
+	public int size;
+
+	/** the maximum number of items of a transaction, in % of the distinct items */
+	@Param({ "5", "10" })
+	public int density;
+
+	/** the number of distinct items */
+	@Param({ "200" })
+	public int distinctItems;
+
+	/** the minimum utility, as a ratio of the total utility */
+	@Param({ "0.01" })
+	public double minUtilRatio;
+
+	private File input;
+	private File output;
+	private int minUtil;
+
+	@Setup(Level.Trial)
+	public void generateDatabase() throws IOException {
+		input = BenchmarkDatasets.utilityTransactions(size, distinctItems, density);
+		output = BenchmarkDatasets.temporaryFile("itemsets");
+		minUtil = (int) Math.max(1, Math.min(Integer.MAX_VALUE,
+				Math.ceil(minUtilRatio * BenchmarkDatasets.totalUtility(input))));
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteFiles() {
+		input.delete();
+		output.delete();
+	}
+
+	@Benchmark
+	public Object efim() throws IOException {
+		AlgoEFIM algo = new AlgoEFIM();
+		algo.runAlgorithm(minUtil, input.getPath(), output.getPath(), true, Integer.MAX_VALUE, true);
+		return algo;
+	}
+
+	@Benchmark
+	public Object fhm() throws IOException {
+		AlgoFHM algo = new AlgoFHM();
+		algo.runAlgorithm(input.getPath(), output.getPath(), minUtil);
+		return algo;
+	}
+}
@@ -0,0 +1,142 @@
+package ca.pfv.spmf.benchmarks;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.AlgoCM_ClaSP;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.idlists.creators.IdListCreatorBitmap;
+import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.AlgoGSP;
+import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.SequenceDatabase;
+import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.creators.AbstractionCreator;
+import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.creators.AbstractionCreator_Qualitative;
+import ca.pfv.spmf.algorithms.sequentialpatterns.lapin.AlgoLAPIN_LCI;
+import ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan.AlgoPrefixSpan;
+
+/**
+ * Benchmarks of the sequential pattern miners, on synthetic sequence databases
+ * (see SequenceDatabaseGenerator): PrefixSpan (pattern growth with
+ * pseudo-projections), GSP (candidate generation and support counting), LAPIN
+ * (last positions of the items) and CM-ClaSP (joins of bitmaps of itemsets,
+ * with co-occurrence maps), for all the patterns and for the closed patterns.
+ * The size is the number of sequences and the density is the number of items of
+ * each itemset. The patterns are written to a temporary file, and the time
+ * includes reading the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SequentialPatternBenchmark {
+
+	/** the number of sequences */
+	@Param({ "1000", "5000" })
+	public int size;
+
+	/** the number of items of each itemset */
+	@Param({ "1", "3" })
+	public int density;
+
+	/** the number of itemsets of each sequence */
+	@Param({ "8" })
+	public int itemsetsBySequence;
+
+	/** the number of distinct items */
+	@Param({ "100" })
+	public int distinctItems;
+
+	/** the minimum support */
+	@Param({ "0.05" })
+	public double minsup;
+
+	private File input;
+	private File output;
+
+	@Setup(Level.Trial)
+	public void generateDatabase() throws IOException {
+		input = BenchmarkDatasets.sequences(size, distinctItems, density, itemsetsBySequence);
+		output = BenchmarkDatasets.temporaryFile("patterns");
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteFiles() {
+		input.delete();
+		output.delete();
+	}
+
+	@Benchmark
+	public Object prefixSpan() throws IOException {
+		AlgoPrefixSpan algo = new AlgoPrefixSpan();
+		algo.runAlgorithm(input.getPath(), minsup, output.getPath());
+		return algo;
+	}
+
+	@Benchmark
+	public Object gsp() throws IOException {
+		AbstractionCreator abstractionCreator = AbstractionCreator_Qualitative.getInstance();
+		SequenceDatabase database = new SequenceDatabase(abstractionCreator);
+		database.loadFile(input.getPath(), minsup);
+		AlgoGSP algo = new AlgoGSP(minsup, 0, Integer.MAX_VALUE, 0, abstractionCreator);
+		algo.runAlgorithm(database, true, false, output.getPath(), false);
+		return algo;
+	}
+
+	@Benchmark
+	public Object lapin() throws IOException {
+		AlgoLAPIN_LCI algo = new AlgoLAPIN_LCI();
+		algo.runAlgorithm(input.getPath(), output.getPath(), minsup);
+		return algo;
+	}
+
+	@Benchmark
+	public Object cmClaSp() throws IOException {
+		return cmClaSp(false);
+	}
+
+	@Benchmark
+	public Object cmClaSpClosed() throws IOException {
+		return cmClaSp(true);
+	}
+
+	private Object cmClaSp(boolean findClosedPatterns) throws IOException {
+		// the classes of clasp_AGP have the same names as the ones of gsp_AGP
+		ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.creators.AbstractionCreator abstractionCreator = ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.creators.AbstractionCreator_Qualitative
+				.getInstance();
+		ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.database.SequenceDatabase database = new ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.database.SequenceDatabase(
+				abstractionCreator, IdListCreatorBitmap.getInstance());
+		double minSupAbsolute = database.loadFile(input.getPath(), minsup);
+		AlgoCM_ClaSP algo = new AlgoCM_ClaSP(minSupAbsolute, abstractionCreator, findClosedPatterns);
+		algo.runAlgorithm(database, true, false, output.getPath(), false);
+		return algo;
+	}
+}
@@ -0,0 +1,93 @@
+package ca.pfv.spmf.algorithmmanager.descriptions;
+
+import java.io.IOException;
+
+import ca.pfv.spmf.algorithmmanager.DescriptionOfAlgorithm;
+import ca.pfv.spmf.algorithmmanager.DescriptionOfParameter;
+import ca.pfv.spmf.algorithms.frequentpatterns.zart.AlgoZart;
+import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
+
+/*
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ * 
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ * 
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+/**
+ * This class describes the Zart algorithm parameters. It is designed to be used
+ * by the graphical and command line interface.
+ * 
+ * @see AlgoZart
+ */
+public class DescriptionAlgoZart extends DescriptionOfAlgorithm {
+
+	/**
+	 * Default constructor
+	 */
+	public DescriptionAlgoZart() {
+	}
+
+	@Override
+	public String getName() {
+		return "Zart";
+	}
+
+	@Override
+	public String getAlgorithmCategory() {
+		return "FREQUENT ITEMSET MINING";
+	}
+
+	@Override
+	public String getURLOfDocumentation() {
+		return "http://www.philippe-fournier-viger.com/spmf/Zart.php";
+	}
+
+	@Override
+	public void runAlgorithm(String[] parameters, String inputFile, String outputFile) throws IOException {
+		double minsup = getParamAsDouble(parameters[0]);
+
+		// Load the transaction database
+		TransactionDatabase context = new TransactionDatabase();
+		context.loadFile(inputFile);
+
+		// Apply the Zart algorithm
+		AlgoZart algo = new AlgoZart();
+		algo.runAlgorithm(context, minsup);
+		algo.printStatistics();
+		algo.saveResultsToFile(outputFile);
+	}
+
+	@Override
+	public DescriptionOfParameter[] getParametersDescription() {
+
+		DescriptionOfParameter[] parameters = new DescriptionOfParameter[1];
+		parameters[0] = new DescriptionOfParameter("Minsup (%)", "(e.g. 0.4 or 40%)", Double.class, false);
+		return parameters;
+	}
+
+	@Override
+	public String getImplementationAuthorNames() {
+		return "Philippe Fournier-Viger";
+	}
+
+	@Override
+	public String[] getInputFileTypes() {
+		return new String[] { "Database of instances", "Transaction database", "Simple transaction database" };
+	}
+
+	@Override
+	public String[] getOutputFileTypes() {
+		return new String[] { "Patterns", "Frequent patterns", "Frequent closed itemsets",
+				"Frequent generator itemsets", "Frequent itemsets", "Frequent closed itemsets and generators" };
+	}
+
+}
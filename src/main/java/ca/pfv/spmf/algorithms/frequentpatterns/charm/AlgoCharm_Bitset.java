@@ -19,22 +19,30 @@ package ca.pfv.spmf.algorithms.frequentpatterns.charm;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import ca.pfv.spmf.algorithms.ArraysAlgos;
+import ca.pfv.spmf.datastructures.tidset.Tidset;
+import ca.pfv.spmf.datastructures.tidset.TidsetEngine;
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
-import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
+import ca.pfv.spmf.input.transaction_database_array_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids_bitset.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids_bitset.Itemsets;
 import ca.pfv.spmf.tools.MemoryLogger;
+import ca.pfv.spmf.tools.MiningMetrics;
 
 /**
  * This is a new implementation of the CHARM algorithm (2014) that relies on
@@ -51,7 +59,16 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * <br/>
  * 
  * This version saves the result to a file or keep it into memory if no output
- * path is provided by the user to the runAlgorithm method().
+ * path is provided by the user to the runAlgorithm method(). <br/>
+ * <br/>
+ * 
+ * The equivalence classes of the frequent items can be processed by several
+ * threads (see setThreadCount()). The classes are created one after another,
+ * since the Charm properties remove items, and each class is then processed by
+ * a task of a ForkJoinPool. The tasks perform the closeness check with a
+ * ConcurrentHashTable and keep the itemsets that they find. Then the itemsets
+ * are checked again in the order of a sequential execution and saved, so that
+ * the result is the same, in the same order.
  * 
  * @see TriangularMatrix
  * @see TransactionDatabase
@@ -104,6 +121,44 @@ public class AlgoCharm_Bitset {
 	/** if true, transaction identifiers of each pattern will be shown */
 	boolean showTransactionIdentifiers = false;
 
+	/** if true, the tidsets are those of a TidsetEngine rather than BitSets */
+	private boolean useTidsetEngine = false;
+
+	/** the engine creating the tidsets while mining, if useTidsetEngine is true */
+	private TidsetEngine engine = null;
+
+	/** the number of threads used to process the equivalence classes */
+	private int threadCount = 1;
+
+	/**
+	 * If the algorithm was run in parallel, the number of equivalence classes
+	 * processed by each thread and the time spent (in nanoseconds), by thread name
+	 */
+	private Map<String, long[]> threadStatistics = null;
+
+	// When the algorithm is run in parallel, the pool running the tasks, the
+	// workers that were created (in the order of the equivalence classes) and
+	// their tasks
+	private ForkJoinPool pool = null;
+	private List<AlgoCharm_Bitset> workers = null;
+	private List<ForkJoinTask<?>> forkedTasks = null;
+
+	// When the algorithm is run in parallel, the hash table for the closeness
+	// checking done by the workers
+	private ConcurrentHashTable concurrentHash = null;
+
+	// If this object is a worker processing an equivalence class in a task, the
+	// itemsets that it found (null otherwise)
+	List<BufferedItemset> taskBuffer = null;
+
+	// true if a worker keeps the tidsets created by the TidsetEngine with the
+	// itemsets
+	private boolean bufferTidsets = false;
+
+	// the name of the thread that ran the task of this worker, and the time spent
+	private String threadName = null;
+	private long miningTime = 0;
+
 	/**
 	 * Default constructor
 	 */
@@ -111,6 +166,27 @@ public class AlgoCharm_Bitset {
 
 	}
 
+	/**
+	 * Constructor of a worker that processes an equivalence class in a task, when
+	 * the algorithm is run in parallel. A worker has its own buffers and keeps the
+	 * itemsets that it finds.
+	 * 
+	 * @param algorithm the algorithm that is run
+	 */
+	AlgoCharm_Bitset(AlgoCharm_Bitset algorithm) {
+		this.minsupRelative = algorithm.minsupRelative;
+		this.database = algorithm.database;
+		this.hash = algorithm.hash;
+		this.concurrentHash = algorithm.concurrentHash;
+		this.showTransactionIdentifiers = algorithm.showTransactionIdentifiers;
+		this.useTidsetEngine = algorithm.useTidsetEngine;
+		if (useTidsetEngine) {
+			this.engine = algorithm.createTidsetEngine();
+		}
+		this.bufferTidsets = (algorithm.writer == null) ? keepTidsetsInMemory() : showTransactionIdentifiers;
+		this.taskBuffer = new ArrayList<BufferedItemset>();
+	}
+
 	/**
 	 * Run the algorithm and save the output to a file or keep it into memory.
 	 * 
@@ -127,6 +203,31 @@ public class AlgoCharm_Bitset {
 	 *         null otherwise.
 	 * @throws IOException exception if error while writing the file.
 	 */
+	public Itemsets runAlgorithm(String output,
+			ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase database, double minsup,
+			boolean useTriangularMatrixOptimization, int hashTableSize) throws IOException {
+		// the database is copied into arrays of integers, which are faster to scan
+		return runAlgorithm(output, new TransactionDatabase(database), minsup, useTriangularMatrixOptimization,
+				hashTableSize);
+	}
+
+	/**
+	 * Run the algorithm on a transaction database represented by arrays of
+	 * integers and save the output to a file or keep it into memory.
+	 * 
+	 * @param database                        a transaction database
+	 * @param output                          an output file path for writing the
+	 *                                        result or if null the result is saved
+	 *                                        into memory and returned
+	 * @param minsup                          the minimum support
+	 * @param useTriangularMatrixOptimization if true the triangular matrix
+	 *                                        optimization will be applied.
+	 * @param hashTableSize                   the size of the hashtable (e.g.
+	 *                                        10,000).
+	 * @return the set of closed itemsets found if the result is kept into memory or
+	 *         null otherwise.
+	 * @throws IOException exception if error while writing the file.
+	 */
 	public Itemsets runAlgorithm(String output, TransactionDatabase database, double minsup,
 			boolean useTriangularMatrixOptimization, int hashTableSize) throws IOException {
 
@@ -147,6 +248,7 @@ public class AlgoCharm_Bitset {
 
 		// reset the number of itemset found to 0
 		itemsetCount = 0;
+		threadStatistics = null;
 
 		this.database = database;
 
@@ -157,227 +259,610 @@ public class AlgoCharm_Bitset {
 		// by the database size
 		this.minsupRelative = (int) Math.ceil(minsup * database.size());
 
-		// (1) First database pass : calculate tidsets of each item.
-		// This map will contain the tidset of each item
-		// Key: item Value : tidset
-		final Map<Integer, BitSetSupport> mapItemTIDS = new HashMap<Integer, BitSetSupport>();
-		// for each transaction
-		int maxItemId = 0;
-		maxItemId = calculateSupportSingleItems(database, mapItemTIDS);
+		// If the user chose to use several threads, the equivalence classes are
+		// processed by tasks
+		if (threadCount > 1) {
+			startParallelMining(hashTableSize);
+		}
 
-		// If the user chose to use the triangular matrix optimization
-		// for counting the support of itemsets of size 2.
-		if (useTriangularMatrixOptimization) {
-			// We create the triangular matrix.
-			matrix = new TriangularMatrix(maxItemId + 1);
-			// for each transaction, take each itemset of size 2,
-			// and update the triangular matrix.
-			for (List<Integer> itemset : database.getTransactions()) {
-				Object[] array = itemset.toArray();
-				// for each item i in the transaction
-				for (int i = 0; i < itemset.size(); i++) {
-					Integer itemI = (Integer) array[i];
-					// compare with each other item j in the same transaction
-					for (int j = i + 1; j < itemset.size(); j++) {
-						Integer itemJ = (Integer) array[j];
-						// update the matrix count by 1 for the pair i, j
-						matrix.incrementCount(itemI, itemJ);
+		if (useTidsetEngine) {
+			// Mine the closed itemsets with the tidsets of the TidsetEngine
+			mineWithTidsetEngine(database, useTriangularMatrixOptimization);
+		} else {
+			// (1) First database pass : calculate tidsets of each item.
+			// This map will contain the tidset of each item
+			// Key: item Value : tidset
+			final Map<Integer, BitSetSupport> mapItemTIDS = new HashMap<Integer, BitSetSupport>();
+			// for each transaction
+			int maxItemId = 0;
+			maxItemId = calculateSupportSingleItems(database, mapItemTIDS);
+
+			// If the user chose to use the triangular matrix optimization
+			// for counting the support of itemsets of size 2.
+			if (useTriangularMatrixOptimization) {
+				createTriangularMatrix(database, maxItemId);
+			}
+
+			// (2) create the list of single items
+			List<Integer> frequentItems = new ArrayList<Integer>();
+
+			// for each item
+			for (Entry<Integer, BitSetSupport> entry : mapItemTIDS.entrySet()) {
+				// get the support and tidset of that item
+				BitSetSupport tidset = entry.getValue();
+				int support = tidset.support;
+				int item = entry.getKey();
+				// if the item is frequent
+				if (support >= minsupRelative) {
+					// add the item to the list of frequent items
+					frequentItems.add(item);
+				}
+			}
+
+			// Sort the list of items by the total order of increasing support.
+			// This total order is suggested in the article by Zaki.
+			Collections.sort(frequentItems, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer arg0, Integer arg1) {
+					return mapItemTIDS.get(arg0).support - mapItemTIDS.get(arg1).support;
+				}
+			});
+
+			// Now we will combine each pairs of single items to generate equivalence
+			// classes
+			// of 2-itemsets
+
+			// For each frequent item X according to the total order
+			for (int i = 0; i < frequentItems.size(); i++) {
+				Integer itemX = frequentItems.get(i);
+				// If the itemset is null (which means that it has been removed, then we
+				// continue to the next item
+				if (itemX == null) {
+					continue;
+				}
+
+				// We obtain the tidset and support of that item X
+				BitSetSupport tidsetX = mapItemTIDS.get(itemX);
+
+				// We create an itemset with the item X.
+				int[] itemsetX = new int[] { itemX };
+
+				// We create an empty equivalence class for storing all itemsets obtained by
+				// joining
+				// X with other itemsets.
+				// This equivalence class is represented by two structures.
+				// The first structure stores the suffix of all itemsets starting with the
+				// prefix "X".
+				// For example, if X = "1" and the equivalence class contains 12, 13, 14, then
+				// the structure "equivalenceClassIitems" will only contain 2, 3 and 4 instead
+				// of
+				// 12, 13 and 14. The reason for this implementation choice is that it is more
+				// memory efficient.
+				/// Moreover, when the charm properties requires to replace X with Xj (see the
+				// article),
+				// it can be done very efficiently if we keep X separately.
+				List<int[]> equivalenceClassIitemsets = new ArrayList<int[]>();
+				// The second structure stores the tidset of each itemset in the equivalence
+				// class
+				// of the prefix "i"
+				List<BitSetSupport> equivalenceClassItidsets = new ArrayList<BitSetSupport>();
+
+				// For each item itemJ that is larger than i according to the total order of
+				// increasing support.
+				loopJ: for (int j = i + 1; j < frequentItems.size(); j++) {
+					Integer itemJ = frequentItems.get(j);
+					// If the itemset is null (which means that it has been removed, then we
+					// continue to the next item
+					if (itemJ == null) {
+						continue;
+					}
+
+					// If the triangular matrix optimization is activated and X is a single item
+					// we obtain the support of the pair of item "x", "j" by using the matrix.
+					// This allows to determine
+					// directly the support without performing a join.
+					// Then if the support is less than minsup, the itemset X + j is infrequent
+					// and we don't need to consider it anymore.
+					int supportIJ = -1;
+					if (itemsetX.length == 1 && useTriangularMatrixOptimization) {
+						// check the support of {i,j} according to the triangular matrix
+						supportIJ = matrix.getSupportForItems(itemX, itemJ);
+						// if not frequent
+						if (supportIJ < minsupRelative) {
+							// skip j;
+							continue loopJ;
+						}
+					}
+
+					// We obtain the tidset of J.
+					BitSetSupport tidsetJ = mapItemTIDS.get(itemJ);
+
+					// Calculate the tidset of itemset "X" + "J" by performing the intersection of
+					// the tidsets of X and the tidset of J.
+					BitSetSupport bitsetSupportUnion = new BitSetSupport();
+					if (itemsetX.length == 1 && useTriangularMatrixOptimization) {
+						// If the triangular matrix optimization is used and X is a single item, then
+						// we perform the intersection but we do not calculate the support since
+						// it was already calculated using the triangular matrix
+						bitsetSupportUnion = performANDFirstTime(tidsetX, tidsetJ, supportIJ);
+					} else {
+						// Otherwise, we perform the intersection and calculate the support
+						// by calculating the cardinality of the resulting tidset.
+						bitsetSupportUnion = performAND(tidsetX, tidsetJ);
+					}
+
+					// if the union is infrequent, we don't need to consider it further
+					if (bitsetSupportUnion.support < minsupRelative) {
+						continue;
+					}
+
+					// We next check which of the four Charm properties hold
+					// If Property 1 holds
+					if (tidsetX.support == tidsetJ.support && bitsetSupportUnion.support == tidsetX.support) {
+						// We remove Xj
+						frequentItems.set(j, null);
+						// Then, we calculate the union of X and Xj
+						int[] realUnion = new int[itemsetX.length + 1];
+						System.arraycopy(itemsetX, 0, realUnion, 0, itemsetX.length);
+						realUnion[itemsetX.length] = itemJ;
+						// Then we replace X by the union
+						itemsetX = realUnion;
+					} else if (tidsetX.support < tidsetJ.support && bitsetSupportUnion.support == tidsetX.support) {
+						// If property 2 holds
+						// Then, we calculate the union of X and Xj
+						int[] realUnion = new int[itemsetX.length + 1];
+						System.arraycopy(itemsetX, 0, realUnion, 0, itemsetX.length);
+						realUnion[itemsetX.length] = itemJ;
+						// Then we replace X by the union
+						itemsetX = realUnion;
+					} else if (tidsetX.support > tidsetJ.support && bitsetSupportUnion.support == tidsetJ.support) {
+						// If property 3 holds
+						// We remove Xj
+						frequentItems.set(j, null);
+						// Then, we add the itemset X + J to the equivalence class that
+						// we are building.
+						// Note that we actually only add J because we keep the prefix X for
+						// for the whole equivalence class. Thus X + J can be reconstructed at any time.
+						equivalenceClassIitemsets.add(new int[] { itemJ });
+						// We also keep the tidset of X + J
+						equivalenceClassItidsets.add(bitsetSupportUnion);
+					} else {
+						// If property 4 holds
+						// Then, we add the itemset X + J to the equivalence class that
+						// we are building.
+						// Note that we actually only add J because we keep the prefix X for
+						// for the whole equivalence class. Thus X + J can be reconstructed at any time.
+						equivalenceClassIitemsets.add(new int[] { itemJ });
+						// We also keep the tidset of X + J
+						equivalenceClassItidsets.add(bitsetSupportUnion);
 					}
 				}
+
+				// If the algorithm is run in parallel, the equivalence class and X
+				// are processed by a task
+				if (pool != null) {
+					AlgoCharm_Bitset worker = createWorker();
+					submitTask(worker, worker.new MiningTask(itemsetX, tidsetX, equivalenceClassIitemsets,
+							equivalenceClassItidsets));
+					continue;
+				}
+
+				// Process all itemsets from the equivalence class that we are building, which
+				// has X as prefix, to find larger itemsets.
+				// Note that we only do that if the equivalence class contains at least an
+				// itemset.
+				if (equivalenceClassIitemsets.size() > 0) {
+					// call to recursive method
+					processEquivalenceClass(itemsetX, equivalenceClassIitemsets, equivalenceClassItidsets);
+				}
+
+				// Save the itemset X with its support (can be obtained from its tidset.
+				save(null, itemsetX, tidsetX);
 			}
 		}
 
-		// (2) create the list of single items
-		List<Integer> frequentItems = new ArrayList<Integer>();
+		// If the algorithm is run in parallel, save the itemsets found by the tasks
+		if (pool != null) {
+			saveItemsetsOfWorkers();
+		}
 
-		// for each item
-		for (Entry<Integer, BitSetSupport> entry : mapItemTIDS.entrySet()) {
-			// get the support and tidset of that item
-			BitSetSupport tidset = entry.getValue();
-			int support = tidset.support;
-			int item = entry.getKey();
-			// if the item is frequent
-			if (support >= minsupRelative) {
-				// add the item to the list of frequent items
-				frequentItems.add(item);
+		// close the output file if the result was saved to a file
+		if (writer != null) {
+			writer.close();
+		}
+
+		// we check the memory usage
+		MemoryLogger.getInstance().checkMemory();
+
+		// record the end time for statistics
+		endTime = System.currentTimeMillis();
+
+		// Return all frequent itemsets found!
+		return closedItemsets;
+	}
+
+	/**
+	 * Create the triangular matrix containing the support of each pair of items.
+	 * 
+	 * @param database  the transaction database
+	 * @param maxItemId the largest item of the database
+	 */
+	private void createTriangularMatrix(TransactionDatabase database, int maxItemId) {
+		// We create the triangular matrix.
+		matrix = new TriangularMatrix(maxItemId + 1);
+		// for each transaction, take each itemset of size 2,
+		// and update the triangular matrix.
+		int[] items = database.getItemPool();
+		for (int tid = 0; tid < database.size(); tid++) {
+			int end = database.getTransactionStart(tid + 1);
+			// for each item i in the transaction
+			for (int i = database.getTransactionStart(tid); i < end; i++) {
+				int itemI = items[i];
+				// compare with each other item j in the same transaction
+				for (int j = i + 1; j < end; j++) {
+					// update the matrix count by 1 for the pair i, j
+					matrix.incrementCount(itemI, items[j]);
+				}
 			}
 		}
+	}
 
-		// Sort the list of items by the total order of increasing support.
-		// This total order is suggested in the article by Zaki.
+	/**
+	 * Mine the closed itemsets using the tidsets of a TidsetEngine, which are
+	 * bitmaps or arrays of integers, and tidsets or diffsets, depending on the
+	 * density of each equivalence class.
+	 * 
+	 * @param database                        the transaction database
+	 * @param useTriangularMatrixOptimization if true the triangular matrix
+	 *                                        optimization will be applied.
+	 * @throws IOException if error while writting the output to file
+	 */
+	private void mineWithTidsetEngine(TransactionDatabase database, boolean useTriangularMatrixOptimization)
+			throws IOException {
+		// (1) First database pass : calculate the support of each item.
+		final int[] supports = database.calculateItemSupports();
+
+		// If the user chose to use the triangular matrix optimization
+		// for counting the support of itemsets of size 2.
+		if (useTriangularMatrixOptimization) {
+			createTriangularMatrix(database, supports.length - 1);
+		}
+
+		// Second database pass: create the tidsets of the frequent items.
+		engine = createTidsetEngine();
+		final Tidset[] itemTidsets = engine.createItemTidsets(database, supports);
+
+		// (2) create the list of single items, sorted by the total order of
+		// increasing support.
+		List<Integer> frequentItems = new ArrayList<Integer>();
+		for (int item = 0; item < itemTidsets.length; item++) {
+			if (itemTidsets[item] != null) {
+				frequentItems.add(item);
+			}
+		}
 		Collections.sort(frequentItems, new Comparator<Integer>() {
 			@Override
 			public int compare(Integer arg0, Integer arg1) {
-				return mapItemTIDS.get(arg0).support - mapItemTIDS.get(arg1).support;
+				return itemTidsets[arg0].getSupport() - itemTidsets[arg1].getSupport();
 			}
 		});
-
-		// Now we will combine each pairs of single items to generate equivalence
-		// classes
-		// of 2-itemsets
+		// the tidsets of the items, which are set to null with the items that are
+		// removed
+		List<Tidset> frequentItemTidsets = new ArrayList<Tidset>(frequentItems.size());
+		for (Integer item : frequentItems) {
+			frequentItemTidsets.add(itemTidsets[item]);
+		}
 
 		// For each frequent item X according to the total order
 		for (int i = 0; i < frequentItems.size(); i++) {
 			Integer itemX = frequentItems.get(i);
-			// If the itemset is null (which means that it has been removed, then we
-			// continue to the next item
+			// If the itemset has been removed, then we continue to the next item
 			if (itemX == null) {
 				continue;
 			}
-
-			// We obtain the tidset and support of that item X
-			BitSetSupport tidsetX = mapItemTIDS.get(itemX);
-
-			// We create an itemset with the item X.
+			Tidset tidsetX = frequentItemTidsets.get(i);
 			int[] itemsetX = new int[] { itemX };
 
 			// We create an empty equivalence class for storing all itemsets obtained by
-			// joining
-			// X with other itemsets.
-			// This equivalence class is represented by two structures.
-			// The first structure stores the suffix of all itemsets starting with the
-			// prefix "X".
-			// For example, if X = "1" and the equivalence class contains 12, 13, 14, then
-			// the structure "equivalenceClassIitems" will only contain 2, 3 and 4 instead
-			// of
-			// 12, 13 and 14. The reason for this implementation choice is that it is more
-			// memory efficient.
-			/// Moreover, when the charm properties requires to replace X with Xj (see the
-			// article),
-			// it can be done very efficiently if we keep X separately.
+			// joining X with other itemsets, and choose how its tidsets are stored
 			List<int[]> equivalenceClassIitemsets = new ArrayList<int[]>();
-			// The second structure stores the tidset of each itemset in the equivalence
-			// class
-			// of the prefix "i"
-			List<BitSetSupport> equivalenceClassItidsets = new ArrayList<BitSetSupport>();
+			List<Tidset> equivalenceClassItidsets = new ArrayList<Tidset>();
+			int mode = engine.chooseMode(tidsetX, database.size(), frequentItemTidsets, i);
 
-			// For each item itemJ that is larger than i according to the total order of
-			// increasing support.
-			loopJ: for (int j = i + 1; j < frequentItems.size(); j++) {
+			for (int j = i + 1; j < frequentItems.size(); j++) {
 				Integer itemJ = frequentItems.get(j);
-				// If the itemset is null (which means that it has been removed, then we
-				// continue to the next item
 				if (itemJ == null) {
 					continue;
 				}
-
-				// If the triangular matrix optimization is activated and X is a single item
-				// we obtain the support of the pair of item "x", "j" by using the matrix.
-				// This allows to determine
-				// directly the support without performing a join.
-				// Then if the support is less than minsup, the itemset X + j is infrequent
-				// and we don't need to consider it anymore.
-				int supportIJ = -1;
-				if (itemsetX.length == 1 && useTriangularMatrixOptimization) {
-					// check the support of {i,j} according to the triangular matrix
-					supportIJ = matrix.getSupportForItems(itemX, itemJ);
-					// if not frequent
-					if (supportIJ < minsupRelative) {
-						// skip j;
-						continue loopJ;
-					}
-				}
-
-				// We obtain the tidset of J.
-				BitSetSupport tidsetJ = mapItemTIDS.get(itemJ);
-
-				// Calculate the tidset of itemset "X" + "J" by performing the intersection of
-				// the tidsets of X and the tidset of J.
-				BitSetSupport bitsetSupportUnion = new BitSetSupport();
-				if (itemsetX.length == 1 && useTriangularMatrixOptimization) {
-					// If the triangular matrix optimization is used and X is a single item, then
-					// we perform the intersection but we do not calculate the support since
-					// it was already calculated using the triangular matrix
-					bitsetSupportUnion = performANDFirstTime(tidsetX, tidsetJ, supportIJ);
-				} else {
-					// Otherwise, we perform the intersection and calculate the support
-					// by calculating the cardinality of the resulting tidset.
-					bitsetSupportUnion = performAND(tidsetX, tidsetJ);
+				// If the triangular matrix optimization is activated, we skip "XJ" if
+				// it is not frequent according to the matrix
+				if (itemsetX.length == 1 && useTriangularMatrixOptimization
+						&& matrix.getSupportForItems(itemX, itemJ) < minsupRelative) {
+					continue;
 				}
+				Tidset tidsetJ = frequentItemTidsets.get(j);
 
-				// if the union is infrequent, we don't need to consider it further
-				if (bitsetSupportUnion.support < minsupRelative) {
+				// Calculate the tidset of itemset "X" + "J", which is null if it is
+				// infrequent
+				Tidset tidsetUnion = engine.combine(tidsetX, tidsetJ, mode);
+				if (tidsetUnion == null) {
 					continue;
 				}
 
 				// We next check which of the four Charm properties hold
-				// If Property 1 holds
-				if (tidsetX.support == tidsetJ.support && bitsetSupportUnion.support == tidsetX.support) {
-					// We remove Xj
+				if (tidsetX.getSupport() == tidsetJ.getSupport() && tidsetUnion.getSupport() == tidsetX.getSupport()) {
+					// If Property 1 holds, we remove Xj and replace X by the union
 					frequentItems.set(j, null);
-					// Then, we calculate the union of X and Xj
-					int[] realUnion = new int[itemsetX.length + 1];
-					System.arraycopy(itemsetX, 0, realUnion, 0, itemsetX.length);
-					realUnion[itemsetX.length] = itemJ;
-					// Then we replace X by the union
-					itemsetX = realUnion;
-				} else if (tidsetX.support < tidsetJ.support && bitsetSupportUnion.support == tidsetX.support) {
-					// If property 2 holds
-					// Then, we calculate the union of X and Xj
-					int[] realUnion = new int[itemsetX.length + 1];
-					System.arraycopy(itemsetX, 0, realUnion, 0, itemsetX.length);
-					realUnion[itemsetX.length] = itemJ;
-					// Then we replace X by the union
-					itemsetX = realUnion;
-				} else if (tidsetX.support > tidsetJ.support && bitsetSupportUnion.support == tidsetJ.support) {
-					// If property 3 holds
-					// We remove Xj
+					frequentItemTidsets.set(j, null);
+					itemsetX = ArraysAlgos.appendIntegerToArray(itemsetX, itemJ);
+					engine.release(tidsetUnion);
+				} else if (tidsetX.getSupport() < tidsetJ.getSupport()
+						&& tidsetUnion.getSupport() == tidsetX.getSupport()) {
+					// If property 2 holds, we replace X by the union
+					itemsetX = ArraysAlgos.appendIntegerToArray(itemsetX, itemJ);
+					engine.release(tidsetUnion);
+				} else if (tidsetX.getSupport() > tidsetJ.getSupport()
+						&& tidsetUnion.getSupport() == tidsetJ.getSupport()) {
+					// If property 3 holds, we remove Xj and add X + J to the equivalence
+					// class
 					frequentItems.set(j, null);
-					// Then, we add the itemset X + J to the equivalence class that
-					// we are building.
-					// Note that we actually only add J because we keep the prefix X for
-					// for the whole equivalence class. Thus X + J can be reconstructed at any time.
+					frequentItemTidsets.set(j, null);
 					equivalenceClassIitemsets.add(new int[] { itemJ });
-					// We also keep the tidset of X + J
-					equivalenceClassItidsets.add(bitsetSupportUnion);
+					equivalenceClassItidsets.add(tidsetUnion);
 				} else {
-					// If property 4 holds
-					// Then, we add the itemset X + J to the equivalence class that
-					// we are building.
-					// Note that we actually only add J because we keep the prefix X for
-					// for the whole equivalence class. Thus X + J can be reconstructed at any time.
+					// If property 4 holds, we add X + J to the equivalence class
 					equivalenceClassIitemsets.add(new int[] { itemJ });
-					// We also keep the tidset of X + J
-					equivalenceClassItidsets.add(bitsetSupportUnion);
+					equivalenceClassItidsets.add(tidsetUnion);
 				}
 			}
 
+			// If the algorithm is run in parallel, the equivalence class and X are
+			// processed by a task
+			if (pool != null) {
+				AlgoCharm_Bitset worker = createWorker();
+				submitTask(worker, worker.new MiningTask(itemsetX, tidsetX, equivalenceClassIitemsets,
+						equivalenceClassItidsets));
+				continue;
+			}
+
 			// Process all itemsets from the equivalence class that we are building, which
 			// has X as prefix, to find larger itemsets.
-			// Note that we only do that if the equivalence class contains at least an
-			// itemset.
 			if (equivalenceClassIitemsets.size() > 0) {
-				// call to recursive method
-				processEquivalenceClass(itemsetX, equivalenceClassIitemsets, equivalenceClassItidsets);
+				processEquivalenceClassWithEngine(itemsetX, tidsetX.getSupport(), equivalenceClassIitemsets,
+						equivalenceClassItidsets);
+				// the tidsets of the equivalence class are not needed anymore
+				engine.release(equivalenceClassItidsets);
 			}
 
-			// Save the itemset X with its support (can be obtained from its tidset.
+			// Save the itemset X with its support
 			save(null, itemsetX, tidsetX);
 		}
+		engine = null;
+	}
 
-		// close the output file if the result was saved to a file
-		if (writer != null) {
-			writer.close();
+	/**
+	 * Create the engine creating the tidsets while mining.
+	 * 
+	 * @return the engine
+	 */
+	private TidsetEngine createTidsetEngine() {
+		TidsetEngine engine = new TidsetEngine(database.size(), minsupRelative);
+		// the hash table needs the sum of the tids of each tidset
+		engine.setComputeTidSums(true);
+		// the transaction identifiers are lost if diffsets are used
+		boolean tidsNeeded = showTransactionIdentifiers || (writer == null && keepTidsetsInMemory());
+		engine.setDiffsetThreshold(tidsNeeded ? Double.POSITIVE_INFINITY : getDiffsetThreshold());
+		return engine;
+	}
+
+	/**
+	 * Create the pool of threads and the hash table used by the workers, to run
+	 * the algorithm in parallel.
+	 * 
+	 * @param hashTableSize the size of the hash table
+	 */
+	private void startParallelMining(int hashTableSize) {
+		pool = MiningMetrics.current().newForkJoinPool(threadCount);
+		workers = new ArrayList<AlgoCharm_Bitset>();
+		forkedTasks = new ArrayList<ForkJoinTask<?>>();
+		concurrentHash = new ConcurrentHashTable(hashTableSize);
+		threadStatistics = new LinkedHashMap<String, long[]>();
+	}
+
+	/**
+	 * Create a worker processing an equivalence class in a task, when the
+	 * algorithm is run in parallel.
+	 * 
+	 * @return the worker
+	 */
+	AlgoCharm_Bitset createWorker() {
+		return new AlgoCharm_Bitset(this);
+	}
+
+	/**
+	 * Submit the task of a worker to the pool. The idle threads of the pool steal
+	 * the tasks that are waiting.
+	 * 
+	 * @param worker the worker
+	 * @param task   its task
+	 */
+	private void submitTask(AlgoCharm_Bitset worker, MiningTask task) {
+		workers.add(worker);
+		forkedTasks.add(pool.submit(task));
+	}
+
+	/**
+	 * Wait for the tasks and save the itemsets found by each worker, in the order
+	 * of the equivalence classes. An itemset is saved if no superset having the
+	 * same support was saved before, as in a sequential execution, since a task
+	 * may not have seen all the itemsets found before by other tasks.
+	 * 
+	 * @throws IOException if an error occurs when writing to file
+	 */
+	private void saveItemsetsOfWorkers() throws IOException {
+		try {
+			for (int i = 0; i < forkedTasks.size(); i++) {
+				forkedTasks.get(i).join();
+				AlgoCharm_Bitset worker = workers.get(i);
+				for (BufferedItemset bufferedItemset : worker.taskBuffer) {
+					if (!hash.containsSupersetOf(bufferedItemset.itemset, bufferedItemset.hashcode)) {
+						saveBufferedItemset(bufferedItemset);
+						hash.put(bufferedItemset.itemset, bufferedItemset.hashcode);
+					}
+				}
+				// update the statistics of the thread that ran the task
+				long[] statistics = threadStatistics.get(worker.threadName);
+				if (statistics == null) {
+					statistics = new long[2];
+					threadStatistics.put(worker.threadName, statistics);
+				}
+				statistics[0]++;
+				statistics[1] += worker.miningTime;
+				workers.set(i, null);
+				forkedTasks.set(i, null);
+			}
+		} finally {
+			pool.shutdown();
+			pool = null;
+			workers = null;
+			forkedTasks = null;
+			concurrentHash = null;
 		}
+	}
 
-		// we check the memory usage
-		MemoryLogger.getInstance().checkMemory();
+	/**
+	 * Keep an itemset found by a worker, if the ConcurrentHashTable does not
+	 * contain a superset having the same support.
+	 * 
+	 * @param itemset  the itemset, with its support
+	 * @param hashcode the hashcode of its tidset
+	 * @param tidset   the tidset that is saved with the itemset, or null
+	 */
+	void bufferItemset(ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset itemset, int hashcode,
+			BitSet tidset) {
+		if (!concurrentHash.containsSupersetOf(itemset, hashcode)) {
+			taskBuffer.add(new BufferedItemset(itemset, hashcode, tidset));
+			concurrentHash.put(itemset, hashcode);
+		}
+	}
 
-		// record the end time for statistics
-		endTime = System.currentTimeMillis();
+	/**
+	 * Save an itemset found by a worker.
+	 * 
+	 * @param bufferedItemset the itemset
+	 * @throws IOException if an error occurs when writing to file
+	 */
+	private void saveBufferedItemset(BufferedItemset bufferedItemset) throws IOException {
+		ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset itemset = bufferedItemset.itemset;
+		itemsetCount++;
+		if (writer == null) {
+			BitSet bitset = keepTidsetsInMemory() ? bufferedItemset.tidset : null;
+			Itemset itemsetWithTidset = new Itemset(itemset.getItems(), bitset, itemset.support);
+			closedItemsets.addItemset(itemsetWithTidset, itemset.size());
+		} else {
+			writer.write(itemset.toString() + " #SUP: " + itemset.support);
+			if (showTransactionIdentifiers) {
+				BitSet bitset = bufferedItemset.tidset;
+				writer.append(" #TID:");
+				for (int tid = bitset.nextSetBit(0); tid != -1; tid = bitset.nextSetBit(tid + 1)) {
+					writer.append(" " + tid);
+				}
+			}
+			writer.newLine();
+		}
+	}
 
-		// Return all frequent itemsets found!
-		return closedItemsets;
+	/**
+	 * An itemset found by a worker, with the hashcode of its tidset and the
+	 * tidset that is saved with it.
+	 */
+	static class BufferedItemset {
+		final ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset itemset;
+		final int hashcode;
+		final BitSet tidset;
+
+		BufferedItemset(ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset itemset, int hashcode,
+				BitSet tidset) {
+			this.itemset = itemset;
+			this.hashcode = hashcode;
+			this.tidset = tidset;
+		}
+	}
+
+	/**
+	 * A task processing an equivalence class and its prefix X, when the algorithm
+	 * is run in parallel. The tidsets of the items are only read, so they can be
+	 * shared by several tasks.
+	 */
+	private class MiningTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		// the itemset X, prefix of the equivalence class
+		private final int[] itemsetX;
+		private final List<int[]> equivalenceClassItemsets;
+		// the tidsets (only one of the two kinds of tidsets is used)
+		private final BitSetSupport tidsetX;
+		private final List<BitSetSupport> equivalenceClassTidsets;
+		private final Tidset engineTidsetX;
+		private final List<Tidset> equivalenceClassEngineTidsets;
+
+		MiningTask(int[] itemsetX, BitSetSupport tidsetX, List<int[]> equivalenceClassItemsets,
+				List<BitSetSupport> equivalenceClassTidsets) {
+			this.itemsetX = itemsetX;
+			this.equivalenceClassItemsets = equivalenceClassItemsets;
+			this.tidsetX = tidsetX;
+			this.equivalenceClassTidsets = equivalenceClassTidsets;
+			this.engineTidsetX = null;
+			this.equivalenceClassEngineTidsets = null;
+		}
+
+		MiningTask(int[] itemsetX, Tidset tidsetX, List<int[]> equivalenceClassItemsets,
+				List<Tidset> equivalenceClassTidsets) {
+			this.itemsetX = itemsetX;
+			this.equivalenceClassItemsets = equivalenceClassItemsets;
+			this.tidsetX = null;
+			this.equivalenceClassTidsets = null;
+			this.engineTidsetX = tidsetX;
+			this.equivalenceClassEngineTidsets = equivalenceClassTidsets;
+		}
+
+		@Override
+		protected void compute() {
+			long start = System.nanoTime();
+			try {
+				if (engineTidsetX != null) {
+					if (equivalenceClassItemsets.size() > 0) {
+						processEquivalenceClassWithEngine(itemsetX, engineTidsetX.getSupport(),
+								equivalenceClassItemsets, equivalenceClassEngineTidsets);
+						engine.release(equivalenceClassEngineTidsets);
+					}
+					save(null, itemsetX, engineTidsetX);
+				} else {
+					if (equivalenceClassItemsets.size() > 0) {
+						processEquivalenceClass(itemsetX, equivalenceClassItemsets, equivalenceClassTidsets);
+					}
+					save(null, itemsetX, tidsetX);
+				}
+			} catch (IOException e) {
+				// a worker does not write to a file
+				throw new UncheckedIOException(e);
+			}
+			miningTime = System.nanoTime() - start;
+			threadName = Thread.currentThread().getName();
+		}
 	}
 
 	int calculateSupportSingleItems(TransactionDatabase database, final Map<Integer, BitSetSupport> mapItemTIDS) {
 		int maxItemId = 0;
+		int[] items = database.getItemPool();
 		for (int i = 0; i < database.size(); i++) {
 			// Add the transaction id to the set of all transaction ids
 			// for each item in that transaction
 
 			// For each item
-			for (Integer item : database.getTransactions().get(i)) {
+			for (int position = database.getTransactionStart(i); position < database
+					.getTransactionStart(i + 1); position++) {
+				int item = items[position];
 				// Get the current tidset of that item and its support
 				BitSetSupport tids = mapItemTIDS.get(item);
 				// If no tidset, then we create one
@@ -598,6 +1083,137 @@ public class AlgoCharm_Bitset {
 		MemoryLogger.getInstance().checkMemory();
 	}
 
+	/**
+	 * This method process all itemsets from an equivalence class to generate larger
+	 * itemsets, when the tidsets are those of the TidsetEngine.
+	 * 
+	 * @param prefix                   the prefix of all itemsets of the current
+	 *                                 equivalence class
+	 * @param prefixSupport            the support of the prefix
+	 * @param equivalenceClassItemsets the list of last items of itemsets of the
+	 *                                 current equivalence class
+	 * @param equivalenceClassTidsets  the list of tidsets of itemsets of the
+	 *                                 current equivalence class
+	 * @throws IOException
+	 */
+	private void processEquivalenceClassWithEngine(int[] prefix, int prefixSupport,
+			List<int[]> equivalenceClassItemsets, List<Tidset> equivalenceClassTidsets) throws IOException {
+
+		// If there is only on itemset in equivalence class
+		if (equivalenceClassItemsets.size() == 1) {
+			save(prefix, equivalenceClassItemsets.get(0), equivalenceClassTidsets.get(0));
+			return;
+		}
+
+		// If there are only two itemsets in the equivalence class
+		if (equivalenceClassItemsets.size() == 2) {
+			int[] itemsetI = equivalenceClassItemsets.get(0);
+			Tidset tidsetI = equivalenceClassTidsets.get(0);
+			int[] itemsetJ = equivalenceClassItemsets.get(1);
+			Tidset tidsetJ = equivalenceClassTidsets.get(1);
+
+			// We calculate the tidset of the itemset resulting from the union of
+			// the first itemset and the second itemset.
+			Tidset tidsetIJ = engine.combine(tidsetI, tidsetJ,
+					engine.chooseMode(tidsetI, prefixSupport, equivalenceClassTidsets, 0));
+			int supportIJ = 0;
+			// If the itemset is frequent, we attempt to save it
+			if (tidsetIJ != null) {
+				supportIJ = tidsetIJ.getSupport();
+				save(prefix, ArraysAlgos.concatenate(itemsetI, itemsetJ), tidsetIJ);
+				engine.release(tidsetIJ);
+			}
+
+			// If prefix+I or prefix+J do not have the same support as prefix+I+J,
+			// then they may be closed, so we attempt to save them.
+			if (supportIJ != tidsetI.getSupport()) {
+				save(prefix, itemsetI, tidsetI);
+			}
+			if (supportIJ != tidsetJ.getSupport()) {
+				save(prefix, itemsetJ, tidsetJ);
+			}
+			return;
+		}
+
+		// For each itemset "prefix" + an itemset X
+		for (int i = 0; i < equivalenceClassItemsets.size(); i++) {
+			int[] itemsetX = equivalenceClassItemsets.get(i);
+			// If the itemset X is null, which means that it had been removed
+			if (itemsetX == null) {
+				continue;
+			}
+			Tidset tidsetX = equivalenceClassTidsets.get(i);
+
+			// create the empty equivalence class for storing the equivalence class of
+			// all itemsets obtained by a join with X, and choose how its tidsets are
+			// stored
+			List<int[]> equivalenceClassIitemsets = new ArrayList<int[]>();
+			List<Tidset> equivalenceClassItidsets = new ArrayList<Tidset>();
+			int mode = engine.chooseMode(tidsetX, prefixSupport, equivalenceClassTidsets, i);
+
+			// For each itemset "prefix" + an itemset J
+			for (int j = i + 1; j < equivalenceClassItemsets.size(); j++) {
+				int[] itemsetJ = equivalenceClassItemsets.get(j);
+				// If J is null, that means that it has been removed by a Charm property
+				if (itemsetJ == null) {
+					continue;
+				}
+				Tidset tidsetJ = equivalenceClassTidsets.get(j);
+
+				// Calculate the tidset of prefix + X + J, which is null if it is
+				// infrequent
+				Tidset tidsetUnion = engine.combine(tidsetX, tidsetJ, mode);
+				if (tidsetUnion == null) {
+					continue;
+				}
+
+				// We next check which of the four Charm properties hold
+				if (tidsetX.getSupport() == tidsetJ.getSupport() && tidsetUnion.getSupport() == tidsetX.getSupport()) {
+					// If Property 1 holds, remove prefix + j and replace X by X + J
+					equivalenceClassItemsets.set(j, null);
+					equivalenceClassTidsets.set(j, null);
+					engine.release(tidsetJ);
+					itemsetX = ArraysAlgos.concatenate(itemsetX, itemsetJ);
+					engine.release(tidsetUnion);
+				} else if (tidsetX.getSupport() < tidsetJ.getSupport()
+						&& tidsetUnion.getSupport() == tidsetX.getSupport()) {
+					// If property 2 holds, replace X by X + J
+					itemsetX = ArraysAlgos.concatenate(itemsetX, itemsetJ);
+					engine.release(tidsetUnion);
+				} else if (tidsetX.getSupport() > tidsetJ.getSupport()
+						&& tidsetUnion.getSupport() == tidsetJ.getSupport()) {
+					// If property 3 holds, remove prefix + j and add prefix + X + J to the
+					// equivalence class
+					equivalenceClassItemsets.set(j, null);
+					equivalenceClassTidsets.set(j, null);
+					engine.release(tidsetJ);
+					equivalenceClassIitemsets.add(itemsetJ);
+					equivalenceClassItidsets.add(tidsetUnion);
+				} else {
+					// If property 4 holds, add prefix + X + J to the equivalence class
+					equivalenceClassIitemsets.add(itemsetJ);
+					equivalenceClassItidsets.add(tidsetUnion);
+				}
+			}
+
+			// Process all itemsets from the equivalence class that we are building, which
+			// has prefix+X as prefix, to find larger itemsets.
+			if (equivalenceClassIitemsets.size() > 0) {
+				int[] newPrefix = ArraysAlgos.concatenate(prefix, itemsetX);
+				processEquivalenceClassWithEngine(newPrefix, tidsetX.getSupport(), equivalenceClassIitemsets,
+						equivalenceClassItidsets);
+				// the tidsets of the equivalence class are not needed anymore
+				engine.release(equivalenceClassItidsets);
+			}
+			// Finally, we attempt to save the itemset prefix+X since it may be a closed
+			// itemset.
+			save(prefix, itemsetX, tidsetX);
+		}
+
+		// we check the memory usage
+		MemoryLogger.getInstance().checkMemory();
+	}
+
 	/**
 	 * Set that the transaction identifiers should be shown (true) or not (false)
 	 * for each pattern found, when writing the result to an output file.
@@ -618,9 +1234,69 @@ public class AlgoCharm_Bitset {
 		System.out.println(" Frequent closed itemsets count : " + itemsetCount);
 		System.out.println(" Total time ~ " + temps + " ms");
 		System.out.println(" Maximum memory usage : " + MemoryLogger.getInstance().getMaxMemory() + " mb");
+		printThreadStats();
 		System.out.println("===================================================");
 	}
 
+	/**
+	 * Print the number of equivalence classes processed by each thread and the
+	 * time spent, if the algorithm was run in parallel.
+	 */
+	void printThreadStats() {
+		if (threadStatistics == null) {
+			return;
+		}
+		for (Entry<String, long[]> entry : threadStatistics.entrySet()) {
+			long[] statistics = entry.getValue();
+			System.out.println(" Thread " + entry.getKey() + " : " + statistics[0] + " equivalence classes in ~ "
+					+ statistics[1] / 1000000 + " ms");
+		}
+	}
+
+	/**
+	 * Set if the tidsets should be represented by the TidsetEngine (as bitmaps of
+	 * longs or arrays of integers, and as tidsets or diffsets, depending on the
+	 * density of each equivalence class) rather than by BitSets.
+	 * 
+	 * @param useTidsetEngine true or false (default: false)
+	 */
+	public void setUseTidsetEngine(boolean useTidsetEngine) {
+		this.useTidsetEngine = useTidsetEngine;
+	}
+
+	/**
+	 * Set the number of threads used to process the equivalence classes of the
+	 * frequent items. By default, a single thread is used. The closed itemsets
+	 * found are the same, in the same order.
+	 * 
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Get the density from which diffsets are used when the TidsetEngine is used
+	 * (see TidsetEngine.setDiffsetThreshold()).
+	 * 
+	 * @return the density
+	 */
+	double getDiffsetThreshold() {
+		return 0.5;
+	}
+
+	/**
+	 * Check if the itemsets kept in memory are annotated with their tidsets.
+	 * 
+	 * @return true if they are, false otherwise
+	 */
+	boolean keepTidsetsInMemory() {
+		return true;
+	}
+
 	/**
 	 * Get the set of frequent itemsets.
 	 * 
@@ -667,6 +1343,12 @@ public class AlgoCharm_Bitset {
 		// Calculate the hash code of that itemset
 		int hashcode = hash.hashCode(tidset.bitset);
 
+		// a worker keeps the itemset until all the tasks are done
+		if (taskBuffer != null) {
+			bufferItemset(itemset, hashcode, tidset.bitset);
+			return;
+		}
+
 		// Check in the hash table to see if the itemset has
 		// a superset already in the hash table. If not, then it is
 		// a closed itemset and we should output it as well
@@ -697,4 +1379,65 @@ public class AlgoCharm_Bitset {
 		}
 	}
 
+	/**
+	 * Save an itemset whose tidset was created by the TidsetEngine.
+	 * 
+	 * @param prefix the prefix part of this itemset
+	 * @param suffix the suffix part of this itemset
+	 * @param tidset the tidset of this itemset
+	 * @throws IOException if an error occurs when writing to file
+	 */
+	void save(int[] prefix, int[] suffix, Tidset tidset) throws IOException {
+		// First we concatenate the suffix and prefix of that itemset.
+		int[] prefixSuffix;
+		if (prefix == null) {
+			prefixSuffix = suffix;
+		} else {
+			prefixSuffix = ArraysAlgos.concatenate(prefix, suffix);
+		}
+		// Sort the resulting itemset
+		Arrays.sort(prefixSuffix);
+
+		// Create an instance of "Itemset" for that itemset to put in hash table
+		ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset itemset = new ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset(
+				prefixSuffix);
+		itemset.setAbsoluteSupport(tidset.getSupport());
+
+		// Calculate the hash code of that itemset (the sum of the tids of its tidset,
+		// which is also known for a diffset)
+		int hashcode = hash.hashCode(tidset.getTidSum());
+
+		// a worker keeps the itemset until all the tasks are done
+		if (taskBuffer != null) {
+			bufferItemset(itemset, hashcode, bufferTidsets ? tidset.toBitSet() : null);
+			return;
+		}
+
+		// If the hash table does not contain a superset, it is a closed itemset
+		if (!hash.containsSupersetOf(itemset, hashcode)) {
+			// increase the itemset count
+			itemsetCount++;
+			// if the result should be saved to memory
+			if (writer == null) {
+				// save it to memory with its tidset (diffsets are not used in that case)
+				BitSet bitset = keepTidsetsInMemory() ? tidset.toBitSet() : null;
+				Itemset itemsetWithTidset = new Itemset(prefixSuffix, bitset, tidset.getSupport());
+				closedItemsets.addItemset(itemsetWithTidset, itemset.size());
+			} else {
+				// otherwise if the result should be saved to a file,
+				// then write it to the output file
+				writer.write(itemset.toString() + " #SUP: " + itemset.support);
+				if (showTransactionIdentifiers) {
+					writer.append(" #TID:");
+					for (int tid : tidset.toArray()) {
+						writer.append(" " + tid);
+					}
+				}
+				writer.newLine();
+			}
+			// add the itemset to the hashtable
+			hash.put(itemset, hashcode);
+		}
+	}
+
 }
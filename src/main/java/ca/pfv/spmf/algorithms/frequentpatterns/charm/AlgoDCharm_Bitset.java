@@ -23,7 +23,7 @@ import java.util.Map;
 
 import ca.pfv.spmf.algorithms.ArraysAlgos;
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
-import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
+import ca.pfv.spmf.input.transaction_database_array_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids_bitset.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_tids_bitset.Itemsets;
 import ca.pfv.spmf.tools.MemoryLogger;
@@ -66,6 +66,32 @@ import ca.pfv.spmf.tools.MemoryLogger;
  */
 public class AlgoDCharm_Bitset extends AlgoCharm_Bitset {
 
+	/**
+	 * Default constructor
+	 */
+	public AlgoDCharm_Bitset() {
+
+	}
+
+	/**
+	 * Constructor of a worker that processes an equivalence class in a task, when
+	 * the algorithm is run in parallel.
+	 * 
+	 * @param algorithm the algorithm that is run
+	 */
+	AlgoDCharm_Bitset(AlgoCharm_Bitset algorithm) {
+		super(algorithm);
+	}
+
+	/**
+	 * Create a worker processing an equivalence class in a task.
+	 * 
+	 * @return the worker
+	 */
+	AlgoCharm_Bitset createWorker() {
+		return new AlgoDCharm_Bitset(this);
+	}
+
 	/**
 	 * Print statistics about the algorithm execution to System.out.
 	 */
@@ -76,6 +102,7 @@ public class AlgoDCharm_Bitset extends AlgoCharm_Bitset {
 		System.out.println(" Frequent itemsets count : " + itemsetCount);
 		System.out.println(" Total time ~ " + temps + " ms");
 		System.out.println(" Maximum memory usage : " + MemoryLogger.getInstance().getMaxMemory() + " mb");
+		printThreadStats();
 		System.out.println("===================================================");
 	}
 
@@ -91,12 +118,15 @@ public class AlgoDCharm_Bitset extends AlgoCharm_Bitset {
 		// (1) First database pass : calculate diffsets of each item.
 		int maxItemId = 0;
 		// for each transaction
+		int[] items = database.getItemPool();
 		for (int i = 0; i < database.size(); i++) {
 			// Add the transaction id to the set of all transaction ids
 			// for each item in that transaction
 
 			// For each item
-			for (Integer item : database.getTransactions().get(i)) {
+			for (int position = database.getTransactionStart(i); position < database
+					.getTransactionStart(i + 1); position++) {
+				int item = items[position];
 				// Get the current tidset of that item
 				BitSetSupport tids = mapItemTIDS.get(item);
 				// If none, then we create one
@@ -188,6 +218,12 @@ public class AlgoDCharm_Bitset extends AlgoCharm_Bitset {
 		// Calculate the hash code of that itemset
 		int hashcode = hash.hashCode(tidset.bitset);
 
+		// a worker keeps the itemset until all the tasks are done
+		if (taskBuffer != null) {
+			bufferItemset(itemset, hashcode, tidset.bitset);
+			return;
+		}
+
 		// Check in the hash table to see if the itemset has
 		// a superset already in the hash table. If not, then it is
 		// a closed itemset and we should output it as well
@@ -220,4 +256,24 @@ public class AlgoDCharm_Bitset extends AlgoCharm_Bitset {
 		}
 	}
 
+	/**
+	 * Get the density from which diffsets are used when the TidsetEngine is used.
+	 * dCharm uses diffsets from 2-itemsets.
+	 * 
+	 * @return the density
+	 */
+	double getDiffsetThreshold() {
+		return 0;
+	}
+
+	/**
+	 * Check if the itemsets kept in memory are annotated with their tidsets. This
+	 * is not the case for dCharm.
+	 * 
+	 * @return false
+	 */
+	boolean keepTidsetsInMemory() {
+		return false;
+	}
+
 }
@@ -0,0 +1,107 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.charm;
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+* 
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* 
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
+
+/**
+ * This class represents an HashTable for storing itemsets found by the Charm
+ * algorithm to perform the closeness check, that can be used by several
+ * threads at the same time. It is used instead of the HashTable when Charm is
+ * run in parallel. <br/>
+ * <br/>
+ * 
+ * Each position of the table contains a linked list of immutable nodes. An
+ * itemset is added by replacing the first node of a list with a
+ * compare-and-set operation, so that no lock is needed and a thread checking
+ * the itemsets of a list is never blocked. The hashcode of an itemset is
+ * calculated with the methods of the HashTable, for a table of the same size.
+ * 
+ * @see AlgoCharm_Bitset
+ * @see HashTable
+ * @see Itemset
+ */
+class ConcurrentHashTable {
+
+	// the internal array for the hash table. Each position contains the first
+	// node of a list of itemsets (null if the list is empty)
+	private final AtomicReferenceArray<Node> table;
+
+	/**
+	 * A node of a list of itemsets
+	 */
+	private static class Node {
+		final Itemset itemset;
+		final Node next;
+
+		Node(Itemset itemset, Node next) {
+			this.itemset = itemset;
+			this.next = next;
+		}
+	}
+
+	/**
+	 * Construtor.
+	 * 
+	 * @param size size of the internal array for the hash table.
+	 */
+	public ConcurrentHashTable(int size) {
+		table = new AtomicReferenceArray<Node>(size);
+	}
+
+	/**
+	 * Check if the hash table contains a superset of a given itemset.
+	 * 
+	 * @param itemset  the given itemset
+	 * @param hashcode the hashcode of the itemset (need to be calculated before by
+	 *                 using the hashcode() method of a HashTable of the same
+	 *                 size.
+	 * @return true if the hash table contains at least one superset, otherwise
+	 *         false.
+	 */
+	public boolean containsSupersetOf(Itemset itemset, int hashcode) {
+		// For each itemset X at that hashcode position
+		for (Node node = table.get(hashcode); node != null; node = node.next) {
+			Itemset itemsetX = node.itemset;
+			// if the support of X is the same as the given itemset and X contains
+			// the given itemset
+			if (itemsetX.getAbsoluteSupport() == itemset.getAbsoluteSupport() && itemsetX.containsAll(itemset)) {
+				// then return true
+				return true;
+			}
+		}
+		// Otherwise no superset is in the hashtable, so return false
+		return false;
+	}
+
+	/**
+	 * Add an itemset to the hash table.
+	 * 
+	 * @param itemset  the itemset to be added to the hashtable
+	 * @param hashcode the hashcode of the itemset (need to be calculated before by
+	 *                 using the hashcode() method of a HashTable of the same
+	 *                 size.
+	 */
+	public void put(Itemset itemset, int hashcode) {
+		Node first;
+		do {
+			first = table.get(hashcode);
+			// retry if another thread added an itemset at that position meanwhile
+		} while (!table.compareAndSet(hashcode, first, new Node(itemset, first)));
+	}
+}
@@ -121,6 +121,24 @@ class HashTable {
 		return (hashcode % table.length);
 	}
 
+	/**
+	 * Calculate the hashcode of an itemset from the sum of the tids of its tidset,
+	 * modulo the internal array length.
+	 * 
+	 * @param tidSum the sum of the tids of the tidset of the itemset
+	 * @return the hashcode (an integer)
+	 */
+	public int hashCode(long tidSum) {
+		// the sum is truncated as if it was calculated with integers
+		int hashcode = (int) tidSum;
+		// If an integer overflow occurs and the hashcode is negative,
+		// then we make it positive.
+		if (hashcode < 0) {
+			hashcode = 0 - hashcode;
+		}
+		return (hashcode % table.length);
+	}
+
 	/**
 	 * Calculate the hashcode of an itemset as the sum of the tids of its tidset,
 	 * modulo the internal array length.
@@ -17,12 +17,12 @@ package ca.pfv.spmf.algorithms.frequentpatterns.clostream;
 */
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
+import ca.pfv.spmf.algorithms.ArraysAlgos;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 
 /**
@@ -32,18 +32,38 @@ import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
  * <br/>
  * 
  * It is a very simple algorithm that do not use a minimum support threshold. It
- * thus finds all closed itemsets.
+ * thus finds all closed itemsets. <br/>
+ * <br/>
+ * 
+ * This implementation can also remove a transaction from the stream (see
+ * removeTransaction()), for example when it leaves a sliding window. The
+ * closed itemsets that are subsets of the transaction lose one of support, and
+ * those that are no longer closed are removed. Their cid may then be given to
+ * a new closed itemset. The items of a transaction must be sorted.
  *
  * @see Itemset
  * @author Philippe Fournier-Viger
  */
 public class AlgoCloSteam {
 
-	// a table to store the closed itemsets
+	// a table to store the closed itemsets (the position of a closed itemset is its
+	// cid, and the cid of a removed closed itemset is null until it is reused)
 	List<Itemset> tableClosed = new ArrayList<Itemset>();
 
-	//
-	Map<Integer, List<Integer>> cidListMap = new HashMap<Integer, List<Integer>>();
+	// the cidlist of each item (the cids of the closed itemsets containing the item)
+	Map<Integer, CidList> cidListMap = new HashMap<Integer, CidList>();
+
+	// the cids of the removed closed itemsets, which can be reused
+	private int[] freeCids = new int[16];
+
+	// the number of cids that can be reused
+	private int freeCidCount = 0;
+
+	// the cids of the closed itemsets found by collectCids(), and a mark for each
+	// cid that was already found
+	private int[] cidBuffer = new int[16];
+	private int[] cidMarks = new int[16];
+	private int currentMark = 0;
 
 	/**
 	 * Constructor that also initialize the algorithm
@@ -72,21 +92,13 @@ public class AlgoCloSteam {
 		tableTemp.put(transaction, 0);
 
 		// Line 03 of the pseudocode in the article
-		// Create a set to store the combined cidlist of items in the transaction
-		Set<Integer> cidset = new HashSet<Integer>();
-		// For each item in the transaction
-		for (Integer item : transaction.getItems()) {
-			// get the cid list of that item
-			List<Integer> cidlist = cidListMap.get(item);
-			if (cidlist != null) {
-				// add the cid list to the combined cid list
-				cidset.addAll(cidlist);
-			}
-		}
+		// Calculate the combined cidlist of items in the transaction
+		int cidCount = collectCids(transaction.getItems());
 
 		// Line 04 of the pseudocode in the article
 		// For each cid in the combined set of cids
-		for (Integer cid : cidset) {
+		for (int i = 0; i < cidCount; i++) {
+			int cid = cidBuffer[i];
 
 			// Get the closed itemset corresponding to this cid
 			Itemset cti = tableClosed.get(cid);
@@ -134,39 +146,192 @@ public class AlgoCloSteam {
 				ctc.increaseTransactionCount();
 			} else {
 				// otherwise the itemset "x" is added to the table of closed itemsets
-				tableClosed.add(x);
 				// its support count is set to the support of ctc + 1.
 				x.setAbsoluteSupport(ctc.getAbsoluteSupport() + 1);
-				// Finally, we loop over each item in the transaction again
-				for (Integer item : transaction.getItems()) {
-					// we get the cidlist of the current item
-					List<Integer> cidlist = cidListMap.get(item);
-					// if null
-					if (cidlist == null) {
-						cidlist = new ArrayList<Integer>();
-						// we create one
-						cidListMap.put(item, cidlist);
+				addClosedItemset(x);
+			}
+
+		}
+	}
+
+	/**
+	 * This method removes a transaction that was processed by
+	 * processNewTransaction() from the stream, to update the set of closed
+	 * itemsets. Since the closed itemsets of a part of the stream are closed
+	 * itemsets of the whole stream, no closed itemset is created. The closed
+	 * itemsets that are subsets of the transaction lose one of support. Such an
+	 * itemset is no longer closed if its support becomes 0, or if a closed
+	 * superset that is not a subset of the transaction has the same support.
+	 * 
+	 * @param transaction a transaction (Itemset)
+	 */
+	public void removeTransaction(Itemset transaction) {
+		// The closed itemsets containing an item of the transaction
+		int cidCount = collectCids(transaction.getItems());
+
+		// Decrease the support of those that are subsets of the transaction.
+		// The other ones are unmarked.
+		List<Itemset> subsets = new ArrayList<Itemset>();
+		for (int i = 0; i < cidCount; i++) {
+			int cid = cidBuffer[i];
+			Itemset closed = tableClosed.get(cid);
+			if (ArraysAlgos.includedIn(closed.getItems(), transaction.getItems())) {
+				closed.setAbsoluteSupport(closed.getAbsoluteSupport() - 1);
+				subsets.add(closed);
+			} else {
+				cidMarks[cid] = 0;
+			}
+		}
+
+		// Remove those that are not closed anymore
+		for (Itemset closed : subsets) {
+			if (closed.getAbsoluteSupport() == 0 || hasSupersetWithSameSupport(closed)) {
+				removeClosedItemset(closed);
+			}
+		}
+	}
+
+	/**
+	 * Check if a closed itemset has a closed superset with the same support that
+	 * is not marked (that is not a subset of the transaction being removed).
+	 * 
+	 * @param closed a closed itemset
+	 * @return true if there is such a superset
+	 */
+	private boolean hasSupersetWithSameSupport(Itemset closed) {
+		// the supersets are in the shortest cidlist of the items of the itemset
+		CidList shortest = null;
+		for (int item : closed.getItems()) {
+			CidList cidlist = cidListMap.get(item);
+			if (shortest == null || cidlist.size() < shortest.size()) {
+				shortest = cidlist;
+			}
+		}
+		for (int i = 0; i < shortest.size(); i++) {
+			int cid = shortest.get(i);
+			Itemset other = tableClosed.get(cid);
+			if (cidMarks[cid] != currentMark && other.getAbsoluteSupport() == closed.getAbsoluteSupport()
+					&& other.size() > closed.size() && ArraysAlgos.includedIn(closed.getItems(), other.getItems())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Put the cids of the closed itemsets containing at least one item of a
+	 * transaction in cidBuffer, and mark them.
+	 * 
+	 * @param items the items of the transaction
+	 * @return the number of cids
+	 */
+	private int collectCids(int[] items) {
+		currentMark++;
+		if (currentMark == Integer.MAX_VALUE) {
+			// start again with new marks
+			Arrays.fill(cidMarks, 0);
+			currentMark = 1;
+		}
+		int cidCount = 0;
+		// For each item in the transaction
+		for (int item : items) {
+			// get the cid list of that item
+			CidList cidlist = cidListMap.get(item);
+			if (cidlist != null) {
+				// add the cid list to the combined cid list
+				for (int i = 0; i < cidlist.size(); i++) {
+					int cid = cidlist.get(i);
+					if (cidMarks[cid] != currentMark) {
+						cidMarks[cid] = currentMark;
+						cidBuffer[cidCount++] = cid;
 					}
-					// then we add x to the cidlist
-					cidlist.add(tableClosed.size() - 1);
 				}
 			}
+		}
+		return cidCount;
+	}
+
+	/**
+	 * Add a closed itemset to the table of closed itemsets and to the cidlist of
+	 * each of its items.
+	 * 
+	 * @param closed the closed itemset
+	 */
+	private void addClosedItemset(Itemset closed) {
+		int cid;
+		if (freeCidCount > 0) {
+			// reuse the cid of a removed closed itemset
+			cid = freeCids[--freeCidCount];
+			tableClosed.set(cid, closed);
+		} else {
+			cid = tableClosed.size();
+			tableClosed.add(closed);
+			if (cid == cidMarks.length) {
+				cidMarks = Arrays.copyOf(cidMarks, cid * 2);
+				cidBuffer = new int[cid * 2];
+			}
+		}
+		// We loop over each item of the closed itemset
+		for (int item : closed.getItems()) {
+			// we get the cidlist of the current item
+			CidList cidlist = cidListMap.get(item);
+			// if null
+			if (cidlist == null) {
+				cidlist = new CidList();
+				// we create one
+				cidListMap.put(item, cidlist);
+			}
+			// then we add the closed itemset to the cidlist
+			cidlist.add(cid);
+		}
+	}
 
+	/**
+	 * Remove a closed itemset from the table of closed itemsets and from the
+	 * cidlist of each of its items.
+	 * 
+	 * @param closed the closed itemset
+	 */
+	private void removeClosedItemset(Itemset closed) {
+		// find its cid in the cidlist of its first item
+		CidList firstCidlist = cidListMap.get(closed.getItems()[0]);
+		int cid = -1;
+		for (int i = 0; i < firstCidlist.size(); i++) {
+			if (tableClosed.get(firstCidlist.get(i)) == closed) {
+				cid = firstCidlist.get(i);
+				break;
+			}
 		}
+		for (int item : closed.getItems()) {
+			CidList cidlist = cidListMap.get(item);
+			cidlist.remove(cid);
+			if (cidlist.size() == 0) {
+				cidListMap.remove(item);
+			}
+		}
+		tableClosed.set(cid, null);
+		if (freeCidCount == freeCids.length) {
+			freeCids = Arrays.copyOf(freeCids, freeCidCount * 2);
+		}
+		freeCids[freeCidCount++] = cid;
 	}
 
 	/**
-	 * Get the current list of closed itemsets without the empty set.
+	 * Get the current list of closed itemsets without the empty set. More
+	 * transactions can be processed afterward.
 	 * 
 	 * @return a List of closed itemsets
 	 */
 	public List<Itemset> getClosedItemsets() {
-		// if the empty set is here
-		if (tableClosed.get(0).size() == 0) {
-			// remove it
-			tableClosed.remove(0);
+		List<Itemset> closedItemsets = new ArrayList<Itemset>(tableClosed.size());
+		// for each closed itemset except the empty set (cid 0)
+		for (int cid = 1; cid < tableClosed.size(); cid++) {
+			Itemset closed = tableClosed.get(cid);
+			// if it was not removed
+			if (closed != null) {
+				closedItemsets.add(closed);
+			}
 		}
-		// return the remaining closed itemsets
-		return tableClosed;
+		return closedItemsets;
 	}
 }
@@ -0,0 +1,103 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.clostream;
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+
+/**
+ * This class represents the cidlist of an item used by CloStream, that is the
+ * ids (cids) of the closed itemsets containing the item. The cids are stored in
+ * an int array sorted by ascending order, so that a cid can be added or removed
+ * without creating objects.
+ *
+ * @see AlgoCloSteam
+ */
+public class CidList {
+
+	/** the cids (sorted) */
+	private int[] cids = new int[4];
+
+	/** the number of cids */
+	private int size = 0;
+
+	/**
+	 * Get the number of cids
+	 *
+	 * @return the number of cids
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get a cid
+	 *
+	 * @param position the position of the cid (from 0 to size() - 1)
+	 * @return the cid
+	 */
+	public int get(int position) {
+		return cids[position];
+	}
+
+	/**
+	 * Add a cid, if it is not in the list
+	 *
+	 * @param cid the cid
+	 */
+	public void add(int cid) {
+		// the position where the cid should be inserted
+		int position = size;
+		if (size > 0 && cids[size - 1] >= cid) {
+			position = Arrays.binarySearch(cids, 0, size, cid);
+			if (position >= 0) {
+				return;
+			}
+			position = -position - 1;
+		}
+		if (size == cids.length) {
+			cids = Arrays.copyOf(cids, size * 2);
+		}
+		System.arraycopy(cids, position, cids, position + 1, size - position);
+		cids[position] = cid;
+		size++;
+	}
+
+	/**
+	 * Remove a cid
+	 *
+	 * @param cid the cid
+	 * @return true if the cid was in the list
+	 */
+	public boolean remove(int cid) {
+		int position = Arrays.binarySearch(cids, 0, size, cid);
+		if (position < 0) {
+			return false;
+		}
+		System.arraycopy(cids, position + 1, cids, position, size - position - 1);
+		size--;
+		return true;
+	}
+
+	/**
+	 * Check if the list contains a cid
+	 *
+	 * @param cid the cid
+	 * @return true if it contains the cid
+	 */
+	public boolean contains(int cid) {
+		return Arrays.binarySearch(cids, 0, size, cid) >= 0;
+	}
+}
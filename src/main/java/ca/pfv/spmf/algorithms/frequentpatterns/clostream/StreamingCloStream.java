@@ -0,0 +1,91 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.clostream;
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.streaming.SlidingWindow;
+import ca.pfv.spmf.algorithms.frequentpatterns.streaming.StreamMiner;
+import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
+
+/**
+ * This class maintains the closed itemsets of a sliding window over a stream
+ * of transactions with CloStream. The transactions that leave the window are
+ * removed with AlgoCloSteam.removeTransaction(), so that the closed itemsets
+ * and their support are exactly those of the transactions of the window.
+ * currentResults() returns a copy of the closed itemsets, made when the closed
+ * itemsets changed since the last copy (see StreamMiner), which is not modified
+ * by the next batches.
+ *
+ * @see AlgoCloSteam
+ * @see StreamMiner
+ */
+public class StreamingCloStream extends StreamMiner<List<Itemset>> {
+
+	/** the CloStream algorithm */
+	private final AlgoCloSteam algo = new AlgoCloSteam();
+
+	/** the minimum support of the closed itemsets of the results */
+	private int minSupport = 1;
+
+	/**
+	 * Constructor
+	 *
+	 * @param window the sliding window
+	 */
+	public StreamingCloStream(SlidingWindow window) {
+		super(window);
+	}
+
+	/**
+	 * Set the minimum support (a number of transactions) of the closed itemsets
+	 * returned by currentResults(). By default, all the closed itemsets are
+	 * returned. It does not change the current results.
+	 *
+	 * @param minSupport the minimum support
+	 */
+	public synchronized void setMinSupport(int minSupport) {
+		this.minSupport = minSupport;
+	}
+
+	@Override
+	protected long insert(int[] transaction) {
+		algo.processNewTransaction(new Itemset(transaction));
+		return 0;
+	}
+
+	@Override
+	protected void remove(int[] transaction, long value) {
+		algo.removeTransaction(new Itemset(transaction));
+	}
+
+	@Override
+	protected List<Itemset> getResults() {
+		List<Itemset> closedItemsets = algo.getClosedItemsets();
+		List<Itemset> results = new ArrayList<Itemset>(closedItemsets.size());
+		for (Itemset closed : closedItemsets) {
+			if (closed.getAbsoluteSupport() >= minSupport) {
+				// the items of a closed itemset are not modified, but its support is
+				Itemset copy = new Itemset(closed.getItems());
+				copy.setAbsoluteSupport(closed.getAbsoluteSupport());
+				results.add(copy);
+			}
+		}
+		return Collections.unmodifiableList(results);
+	}
+}
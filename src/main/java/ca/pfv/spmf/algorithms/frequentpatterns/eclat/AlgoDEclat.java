@@ -20,7 +20,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
-import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
+import ca.pfv.spmf.input.transaction_database_array_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
 import ca.pfv.spmf.tools.MemoryLogger;
@@ -52,6 +52,32 @@ import ca.pfv.spmf.tools.MemoryLogger;
  */
 public class AlgoDEclat extends AlgoEclat {
 
+	/**
+	 * Default constructor
+	 */
+	public AlgoDEclat() {
+
+	}
+
+	/**
+	 * Constructor of a worker that processes an equivalence class in a task, when
+	 * the algorithm is run in parallel.
+	 * 
+	 * @param algorithm the algorithm that is run
+	 */
+	AlgoDEclat(AlgoEclat algorithm) {
+		super(algorithm);
+	}
+
+	/**
+	 * Create a worker processing the equivalence class of an item in a task.
+	 * 
+	 * @return the worker
+	 */
+	AlgoEclat createWorker() {
+		return new AlgoDEclat(this);
+	}
+
 	/**
 	 * Print statistics about the algorithm execution to System.out.
 	 */
@@ -62,6 +88,7 @@ public class AlgoDEclat extends AlgoEclat {
 		System.out.println(" Frequent itemsets count : " + itemsetCount);
 		System.out.println(" Total time ~ " + temps + " ms");
 		System.out.println(" Maximum memory usage : " + MemoryLogger.getInstance().getMaxMemory() + " mb");
+		printThreadStats();
 		System.out.println("===================================================");
 	}
 
@@ -136,4 +163,14 @@ public class AlgoDEclat extends AlgoEclat {
 		}
 	}
 
+	/**
+	 * Get the density from which diffsets are used when the TidsetEngine is used.
+	 * dEclat uses diffsets from 2-itemsets.
+	 * 
+	 * @return the density
+	 */
+	double getDiffsetThreshold() {
+		return 0;
+	}
+
 }
@@ -19,21 +19,31 @@ package ca.pfv.spmf.algorithms.frequentpatterns.eclat;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
+import ca.pfv.spmf.datastructures.tidset.Tidset;
+import ca.pfv.spmf.datastructures.tidset.TidsetEngine;
 import ca.pfv.spmf.datastructures.triangularmatrix.TriangularMatrix;
-import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
+import ca.pfv.spmf.input.transaction_database_array_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
 import ca.pfv.spmf.tools.MemoryLogger;
+import ca.pfv.spmf.tools.MiningMetrics;
 
 /**
  * This is a recent version of the ECLAT algorithm. It uses sets of integers to
@@ -50,7 +60,13 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * <br/>
  * 
  * This version saves the result to a file or keep it into memory if no output
- * path is provided by the user to the runAlgorithm method().
+ * path is provided by the user to the runAlgorithm method(). <br/>
+ * <br/>
+ * 
+ * The equivalence classes of the frequent items do not share any state, so
+ * they can be processed by several threads (see setThreadCount()). The itemsets
+ * found in each equivalence class are kept in memory and are saved once the
+ * class is done, in the same order as in a sequential execution.
  * 
  * @see TriangularMatrix
  * @see TransactionDatabase
@@ -102,6 +118,29 @@ public class AlgoEclat {
 	/** Special parameter to set the maximum size of itemsets to be discovered */
 	int maxItemsetSize = Integer.MAX_VALUE;
 
+	/** if true, the tidsets are those of a TidsetEngine rather than sets */
+	private boolean useTidsetEngine = false;
+
+	/** the engine creating the tidsets while mining, if useTidsetEngine is true */
+	private TidsetEngine engine = null;
+
+	/** the number of threads used to process the equivalence classes */
+	private int threadCount = 1;
+
+	/**
+	 * If the algorithm was run in parallel, the number of equivalence classes
+	 * processed by each thread and the time spent (in nanoseconds), by thread name
+	 */
+	private Map<String, long[]> threadStatistics = null;
+
+	// If this object is a worker processing an equivalence class in a task, the
+	// output written by the task if the result is saved to a file
+	private StringWriter taskOutput = null;
+
+	// the name of the thread that ran the task of this worker, and the time spent
+	private String threadName = null;
+	private long miningTime = 0;
+
 	/**
 	 * Default constructor
 	 */
@@ -109,6 +148,32 @@ public class AlgoEclat {
 
 	}
 
+	/**
+	 * Constructor of a worker that processes an equivalence class in a task, when
+	 * the algorithm is run in parallel. A worker has its own buffers and keeps the
+	 * itemsets that it finds.
+	 * 
+	 * @param algorithm the algorithm that is run
+	 */
+	AlgoEclat(AlgoEclat algorithm) {
+		this.minsupRelative = algorithm.minsupRelative;
+		this.database = algorithm.database;
+		this.matrix = algorithm.matrix;
+		this.maxItemsetSize = algorithm.maxItemsetSize;
+		this.showTransactionIdentifiers = algorithm.showTransactionIdentifiers;
+		this.useTidsetEngine = algorithm.useTidsetEngine;
+		this.itemsetBuffer = new int[BUFFERS_SIZE];
+		if (useTidsetEngine) {
+			this.engine = algorithm.createTidsetEngine();
+		}
+		if (algorithm.writer == null) {
+			this.frequentItemsets = new Itemsets("FREQUENT ITEMSETS");
+		} else {
+			this.taskOutput = new StringWriter();
+			this.writer = new BufferedWriter(taskOutput);
+		}
+	}
+
 	/**
 	 * Run the algorithm.
 	 * 
@@ -122,6 +187,27 @@ public class AlgoEclat {
 	 * @return the result
 	 * @throws IOException exception if error while writing the file.
 	 */
+	public Itemsets runAlgorithm(String output,
+			ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase database, double minsupp,
+			boolean useTriangularMatrixOptimization) throws IOException {
+		// the database is copied into arrays of integers, which are faster to scan
+		return runAlgorithm(output, new TransactionDatabase(database), minsupp, useTriangularMatrixOptimization);
+	}
+
+	/**
+	 * Run the algorithm on a transaction database represented by arrays of
+	 * integers.
+	 * 
+	 * @param database                        a transaction database
+	 * @param output                          an output file path for writing the
+	 *                                        result or if null the result is saved
+	 *                                        into memory and returned
+	 * @param minsupp                         the minimum support
+	 * @param useTriangularMatrixOptimization if true the triangular matrix
+	 *                                        optimization will be applied.
+	 * @return the result
+	 * @throws IOException exception if error while writing the file.
+	 */
 	public Itemsets runAlgorithm(String output, TransactionDatabase database, double minsupp,
 			boolean useTriangularMatrixOptimization) throws IOException {
 
@@ -141,6 +227,7 @@ public class AlgoEclat {
 
 		// reset the number of itemset found to 0
 		itemsetCount = 0;
+		threadStatistics = (threadCount > 1) ? new LinkedHashMap<String, long[]>() : null;
 
 		this.database = database;
 
@@ -151,158 +238,459 @@ public class AlgoEclat {
 		// by the database size
 		this.minsupRelative = (int) Math.ceil(minsupp * database.size());
 
-		// (1) First database pass : calculate tidsets of each item.
-		// This map will contain the tidset of each item
-		// Key: item Value : tidset
-		final Map<Integer, Set<Integer>> mapItemCount = new HashMap<Integer, Set<Integer>>();
+		if (useTidsetEngine) {
+			// (1) and (2) Mine the itemsets with the tidsets of the TidsetEngine
+			mineWithTidsetEngine(database, useTriangularMatrixOptimization);
+		} else {
+			// (1) First database pass : calculate tidsets of each item.
+			// This map will contain the tidset of each item
+			// Key: item Value : tidset
+			final Map<Integer, Set<Integer>> mapItemCount = new HashMap<Integer, Set<Integer>>();
+
+			// for each transaction
+			int maxItemId = calculateSupportSingleItems(database, mapItemCount);
+
+			// if the user chose to use the triangular matrix optimization
+			// for counting the support of itemsets of size 2.
+			if (useTriangularMatrixOptimization && maxItemsetSize >= 1) {
+				createTriangularMatrix(database, maxItemId);
+			}
+
+			// (2) create the list of single items
+			List<Integer> frequentItems = new ArrayList<Integer>();
+
+			// for each item
+			for (Entry<Integer, Set<Integer>> entry : mapItemCount.entrySet()) {
+				// get the tidset of that item
+				Set<Integer> tidset = entry.getValue();
+				// get the support of that item (the cardinality of the tidset)
+				int support = tidset.size();
+				int item = entry.getKey();
+				// if the item is frequent
+				if (support >= minsupRelative && maxItemsetSize >= 1) {
+					// add the item to the list of frequent single items
+					frequentItems.add(item);
+					// output the item
+					saveSingleItem(item, tidset, tidset.size());
+				}
+			}
 
-		// for each transaction
-		int maxItemId = calculateSupportSingleItems(database, mapItemCount);
+			// Sort the list of items by the total order of increasing support.
+			// This total order is suggested in the article by Zaki.
+			Collections.sort(frequentItems, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer arg0, Integer arg1) {
+					return mapItemCount.get(arg0).size() - mapItemCount.get(arg1).size();
+				}
+			});
 
-		// if the user chose to use the triangular matrix optimization
-		// for counting the support of itemsets of size 2.
-		if (useTriangularMatrixOptimization && maxItemsetSize >= 1) {
-			// We create the triangular matrix.
-			matrix = new TriangularMatrix(maxItemId + 1);
-			// for each transaction, take each itemset of size 2,
-			// and update the triangular matrix.
-			for (List<Integer> itemset : database.getTransactions()) {
-				Object[] array = itemset.toArray();
-				// for each item i in the transaction
-				for (int i = 0; i < itemset.size(); i++) {
-					Integer itemI = (Integer) array[i];
-					// compare with each other item j in the same transaction
-					for (int j = i + 1; j < itemset.size(); j++) {
-						Integer itemJ = (Integer) array[j];
-						// update the matrix count by 1 for the pair i, j
-						matrix.incrementCount(itemI, itemJ);
+			// Now we will combine each pairs of single items to generate equivalence
+			// classes
+			// of 2-itemsets
+
+			if (maxItemsetSize >= 2) {
+
+				if (threadCount > 1) {
+					// process the equivalence class of each item in a separate task
+					mineInParallel(frequentItems, mapItemCount, null, useTriangularMatrixOptimization);
+				} else {
+					// For each frequent item I according to the total order
+					for (int i = 0; i < frequentItems.size(); i++) {
+						processEquivalenceClassOfItem(i, frequentItems, mapItemCount, useTriangularMatrixOptimization);
 					}
 				}
 			}
 		}
 
+		// we check the memory usage
+		MemoryLogger.getInstance().checkMemory();
+
+		// We have finish the search.
+		// Therefore, we close the output file writer if the result was saved to a file
+		if (writer != null) {
+			writer.close();
+		}
+
+		// record the end time for statistics
+		endTime = System.currentTimeMillis();
+
+		// Return all frequent itemsets found or null if the result was saved to a file.
+		return frequentItemsets;
+	}
+
+	/**
+	 * Process the equivalence class of 2-itemsets starting with a frequent item.
+	 * 
+	 * @param i                               the position of the item in the list
+	 *                                        of frequent items
+	 * @param frequentItems                   the frequent items, in the total order
+	 *                                        of increasing support
+	 * @param mapItemCount                    the tidset of each item
+	 * @param useTriangularMatrixOptimization if true the triangular matrix
+	 *                                        optimization is applied.
+	 * @throws IOException if error while writting the output to file
+	 */
+	private void processEquivalenceClassOfItem(int i, List<Integer> frequentItems,
+			Map<Integer, Set<Integer>> mapItemCount, boolean useTriangularMatrixOptimization) throws IOException {
+		Integer itemI = frequentItems.get(i);
+		// we obtain the tidset and support of that item
+		Set<Integer> tidsetI = mapItemCount.get(itemI);
+		int supportI = tidsetI.size();
+
+		// We create empty equivalence class for storing all 2-itemsets starting with
+		// the item "i".
+		// This equivalence class is represented by two structures.
+		// The first structure stores the suffix of all 2-itemsets starting with the
+		// prefix "i".
+		// For example, if itemI = "1" and the equivalence class contains 12, 13, 14,
+		// then
+		// the structure "equivalenceC lassIitems" will only contain 2, 3 and 4 instead
+		// of
+		// 12, 13 and 14. The reason for this implementation choice is that it is more
+		// memory efficient.
+		List<Integer> equivalenceClassIitems = new ArrayList<Integer>();
+		// The second structure stores the tidset of each 2-itemset in the equivalence
+		// class
+		// of the prefix "i".
+		List<Set<Integer>> equivalenceClassItidsets = new ArrayList<Set<Integer>>();
+
+		// For each item itemJ that is larger than i according to the total order of
+		// increasing support.
+		loopJ: for (int j = i + 1; j < frequentItems.size(); j++) {
+			int itemJ = frequentItems.get(j);
+
+			// if the triangular matrix optimization is activated we obtain
+			// the support of itemset "ij" in the matrix. This allows to determine
+			// directly without performing a join if "ij" is frequent.
+			if (useTriangularMatrixOptimization) {
+				// check the support of {i,j} according to the triangular matrix
+				int support = matrix.getSupportForItems(itemI, itemJ);
+				// if not frequent
+				if (support < minsupRelative) {
+					// we don't need to consider the itemset "ij" anymore
+					continue loopJ;
+				}
+			}
+
+			// Obtain the tidset of item J and its support.
+			Set<Integer> tidsetJ = mapItemCount.get(itemJ);
+			int supportJ = tidsetJ.size();
+
+			// Calculate the tidset of itemset "IJ" by performing the intersection of
+			// the tidsets of I and the tidset of J.
+			Set<Integer> tidsetIJ = performANDFirstTime(tidsetI, supportI, tidsetJ, supportJ);
+
+			// After that, we add the itemJ to the equivalence class of 2-itemsets
+			// starting with the prefix "i". Note that although we only add "j" to the
+			// equivalence class, the item "j"
+			// actually represents the itemset "ij" since we keep the prefix "i" for the
+			// whole equilvalence class.
+			if (useTriangularMatrixOptimization || calculateSupport(2, supportI, tidsetIJ) >= minsupRelative) {
+				equivalenceClassIitems.add(itemJ);
+				// We also keep the tidset of "ij".
+				equivalenceClassItidsets.add(tidsetIJ);
+			}
+		}
+		// Process all itemsets from the equivalence class of 2-itemsets starting with
+		// prefix I
+		// to find larger itemsets if that class has more than 0 itemsets.
+		if (equivalenceClassIitems.size() > 0) {
+			// This is done by a recursive call. Note that we pass
+			// item I to that method as the prefix of that equivalence class.
+			itemsetBuffer[0] = itemI;
+			processEquivalenceClass(itemsetBuffer, 1, supportI, equivalenceClassIitems,
+					equivalenceClassItidsets);
+		}
+	}
+
+	/**
+	 * Create the triangular matrix containing the support of each pair of items.
+	 * 
+	 * @param database  the transaction database
+	 * @param maxItemId the largest item of the database
+	 */
+	private void createTriangularMatrix(TransactionDatabase database, int maxItemId) {
+		// We create the triangular matrix.
+		matrix = new TriangularMatrix(maxItemId + 1);
+		// for each transaction, take each itemset of size 2,
+		// and update the triangular matrix.
+		int[] items = database.getItemPool();
+		for (int tid = 0; tid < database.size(); tid++) {
+			int end = database.getTransactionStart(tid + 1);
+			// for each item i in the transaction
+			for (int i = database.getTransactionStart(tid); i < end; i++) {
+				int itemI = items[i];
+				// compare with each other item j in the same transaction
+				for (int j = i + 1; j < end; j++) {
+					// update the matrix count by 1 for the pair i, j
+					matrix.incrementCount(itemI, items[j]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Mine the frequent itemsets using the tidsets of a TidsetEngine, which are
+	 * bitmaps or arrays of integers, and tidsets or diffsets, depending on the
+	 * density of each equivalence class.
+	 * 
+	 * @param database                        the transaction database
+	 * @param useTriangularMatrixOptimization if true the triangular matrix
+	 *                                        optimization will be applied.
+	 * @throws IOException if error while writting the output to file
+	 */
+	private void mineWithTidsetEngine(TransactionDatabase database, boolean useTriangularMatrixOptimization)
+			throws IOException {
+		// (1) First database pass : calculate the support of each item.
+		final int[] supports = database.calculateItemSupports();
+
+		// if the user chose to use the triangular matrix optimization
+		// for counting the support of itemsets of size 2.
+		if (useTriangularMatrixOptimization && maxItemsetSize >= 1) {
+			createTriangularMatrix(database, supports.length - 1);
+		}
+
+		// Second database pass: create the tidsets of the frequent items.
+		engine = new TidsetEngine(database.size(), minsupRelative);
+		// the transaction identifiers cannot be shown if diffsets are used
+		engine.setDiffsetThreshold(showTransactionIdentifiers ? Double.POSITIVE_INFINITY : getDiffsetThreshold());
+		final Tidset[] itemTidsets = engine.createItemTidsets(database, supports);
+
 		// (2) create the list of single items
 		List<Integer> frequentItems = new ArrayList<Integer>();
-
-		// for each item
-		for (Entry<Integer, Set<Integer>> entry : mapItemCount.entrySet()) {
-			// get the tidset of that item
-			Set<Integer> tidset = entry.getValue();
-			// get the support of that item (the cardinality of the tidset)
-			int support = tidset.size();
-			int item = entry.getKey();
+		for (int item = 0; item < itemTidsets.length; item++) {
 			// if the item is frequent
-			if (support >= minsupRelative && maxItemsetSize >= 1) {
+			if (itemTidsets[item] != null && maxItemsetSize >= 1) {
 				// add the item to the list of frequent single items
 				frequentItems.add(item);
 				// output the item
-				saveSingleItem(item, tidset, tidset.size());
+				saveSingleItem(item, itemTidsets[item]);
 			}
 		}
 
 		// Sort the list of items by the total order of increasing support.
-		// This total order is suggested in the article by Zaki.
 		Collections.sort(frequentItems, new Comparator<Integer>() {
 			@Override
 			public int compare(Integer arg0, Integer arg1) {
-				return mapItemCount.get(arg0).size() - mapItemCount.get(arg1).size();
+				return itemTidsets[arg0].getSupport() - itemTidsets[arg1].getSupport();
 			}
 		});
-
-		// Now we will combine each pairs of single items to generate equivalence
-		// classes
-		// of 2-itemsets
+		List<Tidset> frequentItemTidsets = new ArrayList<Tidset>(frequentItems.size());
+		for (Integer item : frequentItems) {
+			frequentItemTidsets.add(itemTidsets[item]);
+		}
 
 		if (maxItemsetSize >= 2) {
+			if (threadCount > 1) {
+				mineInParallel(frequentItems, null, frequentItemTidsets, useTriangularMatrixOptimization);
+			} else {
+				for (int i = 0; i < frequentItems.size(); i++) {
+					processEquivalenceClassOfItemWithEngine(i, frequentItems, frequentItemTidsets,
+							useTriangularMatrixOptimization);
+				}
+			}
+		}
+		engine = null;
+	}
 
-			// For each frequent item I according to the total order
+	/**
+	 * Process the equivalence class of 2-itemsets starting with a frequent item,
+	 * using the tidsets of the TidsetEngine.
+	 * 
+	 * @param i                               the position of the item in the list
+	 *                                        of frequent items
+	 * @param frequentItems                   the frequent items, in the total order
+	 *                                        of increasing support
+	 * @param frequentItemTidsets             the tidset of each frequent item
+	 * @param useTriangularMatrixOptimization if true the triangular matrix
+	 *                                        optimization is applied.
+	 * @throws IOException if error while writting the output to file
+	 */
+	private void processEquivalenceClassOfItemWithEngine(int i, List<Integer> frequentItems,
+			List<Tidset> frequentItemTidsets, boolean useTriangularMatrixOptimization) throws IOException {
+		int itemI = frequentItems.get(i);
+		Tidset tidsetI = frequentItemTidsets.get(i);
+
+		// We create the equivalence class of 2-itemsets starting with
+		// the item "i", and choose how its tidsets are stored
+		List<Integer> equivalenceClassIitems = new ArrayList<Integer>();
+		List<Tidset> equivalenceClassItidsets = new ArrayList<Tidset>();
+		int mode = engine.chooseMode(tidsetI, database.size(), frequentItemTidsets, i);
+
+		// For each item itemJ that is larger than i according to the total order of
+		// increasing support.
+		for (int j = i + 1; j < frequentItems.size(); j++) {
+			int itemJ = frequentItems.get(j);
+
+			// if the triangular matrix optimization is activated we skip "ij"
+			// if it is not frequent according to the matrix
+			if (useTriangularMatrixOptimization
+					&& matrix.getSupportForItems(itemI, itemJ) < minsupRelative) {
+				continue;
+			}
+
+			// Calculate the tidset of itemset "IJ", which is null if "IJ" is
+			// not frequent
+			Tidset tidsetIJ = engine.combine(tidsetI, frequentItemTidsets.get(j), mode);
+			if (tidsetIJ != null) {
+				equivalenceClassIitems.add(itemJ);
+				equivalenceClassItidsets.add(tidsetIJ);
+			}
+		}
+		// Process all itemsets from the equivalence class of 2-itemsets starting with
+		// prefix I
+		if (equivalenceClassIitems.size() > 0) {
+			itemsetBuffer[0] = itemI;
+			processEquivalenceClassWithEngine(itemsetBuffer, 1, tidsetI.getSupport(),
+					equivalenceClassIitems, equivalenceClassItidsets);
+			// the tidsets of the equivalence class are not needed anymore
+			engine.release(equivalenceClassItidsets);
+		}
+	}
+
+	/**
+	 * Create the engine creating the tidsets while mining.
+	 * 
+	 * @return the engine
+	 */
+	private TidsetEngine createTidsetEngine() {
+		TidsetEngine engine = new TidsetEngine(database.size(), minsupRelative);
+		engine.setDiffsetThreshold(showTransactionIdentifiers ? Double.POSITIVE_INFINITY : getDiffsetThreshold());
+		return engine;
+	}
+
+	/**
+	 * Process the equivalence classes of the frequent items with several threads.
+	 * The equivalence class of each item is processed by a task of a
+	 * ForkJoinPool, and the idle threads steal the tasks that are waiting. The
+	 * itemsets found by each task are kept by a worker and are saved in the order
+	 * of the items, as in a sequential execution.
+	 * 
+	 * @param frequentItems                   the frequent items, in the total order
+	 *                                        of increasing support
+	 * @param mapItemCount                    the tidset of each item, or null if
+	 *                                        the TidsetEngine is used
+	 * @param frequentItemTidsets             the tidset of each frequent item if
+	 *                                        the TidsetEngine is used, or null
+	 * @param useTriangularMatrixOptimization if true the triangular matrix
+	 *                                        optimization is applied.
+	 * @throws IOException if error while writting the output to file
+	 */
+	private void mineInParallel(List<Integer> frequentItems, Map<Integer, Set<Integer>> mapItemCount,
+			List<Tidset> frequentItemTidsets, boolean useTriangularMatrixOptimization) throws IOException {
+		List<AlgoEclat> workers = new ArrayList<AlgoEclat>(frequentItems.size());
+		List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(frequentItems.size());
+		ForkJoinPool pool = MiningMetrics.current().newForkJoinPool(threadCount);
+		try {
 			for (int i = 0; i < frequentItems.size(); i++) {
-				Integer itemI = frequentItems.get(i);
-				// we obtain the tidset and support of that item
-				Set<Integer> tidsetI = mapItemCount.get(itemI);
-				int supportI = tidsetI.size();
-
-				// We create empty equivalence class for storing all 2-itemsets starting with
-				// the item "i".
-				// This equivalence class is represented by two structures.
-				// The first structure stores the suffix of all 2-itemsets starting with the
-				// prefix "i".
-				// For example, if itemI = "1" and the equivalence class contains 12, 13, 14,
-				// then
-				// the structure "equivalenceC lassIitems" will only contain 2, 3 and 4 instead
-				// of
-				// 12, 13 and 14. The reason for this implementation choice is that it is more
-				// memory efficient.
-				List<Integer> equivalenceClassIitems = new ArrayList<Integer>();
-				// The second structure stores the tidset of each 2-itemset in the equivalence
-				// class
-				// of the prefix "i".
-				List<Set<Integer>> equivalenceClassItidsets = new ArrayList<Set<Integer>>();
-
-				// For each item itemJ that is larger than i according to the total order of
-				// increasing support.
-				loopJ: for (int j = i + 1; j < frequentItems.size(); j++) {
-					int itemJ = frequentItems.get(j);
-
-					// if the triangular matrix optimization is activated we obtain
-					// the support of itemset "ij" in the matrix. This allows to determine
-					// directly without performing a join if "ij" is frequent.
-					if (useTriangularMatrixOptimization) {
-						// check the support of {i,j} according to the triangular matrix
-						int support = matrix.getSupportForItems(itemI, itemJ);
-						// if not frequent
-						if (support < minsupRelative) {
-							// we don't need to consider the itemset "ij" anymore
-							continue loopJ;
-						}
-					}
+				AlgoEclat worker = createWorker();
+				workers.add(worker);
+				tasks.add(pool.submit(worker.new MiningTask(i, frequentItems, mapItemCount, frequentItemTidsets,
+						useTriangularMatrixOptimization)));
+			}
+			// save the itemsets of each task, as soon as it is done
+			for (int i = 0; i < tasks.size(); i++) {
+				tasks.get(i).join();
+				saveItemsetsOfWorker(workers.get(i));
+				workers.set(i, null);
+				tasks.set(i, null);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
 
-					// Obtain the tidset of item J and its support.
-					Set<Integer> tidsetJ = mapItemCount.get(itemJ);
-					int supportJ = tidsetJ.size();
-
-					// Calculate the tidset of itemset "IJ" by performing the intersection of
-					// the tidsets of I and the tidset of J.
-					Set<Integer> tidsetIJ = performANDFirstTime(tidsetI, supportI, tidsetJ, supportJ);
-
-					// After that, we add the itemJ to the equivalence class of 2-itemsets
-					// starting with the prefix "i". Note that although we only add "j" to the
-					// equivalence class, the item "j"
-					// actually represents the itemset "ij" since we keep the prefix "i" for the
-					// whole equilvalence class.
-					if (useTriangularMatrixOptimization || calculateSupport(2, supportI, tidsetIJ) >= minsupRelative) {
-						equivalenceClassIitems.add(itemJ);
-						// We also keep the tidset of "ij".
-						equivalenceClassItidsets.add(tidsetIJ);
-					}
-				}
-				// Process all itemsets from the equivalence class of 2-itemsets starting with
-				// prefix I
-				// to find larger itemsets if that class has more than 0 itemsets.
-				if (equivalenceClassIitems.size() > 0) {
-					// This is done by a recursive call. Note that we pass
-					// item I to that method as the prefix of that equivalence class.
-					itemsetBuffer[0] = itemI;
-					processEquivalenceClass(itemsetBuffer, 1, supportI, equivalenceClassIitems,
-							equivalenceClassItidsets);
+	/**
+	 * Create a worker processing the equivalence class of an item in a task, when
+	 * the algorithm is run in parallel.
+	 * 
+	 * @return the worker
+	 */
+	AlgoEclat createWorker() {
+		return new AlgoEclat(this);
+	}
+
+	/**
+	 * Save the itemsets found by a worker and update the statistics of the thread
+	 * that ran its task.
+	 * 
+	 * @param worker the worker
+	 * @throws IOException if error while writting the output to file
+	 */
+	private void saveItemsetsOfWorker(AlgoEclat worker) throws IOException {
+		itemsetCount += worker.itemsetCount;
+		if (writer == null) {
+			for (List<Itemset> level : worker.frequentItemsets.getLevels()) {
+				for (Itemset itemset : level) {
+					frequentItemsets.addItemset(itemset, itemset.size());
 				}
 			}
+		} else {
+			worker.writer.flush();
+			writer.write(worker.taskOutput.toString());
 		}
+		long[] statistics = threadStatistics.get(worker.threadName);
+		if (statistics == null) {
+			statistics = new long[2];
+			threadStatistics.put(worker.threadName, statistics);
+		}
+		statistics[0]++;
+		statistics[1] += worker.miningTime;
+	}
 
-		// we check the memory usage
-		MemoryLogger.getInstance().checkMemory();
-
-		// We have finish the search.
-		// Therefore, we close the output file writer if the result was saved to a file
-		if (writer != null) {
-			writer.close();
+	/**
+	 * A task processing the equivalence class of an item, when the algorithm is
+	 * run in parallel. The tidsets of the items are only read, so they can be
+	 * shared by several tasks.
+	 */
+	private class MiningTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		// the position of the item in the list of frequent items
+		private final int itemIndex;
+		private final List<Integer> frequentItems;
+		// the tidsets of the items (only one of the two is used)
+		private final Map<Integer, Set<Integer>> mapItemCount;
+		private final List<Tidset> frequentItemTidsets;
+		private final boolean useTriangularMatrixOptimization;
+
+		MiningTask(int itemIndex, List<Integer> frequentItems, Map<Integer, Set<Integer>> mapItemCount,
+				List<Tidset> frequentItemTidsets, boolean useTriangularMatrixOptimization) {
+			this.itemIndex = itemIndex;
+			this.frequentItems = frequentItems;
+			this.mapItemCount = mapItemCount;
+			this.frequentItemTidsets = frequentItemTidsets;
+			this.useTriangularMatrixOptimization = useTriangularMatrixOptimization;
 		}
 
-		// record the end time for statistics
-		endTime = System.currentTimeMillis();
+		@Override
+		protected void compute() {
+			long start = System.nanoTime();
+			try {
+				if (frequentItemTidsets != null) {
+					processEquivalenceClassOfItemWithEngine(itemIndex, frequentItems, frequentItemTidsets,
+							useTriangularMatrixOptimization);
+				} else {
+					processEquivalenceClassOfItem(itemIndex, frequentItems, mapItemCount,
+							useTriangularMatrixOptimization);
+				}
+			} catch (IOException e) {
+				// a worker does not write to a file
+				throw new UncheckedIOException(e);
+			}
+			miningTime = System.nanoTime() - start;
+			threadName = Thread.currentThread().getName();
+		}
+	}
 
-		// Return all frequent itemsets found or null if the result was saved to a file.
-		return frequentItemsets;
+	/**
+	 * Get the density from which diffsets are used when the TidsetEngine is used
+	 * (see TidsetEngine.setDiffsetThreshold()).
+	 * 
+	 * @return the density
+	 */
+	double getDiffsetThreshold() {
+		return 0.5;
 	}
 
 	/**
@@ -315,9 +703,12 @@ public class AlgoEclat {
 	private int calculateSupportSingleItems(TransactionDatabase database,
 			final Map<Integer, Set<Integer>> mapItemCount) {
 		int maxItemId = 0;
+		int[] items = database.getItemPool();
 		for (int i = 0; i < database.size(); i++) {
 			// for each item in that transaction
-			for (Integer item : database.getTransactions().get(i)) {
+			for (int position = database.getTransactionStart(i); position < database
+					.getTransactionStart(i + 1); position++) {
+				int item = items[position];
 				// get the current tidset of that item
 				Set<Integer> set = mapItemCount.get(item);
 				// if no tidset, then we create one
@@ -509,6 +900,98 @@ public class AlgoEclat {
 		MemoryLogger.getInstance().checkMemory();
 	}
 
+	/**
+	 * This method process all itemsets from an equivalence class to generate larger
+	 * itemsets, when the tidsets are those of the TidsetEngine.
+	 * 
+	 * @param prefix                  a common prefix to all itemsets of the
+	 *                                equivalence class
+	 * @param prefixLength            the prefix length
+	 * @param supportPrefix           the support of the prefix
+	 * @param equivalenceClassItems   a list of suffixes of itemsets in the current
+	 *                                equivalence class.
+	 * @param equivalenceClassTidsets a list of tidsets of itemsets of the current
+	 *                                equivalence class.
+	 * @throws IOException if error while writting the output to file
+	 */
+	private void processEquivalenceClassWithEngine(int[] prefix, int prefixLength, int supportPrefix,
+			List<Integer> equivalenceClassItems, List<Tidset> equivalenceClassTidsets) throws IOException {
+
+		// If there is only one itemset in equivalence class
+		if (equivalenceClassItems.size() == 1) {
+			save(prefix, prefixLength, equivalenceClassItems.get(0), equivalenceClassTidsets.get(0));
+			return;
+		}
+
+		// If there is only two itemsets in the equivalence class
+		if (equivalenceClassItems.size() == 2) {
+			int itemI = equivalenceClassItems.get(0);
+			Tidset tidsetI = equivalenceClassTidsets.get(0);
+			save(prefix, prefixLength, itemI, tidsetI);
+
+			int itemJ = equivalenceClassItems.get(1);
+			Tidset tidsetJ = equivalenceClassTidsets.get(1);
+			save(prefix, prefixLength, itemJ, tidsetJ);
+
+			// We calculate the tidset of the itemset resulting from the union of
+			// the first itemset and the second itemset.
+			if (prefixLength + 2 <= maxItemsetSize) {
+				Tidset tidsetIJ = engine.combine(tidsetI, tidsetJ,
+						engine.chooseMode(tidsetI, supportPrefix, equivalenceClassTidsets, 0));
+				// We save the itemset prefix+IJ to the output if it is frequent
+				if (tidsetIJ != null) {
+					prefix[prefixLength] = itemI;
+					save(prefix, prefixLength + 1, itemJ, tidsetIJ);
+					engine.release(tidsetIJ);
+				}
+			}
+			return;
+		}
+
+		// For each itemset "prefix" + "i"
+		for (int i = 0; i < equivalenceClassItems.size(); i++) {
+			int suffixI = equivalenceClassItems.get(i);
+			Tidset tidsetI = equivalenceClassTidsets.get(i);
+
+			// save the itemset to the file because it is frequent
+			save(prefix, prefixLength, suffixI, tidsetI);
+
+			if (prefixLength + 2 <= maxItemsetSize) {
+
+				// create the empty equivalence class for storing all itemsets of the
+				// equivalence class starting with prefix + i, and choose how its tidsets
+				// are stored
+				List<Integer> equivalenceClassISuffixItems = new ArrayList<Integer>();
+				List<Tidset> equivalenceITidsets = new ArrayList<Tidset>();
+				int mode = engine.chooseMode(tidsetI, supportPrefix, equivalenceClassTidsets, i);
+
+				// For each itemset "prefix" + j"
+				for (int j = i + 1; j < equivalenceClassItems.size(); j++) {
+					// Calculate the tidset of the itemset {prefix, i,j}, which is null if
+					// it is not frequent
+					Tidset tidsetIJ = engine.combine(tidsetI, equivalenceClassTidsets.get(j), mode);
+					if (tidsetIJ != null) {
+						equivalenceClassISuffixItems.add(equivalenceClassItems.get(j));
+						equivalenceITidsets.add(tidsetIJ);
+					}
+				}
+
+				// If there is more than an itemset in the equivalence class
+				// then we recursively process that equivalence class to find larger itemsets
+				if (equivalenceClassISuffixItems.size() > 0) {
+					prefix[prefixLength] = suffixI;
+					processEquivalenceClassWithEngine(prefix, prefixLength + 1, tidsetI.getSupport(),
+							equivalenceClassISuffixItems, equivalenceITidsets);
+					// the tidsets of the equivalence class are not needed anymore
+					engine.release(equivalenceITidsets);
+				}
+			}
+		}
+
+		// we check the memory usage
+		MemoryLogger.getInstance().checkMemory();
+	}
+
 	/**
 	 * Calculate the support of an itemset X using the tidset of X.
 	 * 
@@ -622,6 +1105,19 @@ public class AlgoEclat {
 		}
 	}
 
+	/**
+	 * Save an itemset whose tidset was created by the TidsetEngine.
+	 * 
+	 * @param prefix       the prefix of the itemset to be saved
+	 * @param prefixLength the prefix length
+	 * @param suffixItem   the last item to be appended to the itemset
+	 * @param tidset       the tidset of this itemset
+	 * @throws IOException if an error occurrs when writing to disk.
+	 */
+	private void save(int[] prefix, int prefixLength, int suffixItem, Tidset tidset) throws IOException {
+		save(prefix, prefixLength, suffixItem, toSet(tidset), tidset.getSupport());
+	}
+
 	/**
 	 * Save an itemset containing a single item to disk or memory (depending on what
 	 * the user chose).
@@ -657,6 +1153,37 @@ public class AlgoEclat {
 		}
 	}
 
+	/**
+	 * Save an itemset containing a single item whose tidset was created by the
+	 * TidsetEngine.
+	 * 
+	 * @param item   the item to be saved
+	 * @param tidset the tidset of this itemset
+	 * @throws IOException if an error occurrs when writing to disk.
+	 */
+	private void saveSingleItem(int item, Tidset tidset) throws IOException {
+		saveSingleItem(item, toSet(tidset), tidset.getSupport());
+	}
+
+	/**
+	 * Get the transaction identifiers of a tidset of the TidsetEngine, if they are
+	 * written to the output file.
+	 * 
+	 * @param tidset the tidset
+	 * @return the transaction identifiers in ascending order or null if they are
+	 *         not written
+	 */
+	private Set<Integer> toSet(Tidset tidset) {
+		if (writer == null || !showTransactionIdentifiers) {
+			return null;
+		}
+		Set<Integer> set = new LinkedHashSet<Integer>();
+		for (int tid : tidset.toArray()) {
+			set.add(tid);
+		}
+		return set;
+	}
+
 	/**
 	 * Set that the transaction identifiers should be shown (true) or not (false)
 	 * for each pattern found, when writing the result to an output file.
@@ -677,9 +1204,25 @@ public class AlgoEclat {
 		System.out.println(" Frequent itemsets count : " + itemsetCount);
 		System.out.println(" Total time ~ " + temps + " ms");
 		System.out.println(" Maximum memory usage : " + MemoryLogger.getInstance().getMaxMemory() + " mb");
+		printThreadStats();
 		System.out.println("===================================================");
 	}
 
+	/**
+	 * Print the number of equivalence classes processed by each thread and the
+	 * time spent, if the algorithm was run in parallel.
+	 */
+	void printThreadStats() {
+		if (threadStatistics == null) {
+			return;
+		}
+		for (Entry<String, long[]> entry : threadStatistics.entrySet()) {
+			long[] statistics = entry.getValue();
+			System.out.println(" Thread " + entry.getKey() + " : " + statistics[0] + " equivalence classes in ~ "
+					+ statistics[1] / 1000000 + " ms");
+		}
+	}
+
 	/**
 	 * Get the set of frequent itemsets found by the algorithm.
 	 * 
@@ -689,6 +1232,31 @@ public class AlgoEclat {
 		return frequentItemsets;
 	}
 
+	/**
+	 * Set if the tidsets should be represented by the TidsetEngine (as bitmaps of
+	 * longs or arrays of integers, and as tidsets or diffsets, depending on the
+	 * density of each equivalence class) rather than by sets of integers.
+	 * 
+	 * @param useTidsetEngine true or false (default: false)
+	 */
+	public void setUseTidsetEngine(boolean useTidsetEngine) {
+		this.useTidsetEngine = useTidsetEngine;
+	}
+
+	/**
+	 * Set the number of threads used to process the equivalence classes of the
+	 * frequent items. By default, a single thread is used. The itemsets found are
+	 * the same, in the same order.
+	 * 
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
 	/**
 	 * Set the maximum pattern length
 	 * 
@@ -0,0 +1,95 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.eclat;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.File;
+import java.io.IOException;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.charm.AlgoCharm_Bitset;
+import ca.pfv.spmf.algorithms.frequentpatterns.charm.AlgoDCharm_Bitset;
+import ca.pfv.spmf.datastructures.tidset.TidsetEngine;
+import ca.pfv.spmf.input.transaction_database_array_integers.TransactionDatabase;
+import ca.pfv.spmf.tools.dataset_generator.TransactionDatabaseGenerator;
+
+/**
+ * Example comparing the speed of Eclat, dEclat, Charm and dCharm with their
+ * default tidsets (sets of integers for Eclat and dEclat, BitSets for Charm
+ * and dCharm) and with the tidsets of the TidsetEngine, on a database
+ * generated by the TransactionDatabaseGenerator. The arguments are:
+ * transaction count, number of distinct items, maximum number of items per
+ * transaction and minimum support.
+ * 
+ * @see TidsetEngine
+ */
+public class MainTestCompareTidsets {
+
+	public static void main(String[] arg) throws IOException {
+		int transactionCount = arg.length > 0 ? Integer.parseInt(arg[0]) : 50000;
+		int maxDistinctItems = arg.length > 1 ? Integer.parseInt(arg[1]) : 100;
+		int maxItemCountPerTransaction = arg.length > 2 ? Integer.parseInt(arg[2]) : 20;
+		double minsup = arg.length > 3 ? Double.parseDouble(arg[3]) : 0.01;
+
+		// generate the database
+		File file = File.createTempFile("transactions", ".txt");
+		file.deleteOnExit();
+		TransactionDatabaseGenerator generator = new TransactionDatabaseGenerator();
+		generator.generateDatabase(transactionCount, maxDistinctItems, maxItemCountPerTransaction, file.getPath());
+		System.out.println("Database: " + transactionCount + " transactions, " + maxDistinctItems
+				+ " distinct items, at most " + maxItemCountPerTransaction + " items per transaction, minsup "
+				+ minsup);
+		TransactionDatabase database = new TransactionDatabase();
+		database.loadFile(file.getPath());
+
+		File output = File.createTempFile("itemsets", ".txt");
+		output.deleteOnExit();
+		System.out.println("              default (ms)   TidsetEngine (ms)   itemsets");
+		long[] times = new long[2];
+		int itemsetCount = 0;
+		for (int i = 0; i < 2; i++) {
+			AlgoEclat algo = new AlgoEclat();
+			algo.setUseTidsetEngine(i == 1);
+			long start = System.currentTimeMillis();
+			algo.runAlgorithm(output.getPath(), database, minsup, true);
+			times[i] = System.currentTimeMillis() - start;
+			itemsetCount = algo.itemsetCount;
+		}
+		System.out.println(String.format(" Eclat   %17d %19d %10d", times[0], times[1], itemsetCount));
+		for (int i = 0; i < 2; i++) {
+			AlgoEclat algo = new AlgoDEclat();
+			algo.setUseTidsetEngine(i == 1);
+			long start = System.currentTimeMillis();
+			algo.runAlgorithm(output.getPath(), database, minsup, true);
+			times[i] = System.currentTimeMillis() - start;
+			itemsetCount = algo.itemsetCount;
+		}
+		System.out.println(String.format(" dEclat  %17d %19d %10d", times[0], times[1], itemsetCount));
+		for (int i = 0; i < 2; i++) {
+			AlgoCharm_Bitset algo = new AlgoCharm_Bitset();
+			algo.setUseTidsetEngine(i == 1);
+			long start = System.currentTimeMillis();
+			algo.runAlgorithm(output.getPath(), database, minsup, true, 100000);
+			times[i] = System.currentTimeMillis() - start;
+		}
+		System.out.println(String.format(" Charm   %17d %19d", times[0], times[1]));
+		for (int i = 0; i < 2; i++) {
+			AlgoCharm_Bitset algo = new AlgoDCharm_Bitset();
+			algo.setUseTidsetEngine(i == 1);
+			long start = System.currentTimeMillis();
+			algo.runAlgorithm(output.getPath(), database, minsup, true, 100000);
+			times[i] = System.currentTimeMillis() - start;
+		}
+		System.out.println(String.format(" dCharm  %17d %19d", times[0], times[1]));
+	}
+}
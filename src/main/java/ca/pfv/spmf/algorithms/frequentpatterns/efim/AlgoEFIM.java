@@ -3,13 +3,19 @@ package ca.pfv.spmf.algorithms.frequentpatterns.efim;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import ca.pfv.spmf.tools.MemoryLogger;
+import ca.pfv.spmf.tools.MiningMetrics;
 
 /* This file is copyright (c) 2012-2015 Souleymane Zida & Philippe Fournier-Viger
 * 
@@ -31,6 +37,15 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * This is an implementation of the EFIM algorithm for mining high-utility
  * itemsets from a transaction database. More information on the EFIM algorithm
  * can be found in that paper: <br\>
+ * <br/>
+ * 
+ * The search can be performed by several threads (see setThreadCount()). The
+ * subtree of each promising item of the first level is explored by a task of a
+ * ForkJoinPool, with utility-bin arrays and a buffer that belong to the thread
+ * running the task. The transactions of the database (after merging) are shared
+ * by the tasks, which only read them. The itemsets found by each task are kept
+ * and are saved once the task is done, in the same order as in a sequential
+ * execution.
  *
  * @author Souleymane Zida, Philippe Fournier-Viger using some code by Alan
  *         Souza
@@ -103,6 +118,25 @@ public class AlgoEFIM {
 	/** If true, sub-tree utility pruning will be performed */
 	private boolean activateSubtreeUtilityPruning;
 
+	/** the number of threads used to explore the search space */
+	private int threadCount = 1;
+
+	/**
+	 * When the algorithm is run in parallel, the number of tasks per thread that
+	 * can be in flight, waiting for the output of an earlier task to be saved
+	 */
+	private static final int MAX_TASKS_PER_THREAD = 4;
+
+	/**
+	 * When the algorithm is run in parallel, the utility-bin arrays and the
+	 * temporary buffer of each thread
+	 */
+	private ThreadLocal<int[][]> threadBuffers = null;
+
+	// If this object is a worker exploring a subtree in a task, the output written
+	// by the task if the result is saved to a file
+	private StringWriter taskOutput = null;
+
 	/**
 	 * Constructor
 	 */
@@ -110,6 +144,29 @@ public class AlgoEFIM {
 
 	}
 
+	/**
+	 * Constructor of a worker that explores the subtree of an item in a task, when
+	 * the algorithm is run in parallel. A worker keeps the itemsets that it finds
+	 * and uses the utility-bin arrays of the thread running its task.
+	 * 
+	 * @param algorithm the algorithm that is run
+	 */
+	private AlgoEFIM(AlgoEFIM algorithm) {
+		this.minUtil = algorithm.minUtil;
+		this.activateTransactionMerging = algorithm.activateTransactionMerging;
+		this.activateSubtreeUtilityPruning = algorithm.activateSubtreeUtilityPruning;
+		this.newNamesToOldNames = algorithm.newNamesToOldNames;
+		this.newItemCount = algorithm.newItemCount;
+		this.threadBuffers = algorithm.threadBuffers;
+		this.temp = null;
+		if (algorithm.writer == null) {
+			this.highUtilityItemsets = new Itemsets("Itemsets");
+		} else {
+			this.taskOutput = new StringWriter();
+			this.writer = new BufferedWriter(taskOutput);
+		}
+	}
+
 	/**
 	 * Run the algorithm
 	 * 
@@ -358,7 +415,11 @@ public class AlgoEFIM {
 //    	//======
 		// Recursive call to the algorithm
 		// If subtree utility pruning is activated
-		if (activateSubtreeUtilityPruning) {
+		if (threadCount > 1) {
+			// The subtrees of the promising items are explored by several threads
+			mineInParallel(dataset.getTransactions(), itemsToKeep,
+					activateSubtreeUtilityPruning ? itemsToExplore : itemsToKeep);
+		} else if (activateSubtreeUtilityPruning) {
 			// We call the recursive algorithm with the database, secondary items and
 			// primary items
 			backtrackingEFIM(dataset.getTransactions(), itemsToKeep, itemsToExplore, 0);
@@ -444,53 +505,79 @@ public class AlgoEFIM {
 
 		// ======== for each frequent item e =============
 		for (int j = 0; j < itemsToExplore.size(); j++) {
-			Integer e = itemsToExplore.get(j);
+			backtrackingEFIMForItem(transactionsOfP, itemsToKeep, itemsToExplore, j, prefixLength, false);
+		}
 
-			// ========== PERFORM INTERSECTION =====================
-			// Calculate transactions containing P U {e}
-			// At the same time project transactions to keep what appears after "e"
-			List<Transaction> transactionsPe = new ArrayList<Transaction>();
+		// check the maximum memory usage for statistics purpose
+		MemoryLogger.getInstance().checkMemory();
+	}
 
-			// variable to calculate the utility of P U {e}
-			int utilityPe = 0;
+	/**
+	 * Find all high-utility itemsets starting with the current prefix P extended
+	 * with an item e.
+	 * 
+	 * @param transactionsOfP    the list of transactions containing the current
+	 *                           prefix P
+	 * @param itemsToKeep        the list of secondary items in the p-projected
+	 *                           database
+	 * @param itemsToExplore     the list of primary items in the p-projected
+	 *                           database
+	 * @param j                  the position of e in the list of primary items
+	 * @param prefixLength       the current prefixLength
+	 * @param transactionsShared true if the transactions containing P are read by
+	 *                           several threads, so that their offset must not be
+	 *                           modified
+	 * @throws IOException if error writing to output file
+	 */
+	private void backtrackingEFIMForItem(List<Transaction> transactionsOfP, List<Integer> itemsToKeep,
+			List<Integer> itemsToExplore, int j, int prefixLength, boolean transactionsShared) throws IOException {
+		Integer e = itemsToExplore.get(j);
 
-			// For merging transactions, we will keep track of the last transaction read
-			// and the number of identical consecutive transactions
-			Transaction previousTransaction = null;
-			int consecutiveMergeCount = 0;
+		// ========== PERFORM INTERSECTION =====================
+		// Calculate transactions containing P U {e}
+		// At the same time project transactions to keep what appears after "e"
+		List<Transaction> transactionsPe = new ArrayList<Transaction>();
 
-			// this variable is to record the time for performing intersection
-			long timeFirstIntersection = System.currentTimeMillis();
+		// variable to calculate the utility of P U {e}
+		int utilityPe = 0;
 
-			// For each transaction
-			for (Transaction transaction : transactionsOfP) {
-				// Increase the number of transaction read
-				transactionReadingCount++;
+		// For merging transactions, we will keep track of the last transaction read
+		// and the number of identical consecutive transactions
+		Transaction previousTransaction = null;
+		int consecutiveMergeCount = 0;
 
-				// To record the time for performing binary searh
-				long timeBinaryLocal = System.currentTimeMillis();
+		// this variable is to record the time for performing intersection
+		long timeFirstIntersection = System.currentTimeMillis();
 
-				// we remember the position where e appears.
-				// we will call this position an "offset"
-				int positionE = -1;
-				// Variables low and high for binary search
-				int low = transaction.offset;
-				int high = transaction.items.length - 1;
+		// For each transaction
+		for (Transaction transaction : transactionsOfP) {
+			// Increase the number of transaction read
+			transactionReadingCount++;
 
-				// perform binary search to find e in the transaction
-				while (high >= low) {
-					int middle = (low + high) >>> 1; // divide by 2
-					if (transaction.items[middle] < e) {
-						low = middle + 1;
-					} else if (transaction.items[middle] == e) {
-						positionE = middle;
-						break;
-					} else {
-						high = middle - 1;
-					}
+			// To record the time for performing binary searh
+			long timeBinaryLocal = System.currentTimeMillis();
+
+			// we remember the position where e appears.
+			// we will call this position an "offset"
+			int positionE = -1;
+			// Variables low and high for binary search
+			int low = transaction.offset;
+			int high = transaction.items.length - 1;
+
+			// perform binary search to find e in the transaction
+			while (high >= low) {
+				int middle = (low + high) >>> 1; // divide by 2
+				if (transaction.items[middle] < e) {
+					low = middle + 1;
+				} else if (transaction.items[middle] == e) {
+					positionE = middle;
+					break;
+				} else {
+					high = middle - 1;
 				}
-				// record the time spent for performing the binary search
-				timeBinarySearch += System.currentTimeMillis() - timeBinaryLocal;
+			}
+			// record the time spent for performing the binary search
+			timeBinarySearch += System.currentTimeMillis() - timeBinaryLocal;
 
 //	        	if(prefixLength == 0 && newNamesToOldNames[e] == 385) {
 //		        	for(int i=0; i < transaction.getItems().length; i++) {
@@ -500,181 +587,322 @@ public class AlgoEFIM {
 //		        	}
 //		        }
 
-				// if 'e' was found in the transaction
-				if (positionE > -1) {
+			// if 'e' was found in the transaction
+			if (positionE > -1) {
 
-					// optimization: if the 'e' is the last one in this transaction,
-					// we don't keep the transaction
-					if (transaction.getLastPosition() == positionE) {
-						// but we still update the sum of the utility of P U {e}
-						utilityPe += transaction.utilities[positionE] + transaction.prefixUtility;
-					} else {
-						// otherwise
-						if (activateTransactionMerging
-								&& MAXIMUM_SIZE_MERGING >= (transaction.items.length - positionE)) {
-							// we cut the transaction starting from position 'e'
-							Transaction projectedTransaction = new Transaction(transaction, positionE);
-							utilityPe += projectedTransaction.prefixUtility;
-
-							// if it is the first transaction that we read
-							if (previousTransaction == null) {
-								// we keep the transaction in memory
-								previousTransaction = projectedTransaction;
-							} else if (isEqualTo(projectedTransaction, previousTransaction)) {
-								// If it is not the first transaction of the database and
-								// if the transaction is equal to the previously read transaction,
-								// we will merge the transaction with the previous one
-
-								// increase the number of consecutive transactions merged
-								mergeCount++;
-
-								// if the first consecutive merge
-								if (consecutiveMergeCount == 0) {
-									// copy items and their profit from the previous transaction
-									int itemsCount = previousTransaction.items.length - previousTransaction.offset;
-									int[] items = new int[itemsCount];
-									System.arraycopy(previousTransaction.items, previousTransaction.offset, items, 0,
-											itemsCount);
-									int[] utilities = new int[itemsCount];
-									System.arraycopy(previousTransaction.utilities, previousTransaction.offset,
-											utilities, 0, itemsCount);
-
-									// make the sum of utilities from the previous transaction
-									int positionPrevious = 0;
-									int positionProjection = projectedTransaction.offset;
-									while (positionPrevious < itemsCount) {
-										utilities[positionPrevious] += projectedTransaction.utilities[positionProjection];
-										positionPrevious++;
-										positionProjection++;
-									}
-
-									// make the sum of prefix utilities
-									int sumUtilities = previousTransaction.prefixUtility += projectedTransaction.prefixUtility;
-
-									// create the new transaction replacing the two merged transactions
-									previousTransaction = new Transaction(items, utilities,
-											previousTransaction.transactionUtility
-													+ projectedTransaction.transactionUtility);
-									previousTransaction.prefixUtility = sumUtilities;
-
-								} else {
-									// if not the first consecutive merge
-
-									// add the utilities in the projected transaction to the previously
-									// merged transaction
-									int positionPrevious = 0;
-									int positionProjected = projectedTransaction.offset;
-									int itemsCount = previousTransaction.items.length;
-									while (positionPrevious < itemsCount) {
-										previousTransaction.utilities[positionPrevious] += projectedTransaction.utilities[positionProjected];
-										positionPrevious++;
-										positionProjected++;
-									}
-
-									// make also the sum of transaction utility and prefix utility
-									previousTransaction.transactionUtility += projectedTransaction.transactionUtility;
-									previousTransaction.prefixUtility += projectedTransaction.prefixUtility;
+				// optimization: if the 'e' is the last one in this transaction,
+				// we don't keep the transaction
+				if (transaction.getLastPosition() == positionE) {
+					// but we still update the sum of the utility of P U {e}
+					utilityPe += transaction.utilities[positionE] + transaction.prefixUtility;
+				} else {
+					// otherwise
+					if (activateTransactionMerging
+							&& MAXIMUM_SIZE_MERGING >= (transaction.items.length - positionE)) {
+						// we cut the transaction starting from position 'e'
+						Transaction projectedTransaction = new Transaction(transaction, positionE);
+						utilityPe += projectedTransaction.prefixUtility;
+
+						// if it is the first transaction that we read
+						if (previousTransaction == null) {
+							// we keep the transaction in memory
+							previousTransaction = projectedTransaction;
+						} else if (isEqualTo(projectedTransaction, previousTransaction)) {
+							// If it is not the first transaction of the database and
+							// if the transaction is equal to the previously read transaction,
+							// we will merge the transaction with the previous one
+
+							// increase the number of consecutive transactions merged
+							mergeCount++;
+
+							// if the first consecutive merge
+							if (consecutiveMergeCount == 0) {
+								// copy items and their profit from the previous transaction
+								int itemsCount = previousTransaction.items.length - previousTransaction.offset;
+								int[] items = new int[itemsCount];
+								System.arraycopy(previousTransaction.items, previousTransaction.offset, items, 0,
+										itemsCount);
+								int[] utilities = new int[itemsCount];
+								System.arraycopy(previousTransaction.utilities, previousTransaction.offset,
+										utilities, 0, itemsCount);
+
+								// make the sum of utilities from the previous transaction
+								int positionPrevious = 0;
+								int positionProjection = projectedTransaction.offset;
+								while (positionPrevious < itemsCount) {
+									utilities[positionPrevious] += projectedTransaction.utilities[positionProjection];
+									positionPrevious++;
+									positionProjection++;
 								}
-								// increment the number of consecutive transaction merged
-								consecutiveMergeCount++;
+
+								// make the sum of prefix utilities
+								int sumUtilities = previousTransaction.prefixUtility += projectedTransaction.prefixUtility;
+
+								// create the new transaction replacing the two merged transactions
+								previousTransaction = new Transaction(items, utilities,
+										previousTransaction.transactionUtility
+												+ projectedTransaction.transactionUtility);
+								previousTransaction.prefixUtility = sumUtilities;
+
 							} else {
-								// if the transaction is not equal to the preceding transaction
-								// we cannot merge it so we just add it to the database
-								transactionsPe.add(previousTransaction);
-								// the transaction becomes the previous transaction
-								previousTransaction = projectedTransaction;
-								// and we reset the number of consecutive transactions merged
-								consecutiveMergeCount = 0;
+								// if not the first consecutive merge
+
+								// add the utilities in the projected transaction to the previously
+								// merged transaction
+								int positionPrevious = 0;
+								int positionProjected = projectedTransaction.offset;
+								int itemsCount = previousTransaction.items.length;
+								while (positionPrevious < itemsCount) {
+									previousTransaction.utilities[positionPrevious] += projectedTransaction.utilities[positionProjected];
+									positionPrevious++;
+									positionProjected++;
+								}
+
+								// make also the sum of transaction utility and prefix utility
+								previousTransaction.transactionUtility += projectedTransaction.transactionUtility;
+								previousTransaction.prefixUtility += projectedTransaction.prefixUtility;
 							}
+							// increment the number of consecutive transaction merged
+							consecutiveMergeCount++;
 						} else {
-							// Otherwise, if merging has been deactivated
-							// then we just create the projected transaction
-							Transaction projectedTransaction = new Transaction(transaction, positionE);
-							// we add the utility of Pe in that transaction to the total utility of Pe
-							utilityPe += projectedTransaction.prefixUtility;
-							// we put the projected transaction in the projected database of Pe
-							transactionsPe.add(projectedTransaction);
+							// if the transaction is not equal to the preceding transaction
+							// we cannot merge it so we just add it to the database
+							transactionsPe.add(previousTransaction);
+							// the transaction becomes the previous transaction
+							previousTransaction = projectedTransaction;
+							// and we reset the number of consecutive transactions merged
+							consecutiveMergeCount = 0;
 						}
+					} else {
+						// Otherwise, if merging has been deactivated
+						// then we just create the projected transaction
+						Transaction projectedTransaction = new Transaction(transaction, positionE);
+						// we add the utility of Pe in that transaction to the total utility of Pe
+						utilityPe += projectedTransaction.prefixUtility;
+						// we put the projected transaction in the projected database of Pe
+						transactionsPe.add(projectedTransaction);
 					}
-					// This is an optimization for binary search:
-					// we remember the position of E so that for the next item, we will not search
-					// before "e" in the transaction since items are visited in lexicographical
-					// order
+				}
+				// This is an optimization for binary search:
+				// we remember the position of E so that for the next item, we will not search
+				// before "e" in the transaction since items are visited in lexicographical
+				// order
+				if (!transactionsShared) {
 					transaction.offset = positionE;
-				} else {
-					// This is an optimization for binary search:
-					// we remember the position of E so that for the next item, we will not search
-					// before "e" in the transaction since items are visited in lexicographical
-					// order
+				}
+			} else {
+				// This is an optimization for binary search:
+				// we remember the position of E so that for the next item, we will not search
+				// before "e" in the transaction since items are visited in lexicographical
+				// order
+				if (!transactionsShared) {
 					transaction.offset = low;
 				}
 			}
-			// remember the total time for peforming the database projection
-			timeIntersections += (System.currentTimeMillis() - timeFirstIntersection);
+		}
+		// remember the total time for peforming the database projection
+		timeIntersections += (System.currentTimeMillis() - timeFirstIntersection);
 
-			// Add the last read transaction to the database if there is one
-			if (previousTransaction != null) {
-				transactionsPe.add(previousTransaction);
-			}
+		// Add the last read transaction to the database if there is one
+		if (previousTransaction != null) {
+			transactionsPe.add(previousTransaction);
+		}
 
-			// Append item "e" to P to obtain P U {e}
-			// but at the same time translate from new name of "e" to its old name
-			temp[prefixLength] = newNamesToOldNames[e];
+		// Append item "e" to P to obtain P U {e}
+		// but at the same time translate from new name of "e" to its old name
+		temp[prefixLength] = newNamesToOldNames[e];
 
-			// if the utility of PU{e} is enough to be a high utility itemset
-			if (utilityPe >= minUtil) {
-				// output PU{e}
-				output(prefixLength, utilityPe);
-			}
+		// if the utility of PU{e} is enough to be a high utility itemset
+		if (utilityPe >= minUtil) {
+			// output PU{e}
+			output(prefixLength, utilityPe);
+		}
 
-			// ==== Next, we will calculate the Local Utility and Sub-tree utility of
-			// all items that could be appended to PU{e} ====
-			useUtilityBinArraysToCalculateUpperBounds(transactionsPe, j, itemsToKeep);
+		// ==== Next, we will calculate the Local Utility and Sub-tree utility of
+		// all items that could be appended to PU{e} ====
+		useUtilityBinArraysToCalculateUpperBounds(transactionsPe, j, itemsToKeep);
 
-			// we now record time for identifying promising items
-			long initialTime = System.currentTimeMillis();
+		// we now record time for identifying promising items
+		long initialTime = System.currentTimeMillis();
 
-			// We will create the new list of secondary items
-			List<Integer> newItemsToKeep = new ArrayList<Integer>();
-			// We will create the new list of primary items
-			List<Integer> newItemsToExplore = new ArrayList<Integer>();
+		// We will create the new list of secondary items
+		List<Integer> newItemsToKeep = new ArrayList<Integer>();
+		// We will create the new list of primary items
+		List<Integer> newItemsToExplore = new ArrayList<Integer>();
+
+		// for each item
+		for (int k = j + 1; k < itemsToKeep.size(); k++) {
+			Integer itemk = itemsToKeep.get(k);
+
+			// if the sub-tree utility is no less than min util
+			if (utilityBinArraySU[itemk] >= minUtil) {
+				// and if sub-tree utility pruning is activated
+				if (activateSubtreeUtilityPruning) {
+					// consider that item as a primary item
+					newItemsToExplore.add(itemk);
+				}
+				// consider that item as a secondary item
+				newItemsToKeep.add(itemk);
+			} else if (utilityBinArrayLU[itemk] >= minUtil) {
+				// otherwise, if local utility is no less than minutil,
+				// consider this itemt to be a secondary item
+				newItemsToKeep.add(itemk);
+			}
+		}
+		// update the total time for identifying promising items
+		timeIdentifyPromisingItems += (System.currentTimeMillis() - initialTime);
 
-			// for each item
-			for (int k = j + 1; k < itemsToKeep.size(); k++) {
-				Integer itemk = itemsToKeep.get(k);
-
-				// if the sub-tree utility is no less than min util
-				if (utilityBinArraySU[itemk] >= minUtil) {
-					// and if sub-tree utility pruning is activated
-					if (activateSubtreeUtilityPruning) {
-						// consider that item as a primary item
-						newItemsToExplore.add(itemk);
-					}
-					// consider that item as a secondary item
-					newItemsToKeep.add(itemk);
-				} else if (utilityBinArrayLU[itemk] >= minUtil) {
-					// otherwise, if local utility is no less than minutil,
-					// consider this itemt to be a secondary item
-					newItemsToKeep.add(itemk);
+		// === recursive call to explore larger itemsets
+		if (activateSubtreeUtilityPruning) {
+			// if sub-tree utility pruning is activated, we consider primary and secondary
+			// items
+			backtrackingEFIM(transactionsPe, newItemsToKeep, newItemsToExplore, prefixLength + 1);
+		} else {
+			// if sub-tree utility pruning is deactivated, we consider secondary items also
+			// as primary items
+			backtrackingEFIM(transactionsPe, newItemsToKeep, newItemsToKeep, prefixLength + 1);
+		}
+	}
+
+	/**
+	 * Explore the subtrees of the items of the first level with several threads.
+	 * The subtree of each item is explored by a task of a ForkJoinPool, and the
+	 * idle threads steal the tasks that are waiting. The itemsets found by each
+	 * task are saved in the order of the items, as in a sequential execution. To
+	 * bound the itemsets kept in memory while an earlier task is still running,
+	 * at most MAX_TASKS_PER_THREAD tasks per thread are submitted ahead of the
+	 * first task that is not saved yet.
+	 * 
+	 * @param transactions   the transactions of the database
+	 * @param itemsToKeep    the list of secondary items
+	 * @param itemsToExplore the list of primary items
+	 * @throws IOException if error writing to output file
+	 */
+	private void mineInParallel(List<Transaction> transactions, final List<Integer> itemsToKeep,
+			List<Integer> itemsToExplore) throws IOException {
+		// update the number of candidates explored so far
+		candidateCount += itemsToExplore.size();
+
+		threadBuffers = new ThreadLocal<int[][]>() {
+			@Override
+			protected int[][] initialValue() {
+				return new int[][] { new int[newItemCount + 1], new int[newItemCount + 1], new int[500] };
+			}
+		};
+		int taskCount = itemsToExplore.size();
+		int window = Math.min(taskCount, threadCount * MAX_TASKS_PER_THREAD);
+		// the tasks in flight, in a circular buffer indexed by item position
+		AlgoEFIM[] workers = new AlgoEFIM[window];
+		ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[window];
+		ForkJoinPool pool = MiningMetrics.current().newForkJoinPool(threadCount);
+		try {
+			for (int j = 0; j < window; j++) {
+				submitMiningTask(pool, workers, tasks, transactions, itemsToKeep, itemsToExplore, j);
+			}
+			// save the itemsets of each task, as soon as it is done, and then submit
+			// the task of the next item
+			for (int j = 0; j < taskCount; j++) {
+				int slot = j % window;
+				tasks[slot].join();
+				saveItemsetsOfWorker(workers[slot]);
+				workers[slot] = null;
+				tasks[slot] = null;
+				if (j + window < taskCount) {
+					submitMiningTask(pool, workers, tasks, transactions, itemsToKeep, itemsToExplore, j + window);
 				}
 			}
-			// update the total time for identifying promising items
-			timeIdentifyPromisingItems += (System.currentTimeMillis() - initialTime);
-
-			// === recursive call to explore larger itemsets
-			if (activateSubtreeUtilityPruning) {
-				// if sub-tree utility pruning is activated, we consider primary and secondary
-				// items
-				backtrackingEFIM(transactionsPe, newItemsToKeep, newItemsToExplore, prefixLength + 1);
-			} else {
-				// if sub-tree utility pruning is deactivated, we consider secondary items also
-				// as primary items
-				backtrackingEFIM(transactionsPe, newItemsToKeep, newItemsToKeep, prefixLength + 1);
+		} finally {
+			pool.shutdown();
+			threadBuffers = null;
+		}
+	}
+
+	/**
+	 * Submit the task exploring the subtree of an item of the first level.
+	 * 
+	 * @param pool           the pool running the tasks
+	 * @param workers        the workers of the tasks in flight
+	 * @param tasks          the tasks in flight
+	 * @param transactions   the transactions of the database
+	 * @param itemsToKeep    the list of secondary items
+	 * @param itemsToExplore the list of primary items
+	 * @param j              the position of the item in itemsToExplore
+	 */
+	private void submitMiningTask(ForkJoinPool pool, AlgoEFIM[] workers, ForkJoinTask<?>[] tasks,
+			List<Transaction> transactions, List<Integer> itemsToKeep, List<Integer> itemsToExplore, int j) {
+		int slot = j % workers.length;
+		workers[slot] = new AlgoEFIM(this);
+		tasks[slot] = pool.submit(workers[slot].new MiningTask(transactions, itemsToKeep, itemsToExplore, j));
+	}
+
+	/**
+	 * Save the itemsets found by a worker and add its statistics to the
+	 * statistics of the algorithm.
+	 * 
+	 * @param worker the worker
+	 * @throws IOException if error writing to output file
+	 */
+	private void saveItemsetsOfWorker(AlgoEFIM worker) throws IOException {
+		patternCount += worker.patternCount;
+		if (writer == null) {
+			for (List<Itemset> level : worker.highUtilityItemsets.getLevels()) {
+				for (Itemset itemset : level) {
+					highUtilityItemsets.addItemset(itemset, itemset.size());
+				}
 			}
+		} else {
+			worker.writer.flush();
+			writer.write(worker.taskOutput.toString());
 		}
+		candidateCount += worker.candidateCount;
+		mergeCount += worker.mergeCount;
+		transactionReadingCount += worker.transactionReadingCount;
+		timeIntersections += worker.timeIntersections;
+		timeDatabaseReduction += worker.timeDatabaseReduction;
+		timeIdentifyPromisingItems += worker.timeIdentifyPromisingItems;
+		timeBinarySearch += worker.timeBinarySearch;
+	}
 
-		// check the maximum memory usage for statistics purpose
-		MemoryLogger.getInstance().checkMemory();
+	/**
+	 * A task exploring the subtree of an item of the first level, when the
+	 * algorithm is run in parallel. The transactions of the database are only
+	 * read, so they can be shared by several tasks.
+	 */
+	private class MiningTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final List<Transaction> transactions;
+		private final List<Integer> itemsToKeep;
+		private final List<Integer> itemsToExplore;
+		// the position of the item in the list of primary items
+		private final int itemIndex;
+
+		MiningTask(List<Transaction> transactions, List<Integer> itemsToKeep, List<Integer> itemsToExplore,
+				int itemIndex) {
+			this.transactions = transactions;
+			this.itemsToKeep = itemsToKeep;
+			this.itemsToExplore = itemsToExplore;
+			this.itemIndex = itemIndex;
+		}
+
+		@Override
+		protected void compute() {
+			// use the utility-bin arrays and the buffer of the current thread
+			int[][] buffers = threadBuffers.get();
+			utilityBinArraySU = buffers[0];
+			utilityBinArrayLU = buffers[1];
+			temp = buffers[2];
+			try {
+				backtrackingEFIMForItem(transactions, itemsToKeep, itemsToExplore, itemIndex, 0, true);
+			} catch (IOException e) {
+				// a worker does not write to a file
+				throw new UncheckedIOException(e);
+			} finally {
+				utilityBinArraySU = null;
+				utilityBinArrayLU = null;
+				temp = null;
+			}
+		}
 	}
 
 	/**
@@ -907,4 +1135,17 @@ public class AlgoEFIM {
 		System.out.println(" Candidate count : " + candidateCount);
 		System.out.println("=====================================");
 	}
+
+	/**
+	 * Set the number of threads used to explore the search space. By default, a
+	 * single thread is used. The itemsets found are the same, in the same order.
+	 * 
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
 }
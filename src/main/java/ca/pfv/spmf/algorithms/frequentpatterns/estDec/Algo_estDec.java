@@ -4,7 +4,6 @@ import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.Hashtable;
 
 /**
  * This is an implementation of the estDec algorithm (J. Chang, W.S. Lee 2006).
@@ -14,6 +13,14 @@ import java.util.Hashtable;
  * This implementation was made by Azadeh Soltani <br/>
  * <br/>
  * 
+ * By default, an instance should be used by a single thread. If
+ * setConcurrent(true) is called, the tree is locked while a transaction is
+ * processed, and the patterns are mined from a snapshot of the tree, without
+ * locking it. Thus, a thread can mine the patterns while other threads continue
+ * to process transactions, and the patterns found are those of the tree when
+ * the mining started. <br/>
+ * <br/>
+ * 
  * Copyright (c) 2008-2014 Azadeh Soltani, Philippe Fournier-Viger <br/>
  * <br/>
  * 
@@ -50,6 +57,14 @@ public class Algo_estDec {
 
 	private double maxMemory = 0;
 
+	// if true, the tree is locked while a transaction is processed, and it is
+	// mined from a snapshot
+	private boolean concurrent = false;
+
+	// the lock held while a snapshot of the tree is mined, since a single
+	// snapshot can be mined at a time
+	private final Object miningLock = new Object();
+
 	/**
 	 * Constructor
 	 * 
@@ -140,7 +155,18 @@ public class Algo_estDec {
 		// Perform mining
 		long startMiningTimeStamp = System.currentTimeMillis();
 
-		tree.patternMining_saveToFile(outputPath);
+		if (concurrent) {
+			synchronized (miningLock) {
+				estTree.Snapshot snapshot = openSnapshot();
+				try {
+					snapshot.mineToFile(outputPath);
+				} finally {
+					closeSnapshot(snapshot);
+				}
+			}
+		} else {
+			tree.patternMining_saveToFile(outputPath);
+		}
 
 		miningTime = System.currentTimeMillis() - startMiningTimeStamp;
 		System.gc();
@@ -152,14 +178,25 @@ public class Algo_estDec {
 	 * memory
 	 * 
 	 * @throws IOException
-	 * @param outputPath the output file path
-	 * @return
+	 * @return the patterns with their support
 	 */
-	public Hashtable<int[], Double> performMining_saveResultToMemory() throws IOException {
+	public ItemsetMap performMining_saveResultToMemory() throws IOException {
 		// Perform mining
 		long startMiningTimeStamp = System.currentTimeMillis();
 
-		Hashtable<int[], Double> patterns = tree.patternMining_saveToMemory();
+		ItemsetMap patterns;
+		if (concurrent) {
+			synchronized (miningLock) {
+				estTree.Snapshot snapshot = openSnapshot();
+				try {
+					patterns = snapshot.mineToMemory(new ItemsetMap());
+				} finally {
+					closeSnapshot(snapshot);
+				}
+			}
+		} else {
+			patterns = tree.patternMining_saveToMemory(new ItemsetMap());
+		}
 
 		checkMemory();
 		miningTime = System.currentTimeMillis() - startMiningTimeStamp;
@@ -167,12 +204,50 @@ public class Algo_estDec {
 		return patterns;
 	}
 
+	/**
+	 * Open a snapshot of the current version of the tree, to mine it without
+	 * locking the tree
+	 * 
+	 * @return the snapshot
+	 */
+	private estTree.Snapshot openSnapshot() {
+		synchronized (tree) {
+			return tree.openSnapshot();
+		}
+	}
+
+	/**
+	 * Close a snapshot of the tree, once it has been mined
+	 * 
+	 * @param snapshot the snapshot
+	 */
+	private void closeSnapshot(estTree.Snapshot snapshot) {
+		synchronized (tree) {
+			tree.closeSnapshot(snapshot);
+		}
+	}
+
 	/**
 	 * Process a transaction (add it to the tree and update itemsets
 	 * 
 	 * @param transaction an array of integers
 	 */
 	public void processTransaction(int[] transaction) {
+		if (concurrent) {
+			synchronized (tree) {
+				insertTransaction(transaction);
+			}
+		} else {
+			insertTransaction(transaction);
+		}
+	}
+
+	/**
+	 * Add a transaction to the tree and update itemsets
+	 * 
+	 * @param transaction an array of integers
+	 */
+	private void insertTransaction(int[] transaction) {
 		double startCTimestamp = System.currentTimeMillis();
 		// process the transaction
 		tree.updateParams(transaction);
@@ -185,6 +260,39 @@ public class Algo_estDec {
 		sumTransactionInsertionTime += (System.currentTimeMillis() - startCTimestamp);
 	}
 
+	/**
+	 * Remove an old transaction from the stream (for example when it leaves a
+	 * sliding window). The counts of the itemsets are estimations, which are not
+	 * decreased below 0.
+	 * 
+	 * @param transaction an array of integers
+	 * @param tid         the number of transactions processed after processing
+	 *                    this transaction (see getTransactionCount())
+	 */
+	public void removeTransaction(int[] transaction, int tid) {
+		if (concurrent) {
+			synchronized (tree) {
+				tree.removeTransaction(transaction, tid);
+			}
+		} else {
+			tree.removeTransaction(transaction, tid);
+		}
+	}
+
+	/**
+	 * Get the number of transactions processed
+	 * 
+	 * @return the number of transactions
+	 */
+	public int getTransactionCount() {
+		if (concurrent) {
+			synchronized (tree) {
+				return tree.getK();
+			}
+		}
+		return tree.getK();
+	}
+
 	/**
 	 * Check the current memory consumption to record the maximum memory usage.
 	 */
@@ -196,6 +304,18 @@ public class Algo_estDec {
 		}
 	}
 
+	/**
+	 * Set if the tree is locked while a transaction is processed and mined from a
+	 * snapshot, so that the patterns can be mined by a thread while other threads
+	 * process transactions. This method should be called before processing the
+	 * first transaction.
+	 * 
+	 * @param concurrent true to lock the tree (false by default)
+	 */
+	public void setConcurrent(boolean concurrent) {
+		this.concurrent = concurrent;
+	}
+
 	/**
 	 * Set the decay rate
 	 * 
@@ -4,7 +4,6 @@ import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.Hashtable;
 
 import ca.pfv.spmf.tools.MemoryLogger;
 
@@ -18,6 +17,12 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * This implementation was made by Azadeh Soltani <br/>
  * <br/>
  * 
+ * As for Algo_estDec, if setConcurrent(true) is called, the tree is locked
+ * while a transaction is processed. Since the nodes of the CP-tree are merged
+ * and split when it is updated, the tree is also locked while it is mined.
+ * <br/>
+ * <br/>
+ * 
  * Copyright (c) 2008-2012 Azadeh Soltani, Philippe Fournier-Viger <br/>
  * <br/>
  * 
@@ -58,6 +63,10 @@ public class Algo_estDecPlus {
 	// the total time for transaction insertion (for stats)
 	double sumTransactionInsertionTime = 0;
 
+	// if true, the tree is locked while a transaction is processed and while it is
+	// mined
+	private boolean concurrent = false;
+
 	/**
 	 * Constructor
 	 * 
@@ -179,7 +188,13 @@ public class Algo_estDecPlus {
 		long startMiningTimeStamp = System.currentTimeMillis();
 
 		// Perform mining
-		tree.patternMining_saveToFile(outputPath);
+		if (concurrent) {
+			synchronized (tree) {
+				tree.patternMining_saveToFile(outputPath);
+			}
+		} else {
+			tree.patternMining_saveToFile(outputPath);
+		}
 
 		// Record memory usage and end time
 		System.gc();
@@ -192,10 +207,9 @@ public class Algo_estDecPlus {
 	 * memory
 	 * 
 	 * @throws IOException if error when writting to output file
-	 * @param outputPath the output file path
-	 * @return
+	 * @return the patterns with their support
 	 */
-	public Hashtable<int[], Double> performMining_saveResultToMemory() throws IOException {
+	public ItemsetMap performMining_saveResultToMemory() throws IOException {
 		// Check memory usage
 		System.gc();
 		MemoryLogger.getInstance().checkMemory();
@@ -203,7 +217,14 @@ public class Algo_estDecPlus {
 		long startMiningTimeStamp = System.currentTimeMillis();
 
 		// Perform mining
-		Hashtable<int[], Double> patterns = tree.patternMining_saveToMemory();
+		ItemsetMap patterns;
+		if (concurrent) {
+			synchronized (tree) {
+				patterns = tree.patternMining_saveToMemory(new ItemsetMap());
+			}
+		} else {
+			patterns = tree.patternMining_saveToMemory(new ItemsetMap());
+		}
 
 		// Record end time
 		miningTime = System.currentTimeMillis() - startMiningTimeStamp;
@@ -221,6 +242,21 @@ public class Algo_estDecPlus {
 	 * @param transaction an ArrayList of integers
 	 */
 	public void processTransaction(int[] transaction) {
+		if (concurrent) {
+			synchronized (tree) {
+				insertTransaction(transaction);
+			}
+		} else {
+			insertTransaction(transaction);
+		}
+	}
+
+	/**
+	 * Add a transaction to the tree and update itemsets
+	 * 
+	 * @param transaction an array of integers
+	 */
+	private void insertTransaction(int[] transaction) {
 		// record st
 		double startCTimestamp = System.currentTimeMillis();
 
@@ -242,6 +278,18 @@ public class Algo_estDecPlus {
 		sumTransactionInsertionTime += (System.currentTimeMillis() - startCTimestamp);
 	}
 
+	/**
+	 * Set if the tree is locked while a transaction is processed and while it is
+	 * mined, so that the patterns can be mined by a thread while another thread
+	 * processes transactions. This method should be called before processing the
+	 * first transaction.
+	 * 
+	 * @param concurrent true to lock the tree (false by default)
+	 */
+	public void setConcurrent(boolean concurrent) {
+		this.concurrent = concurrent;
+	}
+
 	/**
 	 * Method to print the CP-tree to the console for debugging purposes.
 	 */
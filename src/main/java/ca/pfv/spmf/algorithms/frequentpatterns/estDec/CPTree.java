@@ -5,7 +5,6 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Hashtable;
 import java.util.List;
 
 /**
@@ -47,9 +46,9 @@ public class CPTree {
 	// number of frequent itemsets found by mining the CPTree
 	int patternCount = 0;
 
-	// Hashtable for storing frequent itemsets into memory
+	// map for storing frequent itemsets into memory
 	// (used if result is saved to memory)
-	Hashtable<int[], Double> patterns;
+	ItemsetMap patterns;
 
 	// writer used if result is saved to file
 	private BufferedWriter writer;
@@ -337,17 +336,18 @@ public class CPTree {
 	/********************************************************************
 	 * Method for finding frequent patterns and save them into memory
 	 * 
-	 * @param root root of the current subtree
+	 * @param patterns the map for storing the frequent patterns
 	 ********************************************************************/
-	Hashtable<int[], Double> patternMining_saveToMemory() throws IOException {
-		// Initialize hashtable for storing frequent patterns into memory
-		patterns = new Hashtable<int[], Double>();
+	ItemsetMap patternMining_saveToMemory(ItemsetMap patterns) throws IOException {
+		// the map for storing frequent patterns into memory
+		this.patterns = patterns;
 		patternCount = 0;
 
 		// recursive method for pattern mining
 		for (CPTreeNode node : root.children)
 			patternMining(node, new int[0]);
 
+		this.patterns = null;
 		return patterns; // return patterns found
 	}
 
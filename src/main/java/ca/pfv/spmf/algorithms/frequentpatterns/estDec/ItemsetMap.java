@@ -0,0 +1,275 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.estDec;
+
+import java.util.Arrays;
+
+/**
+ * This is a map from itemsets (int[]) to double values, used to store the
+ * frequent itemsets found by estDec and estDecPlus with their support. <br/>
+ * <br/>
+ *
+ * Unlike a Hashtable<int[], Double>, which uses the identity of the arrays, two
+ * arrays containing the same items are the same key. Since the order of the
+ * items matters, the items of an itemset should be sorted (as in the
+ * transactions processed by estDec). The map is a hash table with open
+ * addressing (linear probing): the keys, their hash codes and the values are
+ * stored in three arrays, so that the values are not boxed. This class is not
+ * synchronized, but a map returned by the miners is not modified afterwards, so
+ * it can be read by several threads. <br/>
+ * <br/>
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf). <br/>
+ * <br/>
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version. <br/>
+ * <br/>
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * <br/>
+ * <br/>
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @see Algo_estDec
+ * @see Algo_estDecPlus
+ */
+public class ItemsetMap {
+
+	/**
+	 * An object that visits each itemset of a map with its value
+	 */
+	public interface Visitor {
+		/**
+		 * Visit an itemset
+		 *
+		 * @param itemset the itemset (it should not be modified)
+		 * @param value   its value
+		 */
+		void visit(int[] itemset, double value);
+	}
+
+	/** the keys (null for an empty cell) */
+	private int[][] keys;
+
+	/** the hash code of each key */
+	private int[] hashes;
+
+	/** the values */
+	private double[] values;
+
+	/** the number of keys */
+	private int size = 0;
+
+	/**
+	 * Constructor
+	 */
+	public ItemsetMap() {
+		this(16);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param capacity the initial number of itemsets that can be stored before the
+	 *                 table is enlarged
+	 */
+	public ItemsetMap(int capacity) {
+		int length = Integer.highestOneBit(Math.max(capacity, 8) * 2 - 1);
+		keys = new int[length][];
+		hashes = new int[length];
+		values = new double[length];
+	}
+
+	/**
+	 * Get the hash code of the first items of an itemset
+	 *
+	 * @param itemset the itemset
+	 * @param length  the number of items
+	 * @return the hash code
+	 */
+	private static int hash(int[] itemset, int length) {
+		int hash = 1;
+		for (int i = 0; i < length; i++) {
+			hash = 31 * hash + itemset[i];
+		}
+		// spread the high bits, since the low bits are used to find the cell
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Get the cell of an itemset, or the empty cell where it should be inserted
+	 *
+	 * @param itemset the itemset
+	 * @param length  the number of items of the itemset
+	 * @param hash    the hash code of the itemset
+	 * @return the cell
+	 */
+	private int cell(int[] itemset, int length, int hash) {
+		int mask = keys.length - 1;
+		int cell = hash & mask;
+		while (keys[cell] != null && (hashes[cell] != hash || !sameItems(keys[cell], itemset, length))) {
+			cell = (cell + 1) & mask;
+		}
+		return cell;
+	}
+
+	/**
+	 * Check if a key contains the first items of an itemset
+	 *
+	 * @param key     the key
+	 * @param itemset the itemset
+	 * @param length  the number of items of the itemset
+	 * @return true if they are the same items
+	 */
+	private static boolean sameItems(int[] key, int[] itemset, int length) {
+		if (key.length != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (key[i] != itemset[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Get the value of an itemset
+	 *
+	 * @param itemset      the itemset
+	 * @param defaultValue the value returned if the itemset is not in the map
+	 * @return the value
+	 */
+	public double get(int[] itemset, double defaultValue) {
+		int cell = cell(itemset, itemset.length, hash(itemset, itemset.length));
+		return keys[cell] == null ? defaultValue : values[cell];
+	}
+
+	/**
+	 * Check if an itemset is in the map
+	 *
+	 * @param itemset the itemset
+	 * @return true if it is in the map
+	 */
+	public boolean containsKey(int[] itemset) {
+		return keys[cell(itemset, itemset.length, hash(itemset, itemset.length))] != null;
+	}
+
+	/**
+	 * Set the value of an itemset. If the itemset is not in the map, the array is
+	 * stored in the map, so it should not be modified afterward.
+	 *
+	 * @param itemset the itemset
+	 * @param value   the value
+	 */
+	public void put(int[] itemset, double value) {
+		insert(itemset, itemset.length, value, false);
+	}
+
+	/**
+	 * Set the value of the itemset made of the first items of an array. If the
+	 * itemset is not in the map, a copy of these items is stored in the map, so
+	 * the array can be reused.
+	 *
+	 * @param itemset the array
+	 * @param length  the number of items of the itemset
+	 * @param value   the value
+	 */
+	public void put(int[] itemset, int length, double value) {
+		insert(itemset, length, value, true);
+	}
+
+	/**
+	 * Set the value of an itemset
+	 *
+	 * @param itemset the array containing the itemset
+	 * @param length  the number of items of the itemset
+	 * @param value   the value
+	 * @param copy    if true, a copy of the itemset is stored if it is a new key
+	 */
+	private void insert(int[] itemset, int length, double value, boolean copy) {
+		int hash = hash(itemset, length);
+		int cell = cell(itemset, length, hash);
+		if (keys[cell] == null) {
+			// the table is enlarged when it is half full
+			if ((size + 1) * 2 > keys.length) {
+				enlarge();
+				cell = cell(itemset, length, hash);
+			}
+			keys[cell] = copy || length != itemset.length ? Arrays.copyOf(itemset, length) : itemset;
+			hashes[cell] = hash;
+			size++;
+		}
+		values[cell] = value;
+	}
+
+	/**
+	 * Double the size of the table
+	 */
+	private void enlarge() {
+		int[][] oldKeys = keys;
+		int[] oldHashes = hashes;
+		double[] oldValues = values;
+		keys = new int[oldKeys.length * 2][];
+		hashes = new int[oldKeys.length * 2];
+		values = new double[oldKeys.length * 2];
+		int mask = keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != null) {
+				int cell = oldHashes[i] & mask;
+				while (keys[cell] != null) {
+					cell = (cell + 1) & mask;
+				}
+				keys[cell] = oldKeys[i];
+				hashes[cell] = oldHashes[i];
+				values[cell] = oldValues[i];
+			}
+		}
+	}
+
+	/**
+	 * Get the number of itemsets
+	 *
+	 * @return the number of itemsets
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Check if the map is empty
+	 *
+	 * @return true if it contains no itemset
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Remove all the itemsets
+	 */
+	public void clear() {
+		Arrays.fill(keys, null);
+		size = 0;
+	}
+
+	/**
+	 * Visit each itemset of the map with its value
+	 *
+	 * @param visitor the visitor
+	 */
+	public void forEach(Visitor visitor) {
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				visitor.visit(keys[i], values[i]);
+			}
+		}
+	}
+}
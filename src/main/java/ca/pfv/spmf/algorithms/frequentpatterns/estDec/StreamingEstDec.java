@@ -0,0 +1,89 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.estDec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.streaming.SlidingWindow;
+import ca.pfv.spmf.algorithms.frequentpatterns.streaming.StreamMiner;
+
+/**
+ * This class maintains the recent frequent itemsets of a sliding window over a
+ * stream of transactions with estDec. The transactions that leave the window
+ * are removed with Algo_estDec.removeTransaction(). Since estDec estimates the
+ * counts of the itemsets inserted in its tree after a transaction, the supports
+ * are estimations, as with the decay rate alone. The recent frequent itemsets
+ * are mined into an ItemsetMap when the tree changed since the last mining (see
+ * StreamMiner), which is returned by currentResults() and is not modified by
+ * the next batches. <br/>
+ * <br/>
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf). <br/>
+ * <br/>
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version. <br/>
+ * <br/>
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * <br/>
+ * <br/>
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @see Algo_estDec
+ * @see StreamMiner
+ */
+public class StreamingEstDec extends StreamMiner<ItemsetMap> {
+
+	/** the estDec algorithm */
+	private final Algo_estDec algo;
+
+	/**
+	 * Constructor
+	 *
+	 * @param window      the sliding window
+	 * @param mins        minimum support
+	 * @param minSigValue the minSig parameter
+	 */
+	public StreamingEstDec(SlidingWindow window, double mins, double minSigValue) {
+		super(window);
+		algo = new Algo_estDec(mins, minSigValue);
+	}
+
+	/**
+	 * Set the decay rate
+	 *
+	 * @param b decay base
+	 * @param h decay-base life
+	 */
+	public synchronized void setDecayRate(double b, double h) {
+		algo.setDecayRate(b, h);
+	}
+
+	@Override
+	protected long insert(int[] transaction) {
+		algo.processTransaction(transaction);
+		return algo.getTransactionCount();
+	}
+
+	@Override
+	protected void remove(int[] transaction, long value) {
+		algo.removeTransaction(transaction, (int) value);
+	}
+
+	@Override
+	protected ItemsetMap getResults() {
+		try {
+			return algo.performMining_saveResultToMemory();
+		} catch (IOException e) {
+			// the patterns are not written to a file
+			throw new UncheckedIOException(e);
+		}
+	}
+}
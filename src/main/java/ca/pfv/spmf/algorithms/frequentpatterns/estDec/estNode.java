@@ -35,6 +35,13 @@ public class estNode {
 
 	List<estNode> children; // children nodes
 
+	// the state of the node in the version of the tree that is mined by another
+	// thread, saved before the node is updated (see estTree.Snapshot)
+	private int savedVersion = -1;
+	private double savedCounter;
+	private int savedTid;
+	private estNode[] savedChildren;
+
 	/**
 	 * constructor
 	 * 
@@ -108,6 +115,56 @@ public class estNode {
 		tid = k;
 	}
 
+	/**
+	 * Save the state of this node before it is updated, if it was not already
+	 * saved since a version of the tree was opened for mining.
+	 * 
+	 * @param snapshotVersion the version being mined, or -1 if none
+	 * @param version         the current version of the tree
+	 */
+	void saveState(int snapshotVersion, int version) {
+		if (snapshotVersion < 0) {
+			// no version is mined: the state saved for the last one is not needed
+			savedChildren = null;
+		} else if (savedVersion <= snapshotVersion) {
+			synchronized (this) {
+				savedCounter = counter;
+				savedTid = tid;
+				savedChildren = children.toArray(new estNode[children.size()]);
+				savedVersion = version;
+			}
+		}
+	}
+
+	/**
+	 * Get the count of this node in a version of the tree, decayed to a given
+	 * transaction id. The node is not modified.
+	 * 
+	 * @param version the version
+	 * @param k       the transaction id
+	 * @param d       the decay rate
+	 * @return the count
+	 */
+	synchronized double getCount(int version, int k, double d) {
+		if (savedVersion > version) {
+			return savedCounter * Math.pow(d, k - savedTid);
+		}
+		return counter * Math.pow(d, k - tid);
+	}
+
+	/**
+	 * Get the children of this node in a version of the tree
+	 * 
+	 * @param version the version
+	 * @return the children
+	 */
+	synchronized estNode[] getChildren(int version) {
+		if (savedVersion > version) {
+			return savedChildren;
+		}
+		return children.toArray(new estNode[children.size()]);
+	}
+
 	/**
 	 * Compute the support of this node as a percentage.
 	 * 
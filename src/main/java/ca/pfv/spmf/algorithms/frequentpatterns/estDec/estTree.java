@@ -4,7 +4,6 @@ import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Hashtable;
 import java.util.List;
 
 /**
@@ -46,8 +45,8 @@ public class estTree {
 	// itemset count
 	int patternCount = 0;
 
-	// Hashtable for storing frequent patterns into memory
-	Hashtable<int[], Double> patterns;
+	// map for storing frequent patterns into memory
+	ItemsetMap patterns;
 
 	// writer used if result is saved to file
 	BufferedWriter writer;
@@ -59,6 +58,11 @@ public class estTree {
 
 	int[] itemsetBuffer = new int[500];
 
+	// the number of transactions inserted in or removed from the tree
+	int version = 0;
+	// the version of the tree being mined by another thread, or -1 (see Snapshot)
+	int snapshotVersion = -1;
+
 	/**
 	 * Constructor
 	 * 
@@ -93,6 +97,7 @@ public class estTree {
 	 * @param transaction
 	 */
 	void updateParams(int[] transaction) {
+		version++;
 		// |Dk| = |Dk| x d + 1
 		N = N * d + 1;
 		k++;
@@ -119,6 +124,7 @@ public class estTree {
 		estNode child = currentNode.getChildWithID(item);
 		if (child != null) {
 			// update count of the node
+			child.saveState(snapshotVersion, version);
 			child.update(k, 1, d);
 			// if the support is enough
 			if (child.computeSupport(N) >= minsig)
@@ -133,6 +139,49 @@ public class estTree {
 		updateNodes(currentNode, transaction, ind + 1);
 	}
 
+	/********************************************************************
+	 * Method for removing an old transaction from the stream, for example when
+	 * it leaves a sliding window. Its decayed weight is subtracted from |Dk| and
+	 * from the count of each itemset of the tree that is a subset of the
+	 * transaction. Since the count of an itemset inserted in the tree after the
+	 * transaction is an estimation, the counts are not decreased below 0.
+	 *
+	 * @param transaction the transaction
+	 * @param tid         the value of k after the transaction was processed
+	 ********************************************************************/
+	void removeTransaction(int[] transaction, int tid) {
+		version++;
+		double weight = Math.pow(d, k - tid);
+		N = Math.max(N - weight, 0);
+		removeFromNodes(root, transaction, 0, weight);
+	}
+
+	/********************************************************************
+	 * Recursive method for subtracting the weight of a transaction from the
+	 * counters of the itemsets that belong to the transaction.
+	 *
+	 * @param currentNode a tree node
+	 * @param transaction the transaction
+	 * @param ind         depth of the branch ending at the current node
+	 * @param weight      the weight of the transaction
+	 ********************************************************************/
+	void removeFromNodes(estNode currentNode, int[] transaction, int ind, double weight) {
+		// stop recursion
+		if (ind >= transaction.length)
+			return;
+
+		// look if there is a node for the item at position "ind" in the est-Tree
+		estNode child = currentNode.getChildWithID(transaction[ind]);
+		if (child != null) {
+			// update count of the node
+			child.saveState(snapshotVersion, version);
+			child.update(k, 0, d);
+			child.counter = Math.max(child.counter - weight, 0);
+			removeFromNodes(child, transaction, ind + 1, weight);
+		}
+		removeFromNodes(currentNode, transaction, ind + 1, weight);
+	}
+
 	/********************************************************************
 	 * Method for inserting a new item to the tree (itemset of size 1).
 	 *
@@ -141,6 +190,7 @@ public class estTree {
 	void insertItem(Integer it) {
 		// create the node with a count of 0
 		double c = 0;// (getN(k-1)*minsig)*d+1;
+		root.saveState(snapshotVersion, version);
 		root.children.add(new estNode(it, c, k));
 	}
 
@@ -265,14 +315,17 @@ public class estTree {
 			// with itemId=item counter=c, tid=k
 			if (c / N >= minsig) {
 				child = new estNode(item, c, k);
+				currentNode.saveState(snapshotVersion, version);
 				currentNode.children.add(child);
 			}
 		} // if child
 		else {
 			if (child.counter / N < minsig) {
 				// if its support is less than minsig delete the node
-				if (currentNode.itemID != -1)
+				if (currentNode.itemID != -1) {
+					currentNode.saveState(snapshotVersion, version);
 					currentNode.children.remove(currentNode.getChildIndexWithID(item));
+				}
 			} else {
 				// if its support is greater than minsig continue the recursion
 				// with this subtree
@@ -315,13 +368,16 @@ public class estTree {
 				// with itemId=item counter=c, tid=k
 				if (c / N >= minsig) {
 					child = new estNode(item, c, k);
+					currentNode.saveState(snapshotVersion, version);
 					currentNode.children.add(child);
 				}
 			} // if child
 			else if (child.counter / N < minsig) {
 				// if its support is less than minsig delete the node
-				if (currentNode.itemID != -1)
+				if (currentNode.itemID != -1) {
+					currentNode.saveState(snapshotVersion, version);
 					currentNode.children.remove(currentNode.getChildIndexWithID(item));
+				}
 			} else {
 				// if its support is greater than minsig continue the recursion
 				// with this subtree
@@ -347,13 +403,16 @@ public class estTree {
 				// with itemId=item counter=c, tid=k
 				if (c / N >= minsig) {
 					child = new estNode(item, c, k);
+					currentNode.saveState(snapshotVersion, version);
 					currentNode.children.add(child);
 				}
 			} // if child
 			else if (child.counter / N < minsig) {
 				// if its support is less than minsig delete the node
-				if (currentNode.itemID != -1)
+				if (currentNode.itemID != -1) {
+					currentNode.saveState(snapshotVersion, version);
 					currentNode.children.remove(currentNode.getChildIndexWithID(item));
+				}
 			} else {
 				// if its support is greater than minsig continue the recursion
 				// with this subtree
@@ -373,10 +432,12 @@ public class estTree {
 	void forcePruning(estNode root) {
 		for (int i = 0; i < root.children.size(); ++i) {
 			estNode node = root.children.get(i);
+			node.saveState(snapshotVersion, version);
 			node.update(k, 0, d);
-			if (node.computeSupport(N) < minsig && root.itemID != -1)
+			if (node.computeSupport(N) < minsig && root.itemID != -1) {
+				root.saveState(snapshotVersion, version);
 				root.children.remove(i--);
-			else
+			} else
 				forcePruning(node);
 		}
 	}
@@ -396,6 +457,7 @@ public class estTree {
 		// For each children
 		for (estNode node : root.children) {
 
+			node.saveState(snapshotVersion, version);
 			node.update(k, 0, d);
 			// if the estimated support is enough
 			double s = node.computeSupport(N);
@@ -408,14 +470,12 @@ public class estTree {
 				patternCount++;
 				// if store into file
 				if (patterns == null) {
-					writeItemset(pattern, newPatternLength, s);
+					writeItemset(writer, pattern, newPatternLength, s);
 				} else {
-					// else, if store into memory, we make a copy of the pattern
-					// because until now, it was stored in a temporary array
-					int[] patt2 = new int[patternLength + 1];
-					System.arraycopy(pattern, 0, patt2, 0, newPatternLength);
-					// then we add the pattern to the result set
-					patterns.put(patt2, s);
+					// else, if store into memory, we add the pattern to the result set
+					// (the map makes a copy of the pattern because until now,
+					// it was stored in a temporary array)
+					patterns.put(pattern, newPatternLength, s);
 				}
 				// recursive call to find larger patterns
 				patternMining(node, pattern, newPatternLength);
@@ -426,16 +486,17 @@ public class estTree {
 	/********************************************************************
 	 * Method for finding frequent patterns and save them into memory
 	 * 
-	 * @param root root of the current subtree
+	 * @param patterns the map for storing the frequent patterns
 	 ********************************************************************/
-	Hashtable<int[], Double> patternMining_saveToMemory() throws IOException {
-		// Initialize hashtable for storing frequent patterns into memory
-		patterns = new Hashtable<int[], Double>();
+	ItemsetMap patternMining_saveToMemory(ItemsetMap patterns) throws IOException {
+		// the map for storing frequent patterns into memory
+		this.patterns = patterns;
 		patternCount = 0;
 
 		// recursive method for pattern mining
 		patternMining(root, itemsetBuffer, 0);
 
+		this.patterns = null;
 		return patterns; // return patterns found
 	}
 
@@ -460,10 +521,12 @@ public class estTree {
 	/********************************************************************
 	 * Method for writing frequent patterns in output file
 	 * 
+	 * @param writer  the writer of the output file
 	 * @param itemset the pattern to be saved
 	 * @param support a double value
 	 ********************************************************************/
-	void writeItemset(int[] itemset, int patternLength, double support) throws IOException {
+	static void writeItemset(BufferedWriter writer, int[] itemset, int patternLength, double support)
+			throws IOException {
 		StringBuilder buffer = new StringBuilder();
 
 		// for each item
@@ -480,6 +543,105 @@ public class estTree {
 		writer.newLine();
 	}
 
+	/********************************************************************
+	 * Open the current version of the tree for mining. The tree can then be
+	 * updated while the snapshot is mined by another thread, until it is closed.
+	 * This method and closeSnapshot() should be called while holding the lock
+	 * used by the threads updating the tree, and a single snapshot can be open
+	 * at a time.
+	 *
+	 * @return the snapshot
+	 ********************************************************************/
+	Snapshot openSnapshot() {
+		snapshotVersion = version;
+		return new Snapshot();
+	}
+
+	/********************************************************************
+	 * Close a snapshot, once it has been mined.
+	 *
+	 * @param snapshot the snapshot
+	 ********************************************************************/
+	void closeSnapshot(Snapshot snapshot) {
+		snapshotVersion = -1;
+		patternCount = snapshot.patternCount;
+	}
+
+	/**
+	 * A version of the tree that is mined without locking the tree. Before a node
+	 * is updated, the nodes save their counter and their children the first time
+	 * that they are updated after the snapshot is opened (see
+	 * estNode.saveState()). Thus, the snapshot reads the nodes as they were when
+	 * it was opened, and the threads updating the tree only wait for the
+	 * snapshot while it reads a node that they update.
+	 */
+	class Snapshot {
+		// the version of the tree, and its parameters in that version
+		private final int minedVersion = version;
+		private final int minedK = k;
+		private final double minedN = N;
+		private final double minedD = d;
+
+		// the current pattern
+		private final int[] pattern = new int[500];
+		// the map or the writer where the patterns are saved
+		private ItemsetMap patterns;
+		private BufferedWriter writer;
+		// the number of patterns found
+		private int patternCount = 0;
+
+		/**
+		 * Find the frequent patterns and save them into memory
+		 *
+		 * @param patterns the map for storing the frequent patterns
+		 * @return the map
+		 */
+		ItemsetMap mineToMemory(ItemsetMap patterns) throws IOException {
+			this.patterns = patterns;
+			patternMining(root, 0);
+			return patterns;
+		}
+
+		/**
+		 * Find the frequent patterns and save them into a file
+		 *
+		 * @param outputPath the output file path
+		 */
+		void mineToFile(String outputPath) throws IOException {
+			writer = new BufferedWriter(new FileWriter(outputPath));
+			try {
+				patternMining(root, 0);
+			} finally {
+				writer.close();
+			}
+		}
+
+		/**
+		 * Recursive method for finding frequent patterns, like
+		 * estTree.patternMining(), but without updating the nodes.
+		 *
+		 * @param parent        root of the current subtree
+		 * @param patternLength the length of the current pattern
+		 */
+		private void patternMining(estNode parent, int patternLength) throws IOException {
+			int newPatternLength = patternLength + 1;
+			for (estNode node : parent.getChildren(minedVersion)) {
+				// if the estimated support is enough
+				double s = node.getCount(minedVersion, minedK, minedD) / minedN;
+				if (s > minsup) {
+					pattern[patternLength] = node.itemID;
+					patternCount++;
+					if (patterns == null) {
+						writeItemset(writer, pattern, newPatternLength, s);
+					} else {
+						patterns.put(pattern, newPatternLength, s);
+					}
+					patternMining(node, newPatternLength);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Get the last transaction id
 	 * 
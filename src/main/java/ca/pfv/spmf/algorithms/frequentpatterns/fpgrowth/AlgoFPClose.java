@@ -23,6 +23,7 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -30,10 +31,14 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
 import ca.pfv.spmf.tools.MemoryLogger;
+import ca.pfv.spmf.tools.MiningMetrics;
 
 /**
  * This is an implementation of the FPClose algorithm (Grahne et al., 2004).
@@ -49,7 +54,16 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * no output path is provided by the user to the runAlgorithm method().
  * 
  * I have tried to follow the paper as much as possible. However, I did not use
- * the FPArray optimization
+ * the FPArray optimization <br/>
+ * <br/>
+ * 
+ * The FP-tree can be mined by several threads (see setThreadCount()). Each item
+ * of a large tree is then processed by a task of a ForkJoinPool. A task has its
+ * own CFI-tree, so that tasks do not wait for each other, and some itemsets
+ * that it finds may not be closed. Once all tasks are done, the itemsets that
+ * are a subset of an itemset having the same support found by another task are
+ * removed, and the others are saved in the same order as in a sequential
+ * execution.
  *
  * @see FPTree
  * @see Itemset
@@ -108,6 +122,31 @@ public class AlgoFPClose {
 		}
 	};
 
+	/** if true, the FP-trees are stored in arrays (see ArrayFPTree) */
+	private boolean useArrayFPTree = false;
+
+	// If the FP-trees are stored in arrays, the item of the database for each item
+	// (rank) of the trees
+	private int[] itemIDs = null;
+
+	/** the number of threads used to mine the FP-tree */
+	private int threadCount = 1;
+
+	// When the algorithm is run in parallel, the minimum number of nodes of a
+	// tree for processing its items in separate tasks (smaller trees are mined by
+	// the current task). It is calculated from the size of the initial tree.
+	private int splitThreshold = 0;
+
+	// the minimum value of splitThreshold
+	private static final int MINIMUM_SPLIT_THRESHOLD = 64;
+
+	// If this object is a worker mining a part of the tree in a task, the buffer
+	// where itemsets are stored (null otherwise)
+	private ItemsetBuffer taskBuffer = null;
+
+	// the subtasks forked by this worker
+	private List<ForkJoinTask<?>> forkedTasks = null;
+
 	/**
 	 * Constructor
 	 */
@@ -115,6 +154,25 @@ public class AlgoFPClose {
 
 	}
 
+	/**
+	 * Constructor of a worker that mines a part of the FP-tree in a task, when the
+	 * algorithm is run in parallel. A worker has its own buffers and CFI-tree.
+	 * 
+	 * @param algorithm the algorithm that is run
+	 */
+	private AlgoFPClose(AlgoFPClose algorithm) {
+		this.minSupportRelative = algorithm.minSupportRelative;
+		this.originalMapSupport = algorithm.originalMapSupport;
+		this.splitThreshold = algorithm.splitThreshold;
+		this.itemIDs = algorithm.itemIDs;
+		this.itemsetBuffer = new int[BUFFERS_SIZE];
+		this.countBuffer = new int[BUFFERS_SIZE];
+		this.cfiTree = new CFITree();
+		this.cfiTree.setComparator(comparatorOriginalOrder);
+		this.taskBuffer = new ItemsetBuffer();
+		this.forkedTasks = new ArrayList<ForkJoinTask<?>>();
+	}
+
 	/**
 	 * Method to run the FPGRowth algorithm.
 	 * 
@@ -157,60 +215,71 @@ public class AlgoFPClose {
 
 		// Create the CFI Tree
 		cfiTree = new CFITree();
+		cfiTree.setComparator(comparatorOriginalOrder);
 
-		// (2) Scan the database again to build the initial FP-Tree
-		// Before inserting a transaction in the FPTree, we sort the items
-		// by descending order of support. We ignore items that
-		// do not have the minimum support.
-		FPTree tree = new FPTree();
-
-		// read the file
-		BufferedReader reader = new BufferedReader(new FileReader(input));
-		String line;
-		// for each line (transaction) until the end of the file
-		while (((line = reader.readLine()) != null)) {
-			// if the line is a comment, is empty or is a
-			// kind of metadata
-			if (line.isEmpty() == true || line.charAt(0) == '#' || line.charAt(0) == '%' || line.charAt(0) == '@') {
-				continue;
-			}
+		if (useArrayFPTree) {
+			// (2) Build the initial FP-tree with arrays and mine it
+			mineArrayFPTree(input);
+		} else {
+			// (2) Scan the database again to build the initial FP-Tree
+			// Before inserting a transaction in the FPTree, we sort the items
+			// by descending order of support. We ignore items that
+			// do not have the minimum support.
+			FPTree tree = new FPTree();
+
+			// read the file
+			BufferedReader reader = new BufferedReader(new FileReader(input));
+			String line;
+			// for each line (transaction) until the end of the file
+			while (((line = reader.readLine()) != null)) {
+				// if the line is a comment, is empty or is a
+				// kind of metadata
+				if (line.isEmpty() == true || line.charAt(0) == '#' || line.charAt(0) == '%' || line.charAt(0) == '@') {
+					continue;
+				}
 
-			String[] lineSplited = line.split(" ");
-			List<Integer> transaction = new ArrayList<Integer>();
+				String[] lineSplited = line.split(" ");
+				List<Integer> transaction = new ArrayList<Integer>();
 
-			// for each item in the transaction
-			for (String itemString : lineSplited) {
-				Integer item = Integer.parseInt(itemString);
-				// only add items that have the minimum support
-				if (originalMapSupport.get(item) >= minSupportRelative) {
-					transaction.add(item);
+				// for each item in the transaction
+				for (String itemString : lineSplited) {
+					Integer item = Integer.parseInt(itemString);
+					// only add items that have the minimum support
+					if (originalMapSupport.get(item) >= minSupportRelative) {
+						transaction.add(item);
+					}
 				}
+				// sort item in the transaction by descending order of support
+				Collections.sort(transaction, comparatorOriginalOrder);
+				// add the sorted transaction to the fptree.
+				tree.addTransaction(transaction);
 			}
-			// sort item in the transaction by descending order of support
-			Collections.sort(transaction, comparatorOriginalOrder);
-			// add the sorted transaction to the fptree.
-			tree.addTransaction(transaction);
-		}
-
-		cfiTree.setComparator(comparatorOriginalOrder);
-		// close the input file
-		reader.close();
 
-		// We create the header table for the tree using the calculated support of
-		// single items
-		tree.createHeaderList(originalMapSupport);
-
-//		System.out.println(tree);
-
-		// (5) We start to mine the FP-Tree by calling the recursive method.
-		// Initially, the prefix alpha is empty.
-		// if at least an item is frequent
-		if (tree.headerList.size() > 0) {
-			// initialize the buffer for storing the current itemset
-			itemsetBuffer = new int[BUFFERS_SIZE];
-			countBuffer = new int[BUFFERS_SIZE];
-			// Next we will recursively generate frequent itemsets using the fp-tree
-			fpclose(tree, itemsetBuffer, 0, transactionCount, originalMapSupport);
+			// close the input file
+			reader.close();
+
+			// We create the header table for the tree using the calculated support of
+			// single items
+			tree.createHeaderList(originalMapSupport);
+
+//			System.out.println(tree);
+
+			// (5) We start to mine the FP-Tree by calling the recursive method.
+			// Initially, the prefix alpha is empty.
+			// if at least an item is frequent
+			if (tree.headerList.size() > 0) {
+				// initialize the buffer for storing the current itemset
+				itemsetBuffer = new int[BUFFERS_SIZE];
+				countBuffer = new int[BUFFERS_SIZE];
+				if (threadCount > 1) {
+					// mine the tree with several threads and save the itemsets that
+					// are closed
+					saveClosedItemsets(mineInParallel(tree));
+				} else {
+					// Next we will recursively generate frequent itemsets using the fp-tree
+					fpclose(tree, itemsetBuffer, 0, transactionCount, originalMapSupport);
+				}
+			}
 		}
 
 		// close the output file if the result was saved to a file
@@ -283,15 +352,58 @@ public class AlgoFPClose {
 		// Case 1: the FPtree contains a single path
 		// If this path has enough support:
 		if (singlePath && countBuffer[position - 1] >= minSupportRelative) {
+			saveClosedItemsetsOfSinglePath(prefixLength, position);
+		} else {
+			// Case 2: There are multiple paths.
+
+			// For each frequent item in the header table list of the tree in reverse order.
+			// (in decreasing order of support...)
+			for (int i = tree.headerList.size() - 1; i >= 0; i--) {
+				// if the algorithm is run in parallel and the tree is large enough,
+				// this item is processed by another task
+				if (taskBuffer != null && (prefixLength == 0 || tree.nodeCount >= splitThreshold)) {
+					forkTask(tree, i, prefix, prefixLength, prefixSupport, mapSupport);
+				} else {
+					fpcloseForItem(tree, i, prefix, prefixLength, prefixSupport, mapSupport);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Save the closed itemsets of a single path, which are stored in itemsetBuffer
+	 * and countBuffer.
+	 * 
+	 * @param prefixLength the length of the prefix
+	 * @param position     the length of the prefix plus the number of nodes in the
+	 *                     path
+	 * @throws IOException exception if error writing the output file
+	 */
+	private void saveClosedItemsetsOfSinglePath(int prefixLength, int position) throws IOException {
 //			System.out.println();
-			// generate all the CFIs from this path
-			// for each CFI X generated, we will check if X is closed
-			// by looking at the CFI-tree. If yes we will insert X in
-			// the CFI-Tree
-			for (int i = prefixLength; i <= position; i++) {
-				// if the last item
-				if (i == position) {
-					int pathSupport = countBuffer[i - 1];
+		// generate all the CFIs from this path
+		// for each CFI X generated, we will check if X is closed
+		// by looking at the CFI-tree. If yes we will insert X in
+		// the CFI-Tree
+		for (int i = prefixLength; i <= position; i++) {
+			// if the last item
+			if (i == position) {
+				int pathSupport = countBuffer[i - 1];
+
+				// if he current itemset passes the closure checking
+				// we save this as a closed itemset
+				int[] headWithP = new int[i];
+				System.arraycopy(itemsetBuffer, 0, headWithP, 0, i);
+				sortOriginalOrder(headWithP, i);
+
+				if (cfiTree.passSubsetChecking(headWithP, i, pathSupport)) {
+					saveItemset(headWithP, i, pathSupport);
+				}
+			} else {
+				// if the counter of item in the i+1 th position is different
+				// from the counter of item in the i th position:
+				if (i > 0 && countBuffer[i - 1] != 0 && countBuffer[i - 1] != countBuffer[i]) {
+					int pathSupport = countBuffer[i - 1]; // NEW
 
 					// if he current itemset passes the closure checking
 					// we save this as a closed itemset
@@ -300,145 +412,499 @@ public class AlgoFPClose {
 					sortOriginalOrder(headWithP, i);
 
 					if (cfiTree.passSubsetChecking(headWithP, i, pathSupport)) {
+						// if the itemset ending in the i th position passes
+						// the closure checking,
+						// we save the itemset ending in the i th position as a closed itemset
 						saveItemset(headWithP, i, pathSupport);
 					}
-				} else {
-					// if the counter of item in the i+1 th position is different
-					// from the counter of item in the i th position:
-					if (i > 0 && countBuffer[i - 1] != 0 && countBuffer[i - 1] != countBuffer[i]) {
-						int pathSupport = countBuffer[i - 1]; // NEW
-
-						// if he current itemset passes the closure checking
-						// we save this as a closed itemset
-						int[] headWithP = new int[i];
-						System.arraycopy(itemsetBuffer, 0, headWithP, 0, i);
-						sortOriginalOrder(headWithP, i);
-
-						if (cfiTree.passSubsetChecking(headWithP, i, pathSupport)) {
-							// if the itemset ending in the i th position passes
-							// the closure checking,
-							// we save the itemset ending in the i th position as a closed itemset
-							saveItemset(headWithP, i, pathSupport);
-						}
+				}
+			}
+
+		}
+	}
+
+	/**
+	 * Mine the itemsets starting with the prefix extended with an item of the
+	 * header table of an FP-tree having more than one path.
+	 * 
+	 * @param tree          the FP-tree
+	 * @param i             the position of the item in the header table
+	 * @param prefix        the current prefix, named "alpha"
+	 * @param prefixLength  the length of the prefix
+	 * @param prefixSupport the support of the prefix
+	 * @param mapSupport    the frequency of items in the FP-Tree
+	 * @throws IOException exception if error writing the output file
+	 */
+	private void fpcloseForItem(FPTree tree, int i, int[] prefix, int prefixLength, int prefixSupport,
+			Map<Integer, Integer> mapSupport) throws IOException {
+		// get the item
+		Integer item = tree.headerList.get(i);
+
+		// get the item support
+		int support = mapSupport.get(item);
+
+		// calculate the support of the new prefix beta
+		int betaSupport = (prefixSupport < support) ? prefixSupport : support;
+
+		// Create Beta by concatening item to the current prefix alpha
+		prefix[prefixLength] = item;
+		countBuffer[prefixLength] = betaSupport;
+
+		// === (A) Construct beta's conditional pattern base ===
+		// It is a subdatabase which consists of the set of prefix paths
+		// in the FP-tree co-occuring with the prefix pattern.
+		List<List<FPNode>> prefixPaths = new ArrayList<List<FPNode>>();
+		FPNode path = tree.mapItemNodes.get(item);
+
+		// Map to count the support of items in the conditional prefix tree
+		// Key: item Value: support
+		Map<Integer, Integer> mapSupportBeta = new HashMap<Integer, Integer>();
+
+		while (path != null) {
+			// if the path is not just the root node
+			if (path.parent.itemID != -1) {
+				// create the prefixpath
+				List<FPNode> prefixPath = new ArrayList<FPNode>();
+				// add this node.
+				prefixPath.add(path); // NOTE: we add it just to keep its support,
+				// actually it should not be part of the prefixPath
+
+				// ####
+				int pathCount = path.counter;
+
+				// Recursively add all the parents of this node.
+				FPNode parent = path.parent;
+				while (parent.itemID != -1) {
+					prefixPath.add(parent);
+
+					// FOR EACH PATTERN WE ALSO UPDATE THE ITEM SUPPORT AT THE SAME TIME
+					// if the first time we see that node id
+					if (mapSupportBeta.get(parent.itemID) == null) {
+						// just add the path count
+						mapSupportBeta.put(parent.itemID, pathCount);
+					} else {
+						// otherwise, make the sum with the value already stored
+						mapSupportBeta.put(parent.itemID, mapSupportBeta.get(parent.itemID) + pathCount);
 					}
+					parent = parent.parent;
+				}
+				// add the path to the list of prefixpaths
+				prefixPaths.add(prefixPath);
+			}
+			// We will look for the next prefixpath
+			path = path.nodeLink;
+		}
+
+		// ===== FP-CLOSE ======
+		// concatenate Beta (Head) with the item "item" (i) to check
+		// for closure
+		int[] headWithP = new int[prefixLength + 1];
+		System.arraycopy(prefix, 0, headWithP, 0, prefixLength + 1);
+
+		// Sort Head U {item} according to the original header list total order on items
+		// sort item in the transaction by descending order of support
+		sortOriginalOrder(headWithP, prefixLength + 1);
+
+		// ======= DEBUG ========
+		if (DEBUG) {
+			System.out.println(" CHECK2 : " + Arrays.toString(headWithP) + " sup=" + betaSupport);
+		}
+		// ========== END DEBUG =======
+
+		// CHECK IF HEAD U P IS A SUBSET OF A CFI ACCORDING TO THE CFI-TREE
+		if (cfiTree.passSubsetChecking(headWithP, prefixLength + 1, betaSupport)) {
+
+			if (DEBUG) {
+				System.out.println("    passed!");
+			}
+			// (B) Construct beta's conditional FP-Tree using its prefix path
+			// Create the tree.
+			FPTree treeBeta = new FPTree();
+			// Add each prefixpath in the FP-tree.
+			for (List<FPNode> prefixPath : prefixPaths) {
+				treeBeta.addPrefixPath(prefixPath, mapSupportBeta, minSupportRelative);
+			}
+			// Mine recursively the Beta tree if the root has child(s)
+			if (treeBeta.root.childs.size() > 0) {
+
+				// Create the header list.
+				treeBeta.createHeaderList(originalMapSupport);
+
+				// recursive call
+				fpclose(treeBeta, prefix, prefixLength + 1, betaSupport, mapSupportBeta);
+			}
+			// if the tree is empty we still need to try to save the
+			// itemset
+			if (cfiTree.passSubsetChecking(headWithP, prefixLength + 1, betaSupport)) {
+				saveItemset(headWithP, prefixLength + 1, betaSupport);
+			}
+		} else {
+			if (DEBUG) {
+				System.out.println("     failed!");
+			}
+//					// OPTIMIZATION ONLY IN FPCLOSE:  IF THE CLOSURE CHECKING iS NOT PASSED
+//					// WE STOP THIS LOOP BECAUSE THE NEXT ITEMS WILL NOT PASS IT EITHER
+//					break;
+		}
+	}
+
+	/**
+	 * Build the initial FP-tree with arrays (see ArrayFPTree) and mine it.
+	 * 
+	 * @param input the path to the input file
+	 * @throws IOException exception if error reading or writing files
+	 */
+	private void mineArrayFPTree(String input) throws IOException {
+		// the items of the trees are the ranks of the frequent items in the order of
+		// decreasing support
+		itemIDs = ArrayFPTree.rankItems(originalMapSupport, minSupportRelative);
+		int[] supports = new int[itemIDs.length];
+		int maxItem = 0;
+		for (Integer item : originalMapSupport.keySet()) {
+			maxItem = Math.max(maxItem, item);
+		}
+		// the rank of each item of the database (-1 if the item is not frequent)
+		int[] itemRanks = new int[maxItem + 1];
+		Arrays.fill(itemRanks, -1);
+		for (int rank = 0; rank < itemIDs.length; rank++) {
+			itemRanks[itemIDs[rank]] = rank;
+			supports[rank] = originalMapSupport.get(itemIDs[rank]);
+		}
+
+		// Scan the database again to build the initial FP-Tree
+		ArrayFPTree tree = new ArrayFPTree(itemIDs.length, 1024);
+		int[] transaction = new int[64];
+		BufferedReader reader = new BufferedReader(new FileReader(input));
+		String line;
+		// for each line (transaction) until the end of the file
+		while (((line = reader.readLine()) != null)) {
+			// if the line is a comment, is empty or is a
+			// kind of metadata
+			if (line.isEmpty() == true || line.charAt(0) == '#' || line.charAt(0) == '%' || line.charAt(0) == '@') {
+				continue;
+			}
+			String[] lineSplited = line.split(" ");
+			if (transaction.length < lineSplited.length) {
+				transaction = new int[lineSplited.length];
+			}
+			int length = 0;
+			// for each item in the transaction
+			for (String itemString : lineSplited) {
+				int rank = itemRanks[Integer.parseInt(itemString)];
+				// only add items that have the minimum support
+				if (rank != -1) {
+					transaction[length++] = rank;
 				}
+			}
+			// sort item in the transaction by descending order of support
+			Arrays.sort(transaction, 0, length);
+			// add the sorted transaction to the fptree.
+			tree.addTransaction(transaction, length);
+		}
+		// close the input file
+		reader.close();
+
+		// We create the header table for the tree
+		tree.createHeaderList();
+
+		// We start to mine the FP-Tree by calling the recursive method.
+		if (tree.headerList.length > 0) {
+			// initialize the buffer for storing the current itemset
+			itemsetBuffer = new int[BUFFERS_SIZE];
+			countBuffer = new int[BUFFERS_SIZE];
+			if (threadCount > 1) {
+				// mine the tree with several threads and save the itemsets that
+				// are closed
+				saveClosedItemsets(mineInParallel(tree, supports));
+			} else {
+				fpclose(tree, itemsetBuffer, 0, transactionCount, supports);
+			}
+		}
+	}
 
+	/**
+	 * Mine an FP-Tree stored in arrays. This is the same as mining an FPTree, but
+	 * the items of the tree are ranks, which are converted to the items of the
+	 * database when they are added to the prefix.
+	 * 
+	 * @param tree          the FP-tree
+	 * @param prefix        the current prefix, named "alpha"
+	 * @param prefixLength  the length of the prefix
+	 * @param prefixSupport the support of the prefix
+	 * @param supports      the frequency of the items (ranks) in the FP-Tree
+	 * @throws IOException exception if error writing the output file
+	 */
+	private void fpclose(ArrayFPTree tree, int[] prefix, int prefixLength, int prefixSupport, int[] supports)
+			throws IOException {
+		// Case 1: the FPtree contains a single path (nodes 1 to nodeCount) and the
+		// last node has enough support
+		if (tree.singlePath && tree.nodeCounter[tree.nodeCount] >= minSupportRelative) {
+			// copy the items of the path in the buffers
+			int position = prefixLength;
+			for (int node = 1; node <= tree.nodeCount; node++) {
+				itemsetBuffer[position] = itemIDs[tree.nodeItem[node]];
+				countBuffer[position] = tree.nodeCounter[node];
+				position++;
 			}
+			saveClosedItemsetsOfSinglePath(prefixLength, position);
 		} else {
 			// Case 2: There are multiple paths.
 
 			// For each frequent item in the header table list of the tree in reverse order.
 			// (in decreasing order of support...)
-			for (int i = tree.headerList.size() - 1; i >= 0; i--) {
-				// get the item
-				Integer item = tree.headerList.get(i);
-
-				// get the item support
-				int support = mapSupport.get(item);
-
-				// calculate the support of the new prefix beta
-				int betaSupport = (prefixSupport < support) ? prefixSupport : support;
-
-				// Create Beta by concatening item to the current prefix alpha
-				prefix[prefixLength] = item;
-				countBuffer[prefixLength] = betaSupport;
-
-				// === (A) Construct beta's conditional pattern base ===
-				// It is a subdatabase which consists of the set of prefix paths
-				// in the FP-tree co-occuring with the prefix pattern.
-				List<List<FPNode>> prefixPaths = new ArrayList<List<FPNode>>();
-				FPNode path = tree.mapItemNodes.get(item);
-
-				// Map to count the support of items in the conditional prefix tree
-				// Key: item Value: support
-				Map<Integer, Integer> mapSupportBeta = new HashMap<Integer, Integer>();
-
-				while (path != null) {
-					// if the path is not just the root node
-					if (path.parent.itemID != -1) {
-						// create the prefixpath
-						List<FPNode> prefixPath = new ArrayList<FPNode>();
-						// add this node.
-						prefixPath.add(path); // NOTE: we add it just to keep its support,
-						// actually it should not be part of the prefixPath
-
-						// ####
-						int pathCount = path.counter;
-
-						// Recursively add all the parents of this node.
-						FPNode parent = path.parent;
-						while (parent.itemID != -1) {
-							prefixPath.add(parent);
-
-							// FOR EACH PATTERN WE ALSO UPDATE THE ITEM SUPPORT AT THE SAME TIME
-							// if the first time we see that node id
-							if (mapSupportBeta.get(parent.itemID) == null) {
-								// just add the path count
-								mapSupportBeta.put(parent.itemID, pathCount);
-							} else {
-								// otherwise, make the sum with the value already stored
-								mapSupportBeta.put(parent.itemID, mapSupportBeta.get(parent.itemID) + pathCount);
-							}
-							parent = parent.parent;
-						}
-						// add the path to the list of prefixpaths
-						prefixPaths.add(prefixPath);
-					}
-					// We will look for the next prefixpath
-					path = path.nodeLink;
+			for (int i = tree.headerList.length - 1; i >= 0; i--) {
+				// if the algorithm is run in parallel and the tree is large enough,
+				// this item is processed by another task
+				if (taskBuffer != null && (prefixLength == 0 || tree.nodeCount >= splitThreshold)) {
+					forkTask(tree, i, prefix, prefixLength, prefixSupport, supports);
+				} else {
+					fpcloseForItem(tree, i, prefix, prefixLength, prefixSupport, supports);
 				}
+			}
+		}
+	}
 
-				// ===== FP-CLOSE ======
-				// concatenate Beta (Head) with the item "item" (i) to check
-				// for closure
-				int[] headWithP = new int[prefixLength + 1];
-				System.arraycopy(prefix, 0, headWithP, 0, prefixLength + 1);
+	/**
+	 * Mine the itemsets starting with the prefix extended with an item of the
+	 * header table of an FP-tree stored in arrays having more than one path.
+	 * 
+	 * @param tree          the FP-tree
+	 * @param i             the position of the item in the header table
+	 * @param prefix        the current prefix, named "alpha"
+	 * @param prefixLength  the length of the prefix
+	 * @param prefixSupport the support of the prefix
+	 * @param supports      the frequency of the items (ranks) in the FP-Tree
+	 * @throws IOException exception if error writing the output file
+	 */
+	private void fpcloseForItem(ArrayFPTree tree, int i, int[] prefix, int prefixLength, int prefixSupport,
+			int[] supports) throws IOException {
+		// get the item and its support
+		int item = tree.headerList[i];
+		int support = supports[item];
+
+		// calculate the support of the new prefix beta
+		int betaSupport = (prefixSupport < support) ? prefixSupport : support;
+
+		// Create Beta by concatening item to the current prefix alpha
+		prefix[prefixLength] = itemIDs[item];
+		countBuffer[prefixLength] = betaSupport;
+
+		// ===== FP-CLOSE ======
+		// concatenate Beta (Head) with the item "item" (i) to check
+		// for closure
+		int[] headWithP = new int[prefixLength + 1];
+		System.arraycopy(prefix, 0, headWithP, 0, prefixLength + 1);
+		sortOriginalOrder(headWithP, prefixLength + 1);
+
+		// CHECK IF HEAD U P IS A SUBSET OF A CFI ACCORDING TO THE CFI-TREE
+		if (cfiTree.passSubsetChecking(headWithP, prefixLength + 1, betaSupport)) {
+			// (A) Count the support of the items in beta's conditional pattern base
+			int[] supportsBeta = tree.calculateConditionalSupports(item);
+			// (B) Construct beta's conditional FP-Tree from the prefix paths
+			ArrayFPTree treeBeta = tree.createConditionalTree(item, supportsBeta, minSupportRelative);
+			// Mine recursively the Beta tree if the root has child(s)
+			if (treeBeta.nodeCount > 0) {
+				// Create the header list, in the original order
+				treeBeta.createHeaderList();
+				// recursive call
+				fpclose(treeBeta, prefix, prefixLength + 1, betaSupport, supportsBeta);
+			}
+			// if the tree is empty we still need to try to save the
+			// itemset
+			if (cfiTree.passSubsetChecking(headWithP, prefixLength + 1, betaSupport)) {
+				saveItemset(headWithP, prefixLength + 1, betaSupport);
+			}
+		}
+	}
 
-				// Sort Head U {item} according to the original header list total order on items
-				// sort item in the transaction by descending order of support
-				sortOriginalOrder(headWithP, prefixLength + 1);
+	/**
+	 * Mine an FP-tree with several threads.
+	 * 
+	 * @param tree the FP-tree
+	 * @return the itemsets found by the tasks, in the order of a sequential
+	 *         execution
+	 */
+	private ItemsetBuffer mineInParallel(FPTree tree) {
+		// the items of trees having at least this number of nodes are mined
+		// in separate tasks
+		splitThreshold = Math.max(MINIMUM_SPLIT_THRESHOLD, tree.nodeCount / (threadCount * 16));
+
+		AlgoFPClose worker = new AlgoFPClose(this);
+		ForkJoinPool pool = MiningMetrics.current().newForkJoinPool(threadCount);
+		try {
+			pool.invoke(worker.new MiningTask(tree, -1, 0, transactionCount, originalMapSupport));
+		} finally {
+			pool.shutdown();
+		}
+		return worker.taskBuffer.flatten();
+	}
 
-				// ======= DEBUG ========
-				if (DEBUG) {
-					System.out.println(" CHECK2 : " + Arrays.toString(headWithP) + " sup=" + betaSupport);
-				}
-				// ========== END DEBUG =======
+	/**
+	 * Mine an FP-tree stored in arrays with several threads.
+	 * 
+	 * @param tree     the FP-tree
+	 * @param supports the frequency of the items (ranks) in the FP-Tree
+	 * @return the itemsets found by the tasks, in the order of a sequential
+	 *         execution
+	 */
+	private ItemsetBuffer mineInParallel(ArrayFPTree tree, int[] supports) {
+		// the items of trees having at least this number of nodes are mined
+		// in separate tasks
+		splitThreshold = Math.max(MINIMUM_SPLIT_THRESHOLD, tree.nodeCount / (threadCount * 16));
+
+		AlgoFPClose worker = new AlgoFPClose(this);
+		ForkJoinPool pool = MiningMetrics.current().newForkJoinPool(threadCount);
+		try {
+			pool.invoke(worker.new MiningTask(tree, -1, 0, transactionCount, supports));
+		} finally {
+			pool.shutdown();
+		}
+		return worker.taskBuffer.flatten();
+	}
 
-				// CHECK IF HEAD U P IS A SUBSET OF A CFI ACCORDING TO THE CFI-TREE
-				if (cfiTree.passSubsetChecking(headWithP, prefixLength + 1, betaSupport)) {
+	/**
+	 * Save the itemsets found by the tasks that are not a subset of another
+	 * itemset having the same support found by a task. A superset has more items,
+	 * so the itemsets are checked by decreasing size against a CFI-tree of the
+	 * itemsets kept until now.
+	 * 
+	 * @param candidates the itemsets found by the tasks, with their items sorted
+	 *                   according to the order of decreasing support
+	 * @throws IOException exception if error writing the output file
+	 */
+	private void saveClosedItemsets(final ItemsetBuffer candidates) throws IOException {
+		Integer[] positions = new Integer[candidates.size()];
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = i;
+		}
+		// sort by decreasing size (the sort is stable)
+		Arrays.sort(positions, new Comparator<Integer>() {
+			public int compare(Integer i1, Integer i2) {
+				return candidates.getLength(i2) - candidates.getLength(i1);
+			}
+		});
+		CFITree tree = new CFITree();
+		tree.setComparator(comparatorOriginalOrder);
+		boolean[] closed = new boolean[positions.length];
+		for (int position : positions) {
+			int[] itemset = candidates.getItemset(position);
+			int support = candidates.getSupport(position);
+			if (tree.passSubsetChecking(itemset, itemset.length, support)) {
+				tree.addCFI(itemset, itemset.length, support);
+				closed[position] = true;
+			}
+		}
+		// save the closed itemsets in their original order (this also fills the
+		// CFI-tree of the algorithm)
+		for (int i = 0; i < closed.length; i++) {
+			if (closed[i]) {
+				int[] itemset = candidates.getItemset(i);
+				saveItemset(itemset, itemset.length, candidates.getSupport(i));
+			}
+		}
+	}
 
-					if (DEBUG) {
-						System.out.println("    passed!");
-					}
-					// (B) Construct beta's conditional FP-Tree using its prefix path
-					// Create the tree.
-					FPTree treeBeta = new FPTree();
-					// Add each prefixpath in the FP-tree.
-					for (List<FPNode> prefixPath : prefixPaths) {
-						treeBeta.addPrefixPath(prefixPath, mapSupportBeta, minSupportRelative);
-					}
-					// Mine recursively the Beta tree if the root has child(s)
-					if (treeBeta.root.childs.size() > 0) {
+	/**
+	 * Fork a task to mine the itemsets starting with the prefix extended with an
+	 * item of the header table of an FP-tree. The itemsets found by the task will
+	 * be inserted at the current position of the buffer of this worker.
+	 * 
+	 * @param tree          the FP-tree
+	 * @param i             the position of the item in the header table
+	 * @param prefix        the current prefix, named "alpha"
+	 * @param prefixLength  the length of the prefix
+	 * @param prefixSupport the support of the prefix
+	 * @param mapSupport    the frequency of items in the FP-Tree
+	 */
+	private void forkTask(FPTree tree, int i, int[] prefix, int prefixLength, int prefixSupport,
+			Map<Integer, Integer> mapSupport) {
+		AlgoFPClose worker = new AlgoFPClose(this);
+		System.arraycopy(prefix, 0, worker.itemsetBuffer, 0, prefixLength);
+		System.arraycopy(countBuffer, 0, worker.countBuffer, 0, prefixLength);
+		taskBuffer.addBuffer(worker.taskBuffer);
+		forkedTasks.add(worker.new MiningTask(tree, i, prefixLength, prefixSupport, mapSupport).fork());
+	}
 
-						// Create the header list.
-						treeBeta.createHeaderList(originalMapSupport);
+	/**
+	 * Fork a task to mine the itemsets starting with the prefix extended with an
+	 * item of the header table of an FP-tree stored in arrays.
+	 * 
+	 * @param tree          the FP-tree
+	 * @param i             the position of the item in the header table
+	 * @param prefix        the current prefix, named "alpha"
+	 * @param prefixLength  the length of the prefix
+	 * @param prefixSupport the support of the prefix
+	 * @param supports      the frequency of the items (ranks) in the FP-Tree
+	 */
+	private void forkTask(ArrayFPTree tree, int i, int[] prefix, int prefixLength, int prefixSupport,
+			int[] supports) {
+		AlgoFPClose worker = new AlgoFPClose(this);
+		System.arraycopy(prefix, 0, worker.itemsetBuffer, 0, prefixLength);
+		System.arraycopy(countBuffer, 0, worker.countBuffer, 0, prefixLength);
+		taskBuffer.addBuffer(worker.taskBuffer);
+		forkedTasks.add(worker.new MiningTask(tree, i, prefixLength, prefixSupport, supports).fork());
+	}
 
-						// recursive call
-						fpclose(treeBeta, prefix, prefixLength + 1, betaSupport, mapSupportBeta);
-					}
-					// if the tree is empty we still need to try to save the
-					// itemset
-					if (cfiTree.passSubsetChecking(headWithP, prefixLength + 1, betaSupport)) {
-						saveItemset(headWithP, prefixLength + 1, betaSupport);
+	/**
+	 * A task mining a part of an FP-tree, when the algorithm is run in parallel.
+	 * The FP-tree is only read, so it can be shared by several tasks.
+	 */
+	private class MiningTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		// the FP-tree and the frequency of its items (only one of the two kinds of
+		// trees is used)
+		private final FPTree tree;
+		private final Map<Integer, Integer> mapSupport;
+		private final ArrayFPTree arrayTree;
+		private final int[] supports;
+		// the position of the item in the header table, or -1 to mine the whole tree
+		private final int itemIndex;
+		private final int prefixLength;
+		private final int prefixSupport;
+
+		MiningTask(FPTree tree, int itemIndex, int prefixLength, int prefixSupport,
+				Map<Integer, Integer> mapSupport) {
+			this.tree = tree;
+			this.mapSupport = mapSupport;
+			this.arrayTree = null;
+			this.supports = null;
+			this.itemIndex = itemIndex;
+			this.prefixLength = prefixLength;
+			this.prefixSupport = prefixSupport;
+		}
+
+		MiningTask(ArrayFPTree arrayTree, int itemIndex, int prefixLength, int prefixSupport, int[] supports) {
+			this.tree = null;
+			this.mapSupport = null;
+			this.arrayTree = arrayTree;
+			this.supports = supports;
+			this.itemIndex = itemIndex;
+			this.prefixLength = prefixLength;
+			this.prefixSupport = prefixSupport;
+		}
+
+		@Override
+		protected void compute() {
+			try {
+				if (arrayTree != null) {
+					if (itemIndex == -1) {
+						fpclose(arrayTree, itemsetBuffer, prefixLength, prefixSupport, supports);
+					} else {
+						fpcloseForItem(arrayTree, itemIndex, itemsetBuffer, prefixLength, prefixSupport, supports);
 					}
+				} else if (itemIndex == -1) {
+					fpclose(tree, itemsetBuffer, prefixLength, prefixSupport, mapSupport);
 				} else {
-					if (DEBUG) {
-						System.out.println("     failed!");
-					}
-//					// OPTIMIZATION ONLY IN FPCLOSE:  IF THE CLOSURE CHECKING iS NOT PASSED
-//					// WE STOP THIS LOOP BECAUSE THE NEXT ITEMS WILL NOT PASS IT EITHER
-//					break;
+					fpcloseForItem(tree, itemIndex, itemsetBuffer, prefixLength, prefixSupport, mapSupport);
 				}
+			} catch (IOException e) {
+				// a worker does not write to a file
+				throw new UncheckedIOException(e);
+			}
+			// wait for the subtasks
+			for (int i = forkedTasks.size() - 1; i >= 0; i--) {
+				forkedTasks.get(i).join();
 			}
 		}
 	}
@@ -468,6 +934,12 @@ public class AlgoFPClose {
 		// add the itemset to the CFI-TREE
 		cfiTree.addCFI(itemsetCopy, itemsetCopy.length, support);
 
+		// if this is a worker, the itemset is saved when all tasks are done
+		if (taskBuffer != null) {
+			taskBuffer.add(itemsetCopy, itemsetLength, support);
+			return;
+		}
+
 		// increase the number of itemsets found for statistics purpose
 		itemsetCount++;
 
@@ -582,6 +1054,30 @@ public class AlgoFPClose {
 		System.out.println("===================================================");
 	}
 
+	/**
+	 * Choose whether the FP-trees are stored in arrays (see ArrayFPTree) rather
+	 * than with FPNode objects. By default, FPNode objects are used. The itemsets
+	 * found are the same, in the same order.
+	 * 
+	 * @param useArrayFPTree true to store the FP-trees in arrays
+	 */
+	public void setUseArrayFPTree(boolean useArrayFPTree) {
+		this.useArrayFPTree = useArrayFPTree;
+	}
+
+	/**
+	 * Set the number of threads used to mine the FP-tree. By default, a single
+	 * thread is used. The itemsets found are the same, in the same order.
+	 * 
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
 	/**
 	 * Get the number of transactions in the last transaction database read.
 	 * 
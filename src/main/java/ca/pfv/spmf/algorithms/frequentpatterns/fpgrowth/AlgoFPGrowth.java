@@ -23,6 +23,7 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -30,10 +31,15 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemsets;
 import ca.pfv.spmf.tools.MemoryLogger;
+import ca.pfv.spmf.tools.MiningMetrics;
+import ca.pfv.spmf.tools.MiningMetrics.Counter;
 
 /**
  * This is an implementation of the FPGROWTH algorithm (Han et al., 2004).
@@ -47,7 +53,15 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * 
  * This is an optimized version that saves the result to a file or keep it into
  * memory if no output path is provided by the user to the runAlgorithm
- * method().
+ * method(). <br/>
+ * <br/>
+ * 
+ * The FP-tree can be mined by several threads (see setThreadCount()). The
+ * conditional FP-trees of the items of the header table are independent, so
+ * each item of a large tree is processed by a task of a ForkJoinPool, and each
+ * task mines smaller trees by itself. The itemsets found by each task are kept
+ * in a buffer and are saved once all tasks are done, in the same order as in a
+ * sequential execution.
  *
  * @see FPTree
  * @see Itemset
@@ -78,8 +92,10 @@ public class AlgoFPGrowth {
 	// buffer for storing the current itemset that is mined when performing mining
 	// the idea is to always reuse the same buffer to reduce memory usage.
 	private int[] itemsetBuffer = null;
-	// another buffer for storing fpnodes in a single path of the tree
-	private FPNode[] fpNodeTempBuffer = null;
+	// buffers for storing the items and the support of the nodes in a single path
+	// of the tree
+	private int[] pathItemBuffer = null;
+	private int[] pathCounterBuffer = null;
 
 	// This buffer is used to store an itemset that will be written to file
 	// so that the algorithm can sort the itemset before it is output to file
@@ -89,6 +105,34 @@ public class AlgoFPGrowth {
 	/** maximum pattern length */
 	private int maxPatternLength = 1000;
 
+	/** if true, the FP-trees are stored in arrays (see ArrayFPTree) */
+	private boolean useArrayFPTree = false;
+
+	// If the FP-trees are stored in arrays, the item of the database for each item
+	// (rank) of the trees
+	private int[] itemIDs = null;
+
+	/** the number of threads used to mine the FP-tree */
+	private int threadCount = 1;
+
+	// When the algorithm is run in parallel, the minimum number of nodes of a
+	// tree for processing its items in separate tasks (smaller trees are mined by
+	// the current task). It is calculated from the size of the initial tree.
+	private int splitThreshold = 0;
+
+	// the minimum value of splitThreshold
+	private static final int MINIMUM_SPLIT_THRESHOLD = 64;
+
+	// If this object is a worker mining a part of the tree in a task, the buffer
+	// where itemsets are stored (null otherwise)
+	private ItemsetBuffer taskBuffer = null;
+
+	// the subtasks forked by this worker
+	private List<ForkJoinTask<?>> forkedTasks = null;
+
+	// the statistics of the current run (shared with the workers)
+	private MiningMetrics metrics = MiningMetrics.current();
+
 	/**
 	 * Constructor
 	 */
@@ -96,6 +140,25 @@ public class AlgoFPGrowth {
 
 	}
 
+	/**
+	 * Constructor of a worker that mines a part of the FP-tree in a task, when the
+	 * algorithm is run in parallel. A worker has its own buffers.
+	 * 
+	 * @param algorithm the algorithm that is run
+	 */
+	private AlgoFPGrowth(AlgoFPGrowth algorithm) {
+		this.minSupportRelative = algorithm.minSupportRelative;
+		this.maxPatternLength = algorithm.maxPatternLength;
+		this.splitThreshold = algorithm.splitThreshold;
+		this.itemsetBuffer = new int[BUFFERS_SIZE];
+		this.itemIDs = algorithm.itemIDs;
+		this.pathItemBuffer = new int[BUFFERS_SIZE];
+		this.pathCounterBuffer = new int[BUFFERS_SIZE];
+		this.taskBuffer = new ItemsetBuffer();
+		this.forkedTasks = new ArrayList<ForkJoinTask<?>>();
+		this.metrics = algorithm.metrics;
+	}
+
 	/**
 	 * Method to run the FPGRowth algorithm.
 	 * 
@@ -116,6 +179,7 @@ public class AlgoFPGrowth {
 		// initialize tool to record memory usage
 		MemoryLogger.getInstance().reset();
 		MemoryLogger.getInstance().checkMemory();
+		metrics = MiningMetrics.current();
 
 		// if the user want to keep the result into memory
 		if (output == null) {
@@ -131,76 +195,99 @@ public class AlgoFPGrowth {
 		// item
 		// The frequency is stored in a map:
 		// key: item value: support
+		MiningMetrics.Phase phase = metrics.startPhase("scan");
 		final Map<Integer, Integer> mapSupport = scanDatabaseToDetermineFrequencyOfSingleItems(input);
+		phase.end();
 
 		// convert the minimum support as percentage to a
 		// relative minimum support
 		this.minSupportRelative = (int) Math.ceil(minsupp * transactionCount);
 
-		// (2) Scan the database again to build the initial FP-Tree
-		// Before inserting a transaction in the FPTree, we sort the items
-		// by descending order of support. We ignore items that
-		// do not have the minimum support.
-		FPTree tree = new FPTree();
-
-		// read the file
-		BufferedReader reader = new BufferedReader(new FileReader(input));
-		String line;
-		// for each line (transaction) until the end of the file
-		while (((line = reader.readLine()) != null)) {
-			// if the line is a comment, is empty or is a
-			// kind of metadata
-			if (line.isEmpty() == true || line.charAt(0) == '#' || line.charAt(0) == '%' || line.charAt(0) == '@') {
-				continue;
-			}
+		if (useArrayFPTree) {
+			// (2) Build the initial FP-tree with arrays and mine it
+			mineArrayFPTree(input, mapSupport);
+		} else {
+			// (2) Scan the database again to build the initial FP-Tree
+			// Before inserting a transaction in the FPTree, we sort the items
+			// by descending order of support. We ignore items that
+			// do not have the minimum support.
+			phase = metrics.startPhase("build");
+			FPTree tree = new FPTree();
+
+			// read the file
+			BufferedReader reader = new BufferedReader(new FileReader(input));
+			String line;
+			// for each line (transaction) until the end of the file
+			while (((line = reader.readLine()) != null)) {
+				// if the line is a comment, is empty or is a
+				// kind of metadata
+				if (line.isEmpty() == true || line.charAt(0) == '#' || line.charAt(0) == '%' || line.charAt(0) == '@') {
+					continue;
+				}
 
-			String[] lineSplited = line.split(" ");
-//			Set<Integer> alreadySeen = new HashSet<Integer>();
-			List<Integer> transaction = new ArrayList<Integer>();
+				String[] lineSplited = line.split(" ");
+//				Set<Integer> alreadySeen = new HashSet<Integer>();
+				List<Integer> transaction = new ArrayList<Integer>();
 
-			// for each item in the transaction
-			for (String itemString : lineSplited) {
-				Integer item = Integer.parseInt(itemString);
-				// only add items that have the minimum support
-				if (mapSupport.get(item) >= minSupportRelative) {
-					transaction.add(item);
+				// for each item in the transaction
+				for (String itemString : lineSplited) {
+					Integer item = Integer.parseInt(itemString);
+					// only add items that have the minimum support
+					if (mapSupport.get(item) >= minSupportRelative) {
+						transaction.add(item);
+					}
 				}
+				// sort item in the transaction by descending order of support
+				Collections.sort(transaction, new Comparator<Integer>() {
+					public int compare(Integer item1, Integer item2) {
+						// compare the frequency
+						int compare = mapSupport.get(item2) - mapSupport.get(item1);
+						// if the same frequency, we check the lexical ordering!
+						if (compare == 0) {
+							return (item1 - item2);
+						}
+						// otherwise, just use the frequency
+						return compare;
+					}
+				});
+				// add the sorted transaction to the fptree.
+				tree.addTransaction(transaction);
 			}
-			// sort item in the transaction by descending order of support
-			Collections.sort(transaction, new Comparator<Integer>() {
-				public int compare(Integer item1, Integer item2) {
-					// compare the frequency
-					int compare = mapSupport.get(item2) - mapSupport.get(item1);
-					// if the same frequency, we check the lexical ordering!
-					if (compare == 0) {
-						return (item1 - item2);
+			// close the input file
+			reader.close();
+
+			// We create the header table for the tree using the calculated support of
+			// single items
+			tree.createHeaderList(mapSupport);
+			metrics.add(Counter.NODES_CREATED, tree.nodeCount);
+			phase.end();
+
+			// (5) We start to mine the FP-Tree by calling the recursive method.
+			// Initially, the prefix alpha is empty.
+			// if at least an item is frequent
+			if (tree.headerList.size() > 0) {
+				// initialize the buffer for storing the current itemset
+				itemsetBuffer = new int[BUFFERS_SIZE];
+				// and the buffers for single paths
+				pathItemBuffer = new int[BUFFERS_SIZE];
+				pathCounterBuffer = new int[BUFFERS_SIZE];
+				phase = metrics.startPhase("mining");
+				if (threadCount > 1) {
+					// mine the tree with several threads
+					ItemsetBuffer result = mineInParallel(tree, mapSupport);
+					// save the itemsets that were found
+					for (int i = 0; i < result.size(); i++) {
+						int[] itemset = result.getItemset(i);
+						saveItemset(itemset, itemset.length, result.getSupport(i));
 					}
-					// otherwise, just use the frequency
-					return compare;
+				} else {
+					// recursively generate frequent itemsets using the fp-tree
+					// Note: we assume that the initial FP-Tree has more than one path
+					// which should generally be the case.
+					fpgrowth(tree, itemsetBuffer, 0, transactionCount, mapSupport);
 				}
-			});
-			// add the sorted transaction to the fptree.
-			tree.addTransaction(transaction);
-		}
-		// close the input file
-		reader.close();
-
-		// We create the header table for the tree using the calculated support of
-		// single items
-		tree.createHeaderList(mapSupport);
-
-		// (5) We start to mine the FP-Tree by calling the recursive method.
-		// Initially, the prefix alpha is empty.
-		// if at least an item is frequent
-		if (tree.headerList.size() > 0) {
-			// initialize the buffer for storing the current itemset
-			itemsetBuffer = new int[BUFFERS_SIZE];
-			// and another buffer
-			fpNodeTempBuffer = new FPNode[BUFFERS_SIZE];
-			// recursively generate frequent itemsets using the fp-tree
-			// Note: we assume that the initial FP-Tree has more than one path
-			// which should generally be the case.
-			fpgrowth(tree, itemsetBuffer, 0, transactionCount, mapSupport);
+				phase.end();
+			}
 		}
 
 		// close the output file if the result was saved to a file
@@ -263,7 +350,8 @@ public class AlgoFPGrowth {
 				}
 				// otherwise, we copy the current item in the buffer and move to the child
 				// the buffer will be used to store all items in the path
-				fpNodeTempBuffer[position] = currentNode;
+				pathItemBuffer[position] = currentNode.itemID;
+				pathCounterBuffer[position] = currentNode.counter;
 
 				position++;
 				// if this node has no child, that means that this is the end of this path
@@ -278,103 +366,449 @@ public class AlgoFPGrowth {
 		// Case 1: the FPtree contains a single path
 		if (singlePath) {
 			// We save the path, because it is a maximal itemset
-			saveAllCombinationsOfPrefixPath(fpNodeTempBuffer, position, prefix, prefixLength);
+			saveAllCombinationsOfPrefixPath(pathItemBuffer, pathCounterBuffer, position, prefix, prefixLength);
 		} else {
 			// For each frequent item in the header table list of the tree in reverse order.
 			for (int i = tree.headerList.size() - 1; i >= 0; i--) {
-				// get the item
-				Integer item = tree.headerList.get(i);
-
-				// get the item support
-				int support = mapSupport.get(item);
-
-				// Create Beta by concatening prefix Alpha by adding the current item to alpha
-				prefix[prefixLength] = item;
-
-				// calculate the support of the new prefix beta
-				int betaSupport = (prefixSupport < support) ? prefixSupport : support;
-
-				// save beta to the output file
-				saveItemset(prefix, prefixLength + 1, betaSupport);
-
-				if (prefixLength + 1 < maxPatternLength) {
-
-					// === (A) Construct beta's conditional pattern base ===
-					// It is a subdatabase which consists of the set of prefix paths
-					// in the FP-tree co-occuring with the prefix pattern.
-					List<List<FPNode>> prefixPaths = new ArrayList<List<FPNode>>();
-					FPNode path = tree.mapItemNodes.get(item);
-
-					// Map to count the support of items in the conditional prefix tree
-					// Key: item Value: support
-					Map<Integer, Integer> mapSupportBeta = new HashMap<Integer, Integer>();
-
-					while (path != null) {
-						// if the path is not just the root node
-						if (path.parent.itemID != -1) {
-							// create the prefixpath
-							List<FPNode> prefixPath = new ArrayList<FPNode>();
-							// add this node.
-							prefixPath.add(path); // NOTE: we add it just to keep its support,
-							// actually it should not be part of the prefixPath
-
-							// ####
-							int pathCount = path.counter;
-
-							// Recursively add all the parents of this node.
-							FPNode parent = path.parent;
-							while (parent.itemID != -1) {
-								prefixPath.add(parent);
-
-								// FOR EACH PATTERN WE ALSO UPDATE THE ITEM SUPPORT AT THE SAME TIME
-								// if the first time we see that node id
-								if (mapSupportBeta.get(parent.itemID) == null) {
-									// just add the path count
-									mapSupportBeta.put(parent.itemID, pathCount);
-								} else {
-									// otherwise, make the sum with the value already stored
-									mapSupportBeta.put(parent.itemID, mapSupportBeta.get(parent.itemID) + pathCount);
-								}
-								parent = parent.parent;
-							}
-							// add the path to the list of prefixpaths
-							prefixPaths.add(prefixPath);
+				// if the algorithm is run in parallel and the tree is large enough,
+				// this item is processed by another task
+				if (taskBuffer != null && (prefixLength == 0 || tree.nodeCount >= splitThreshold)) {
+					forkTask(tree, i, prefix, prefixLength, prefixSupport, mapSupport);
+				} else {
+					fpgrowthForItem(tree, i, prefix, prefixLength, prefixSupport, mapSupport);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Mine the itemsets starting with the prefix extended with an item of the
+	 * header table of an FP-tree having more than one path.
+	 * 
+	 * @param tree          the FP-tree
+	 * @param i             the position of the item in the header table
+	 * @param prefix        the current prefix, named "alpha"
+	 * @param prefixLength  the length of the prefix
+	 * @param prefixSupport the support of the prefix
+	 * @param mapSupport    the frequency of items in the FP-Tree
+	 * @throws IOException exception if error writing the output file
+	 */
+	private void fpgrowthForItem(FPTree tree, int i, int[] prefix, int prefixLength, int prefixSupport,
+			Map<Integer, Integer> mapSupport) throws IOException {
+		// get the item
+		Integer item = tree.headerList.get(i);
+
+		// get the item support
+		int support = mapSupport.get(item);
+
+		// Create Beta by concatening prefix Alpha by adding the current item to alpha
+		prefix[prefixLength] = item;
+
+		// calculate the support of the new prefix beta
+		int betaSupport = (prefixSupport < support) ? prefixSupport : support;
+
+		// save beta to the output file
+		saveItemset(prefix, prefixLength + 1, betaSupport);
+
+		if (prefixLength + 1 < maxPatternLength) {
+
+			// === (A) Construct beta's conditional pattern base ===
+			// It is a subdatabase which consists of the set of prefix paths
+			// in the FP-tree co-occuring with the prefix pattern.
+			List<List<FPNode>> prefixPaths = new ArrayList<List<FPNode>>();
+			FPNode path = tree.mapItemNodes.get(item);
+
+			// Map to count the support of items in the conditional prefix tree
+			// Key: item Value: support
+			Map<Integer, Integer> mapSupportBeta = new HashMap<Integer, Integer>();
+
+			while (path != null) {
+				// if the path is not just the root node
+				if (path.parent.itemID != -1) {
+					// create the prefixpath
+					List<FPNode> prefixPath = new ArrayList<FPNode>();
+					// add this node.
+					prefixPath.add(path); // NOTE: we add it just to keep its support,
+					// actually it should not be part of the prefixPath
+
+					// ####
+					int pathCount = path.counter;
+
+					// Recursively add all the parents of this node.
+					FPNode parent = path.parent;
+					while (parent.itemID != -1) {
+						prefixPath.add(parent);
+
+						// FOR EACH PATTERN WE ALSO UPDATE THE ITEM SUPPORT AT THE SAME TIME
+						// if the first time we see that node id
+						if (mapSupportBeta.get(parent.itemID) == null) {
+							// just add the path count
+							mapSupportBeta.put(parent.itemID, pathCount);
+						} else {
+							// otherwise, make the sum with the value already stored
+							mapSupportBeta.put(parent.itemID, mapSupportBeta.get(parent.itemID) + pathCount);
 						}
-						// We will look for the next prefixpath
-						path = path.nodeLink;
+						parent = parent.parent;
 					}
+					// add the path to the list of prefixpaths
+					prefixPaths.add(prefixPath);
+				}
+				// We will look for the next prefixpath
+				path = path.nodeLink;
+			}
 
-					// (B) Construct beta's conditional FP-Tree
-					// Create the tree.
-					FPTree treeBeta = new FPTree();
-					// Add each prefixpath in the FP-tree.
-					for (List<FPNode> prefixPath : prefixPaths) {
-						treeBeta.addPrefixPath(prefixPath, mapSupportBeta, minSupportRelative);
-					}
+			// (B) Construct beta's conditional FP-Tree
+			// Create the tree.
+			FPTree treeBeta = new FPTree();
+			// Add each prefixpath in the FP-tree.
+			for (List<FPNode> prefixPath : prefixPaths) {
+				treeBeta.addPrefixPath(prefixPath, mapSupportBeta, minSupportRelative);
+			}
+			metrics.increment(Counter.PROJECTIONS_BUILT);
+			metrics.add(Counter.NODES_CREATED, treeBeta.nodeCount);
 
-					// Mine recursively the Beta tree if the root has child(s)
-					if (treeBeta.root.childs.size() > 0) {
+			// Mine recursively the Beta tree if the root has child(s)
+			if (treeBeta.root.childs.size() > 0) {
 
-						// Create the header list.
-						treeBeta.createHeaderList(mapSupportBeta);
-						// recursive call
-						fpgrowth(treeBeta, prefix, prefixLength + 1, betaSupport, mapSupportBeta);
-					}
+				// Create the header list.
+				treeBeta.createHeaderList(mapSupportBeta);
+				// recursive call
+				fpgrowth(treeBeta, prefix, prefixLength + 1, betaSupport, mapSupportBeta);
+			}
+		}
+	}
+
+	/**
+	 * Build the initial FP-tree with arrays (see ArrayFPTree) and mine it.
+	 * 
+	 * @param input      the path to the input file
+	 * @param mapSupport the frequency of items in the database
+	 * @throws IOException exception if error reading or writing files
+	 */
+	private void mineArrayFPTree(String input, Map<Integer, Integer> mapSupport) throws IOException {
+		// the items of the trees are the ranks of the frequent items in the order of
+		// decreasing support
+		itemIDs = ArrayFPTree.rankItems(mapSupport, minSupportRelative);
+		int[] supports = new int[itemIDs.length];
+		int maxItem = 0;
+		for (Integer item : mapSupport.keySet()) {
+			maxItem = Math.max(maxItem, item);
+		}
+		// the rank of each item of the database (-1 if the item is not frequent)
+		int[] itemRanks = new int[maxItem + 1];
+		Arrays.fill(itemRanks, -1);
+		for (int rank = 0; rank < itemIDs.length; rank++) {
+			itemRanks[itemIDs[rank]] = rank;
+			supports[rank] = mapSupport.get(itemIDs[rank]);
+		}
+
+		// Scan the database again to build the initial FP-Tree
+		MiningMetrics.Phase phase = metrics.startPhase("build");
+		ArrayFPTree tree = new ArrayFPTree(itemIDs.length, 1024);
+		int[] transaction = new int[64];
+		BufferedReader reader = new BufferedReader(new FileReader(input));
+		String line;
+		// for each line (transaction) until the end of the file
+		while (((line = reader.readLine()) != null)) {
+			// if the line is a comment, is empty or is a
+			// kind of metadata
+			if (line.isEmpty() == true || line.charAt(0) == '#' || line.charAt(0) == '%' || line.charAt(0) == '@') {
+				continue;
+			}
+			String[] lineSplited = line.split(" ");
+			if (transaction.length < lineSplited.length) {
+				transaction = new int[lineSplited.length];
+			}
+			int length = 0;
+			// for each item in the transaction
+			for (String itemString : lineSplited) {
+				int rank = itemRanks[Integer.parseInt(itemString)];
+				// only add items that have the minimum support
+				if (rank != -1) {
+					transaction[length++] = rank;
 				}
 			}
+			// sort item in the transaction by descending order of support
+			Arrays.sort(transaction, 0, length);
+			// add the sorted transaction to the fptree.
+			tree.addTransaction(transaction, length);
+		}
+		// close the input file
+		reader.close();
+
+		// We create the header table for the tree
+		tree.createHeaderList();
+		metrics.add(Counter.NODES_CREATED, tree.nodeCount);
+		phase.end();
+
+		// We start to mine the FP-Tree by calling the recursive method.
+		if (tree.headerList.length > 0) {
+			// initialize the buffers for storing the current itemset and single paths
+			itemsetBuffer = new int[BUFFERS_SIZE];
+			pathItemBuffer = new int[BUFFERS_SIZE];
+			pathCounterBuffer = new int[BUFFERS_SIZE];
+			phase = metrics.startPhase("mining");
+			if (threadCount > 1) {
+				// mine the tree with several threads
+				ItemsetBuffer result = mineInParallel(tree, supports);
+				// save the itemsets that were found
+				for (int i = 0; i < result.size(); i++) {
+					int[] itemset = result.getItemset(i);
+					saveItemset(itemset, itemset.length, result.getSupport(i));
+				}
+			} else {
+				fpgrowth(tree, itemsetBuffer, 0, transactionCount, supports);
+			}
+			phase.end();
+		}
+	}
+
+	/**
+	 * Mine an FP-Tree stored in arrays. This is the same as mining an FPTree, but
+	 * the items of the tree are ranks, which are converted to the items of the
+	 * database when they are added to the prefix.
+	 * 
+	 * @param tree          the FP-tree
+	 * @param prefix        the current prefix, named "alpha"
+	 * @param prefixLength  the length of the prefix
+	 * @param prefixSupport the support of the prefix
+	 * @param supports      the frequency of the items (ranks) in the FP-Tree
+	 * @throws IOException exception if error writing the output file
+	 */
+	private void fpgrowth(ArrayFPTree tree, int[] prefix, int prefixLength, int prefixSupport, int[] supports)
+			throws IOException {
+
+		if (prefixLength == maxPatternLength) {
+			return;
+		}
+
+		// Case 1: the FPtree contains a single path
+		if (tree.singlePath) {
+			// copy the items of the path (nodes 1 to nodeCount) in the buffers
+			for (int node = 1; node <= tree.nodeCount; node++) {
+				pathItemBuffer[node - 1] = itemIDs[tree.nodeItem[node]];
+				pathCounterBuffer[node - 1] = tree.nodeCounter[node];
+			}
+			saveAllCombinationsOfPrefixPath(pathItemBuffer, pathCounterBuffer, tree.nodeCount, prefix, prefixLength);
+		} else {
+			// For each frequent item in the header table list of the tree in reverse order.
+			for (int i = tree.headerList.length - 1; i >= 0; i--) {
+				// if the algorithm is run in parallel and the tree is large enough,
+				// this item is processed by another task
+				if (taskBuffer != null && (prefixLength == 0 || tree.nodeCount >= splitThreshold)) {
+					forkTask(tree, i, prefix, prefixLength, prefixSupport, supports);
+				} else {
+					fpgrowthForItem(tree, i, prefix, prefixLength, prefixSupport, supports);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Mine the itemsets starting with the prefix extended with an item of the
+	 * header table of an FP-tree stored in arrays having more than one path.
+	 * 
+	 * @param tree          the FP-tree
+	 * @param i             the position of the item in the header table
+	 * @param prefix        the current prefix, named "alpha"
+	 * @param prefixLength  the length of the prefix
+	 * @param prefixSupport the support of the prefix
+	 * @param supports      the frequency of the items (ranks) in the FP-Tree
+	 * @throws IOException exception if error writing the output file
+	 */
+	private void fpgrowthForItem(ArrayFPTree tree, int i, int[] prefix, int prefixLength, int prefixSupport,
+			int[] supports) throws IOException {
+		// get the item and its support
+		int item = tree.headerList[i];
+		int support = supports[item];
+
+		// Create Beta by concatening prefix Alpha by adding the current item to alpha
+		prefix[prefixLength] = itemIDs[item];
+
+		// calculate the support of the new prefix beta
+		int betaSupport = (prefixSupport < support) ? prefixSupport : support;
+
+		// save beta to the output file
+		saveItemset(prefix, prefixLength + 1, betaSupport);
+
+		if (prefixLength + 1 < maxPatternLength) {
+			// === (A) Count the support of the items in beta's conditional pattern base ===
+			int[] supportsBeta = tree.calculateConditionalSupports(item);
+
+			// (B) Construct beta's conditional FP-Tree from the prefix paths
+			ArrayFPTree treeBeta = tree.createConditionalTree(item, supportsBeta, minSupportRelative);
+			metrics.increment(Counter.PROJECTIONS_BUILT);
+			metrics.add(Counter.NODES_CREATED, treeBeta.nodeCount);
+
+			// Mine recursively the Beta tree if the root has child(s)
+			if (treeBeta.nodeCount > 0) {
+				// Create the header list.
+				treeBeta.createHeaderList(supportsBeta, itemIDs);
+				// recursive call
+				fpgrowth(treeBeta, prefix, prefixLength + 1, betaSupport, supportsBeta);
+			}
 		}
+	}
 
+	/**
+	 * Mine an FP-tree with several threads.
+	 * 
+	 * @param tree       the FP-tree
+	 * @param mapSupport the frequency of items in the FP-Tree
+	 * @return the itemsets found, in the order of a sequential execution
+	 */
+	private ItemsetBuffer mineInParallel(FPTree tree, Map<Integer, Integer> mapSupport) {
+		// the items of trees having at least this number of nodes are mined
+		// in separate tasks
+		splitThreshold = Math.max(MINIMUM_SPLIT_THRESHOLD, tree.nodeCount / (threadCount * 16));
+
+		AlgoFPGrowth worker = new AlgoFPGrowth(this);
+		ForkJoinPool pool = metrics.newForkJoinPool(threadCount);
+		try {
+			pool.invoke(worker.new MiningTask(tree, -1, 0, transactionCount, mapSupport));
+		} finally {
+			pool.shutdown();
+		}
+		return worker.taskBuffer.flatten();
+	}
+
+	/**
+	 * Mine an FP-tree stored in arrays with several threads.
+	 * 
+	 * @param tree     the FP-tree
+	 * @param supports the frequency of the items (ranks) in the FP-Tree
+	 * @return the itemsets found, in the order of a sequential execution
+	 */
+	private ItemsetBuffer mineInParallel(ArrayFPTree tree, int[] supports) {
+		// the items of trees having at least this number of nodes are mined
+		// in separate tasks
+		splitThreshold = Math.max(MINIMUM_SPLIT_THRESHOLD, tree.nodeCount / (threadCount * 16));
+
+		AlgoFPGrowth worker = new AlgoFPGrowth(this);
+		ForkJoinPool pool = metrics.newForkJoinPool(threadCount);
+		try {
+			pool.invoke(worker.new MiningTask(tree, -1, 0, transactionCount, supports));
+		} finally {
+			pool.shutdown();
+		}
+		return worker.taskBuffer.flatten();
+	}
+
+	/**
+	 * Fork a task to mine the itemsets starting with the prefix extended with an
+	 * item of the header table of an FP-tree. The itemsets found by the task will
+	 * be inserted at the current position of the buffer of this worker.
+	 * 
+	 * @param tree          the FP-tree
+	 * @param i             the position of the item in the header table
+	 * @param prefix        the current prefix, named "alpha"
+	 * @param prefixLength  the length of the prefix
+	 * @param prefixSupport the support of the prefix
+	 * @param mapSupport    the frequency of items in the FP-Tree
+	 */
+	private void forkTask(FPTree tree, int i, int[] prefix, int prefixLength, int prefixSupport,
+			Map<Integer, Integer> mapSupport) {
+		AlgoFPGrowth worker = new AlgoFPGrowth(this);
+		System.arraycopy(prefix, 0, worker.itemsetBuffer, 0, prefixLength);
+		taskBuffer.addBuffer(worker.taskBuffer);
+		forkedTasks.add(worker.new MiningTask(tree, i, prefixLength, prefixSupport, mapSupport).fork());
+	}
+
+	/**
+	 * Fork a task to mine the itemsets starting with the prefix extended with an
+	 * item of the header table of an FP-tree stored in arrays.
+	 * 
+	 * @param tree          the FP-tree
+	 * @param i             the position of the item in the header table
+	 * @param prefix        the current prefix, named "alpha"
+	 * @param prefixLength  the length of the prefix
+	 * @param prefixSupport the support of the prefix
+	 * @param supports      the frequency of the items (ranks) in the FP-Tree
+	 */
+	private void forkTask(ArrayFPTree tree, int i, int[] prefix, int prefixLength, int prefixSupport,
+			int[] supports) {
+		AlgoFPGrowth worker = new AlgoFPGrowth(this);
+		System.arraycopy(prefix, 0, worker.itemsetBuffer, 0, prefixLength);
+		taskBuffer.addBuffer(worker.taskBuffer);
+		forkedTasks.add(worker.new MiningTask(tree, i, prefixLength, prefixSupport, supports).fork());
+	}
+
+	/**
+	 * A task mining a part of an FP-tree, when the algorithm is run in parallel.
+	 * The FP-tree is only read, so it can be shared by several tasks.
+	 */
+	private class MiningTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		// the FP-tree and the frequency of its items (only one of the two kinds of
+		// trees is used)
+		private final FPTree tree;
+		private final Map<Integer, Integer> mapSupport;
+		private final ArrayFPTree arrayTree;
+		private final int[] supports;
+		// the position of the item in the header table, or -1 to mine the whole tree
+		private final int itemIndex;
+		private final int prefixLength;
+		private final int prefixSupport;
+
+		MiningTask(FPTree tree, int itemIndex, int prefixLength, int prefixSupport,
+				Map<Integer, Integer> mapSupport) {
+			this.tree = tree;
+			this.mapSupport = mapSupport;
+			this.arrayTree = null;
+			this.supports = null;
+			this.itemIndex = itemIndex;
+			this.prefixLength = prefixLength;
+			this.prefixSupport = prefixSupport;
+		}
+
+		MiningTask(ArrayFPTree arrayTree, int itemIndex, int prefixLength, int prefixSupport, int[] supports) {
+			this.tree = null;
+			this.mapSupport = null;
+			this.arrayTree = arrayTree;
+			this.supports = supports;
+			this.itemIndex = itemIndex;
+			this.prefixLength = prefixLength;
+			this.prefixSupport = prefixSupport;
+		}
+
+		@Override
+		protected void compute() {
+			try {
+				if (arrayTree != null) {
+					if (itemIndex == -1) {
+						fpgrowth(arrayTree, itemsetBuffer, prefixLength, prefixSupport, supports);
+					} else {
+						fpgrowthForItem(arrayTree, itemIndex, itemsetBuffer, prefixLength, prefixSupport, supports);
+					}
+				} else if (itemIndex == -1) {
+					fpgrowth(tree, itemsetBuffer, prefixLength, prefixSupport, mapSupport);
+				} else {
+					fpgrowthForItem(tree, itemIndex, itemsetBuffer, prefixLength, prefixSupport, mapSupport);
+				}
+			} catch (IOException e) {
+				// a worker does not write to a file
+				throw new UncheckedIOException(e);
+			}
+			// wait for the subtasks
+			for (int i = forkedTasks.size() - 1; i >= 0; i--) {
+				forkedTasks.get(i).join();
+			}
+		}
 	}
 
 	/**
 	 * This method saves all combinations of a prefix path if it has enough support
 	 * 
+	 * @param pathItems    the items of the prefix path
+	 * @param pathCounters the support of the nodes of the prefix path
+	 * @param position     the number of nodes in the prefix path
 	 * @param prefix       the current prefix
 	 * @param prefixLength the current prefix length
-	 * @param prefixPath   the prefix path
 	 * @throws IOException if exception while writting to output file
 	 */
-	private void saveAllCombinationsOfPrefixPath(FPNode[] fpNodeTempBuffer, int position, int[] prefix,
+	private void saveAllCombinationsOfPrefixPath(int[] pathItems, int[] pathCounters, int position, int[] prefix,
 			int prefixLength) throws IOException {
 
 		int support = 0;
@@ -396,11 +830,11 @@ public class AlgoFPGrowth {
 						continue loop1;
 					}
 
-					prefix[newPrefixLength++] = fpNodeTempBuffer[j].itemID;
+					prefix[newPrefixLength++] = pathItems[j];
 					// 2018-03-18: REMOVED THE FOLLOWING "IF" to fix
 					// support counting error.
 //					if(support == 0) {
-					support = fpNodeTempBuffer[j].counter;
+					support = pathCounters[j];
 //					}
 				}
 			}
@@ -461,8 +895,15 @@ public class AlgoFPGrowth {
 	 */
 	private void saveItemset(int[] itemset, int itemsetLength, int support) throws IOException {
 
+		// if this is a worker, the itemset is saved when all tasks are done
+		if (taskBuffer != null) {
+			taskBuffer.add(itemset, itemsetLength, support);
+			return;
+		}
+
 		// increase the number of itemsets found for statistics purpose
 		itemsetCount++;
+		metrics.increment(Counter.PATTERNS_EMITTED);
 
 		// if the result should be saved to a file
 		if (writer != null) {
@@ -534,4 +975,28 @@ public class AlgoFPGrowth {
 		maxPatternLength = length;
 	}
 
+	/**
+	 * Choose whether the FP-trees are stored in arrays (see ArrayFPTree) rather
+	 * than with FPNode objects. By default, FPNode objects are used. The itemsets
+	 * found are the same, in the same order.
+	 * 
+	 * @param useArrayFPTree true to store the FP-trees in arrays
+	 */
+	public void setUseArrayFPTree(boolean useArrayFPTree) {
+		this.useArrayFPTree = useArrayFPTree;
+	}
+
+	/**
+	 * Set the number of threads used to mine the FP-tree. By default, a single
+	 * thread is used. The itemsets found are the same, in the same order.
+	 * 
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
 }
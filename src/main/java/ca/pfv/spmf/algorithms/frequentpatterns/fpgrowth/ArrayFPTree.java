@@ -0,0 +1,397 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.fpgrowth;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * This is an implementation of a FPTree where the nodes are stored in arrays
+ * of integers instead of FPNode objects. It is used by FPGrowth, FPMax and
+ * FPClose instead of the FPTree when the option to use an array FP-tree is
+ * selected. <br/>
+ * <br/>
+ *
+ * Node i is described by the i-th value of the arrays nodeItem, nodeCounter,
+ * nodeParent and nodeLink. Node 0 is the root. To find the child of a node
+ * having a given item, a hash table with open addressing is used, where the key
+ * is the pair (parent, item). The header table is stored in two arrays indexed
+ * by items. <br/>
+ * <br/>
+ *
+ * Items are not the items of the database but their rank in the order of
+ * decreasing support (0 for the most frequent item). Transactions and paths
+ * must be inserted in that order, so that the ancestors of a node always have a
+ * smaller item than the node.
+ *
+ * @see FPTree
+ * @see AlgoFPGrowth
+ * @see AlgoFPMax
+ * @see AlgoFPClose
+ */
+public class ArrayFPTree {
+
+	// the item, the support, the parent and the next node with the same item
+	// (0 if none) of each node. Node 0 is the root.
+	int[] nodeItem;
+	int[] nodeCounter;
+	int[] nodeParent;
+	int[] nodeLink;
+
+	// the number of nodes in the tree (without the root). The nodes are 1 to
+	// nodeCount.
+	int nodeCount = 0;
+
+	// the hash table to find the child of a node having a given item. Each slot
+	// contains a node, or 0 if the slot is empty.
+	private int[] childTable;
+
+	// the first and the last node of each item (0 if the item is not in the tree)
+	int[] headerFirstNode;
+	private int[] headerLastNode;
+
+	// the items of the header table, in descending order of support
+	int[] headerList = null;
+
+	// true if the tree is a single path. In that case, node i + 1 is the only
+	// child of node i
+	boolean singlePath = true;
+
+	/**
+	 * Constructor
+	 *
+	 * @param itemCount    the number of items (the items of the tree are from 0 to
+	 *                     itemCount - 1)
+	 * @param nodeCapacity the number of nodes for which memory is reserved
+	 */
+	public ArrayFPTree(int itemCount, int nodeCapacity) {
+		// the root is node 0
+		int capacity = Math.max(nodeCapacity + 1, 4);
+		nodeItem = new int[capacity];
+		nodeCounter = new int[capacity];
+		nodeParent = new int[capacity];
+		nodeLink = new int[capacity];
+		nodeItem[0] = -1;
+		nodeParent[0] = -1;
+		childTable = new int[tableSizeFor(capacity)];
+		headerFirstNode = new int[itemCount];
+		headerLastNode = new int[itemCount];
+	}
+
+	/**
+	 * Get the frequent items of a database in the order of descending support.
+	 * Items having the same support are sorted by their value, as in the FPTree.
+	 * The position of an item in the result is its rank, which is the item stored
+	 * in an ArrayFPTree.
+	 *
+	 * @param mapSupport      the support of each item (key: item, value: support)
+	 * @param relativeMinsupp the minimum support
+	 * @return the frequent items
+	 */
+	static int[] rankItems(Map<Integer, Integer> mapSupport, int relativeMinsupp) {
+		// sort by descending support, then by item (the support is inverted so that
+		// the keys are sorted in ascending order)
+		long[] keys = new long[mapSupport.size()];
+		int count = 0;
+		for (Entry<Integer, Integer> entry : mapSupport.entrySet()) {
+			if (entry.getValue() >= relativeMinsupp) {
+				keys[count++] = ((long) (Integer.MAX_VALUE - entry.getValue()) << 32) | entry.getKey();
+			}
+		}
+		Arrays.sort(keys, 0, count);
+		int[] itemIDs = new int[count];
+		for (int i = 0; i < count; i++) {
+			itemIDs[i] = (int) keys[i];
+		}
+		return itemIDs;
+	}
+
+	/**
+	 * Method for adding a transaction to the fp-tree (for the initial construction
+	 * of the FP-Tree).
+	 *
+	 * @param transaction the items of the transaction, in ascending order
+	 * @param length      the number of items (from position 0 in the array)
+	 */
+	public void addTransaction(int[] transaction, int length) {
+		addPath(transaction, length, 1);
+	}
+
+	/**
+	 * Method for adding a path to the fp-tree, where each node has a given
+	 * support.
+	 *
+	 * @param path      the items of the path, in ascending order
+	 * @param length    the number of items (from position 0 in the array)
+	 * @param pathCount the support of the path
+	 */
+	void addPath(int[] path, int length, int pathCount) {
+		int currentNode = 0;
+		// For each item in the path
+		for (int i = 0; i < length; i++) {
+			// look if there is a node already in the FP-Tree
+			int child = getChild(currentNode, path[i]);
+			if (child == 0) {
+				// there is no node, we create a new one
+				currentNode = createNode(currentNode, path[i], pathCount);
+			} else {
+				// there is a node already, we update it
+				nodeCounter[child] += pathCount;
+				currentNode = child;
+			}
+		}
+	}
+
+	/**
+	 * Return the child of a node having a given item, or 0 if there is no such
+	 * child.
+	 */
+	private int getChild(int parent, int item) {
+		int mask = childTable.length - 1;
+		int slot = hash(parent, item) & mask;
+		int node;
+		// linear probing
+		while ((node = childTable[slot]) != 0) {
+			if (nodeParent[node] == parent && nodeItem[node] == item) {
+				return node;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return 0;
+	}
+
+	/**
+	 * Create a new node and update the child table and the node links.
+	 *
+	 * @return the new node
+	 */
+	private int createNode(int parent, int item, int counter) {
+		int node = ++nodeCount;
+		if (node == nodeItem.length) {
+			int capacity = nodeItem.length * 2;
+			nodeItem = Arrays.copyOf(nodeItem, capacity);
+			nodeCounter = Arrays.copyOf(nodeCounter, capacity);
+			nodeParent = Arrays.copyOf(nodeParent, capacity);
+			nodeLink = Arrays.copyOf(nodeLink, capacity);
+		}
+		nodeItem[node] = item;
+		nodeCounter[node] = counter;
+		nodeParent[node] = parent;
+		// if the parent is not the last node created, it already has a child
+		if (parent != node - 1) {
+			singlePath = false;
+		}
+
+		// add the node to the child table, which is kept at most half full
+		if (node * 2 > childTable.length) {
+			rehash(childTable.length * 2);
+		} else {
+			insertInChildTable(node);
+		}
+
+		// We update the node links
+		if (headerFirstNode[item] == 0) {
+			headerFirstNode[item] = node;
+		} else {
+			nodeLink[headerLastNode[item]] = node;
+		}
+		headerLastNode[item] = node;
+		return node;
+	}
+
+	private void insertInChildTable(int node) {
+		int mask = childTable.length - 1;
+		int slot = hash(nodeParent[node], nodeItem[node]) & mask;
+		while (childTable[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		childTable[slot] = node;
+	}
+
+	/**
+	 * Create a larger child table and insert all the nodes.
+	 */
+	private void rehash(int size) {
+		childTable = new int[size];
+		for (int node = 1; node <= nodeCount; node++) {
+			insertInChildTable(node);
+		}
+	}
+
+	private static int hash(int parent, int item) {
+		int h = parent * 0x9E3779B1 + item;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Get the size of a hash table that can contain a number of nodes while being
+	 * at most half full (a power of 2).
+	 */
+	private static int tableSizeFor(int nodes) {
+		return Integer.highestOneBit(Math.max(nodes * 2 - 1, 1)) << 1;
+	}
+
+	/**
+	 * Calculate the support of the items in the prefix paths of an item, that is
+	 * the items of the conditional pattern base of that item.
+	 *
+	 * @param item an item of the tree
+	 * @return the support of each item smaller than the given item
+	 */
+	int[] calculateConditionalSupports(int item) {
+		int[] supports = new int[item];
+		// for each node of the item
+		for (int node = headerFirstNode[item]; node != 0; node = nodeLink[node]) {
+			int pathCount = nodeCounter[node];
+			// add the support of the node to each ancestor
+			for (int parent = nodeParent[node]; parent != 0; parent = nodeParent[parent]) {
+				supports[nodeItem[parent]] += pathCount;
+			}
+		}
+		return supports;
+	}
+
+	/**
+	 * Create the conditional FP-tree of an item, from its prefix paths.
+	 *
+	 * @param item               an item of the tree
+	 * @param conditionalSupports the support of the items in the prefix paths
+	 * @param relativeMinsupp    the minimum support
+	 * @return the conditional FP-tree (the header list is not created)
+	 */
+	ArrayFPTree createConditionalTree(int item, int[] conditionalSupports, int relativeMinsupp) {
+		// count the nodes of the prefix paths to reserve enough memory
+		int totalLength = 0;
+		int maxPathLength = 0;
+		for (int node = headerFirstNode[item]; node != 0; node = nodeLink[node]) {
+			int length = 0;
+			for (int parent = nodeParent[node]; parent != 0; parent = nodeParent[parent]) {
+				length++;
+			}
+			totalLength += length;
+			maxPathLength = Math.max(maxPathLength, length);
+		}
+		ArrayFPTree treeBeta = new ArrayFPTree(item, totalLength);
+
+		// add each prefix path, keeping only the frequent items
+		int[] path = new int[maxPathLength];
+		for (int node = headerFirstNode[item]; node != 0; node = nodeLink[node]) {
+			// the items of the path are read from the node to the root, so they are
+			// stored from the end of the buffer
+			int position = maxPathLength;
+			for (int parent = nodeParent[node]; parent != 0; parent = nodeParent[parent]) {
+				if (conditionalSupports[nodeItem[parent]] >= relativeMinsupp) {
+					path[--position] = nodeItem[parent];
+				}
+			}
+			if (position < maxPathLength) {
+				// move the items at the beginning of the buffer
+				int length = maxPathLength - position;
+				System.arraycopy(path, position, path, 0, length);
+				treeBeta.addPath(path, length, nodeCounter[node]);
+			}
+		}
+		return treeBeta;
+	}
+
+	/**
+	 * Method for creating the list of items in the header table, in the order of
+	 * the items (the order of descending support in the database).
+	 */
+	void createHeaderList() {
+		int count = 0;
+		for (int item = 0; item < headerFirstNode.length; item++) {
+			if (headerFirstNode[item] != 0) {
+				count++;
+			}
+		}
+		headerList = new int[count];
+		count = 0;
+		for (int item = 0; item < headerFirstNode.length; item++) {
+			if (headerFirstNode[item] != 0) {
+				headerList[count++] = item;
+			}
+		}
+	}
+
+	/**
+	 * Method for creating the list of items in the header table, in descending
+	 * order of support. Items having the same support are sorted by their value
+	 * in the database, as in the FPTree.
+	 *
+	 * @param supports the support of each item
+	 * @param itemIDs  the value of each item in the database
+	 */
+	void createHeaderList(int[] supports, int[] itemIDs) {
+		createHeaderList();
+		// sort by descending support, then by item (the support is inverted so that
+		// the keys are sorted in ascending order)
+		long[] keys = new long[headerList.length];
+		for (int i = 0; i < headerList.length; i++) {
+			int item = headerList[i];
+			keys[i] = ((long) (Integer.MAX_VALUE - supports[item]) << 32) | item;
+		}
+		Arrays.sort(keys);
+		// sort the items having the same support by their value in the database
+		int start = 0;
+		for (int i = 1; i <= keys.length; i++) {
+			if (i == keys.length || (keys[i] >>> 32) != (keys[start] >>> 32)) {
+				if (i - start > 1) {
+					for (int j = start; j < i; j++) {
+						int item = (int) keys[j];
+						keys[j] = ((long) itemIDs[item] << 32) | item;
+					}
+					Arrays.sort(keys, start, i);
+				}
+				start = i;
+			}
+		}
+		for (int i = 0; i < keys.length; i++) {
+			headerList[i] = (int) keys[i];
+		}
+	}
+
+	/**
+	 * Get the memory used by the arrays of this tree.
+	 *
+	 * @return the memory in bytes
+	 */
+	public long estimateMemory() {
+		long values = 4L * nodeItem.length + childTable.length + 2L * headerFirstNode.length
+				+ (headerList == null ? 0 : headerList.length);
+		// 4 bytes per value and 16 bytes per array header
+		return values * 4 + 16 * 8;
+	}
+
+	@Override
+	/**
+	 * Method for getting a string representation of the tree (to be used for
+	 * debugging purposes).
+	 *
+	 * @return a string
+	 */
+	public String toString() {
+		StringBuilder output = new StringBuilder();
+		output.append(" HeaderList: ").append(Arrays.toString(headerList)).append("\n");
+		for (int node = 1; node <= nodeCount; node++) {
+			output.append(node).append(": item=").append(nodeItem[node]).append(" (count=")
+					.append(nodeCounter[node]).append(") parent=").append(nodeParent[node]).append("\n");
+		}
+		return output.toString();
+	}
+}
@@ -48,6 +48,9 @@ public class FPTree {
 	// root of the tree
 	FPNode root = new FPNode(); // null node
 
+	// the number of nodes in the tree (without the root)
+	int nodeCount = 0;
+
 	/**
 	 * Constructor
 	 */
@@ -74,6 +77,7 @@ public class FPTree {
 				newNode.parent = currentNode;
 				// we link the new node to its parrent
 				currentNode.childs.add(newNode);
+				nodeCount++;
 
 				// we take this node as the current node for the next for loop iteration
 				currentNode = newNode;
@@ -139,6 +143,7 @@ public class FPTree {
 					newNode.parent = currentNode;
 					newNode.counter = pathCount; // set its support
 					currentNode.childs.add(newNode);
+					nodeCount++;
 					currentNode = newNode;
 					// We update the header table.
 					// and the node links
@@ -0,0 +1,159 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.fpgrowth;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class stores the itemsets found by a task when FPGrowth, FPMax or
+ * FPClose are run with several threads. Each task has its own buffer, so that
+ * no synchronization is needed while mining. When a task forks a subtask, the
+ * buffer of the subtask is inserted at the current position, so that once all
+ * tasks are done, flatten() returns the itemsets in the order in which they
+ * are found by a sequential execution. <br/>
+ * <br/>
+ *
+ * Itemsets are stored in arrays of integers rather than as objects, to keep
+ * the buffers small.
+ *
+ * @see AlgoFPGrowth
+ * @see AlgoFPMax
+ * @see AlgoFPClose
+ */
+class ItemsetBuffer {
+
+	// the items of all itemsets, one after the other
+	private int[] items = new int[256];
+	// the number of values used in "items"
+	private int itemsSize = 0;
+	// for each itemset, its position in "items", its length and its support.
+	// A length of -1 indicates the position of the buffer of a subtask.
+	private int[] starts = new int[32];
+	private int[] lengths = new int[32];
+	private int[] supports = new int[32];
+	// the number of itemsets (and subtask buffers)
+	private int size = 0;
+	// the buffers of the subtasks, in order
+	private List<ItemsetBuffer> children = null;
+
+	/**
+	 * Add an itemset.
+	 *
+	 * @param itemset the itemset (it is copied)
+	 * @param length  the number of items (from position 0 in the array)
+	 * @param support the support of the itemset
+	 */
+	void add(int[] itemset, int length, int support) {
+		if (itemsSize + length > items.length) {
+			items = Arrays.copyOf(items, Math.max(itemsSize + length, items.length * 2));
+		}
+		System.arraycopy(itemset, 0, items, itemsSize, length);
+		addEntry(itemsSize, length, support);
+		itemsSize += length;
+	}
+
+	/**
+	 * Insert the buffer of a subtask at the current position. The subtask must be
+	 * completed before flatten() is called.
+	 *
+	 * @param child the buffer of the subtask
+	 */
+	void addBuffer(ItemsetBuffer child) {
+		if (children == null) {
+			children = new ArrayList<ItemsetBuffer>();
+		}
+		addEntry(children.size(), -1, 0);
+		children.add(child);
+	}
+
+	private void addEntry(int start, int length, int support) {
+		if (size == starts.length) {
+			starts = Arrays.copyOf(starts, size * 2);
+			lengths = Arrays.copyOf(lengths, size * 2);
+			supports = Arrays.copyOf(supports, size * 2);
+		}
+		starts[size] = start;
+		lengths[size] = length;
+		supports[size] = support;
+		size++;
+	}
+
+	/**
+	 * Get all itemsets of this buffer and of the buffers of subtasks in a single
+	 * buffer, in order.
+	 *
+	 * @return the buffer
+	 */
+	ItemsetBuffer flatten() {
+		if (children == null) {
+			return this;
+		}
+		ItemsetBuffer result = new ItemsetBuffer();
+		appendTo(result);
+		return result;
+	}
+
+	private void appendTo(ItemsetBuffer result) {
+		for (int i = 0; i < size; i++) {
+			if (lengths[i] == -1) {
+				children.get(starts[i]).appendTo(result);
+			} else {
+				result.add(getItemset(i), lengths[i], supports[i]);
+			}
+		}
+	}
+
+	/**
+	 * Get the number of itemsets in a flattened buffer.
+	 *
+	 * @return the number of itemsets
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Get an itemset of a flattened buffer.
+	 *
+	 * @param i the position of the itemset
+	 * @return a new array containing the items
+	 */
+	int[] getItemset(int i) {
+		return Arrays.copyOfRange(items, starts[i], starts[i] + lengths[i]);
+	}
+
+	/**
+	 * Get the number of items of an itemset of a flattened buffer.
+	 *
+	 * @param i the position of the itemset
+	 * @return the number of items
+	 */
+	int getLength(int i) {
+		return lengths[i];
+	}
+
+	/**
+	 * Get the support of an itemset of a flattened buffer.
+	 *
+	 * @param i the position of the itemset
+	 * @return the support
+	 */
+	int getSupport(int i) {
+		return supports[i];
+	}
+}
@@ -0,0 +1,170 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.fpgrowth;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import ca.pfv.spmf.input.transaction_database_array_integers.TransactionDatabase;
+import ca.pfv.spmf.tools.dataset_generator.TransactionDatabaseGenerator;
+
+/**
+ * Example comparing the heap footprint and the speed of the two
+ * representations of an FP-tree (FPTree with FPNode objects and ArrayFPTree),
+ * on a database generated by the TransactionDatabaseGenerator. The FP-tree of
+ * the whole database is built with each representation and the memory that it
+ * uses is measured. Then FPGrowth, FPMax and FPClose are run with each
+ * representation. The arguments are: transaction count, number of distinct
+ * items, maximum number of items per transaction and minimum support.
+ */
+public class MainTestCompareFPTrees {
+
+	public static void main(String[] arg) throws IOException {
+		int transactionCount = arg.length > 0 ? Integer.parseInt(arg[0]) : 100000;
+		int maxDistinctItems = arg.length > 1 ? Integer.parseInt(arg[1]) : 100;
+		int maxItemCountPerTransaction = arg.length > 2 ? Integer.parseInt(arg[2]) : 20;
+		double minsup = arg.length > 3 ? Double.parseDouble(arg[3]) : 0.01;
+
+		// generate the database
+		File file = File.createTempFile("transactions", ".txt");
+		file.deleteOnExit();
+		TransactionDatabaseGenerator generator = new TransactionDatabaseGenerator();
+		generator.generateDatabase(transactionCount, maxDistinctItems, maxItemCountPerTransaction, file.getPath());
+		System.out.println("Database: " + transactionCount + " transactions, " + maxDistinctItems
+				+ " distinct items, at most " + maxItemCountPerTransaction + " items per transaction, minsup "
+				+ minsup);
+
+		// the frequent items, in the order of decreasing support
+		TransactionDatabase database = new TransactionDatabase();
+		database.loadFile(file.getPath());
+		final int[] supports = database.calculateItemSupports();
+		int minSupportRelative = (int) Math.ceil(minsup * database.size());
+		List<Integer> frequentItems = new ArrayList<Integer>();
+		for (int item = 0; item < supports.length; item++) {
+			if (supports[item] > 0 && supports[item] >= minSupportRelative) {
+				frequentItems.add(item);
+			}
+		}
+		Collections.sort(frequentItems, new Comparator<Integer>() {
+			public int compare(Integer item1, Integer item2) {
+				int compare = supports[item2] - supports[item1];
+				return (compare == 0) ? (item1 - item2) : compare;
+			}
+		});
+		int[] itemRanks = new int[supports.length];
+		Arrays.fill(itemRanks, -1);
+		for (int rank = 0; rank < frequentItems.size(); rank++) {
+			itemRanks[frequentItems.get(rank)] = rank;
+		}
+		// the transactions, as ranks sorted in ascending order
+		int[][] transactions = new int[database.size()][];
+		for (int tid = 0; tid < database.size(); tid++) {
+			int[] transaction = new int[database.getTransactionLength(tid)];
+			int length = 0;
+			for (int item : database.getTransaction(tid)) {
+				if (itemRanks[item] != -1) {
+					transaction[length++] = itemRanks[item];
+				}
+			}
+			transactions[tid] = Arrays.copyOf(transaction, length);
+			Arrays.sort(transactions[tid]);
+		}
+		// the database is not used anymore (it should not be freed while the memory
+		// of a tree is measured)
+		database = null;
+
+		// (1) FPTree
+		long memoryBefore = usedMemory();
+		long start = System.currentTimeMillis();
+		FPTree tree = new FPTree();
+		for (int[] transaction : transactions) {
+			List<Integer> list = new ArrayList<Integer>(transaction.length);
+			for (int rank : transaction) {
+				list.add(frequentItems.get(rank));
+			}
+			tree.addTransaction(list);
+		}
+		long treeTime = System.currentTimeMillis() - start;
+		long treeMemory = usedMemory() - memoryBefore;
+		int treeNodes = tree.nodeCount;
+		tree = null;
+
+		// (2) ArrayFPTree
+		memoryBefore = usedMemory();
+		start = System.currentTimeMillis();
+		ArrayFPTree arrayTree = new ArrayFPTree(frequentItems.size(), 1024);
+		for (int[] transaction : transactions) {
+			arrayTree.addTransaction(transaction, transaction.length);
+		}
+		long arrayTreeTime = System.currentTimeMillis() - start;
+		long arrayTreeMemory = usedMemory() - memoryBefore;
+
+		System.out.println("                        FPTree   ArrayFPTree");
+		// (the transactions are used here so that they are not freed before)
+		System.out.println(String.format(" Transactions    %14d %13d", transactions.length, transactions.length));
+		System.out.println(String.format(" Nodes           %14d %13d", treeNodes, arrayTree.nodeCount));
+		System.out.println(String.format(" Heap (KB)       %14d %13d", treeMemory / 1024, arrayTreeMemory / 1024));
+		System.out.println(String.format(" Bytes per node  %14d %13d", treeMemory / Math.max(treeNodes, 1),
+				arrayTreeMemory / Math.max(arrayTree.nodeCount, 1)));
+		System.out.println(String.format(" Arrays (KB)     %14s %13d", "-", arrayTree.estimateMemory() / 1024));
+		System.out.println(String.format(" Building (ms)   %14d %13d", treeTime, arrayTreeTime));
+		arrayTree = null;
+
+		// (3) the algorithms with each representation
+		File output = File.createTempFile("itemsets", ".txt");
+		output.deleteOnExit();
+		long[] times = new long[2];
+		for (int i = 0; i < 2; i++) {
+			AlgoFPGrowth algo = new AlgoFPGrowth();
+			algo.setUseArrayFPTree(i == 1);
+			start = System.currentTimeMillis();
+			algo.runAlgorithm(file.getPath(), output.getPath(), minsup);
+			times[i] = System.currentTimeMillis() - start;
+		}
+		System.out.println(String.format(" FPGrowth (ms)   %14d %13d", times[0], times[1]));
+		for (int i = 0; i < 2; i++) {
+			AlgoFPMax algo = new AlgoFPMax();
+			algo.setUseArrayFPTree(i == 1);
+			start = System.currentTimeMillis();
+			algo.runAlgorithm(file.getPath(), output.getPath(), minsup);
+			times[i] = System.currentTimeMillis() - start;
+		}
+		System.out.println(String.format(" FPMax (ms)      %14d %13d", times[0], times[1]));
+		for (int i = 0; i < 2; i++) {
+			AlgoFPClose algo = new AlgoFPClose();
+			algo.setUseArrayFPTree(i == 1);
+			start = System.currentTimeMillis();
+			algo.runAlgorithm(file.getPath(), output.getPath(), minsup);
+			times[i] = System.currentTimeMillis() - start;
+		}
+		System.out.println(String.format(" FPClose (ms)    %14d %13d", times[0], times[1]));
+	}
+
+	/**
+	 * Get the memory used by the objects that are reachable.
+	 */
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -77,10 +77,9 @@ public class AlgoCHUIMiner {
 	/**
 	 * OPTIMIZATION SPECIFIC TO CHUIMINER. We integrate the structure used by the
 	 * EUCP strategy proposed in FHM (Fournier-Viger et al., 2014) for pruning
-	 * candidates. Key: for an item x, Value: a map of item where key is an item y
-	 * and value is the TWU of {x,y}
+	 * candidates. It stores the TWU of each pair of items {x,y}
 	 */
-	Map<Integer, Map<Integer, Integer>> mapFMAP; // PAIR OF ITEMS , item --> item, twu
+	EUCS eucs;
 
 	// ======================================================
 	// ===== STRUCTURE TO STORE CHUIs IN MEMORY IF THE USER CHOOSE TO
@@ -170,13 +169,6 @@ public class AlgoCHUIMiner {
 			setOfItemsInClosedItemsets = new HashSet<Integer>();
 		}
 
-		// Initialize the structure for EUCP strategy that is not included in
-		// the original CHUIMiner algorithm but is included here to
-		// improve performances.
-		if (useEUCPstrategy) {
-			mapFMAP = new HashMap<Integer, Map<Integer, Integer>>();
-		}
-
 		// record the start time of the algorithm
 		startTimestamp = System.currentTimeMillis();
 
@@ -249,6 +241,13 @@ public class AlgoCHUIMiner {
 			}
 		});
 
+		// Initialize the structure for EUCP strategy that is not included in
+		// the original CHUIMiner algorithm but is included here to
+		// improve performances.
+		if (useEUCPstrategy) {
+			eucs = EUCS.create(mapItemToUtilityList.keySet());
+		}
+
 		// SECOND DATABASE PASS TO CONSTRUCT THE UTILITY LISTS
 		// OF 1-ITEMSETS HAVING TWU >= minutil (promising items)
 		try {
@@ -321,20 +320,9 @@ public class AlgoCHUIMiner {
 					// BEGIN CODE for updating the structure used
 					// BY THE EUCP STRATEGY INTRODUCED IN CHUIMiner
 					if (useEUCPstrategy) {
-						Map<Integer, Integer> mapFMAPItem = mapFMAP.get(pair.item);
-						if (mapFMAPItem == null) {
-							mapFMAPItem = new HashMap<Integer, Integer>();
-							mapFMAP.put(pair.item, mapFMAPItem);
-						}
-
 						for (int j = i + 1; j < revisedTransaction.size(); j++) {
 							PairItemUtility pairAfter = revisedTransaction.get(j);
-							Integer twuSum = mapFMAPItem.get(pairAfter.item);
-							if (twuSum == null) {
-								mapFMAPItem.put(pairAfter.item, newTU);
-							} else {
-								mapFMAPItem.put(pairAfter.item, twuSum + newTU);
-							}
+							eucs.add(pair.item, pairAfter.item, newTU);
 						}
 					}
 					// END OF CODE FOR EUCP STRATEGY
@@ -505,12 +493,8 @@ public class AlgoCHUIMiner {
 	 * @return true if TWU({x,y} < minutil. Otherwise return false
 	 */
 	private boolean checkEUCPStrategy(int itemX, int itemY) {
-		Map<Integer, Integer> mapTWUF = mapFMAP.get(itemX);
-		if (mapTWUF != null) {
-			Integer twuF = mapTWUF.get(itemY);
-			if (twuF == null || twuF < minUtility) {
-				return true;
-			}
+		if (eucs.get(itemX, itemY) < minUtility) {
+			return true;
 		}
 		return false;
 	}
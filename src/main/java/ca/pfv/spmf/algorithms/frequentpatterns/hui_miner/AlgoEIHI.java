@@ -17,10 +17,15 @@ package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
 * SPMF. If not, see <http://www.gnu.org/licenses/>.
 */
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -63,6 +68,15 @@ public class AlgoEIHI {
 
 	public int candidateCount = 0;
 
+	/** The number of batches (runs) processed until now */
+	public int batchCount = 0;
+
+	/** The longest time for processing a batch (ms) */
+	public long maxBatchTime = 0;
+
+	/** The first int of a snapshot file */
+	private static final int SNAPSHOT_MAGIC = 0x45494849;
+
 	/** Map to remember the TWU of each item */
 	Map<Integer, Integer> mapItemToTWU;
 
@@ -77,7 +91,7 @@ public class AlgoEIHI {
 	 * The EUCS structure, as described in the FHM paper It stores pairs of items
 	 * and their coresponding TWU.
 	 */
-	Map<Integer, Map<Integer, Integer>> mapEUCS;
+	EUCS eucs;
 
 	/**
 	 * If this variable is set to true, this algorithm will show debuging
@@ -418,7 +432,7 @@ public class AlgoEIHI {
 	}
 
 	/**
-	 * Run the algorithm
+	 * Run the algorithm on a batch of transactions read from a file
 	 * 
 	 * @param input      the input file path
 	 * @param minUtility the minimum utility threshold
@@ -427,6 +441,100 @@ public class AlgoEIHI {
 	 * @throws IOException exception if error while writing the file
 	 */
 	public void runAlgorithm(String input, Integer minUtil, int firstLine, int lastLine) throws IOException {
+		startTimestamp = System.currentTimeMillis();
+		this.firstLine = firstLine;
+
+		// the transactions of the batch
+		List<int[]> transactions = new ArrayList<int[]>();
+		List<int[]> utilities = new ArrayList<int[]>();
+		List<Integer> transactionUtilities = new ArrayList<Integer>();
+
+		// We read the lines from firstLine to lastLine
+		BufferedReader myInput = null;
+		String thisLine;
+		try {
+			// prepare the object for reading the file
+			myInput = new BufferedReader(new InputStreamReader(new FileInputStream(new File(input))));
+			// for each line (transaction) until the end of file
+			int tid = 0;
+			while ((thisLine = myInput.readLine()) != null && tid < lastLine) {
+				// if the line is a comment, is empty or is a
+				// kind of metadata
+				if (thisLine.isEmpty() == true || thisLine.charAt(0) == '#' || thisLine.charAt(0) == '%'
+						|| thisLine.charAt(0) == '@') {
+					continue;
+				}
+
+				if (tid >= firstLine) {
+					// split the transaction according to the : separator
+					String split[] = thisLine.split(":");
+					// the first part is the list of items
+					String items[] = split[0].split(" ");
+					// the second part is the transaction utility
+					int transactionUtility = Integer.parseInt(split[1]);
+					// the third part is the list of utility values
+					String utilityValues[] = split[2].split(" ");
+
+					int[] transaction = new int[items.length];
+					int[] utilityOfItems = new int[items.length];
+					for (int i = 0; i < items.length; i++) {
+						transaction[i] = Integer.parseInt(items[i]);
+						utilityOfItems[i] = Integer.parseInt(utilityValues[i]);
+					}
+					transactions.add(transaction);
+					utilities.add(utilityOfItems);
+					transactionUtilities.add(transactionUtility);
+				}
+				tid++;
+			}
+		} catch (Exception e) {
+			// catches exception if error while reading the input file
+			e.printStackTrace();
+		} finally {
+			if (myInput != null) {
+				myInput.close();
+			}
+		}
+
+		processBatch(transactions, utilities, transactionUtilities, minUtil);
+	}
+
+	/**
+	 * Run the algorithm on a batch of transactions stored in memory. The
+	 * high-utility itemsets of all the transactions processed until now are then
+	 * stored in the HUI-trie.
+	 * 
+	 * @param transactions the items of each transaction
+	 * @param utilities    the utility of each item of each transaction
+	 * @param minUtil      the minimum utility threshold
+	 * @throws IOException exception if error while writing the file
+	 */
+	public void runAlgorithm(List<int[]> transactions, List<int[]> utilities, int minUtil) throws IOException {
+		startTimestamp = System.currentTimeMillis();
+
+		// the utility of a transaction is the sum of the utilities of its items
+		List<Integer> transactionUtilities = new ArrayList<Integer>(transactions.size());
+		for (int[] utilityOfItems : utilities) {
+			int transactionUtility = 0;
+			for (int utility : utilityOfItems) {
+				transactionUtility += utility;
+			}
+			transactionUtilities.add(transactionUtility);
+		}
+		processBatch(transactions, utilities, transactionUtilities, minUtil);
+	}
+
+	/**
+	 * Update the utility lists and the HUI-trie with a batch of transactions
+	 * 
+	 * @param transactions         the items of each transaction
+	 * @param utilities            the utility of each item of each transaction
+	 * @param transactionUtilities the utility of each transaction
+	 * @param minUtil              the minimum utility threshold
+	 * @throws IOException exception if error while writing the file
+	 */
+	private void processBatch(List<int[]> transactions, List<int[]> utilities, List<Integer> transactionUtilities,
+			int minUtil) throws IOException {
 		// reset maximum
 		maxMemory = 0;
 
@@ -437,13 +545,11 @@ public class AlgoEIHI {
 		// initialize the buffer for storing the current itemset
 		itemsetBuffer = new int[BUFFERS_SIZE];
 
-		this.firstLine = firstLine;
-
 		// if first time
-		boolean firstTime = (mapEUCS == null);
+		boolean firstTime = (eucs == null);
 		if (firstTime) {
-			mapEUCS = new HashMap<Integer, Map<Integer, Integer>>();
-//			writer = new BufferedWriter(new FileWriter(output));
+			// the items are not known in advance
+			eucs = EUCS.create(null);
 			listOfUtilityLists = new ArrayList<UtilityListEIHI>();
 			mapItemToRank = new HashMap<Integer, Integer>();
 			mapItemToUtilityList = new HashMap<Integer, UtilityListEIHI>();
@@ -460,7 +566,6 @@ public class AlgoEIHI {
 				ulist.switchDPtoD();
 			}
 		}
-		startTimestamp = System.currentTimeMillis();
 
 		// create a list to store the utility list of new items so that they can be
 		// sorted by TWU order
@@ -471,60 +576,28 @@ public class AlgoEIHI {
 			mapItemToTWU = new HashMap<Integer, Integer>();
 		}
 
-		// We scan the database a first time to calculate the TWU of each item.
-		BufferedReader myInput = null;
-		String thisLine;
-		try {
-			// prepare the object for reading the file
-			myInput = new BufferedReader(new InputStreamReader(new FileInputStream(new File(input))));
-			// for each line (transaction) until the end of file
-			int tid = 0;
-			while ((thisLine = myInput.readLine()) != null && tid < lastLine) {
-
-				if (tid >= firstLine) {
-					// if the line is a comment, is empty or is a
-					// kind of metadata
-					if (thisLine.isEmpty() == true || thisLine.charAt(0) == '#' || thisLine.charAt(0) == '%'
-							|| thisLine.charAt(0) == '@') {
-						continue;
-					}
-
-					// split the transaction according to the : separator
-					String split[] = thisLine.split(":");
-					// the first part is the list of items
-					String items[] = split[0].split(" ");
-					// the second part is the transaction utility
-					int transactionUtility = Integer.parseInt(split[1]);
-					// for each item, we add the transaction utility to its TWU
-					for (int i = 0; i < items.length; i++) {
-						// convert item to integer
-						Integer item = Integer.parseInt(items[i]);
-						// get the current TWU of that item
-						Integer twu = mapItemToTWU.get(item);
-						// add the utility of the item in the current transaction to its twu
-						if (twu == null) {
-							UtilityListEIHI uList = new UtilityListEIHI(item);
-							mapItemToUtilityList.put(item, uList);
-							newItemsUtilityLists.add(uList);
-							twu = transactionUtility;
-						} else {
-							twu = twu + transactionUtility;
-						}
-						mapItemToTWU.put(item, twu);
-					}
-
-					totalDBUtility += transactionUtility;
+		// We scan the batch a first time to calculate the TWU of each item.
+		for (int t = 0; t < transactions.size(); t++) {
+			int[] items = transactions.get(t);
+			int transactionUtility = transactionUtilities.get(t);
+			// for each item, we add the transaction utility to its TWU
+			for (int i = 0; i < items.length; i++) {
+				Integer item = items[i];
+				// get the current TWU of that item
+				Integer twu = mapItemToTWU.get(item);
+				// add the utility of the item in the current transaction to its twu
+				if (twu == null) {
+					UtilityListEIHI uList = new UtilityListEIHI(item);
+					mapItemToUtilityList.put(item, uList);
+					newItemsUtilityLists.add(uList);
+					twu = transactionUtility;
+				} else {
+					twu = twu + transactionUtility;
 				}
-
-				tid++;
-			}
-		} catch (Exception e) {
-			// catches exception if error while reading the input file
-			e.printStackTrace();
-		} finally {
-			if (myInput != null) {
-				myInput.close();
+				mapItemToTWU.put(item, twu);
 			}
+
+			totalDBUtility += transactionUtility;
 		}
 
 		minUtility = minUtil;
@@ -545,113 +618,61 @@ public class AlgoEIHI {
 		// Add the utility lists of new items to the list of utility lists of all items
 		listOfUtilityLists.addAll(newItemsUtilityLists);
 
-		// SECOND DATABASE PASS TO CONSTRUCT THE UTILITY LISTS
-		// OF 1-ITEMSETS HAVING TWU >= minutil (promising items)
-		try {
-			// prepare object for reading the file
-			myInput = new BufferedReader(new InputStreamReader(new FileInputStream(new File(input))));
-			// variable to count the number of transaction
-			int tid = 0;
-			// for each line (transaction) until the end of file
-			while ((thisLine = myInput.readLine()) != null && tid < lastLine) {
-				// if the line is a comment, is empty or is a
-				// kind of metadata
-				if (thisLine.isEmpty() == true || thisLine.charAt(0) == '#' || thisLine.charAt(0) == '%'
-						|| thisLine.charAt(0) == '@') {
-					continue;
-				}
-
-				if (tid >= firstLine) {
-					// update the number of transactions processed
-					transactionCount++;
+		// SECOND PASS TO CONSTRUCT THE UTILITY LISTS
+		// OF 1-ITEMSETS
+		for (int t = 0; t < transactions.size(); t++) {
+			int[] items = transactions.get(t);
+			int[] utilityValues = utilities.get(t);
+			// the tids of the transactions continue those of the previous batches
+			int tid = transactionCount;
+			// update the number of transactions processed
+			transactionCount++;
+
+			int remainingUtility = 0;
+
+			int newTWU = 0; // NEW OPTIMIZATION
+
+			// Create a list to store items
+			List<Pair> revisedTransaction = new ArrayList<Pair>();
+			// for each item
+			for (int i = 0; i < items.length; i++) {
+				Pair pair = new Pair();
+				pair.item = items[i];
+				pair.utility = utilityValues[i];
+				revisedTransaction.add(pair);
+				remainingUtility += pair.utility;
+				newTWU += pair.utility; // NEW OPTIMIZATION
+			}
 
-					// split the line according to the separator
-					String split[] = thisLine.split(":");
-					// get the list of items
-					String items[] = split[0].split(" ");
-					// the second part is the transaction utility
-//					int transactionUtility = Integer.parseInt(split[1]);  
-					// get the list of utility values corresponding to each item
-					// for that transaction
-					String utilityValues[] = split[2].split(" ");
+			// sort the transaction
+			Collections.sort(revisedTransaction, new Comparator<Pair>() {
+				public int compare(Pair o1, Pair o2) {
+					return compareItemsByRank(o1.item, o2.item);
+				}
+			});
 
-					// Copy the transaction into lists but
-					// without items with TWU < minutility
+			// for each item left in the transaction
+			for (int i = 0; i < revisedTransaction.size(); i++) {
+				Pair pair = revisedTransaction.get(i);
 
-					int remainingUtility = 0;
+				// subtract the utility of this item from the remaining utility
+				remainingUtility = remainingUtility - pair.utility;
 
-					int newTWU = 0; // NEW OPTIMIZATION
+				// get the utility list of this item
+				UtilityListEIHI utilityListOfItem = mapItemToUtilityList.get(pair.item);
 
-					// Create a list to store items
-					List<Pair> revisedTransaction = new ArrayList<Pair>();
-					// for each item
-					for (int i = 0; i < items.length; i++) {
-						/// convert values to integers
-						Pair pair = new Pair();
-						pair.item = Integer.parseInt(items[i]);
-						pair.utility = Integer.parseInt(utilityValues[i]);
-						// if the item has enough utility
-						// if(mapItemToTWU.get(pair.item) >= minUtility){
-						// add it
-						revisedTransaction.add(pair);
-						remainingUtility += pair.utility;
-						newTWU += pair.utility; // NEW OPTIMIZATION
-						// }
-					}
+				// Add a new Element to the utility list of this item corresponding to this
+				// transaction
+				Element element = new Element(tid, pair.utility, remainingUtility);
+				utilityListOfItem.addElementDP(element);
 
-					// sort the transaction
-					Collections.sort(revisedTransaction, new Comparator<Pair>() {
-						public int compare(Pair o1, Pair o2) {
-							return compareItemsByRank(o1.item, o2.item);
-						}
-					});
-
-					// for each item left in the transaction
-					for (int i = 0; i < revisedTransaction.size(); i++) {
-						Pair pair = revisedTransaction.get(i);
-
-//						int remain = remainingUtility; // FOR OPTIMIZATION
-
-						// subtract the utility of this item from the remaining utility
-						remainingUtility = remainingUtility - pair.utility;
-
-						// get the utility list of this item
-						UtilityListEIHI utilityListOfItem = mapItemToUtilityList.get(pair.item);
-
-						// Add a new Element to the utility list of this item corresponding to this
-						// transaction
-						Element element = new Element(tid, pair.utility, remainingUtility);
-						utilityListOfItem.addElementDP(element /* , firstLine */);
-
-						// BEGIN NEW OPTIMIZATION for FHM
-						Map<Integer, Integer> mapFMAPItem = mapEUCS.get(pair.item);
-						if (mapFMAPItem == null) {
-							mapFMAPItem = new HashMap<Integer, Integer>();
-							mapEUCS.put(pair.item, mapFMAPItem);
-						}
-
-						for (int j = i + 1; j < revisedTransaction.size(); j++) {
-							Pair pairAfter = revisedTransaction.get(j);
-							Integer twuSum = mapFMAPItem.get(pairAfter.item);
-							if (twuSum == null) {
-								mapFMAPItem.put(pairAfter.item, newTWU);
-							} else {
-								mapFMAPItem.put(pairAfter.item, twuSum + newTWU);
-							}
-						}
-
-						// END OPTIMIZATION of FHM
-					}
+				// BEGIN NEW OPTIMIZATION for FHM
+				for (int j = i + 1; j < revisedTransaction.size(); j++) {
+					Pair pairAfter = revisedTransaction.get(j);
+					eucs.add(pair.item, pairAfter.item, newTWU);
 				}
-				tid++; // increase tid number for next transaction
 
-			}
-		} catch (Exception e) {
-			// to catch error while reading the input file
-			e.printStackTrace();
-		} finally {
-			if (myInput != null) {
-				myInput.close();
+				// END OPTIMIZATION of FHM
 			}
 		}
 
@@ -670,21 +691,171 @@ public class AlgoEIHI {
 		// Mine the database recursively
 		incFHM(itemsetBuffer, 0, null, listULForRecursion);
 
-//		if(!firstTime){
-//			purgeTrie(singleItemsNodes);
-//		}
-
-		// check the memory usage again and close the file.
+		// check the memory usage again
 		checkMemory();
 
-		// closeFile();
-//		writer.close();
 		// record end time
 		endTimestamp = System.currentTimeMillis();
 
-		totalTimeForAllRuns += (endTimestamp - startTimestamp);
+		long batchTime = endTimestamp - startTimestamp;
+		totalTimeForAllRuns += batchTime;
 		totalCandidateCountForAllRuns += candidateCount;
-//		totalHUIForAllRuns += huiCount;
+		batchCount++;
+		if (batchTime > maxBatchTime) {
+			maxBatchTime = batchTime;
+		}
+	}
+
+	/**
+	 * Save the state of the algorithm to a binary file (the utility lists of the
+	 * items, the EUCS and the HUI-trie), so that the algorithm can process the next
+	 * batches after a restart, without reading the previous batches again.
+	 * 
+	 * @param path the path of the file
+	 * @throws IOException if error while writing the file
+	 */
+	public void saveSnapshot(String path) throws IOException {
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+		try {
+			output.writeInt(SNAPSHOT_MAGIC);
+			output.writeInt(minUtility);
+			output.writeInt(transactionCount);
+			output.writeInt(totalDBUtility);
+			output.writeLong(totalTimeForAllRuns);
+			output.writeInt(totalCandidateCountForAllRuns);
+			output.writeInt(batchCount);
+			output.writeLong(maxBatchTime);
+
+			if (eucs == null) {
+				// no batch was processed
+				output.writeInt(-1);
+				return;
+			}
+			// the utility lists, by rank
+			output.writeInt(listOfUtilityLists.size());
+			for (UtilityListEIHI ulist : listOfUtilityLists) {
+				output.writeInt(ulist.item);
+				output.writeInt(mapItemToTWU.get(ulist.item));
+				writeElements(output, ulist.elementsD);
+				writeElements(output, ulist.elementsDP);
+			}
+			// the EUCS
+			((EUCSSparse) eucs).write(output);
+			// the trie
+			writeNodes(output, singleItemsNodes);
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * Write the elements of a utility list
+	 * 
+	 * @param output   the stream
+	 * @param elements the elements
+	 * @throws IOException if error while writing the file
+	 */
+	private void writeElements(DataOutputStream output, List<Element> elements) throws IOException {
+		output.writeInt(elements.size());
+		for (Element element : elements) {
+			output.writeInt(element.tid);
+			output.writeInt(element.iutils);
+			output.writeInt(element.rutils);
+		}
+	}
+
+	/**
+	 * Write some nodes of the HUI-trie and their descendants (depth-first)
+	 * 
+	 * @param output the stream
+	 * @param list   the nodes
+	 * @throws IOException if error while writing the file
+	 */
+	private void writeNodes(DataOutputStream output, List<Node> list) throws IOException {
+		output.writeInt(list.size());
+		for (Node node : list) {
+			output.writeInt(node.item);
+			output.writeInt(node.utility);
+			writeNodes(output, node.childs);
+		}
+	}
+
+	/**
+	 * Restore the state of the algorithm from a file written by saveSnapshot(). The
+	 * next call to runAlgorithm() processes a batch that follows the batches
+	 * processed before the snapshot was saved.
+	 * 
+	 * @param path the path of the file
+	 * @throws IOException if error while reading the file or if it is not a
+	 *                     snapshot
+	 */
+	public void loadSnapshot(String path) throws IOException {
+		DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(path)));
+		try {
+			if (input.readInt() != SNAPSHOT_MAGIC) {
+				throw new IOException("The file " + path + " is not a snapshot of EIHI");
+			}
+			minUtility = input.readInt();
+			transactionCount = input.readInt();
+			totalDBUtility = input.readInt();
+			totalTimeForAllRuns = input.readLong();
+			totalCandidateCountForAllRuns = input.readInt();
+			batchCount = input.readInt();
+			maxBatchTime = input.readLong();
+
+			int itemCount = input.readInt();
+			if (itemCount < 0) {
+				// no batch was processed
+				eucs = null;
+				mapItemToTWU = null;
+				return;
+			}
+			// the utility lists, by rank
+			mapItemToTWU = new HashMap<Integer, Integer>();
+			mapItemToRank = new HashMap<Integer, Integer>();
+			mapItemToUtilityList = new HashMap<Integer, UtilityListEIHI>();
+			listOfUtilityLists = new ArrayList<UtilityListEIHI>(itemCount);
+			for (int i = 0; i < itemCount; i++) {
+				int item = input.readInt();
+				UtilityListEIHI ulist = new UtilityListEIHI(item);
+				mapItemToTWU.put(item, input.readInt());
+				mapItemToRank.put(item, i + 1);
+				mapItemToUtilityList.put(item, ulist);
+				listOfUtilityLists.add(ulist);
+				int sizeD = input.readInt();
+				for (int j = 0; j < sizeD; j++) {
+					ulist.addElementD(new Element(input.readInt(), input.readInt(), input.readInt()));
+				}
+				int sizeDP = input.readInt();
+				for (int j = 0; j < sizeDP; j++) {
+					ulist.addElementDP(new Element(input.readInt(), input.readInt(), input.readInt()));
+				}
+			}
+			// the EUCS
+			eucs = EUCSSparse.read(input);
+			// the trie
+			singleItemsNodes = readNodes(input);
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Read some nodes of the HUI-trie written by writeNodes()
+	 * 
+	 * @param input the stream
+	 * @return the nodes
+	 * @throws IOException if error while reading the file
+	 */
+	private List<Node> readNodes(DataInputStream input) throws IOException {
+		int size = input.readInt();
+		List<Node> list = new ArrayList<Node>(Math.max(size, 3));
+		for (int i = 0; i < size; i++) {
+			Node node = new Node(input.readInt(), input.readInt());
+			node.childs = readNodes(input);
+			list.add(node);
+		}
+		return list;
 	}
 
 	/**
@@ -738,12 +909,8 @@ public class AlgoEIHI {
 					}
 
 					// ======================== NEW OPTIMIZATION USED IN FHM
-					Map<Integer, Integer> mapTWUF = mapEUCS.get(X.item);
-					if (mapTWUF != null) {
-						Integer twuF = mapTWUF.get(Y.item);
-						if (twuF == null || twuF < minUtility) {
-							continue;
-						}
+					if (eucs.get(X.item, Y.item) < minUtility) {
+						continue;
 					}
 					candidateCount++;
 					// =========================== END OF NEW OPTIMIZATION
@@ -942,7 +1109,9 @@ public class AlgoEIHI {
 		System.out.println("TOTAL CANDIDATEs FOR ALL RUNS:" + totalCandidateCountForAllRuns + " candidates");
 //		System.out.println("TOTAL REAL HUIs: " + totalHUIForAllRuns);
 		System.out.println("TOTAL TIME FOR ALL RUNS: " + totalTimeForAllRuns + " ms");
+		System.out.println("BATCH COUNT: " + batchCount + " AVERAGE TIME PER BATCH: "
+				+ (batchCount == 0 ? 0 : totalTimeForAllRuns / batchCount) + " ms MAX TIME PER BATCH: " + maxBatchTime
+				+ " ms");
 		System.out.println("===================================================");
 	}
-
 }
\ No newline at end of file
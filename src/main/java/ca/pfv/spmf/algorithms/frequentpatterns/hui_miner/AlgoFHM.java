@@ -20,20 +20,18 @@ package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import ca.pfv.spmf.tools.MemoryLogger;
 
@@ -46,9 +44,22 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * High-Utility Itemset Mining Algorithm using Estimated Utility Co-occurrence
  * Pruning. Proc. 21st International Symposium on Methodologies for Intelligent
  * Systems (ISMIS 2014), Springer, LNAI, 12 pages (to appear).
+ * <br/>
+ * <br/>
+ * 
+ * The utility-lists can be stored in a UtilityListPool (see
+ * setUseUtilityListPool()) rather than as lists of Element objects. The
+ * itemsets found are the same.
+ * <br/>
+ * <br/>
+ * 
+ * The EUCS can be constructed by several threads (see setThreadCount()). In
+ * that case, the revised transactions are kept in memory during the second
+ * database pass, and the EUCS is constructed from them by EUCS.build().
  *
  * @see UtilityList
  * @see Element
+ * @see UtilityListPool
  * @author Philippe Fournier-Viger
  */
 public class AlgoFHM {
@@ -71,8 +82,8 @@ public class AlgoFHM {
 	/** writer to write the output file */
 	BufferedWriter writer = null;
 
-	/** The eucs structure: key: item key: another item value: twu */
-	Map<Integer, Map<Integer, Long>> mapFMAP;
+	/** The EUCS structure: the TWU of each pair of items */
+	EUCS eucs;
 
 	/** enable LA-prune strategy */
 	boolean ENABLE_LA_PRUNE = true;
@@ -87,6 +98,15 @@ public class AlgoFHM {
 	final int BUFFERS_SIZE = 200;
 	private int[] itemsetBuffer = null;
 
+	/** if true, the utility-lists are stored in a UtilityListPool */
+	private boolean useUtilityListPool = false;
+
+	/** the pool storing the utility-lists (if it is used) */
+	private UtilityListPool pool = null;
+
+	/** the number of threads used to construct the EUCS */
+	private int threadCount = 1;
+
 	/** this class represent an item and its utility in a transaction */
 	class Pair {
 		int item = 0;
@@ -100,6 +120,29 @@ public class AlgoFHM {
 
 	}
 
+	/**
+	 * Set if the utility-lists should be stored in a UtilityListPool rather than
+	 * as lists of Element objects. By default, the pool is not used.
+	 * 
+	 * @param useUtilityListPool true to use the pool
+	 */
+	public void setUseUtilityListPool(boolean useUtilityListPool) {
+		this.useUtilityListPool = useUtilityListPool;
+	}
+
+	/**
+	 * Set the number of threads used to construct the EUCS. By default, a single
+	 * thread is used, and the EUCS is updated while reading the database.
+	 * 
+	 * @param threadCount the number of threads (at least 1)
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
 	/**
 	 * Run the algorithm
 	 * 
@@ -115,8 +158,6 @@ public class AlgoFHM {
 		// initialize the buffer for storing the current itemset
 		itemsetBuffer = new int[BUFFERS_SIZE];
 
-		mapFMAP = new HashMap<Integer, Map<Integer, Long>>();
-
 		startTimestamp = System.currentTimeMillis();
 
 		writer = new BufferedWriter(new FileWriter(output));
@@ -191,6 +232,17 @@ public class AlgoFHM {
 			}
 		});
 
+		// create the EUCS for the promising items, or if several threads are used,
+		// keep the revised transactions to construct it after the second pass
+		List<int[]> revisedTransactions = null;
+		long[] revisedUtilities = null;
+		if (threadCount == 1) {
+			eucs = EUCS.create(mapItemToUtilityList.keySet());
+		} else {
+			revisedTransactions = new ArrayList<int[]>();
+			revisedUtilities = new long[64];
+		}
+
 		// SECOND DATABASE PASS TO CONSTRUCT THE UTILITY LISTS
 		// OF 1-ITEMSETS HAVING TWU >= minutil (promising items)
 		try {
@@ -265,23 +317,26 @@ public class AlgoFHM {
 					utilityListOfItem.addElement(element);
 
 					// BEGIN NEW OPTIMIZATION for FHM
-					Map<Integer, Long> mapFMAPItem = mapFMAP.get(pair.item);
-					if (mapFMAPItem == null) {
-						mapFMAPItem = new HashMap<Integer, Long>();
-						mapFMAP.put(pair.item, mapFMAPItem);
-					}
-
-					for (int j = i + 1; j < revisedTransaction.size(); j++) {
-						Pair pairAfter = revisedTransaction.get(j);
-						Long twuSum = mapFMAPItem.get(pairAfter.item);
-						if (twuSum == null) {
-							mapFMAPItem.put(pairAfter.item, newTWU);
-						} else {
-							mapFMAPItem.put(pairAfter.item, twuSum + newTWU);
+					if (revisedTransactions == null) {
+						for (int j = i + 1; j < revisedTransaction.size(); j++) {
+							Pair pairAfter = revisedTransaction.get(j);
+							eucs.add(pair.item, pairAfter.item, newTWU);
 						}
 					}
 					// END OPTIMIZATION of FHM
 				}
+				if (revisedTransactions != null) {
+					// keep the transaction to construct the EUCS
+					int[] transactionItems = new int[revisedTransaction.size()];
+					for (int i = 0; i < transactionItems.length; i++) {
+						transactionItems[i] = revisedTransaction.get(i).item;
+					}
+					if (revisedTransactions.size() == revisedUtilities.length) {
+						revisedUtilities = Arrays.copyOf(revisedUtilities, revisedUtilities.length * 2);
+					}
+					revisedUtilities[revisedTransactions.size()] = newTWU;
+					revisedTransactions.add(transactionItems);
+				}
 				tid++; // increase tid number for next transaction
 
 			}
@@ -294,11 +349,30 @@ public class AlgoFHM {
 			}
 		}
 
+		if (revisedTransactions != null) {
+			// construct the EUCS with several threads
+			eucs = EUCS.build(mapItemToUtilityList.keySet(), revisedTransactions, revisedUtilities, threadCount);
+			revisedTransactions = null;
+			revisedUtilities = null;
+		}
+
 		// check the memory usage
 		MemoryLogger.getInstance().checkMemory();
 
-		// Mine the database recursively
-		fhm(itemsetBuffer, 0, null, listOfUtilityLists, minUtility);
+		if (useUtilityListPool) {
+			// copy the utility-lists of items to the pool
+			pool = new UtilityListPool(listOfUtilityLists);
+			listOfUtilityLists = null;
+			mapItemToUtilityList = null;
+
+			// Mine the database recursively
+			fhm(itemsetBuffer, 0, -1, 0, pool.mark(), minUtility);
+		} else {
+			pool = null;
+
+			// Mine the database recursively
+			fhm(itemsetBuffer, 0, null, listOfUtilityLists, minUtility);
+		}
 
 		// check the memory usage again and close the file.
 		MemoryLogger.getInstance().checkMemory();
@@ -360,12 +434,8 @@ public class AlgoFHM {
 					UtilityList Y = ULs.get(j);
 
 					// ======================== NEW OPTIMIZATION USED IN FHM
-					Map<Integer, Long> mapTWUF = mapFMAP.get(X.item);
-					if (mapTWUF != null) {
-						Long twuF = mapTWUF.get(Y.item);
-						if (twuF == null || twuF < minUtility) {
-							continue;
-						}
+					if (eucs.get(X.item, Y.item) < minUtility) {
+						continue;
 					}
 					candidateCount++;
 					// =========================== END OF NEW OPTIMIZATION
@@ -440,6 +510,122 @@ public class AlgoFHM {
 		return pxyUL;
 	}
 
+	/**
+	 * This is the recursive method to find all high utility itemsets, when the
+	 * utility-lists are stored in the UtilityListPool. It writes the itemsets to
+	 * the output file. The utility-lists of extensions of pX are created at the
+	 * end of the pool and are released after the recursive call.
+	 * 
+	 * @param prefix       This is the current prefix. Initially, it is empty.
+	 * @param prefixLength The current prefix length
+	 * @param pUL          This is the Utility List of the prefix. Initially, it is
+	 *                     -1.
+	 * @param firstUL      The first utility-list of the extensions of the prefix
+	 * @param endUL        The utility-list after the last extension of the prefix
+	 * @param minUtility   The minUtility threshold.
+	 * @throws IOException
+	 */
+	private void fhm(int[] prefix, int prefixLength, int pUL, int firstUL, int endUL, int minUtility)
+			throws IOException {
+
+		// For each extension X of prefix P
+		for (int X = firstUL; X < endUL; X++) {
+			int itemX = pool.getItem(X);
+			long sumIutilsX = pool.getSumIutils(X);
+
+			// If pX is a high utility itemset.
+			// we save the itemset: pX
+			if (sumIutilsX >= minUtility) {
+				// save to file
+				writeOut(prefix, prefixLength, itemX, sumIutilsX);
+			}
+
+			// If the sum of the remaining utilities for pX
+			// is higher than minUtility, we explore extensions of pX.
+			// (this is the pruning condition)
+			if (sumIutilsX + pool.getSumRutils(X) >= minUtility) {
+				// The utility-lists of pX extensions will be stored after this mark
+				int mark = pool.mark();
+				// For each extension of p appearing
+				// after X according to the ascending order
+				for (int Y = X + 1; Y < endUL; Y++) {
+					// ======================== NEW OPTIMIZATION USED IN FHM
+					if (eucs.get(itemX, pool.getItem(Y)) < minUtility) {
+						continue;
+					}
+					candidateCount++;
+					// =========================== END OF NEW OPTIMIZATION
+
+					// we construct the extension pXY
+					// at the end of the pool
+					construct(pUL, X, Y, minUtility);
+				}
+				// We create new prefix pX
+				itemsetBuffer[prefixLength] = itemX;
+				// We make a recursive call to discover all itemsets with the prefix pXY
+				fhm(itemsetBuffer, prefixLength + 1, X, mark, pool.mark(), minUtility);
+				// the utility-lists of pX extensions are not needed anymore
+				pool.release(mark);
+			}
+		}
+		MemoryLogger.getInstance().checkMemory();
+	}
+
+	/**
+	 * This method constructs the utility list of pXY at the end of the
+	 * UtilityListPool
+	 * 
+	 * @param P  : the utility list of prefix P (-1 if P is empty).
+	 * @param px : the utility list of pX
+	 * @param py : the utility list of pY
+	 * @return the utility list of pXY, or -1 if it was pruned by LA-prune
+	 */
+	private int construct(int P, int px, int py, int minUtility) {
+		// create an empy utility list for pXY
+		int pxyUL = pool.createUtilityList(pool.getItem(py));
+
+		// == new optimization - LA-prune == /
+		// Initialize the sum of total utility
+		long totalUtility = pool.getSumIutils(px) + pool.getSumRutils(px);
+		// ================================================
+
+		// for each element in the utility list of pX
+		int end = pool.getEnd(px);
+		for (int ex = pool.getStart(px); ex < end; ex++) {
+			int tid = pool.getTid(ex);
+			// do a binary search to find element ey in py with tid = ex.tid
+			int ey = pool.findElementWithTID(py, tid);
+			if (ey == -1) {
+				// == new optimization - LA-prune == /
+				if (ENABLE_LA_PRUNE) {
+					totalUtility -= (pool.getIutils(ex) + pool.getRutils(ex));
+					if (totalUtility < minUtility) {
+						pool.removeLastUtilityList();
+						return -1;
+					}
+				}
+				// =============================================== /
+				continue;
+			}
+			// if the prefix p is null
+			if (P == -1) {
+				// add the new element to the utility list of pXY
+				pool.addElement(tid, pool.getIutils(ex) + pool.getIutils(ey), pool.getRutils(ey));
+
+			} else {
+				// find the element in the utility list of p wih the same tid
+				int e = pool.findElementWithTID(P, tid);
+				if (e != -1) {
+					// add the new element to the utility list of pXY
+					pool.addElement(tid, pool.getIutils(ex) + pool.getIutils(ey) - pool.getIutils(e),
+							pool.getRutils(ey));
+				}
+			}
+		}
+		// return the utility list of pXY.
+		return pxyUL;
+	}
+
 	/**
 	 * Do a binary search to find the element with a given tid in a utility list
 	 * 
@@ -509,36 +695,16 @@ public class AlgoFHM {
 		System.out.println(" Memory ~ " + MemoryLogger.getInstance().getMaxMemory() + " MB");
 		System.out.println(" High-utility itemsets count : " + huiCount);
 		System.out.println(" Candidate count : " + candidateCount);
+		if (pool != null) {
+			System.out.println(" Utility-list pool : " + pool.getAddedElementCount() + " elements added, at most "
+					+ pool.getMaxElementCount() + " elements and " + pool.getMaxUtilityListCount()
+					+ " utility-lists stored, ~ " + pool.getMemoryUsage() + " MB");
+		}
 
 		if (DEBUG) {
-			int pairCount = 0;
-			double maxMemory = getObjectSize(mapFMAP);
-			for (Entry<Integer, Map<Integer, Long>> entry : mapFMAP.entrySet()) {
-				maxMemory += getObjectSize(entry.getKey());
-				for (Entry<Integer, Long> entry2 : entry.getValue().entrySet()) {
-					pairCount++;
-					maxMemory += getObjectSize(entry2.getKey()) + getObjectSize(entry2.getValue());
-				}
-			}
-			System.out.println("CMAP size " + maxMemory + " MB");
-			System.out.println("PAIR COUNT " + pairCount);
+			System.out.println("EUCS size " + eucs.getMemoryUsage() + " MB");
+			System.out.println("PAIR COUNT " + eucs.getPairCount());
 		}
 		System.out.println("===================================================");
 	}
-
-	/**
-	 * Get the size of a Java object (for debugging purposes)
-	 * 
-	 * @param object the object
-	 * @return the size in MB
-	 * @throws IOException
-	 */
-	private double getObjectSize(Object object) throws IOException {
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
-		ObjectOutputStream oos = new ObjectOutputStream(baos);
-		oos.writeObject(object);
-		oos.close();
-		double maxMemory = baos.size() / 1024d / 1024d;
-		return maxMemory;
-	}
 }
\ No newline at end of file
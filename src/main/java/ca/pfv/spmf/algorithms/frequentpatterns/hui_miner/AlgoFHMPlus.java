@@ -20,13 +20,11 @@ package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -34,7 +32,6 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import ca.pfv.spmf.tools.MemoryLogger;
 
@@ -72,8 +69,8 @@ public class AlgoFHMPlus {
 	/** writer to write the output file */
 	BufferedWriter writer = null;
 
-	/** The eucs structure: key: item key: another item value: twu */
-	Map<Integer, Map<Integer, Long>> mapFMAP;
+	/** The EUCS structure: the TWU of each pair of items */
+	EUCS eucs;
 
 	/** enable LA-prune strategy */
 	boolean ENABLE_LA_PRUNE = true;
@@ -152,8 +149,6 @@ public class AlgoFHMPlus {
 		this.minimumLength = minimumLength;
 		this.maximumLength = maximumLength;
 
-		mapFMAP = new HashMap<Integer, Map<Integer, Long>>();
-
 		startTimestamp = System.currentTimeMillis();
 
 		writer = new BufferedWriter(new FileWriter(output));
@@ -256,6 +251,9 @@ public class AlgoFHMPlus {
 
 //		System.out.println(mapItemToTWU);
 
+		// create the EUCS for the promising items
+		eucs = EUCS.create(mapItemToUtilityList.keySet());
+
 		// SECOND DATABASE PASS TO CONSTRUCT THE UTILITY LISTS
 		// OF 1-ITEMSETS HAVING TWU >= minutil (promising items)
 		try {
@@ -333,12 +331,6 @@ public class AlgoFHMPlus {
 					element.remainingArray = new int[sizeRemainingArray];
 
 					// Get the EUCS ENTRY for that item
-					Map<Integer, Long> mapFMAPItem = mapFMAP.get(pair.item);
-					if (mapFMAPItem == null) {
-						mapFMAPItem = new HashMap<Integer, Long>();
-						mapFMAP.put(pair.item, mapFMAPItem);
-					}
-
 					// update the remaining utility and EUCS at the same time
 					int numberOfItemsCanExtendWhithinMaxLimit = 0;
 					// Calculate the remaining utility
@@ -359,12 +351,7 @@ public class AlgoFHMPlus {
 							}
 
 							// UPDATE THE EUCS
-							Long twuSum = mapFMAPItem.get(otherPair.item);
-							if (twuSum == null) {
-								mapFMAPItem.put(otherPair.item, newTWU);
-							} else {
-								mapFMAPItem.put(otherPair.item, twuSum + newTWU);
-							}
+							eucs.add(pair.item, otherPair.item, newTWU);
 							// END OPTIMIZATION of FHM
 						}
 					}
@@ -480,12 +467,8 @@ public class AlgoFHMPlus {
 					UtilityListFHMPlus Y = ULs.get(j);
 
 					// ======================== NEW OPTIMIZATION USED IN FHM
-					Map<Integer, Long> mapTWUF = mapFMAP.get(X.item);
-					if (mapTWUF != null) {
-						Long twuF = mapTWUF.get(Y.item);
-						if (twuF == null || twuF < minUtility) {
-							continue;
-						}
+					if (eucs.get(X.item, Y.item) < minUtility) {
+						continue;
 					}
 					candidateCount++;
 					// =========================== END OF NEW OPTIMIZATION
@@ -755,34 +738,9 @@ public class AlgoFHMPlus {
 		System.out.println(" Candidate count : " + candidateCount);
 
 		if (DEBUG) {
-			int pairCount = 0;
-			double maxMemory = getObjectSize(mapFMAP);
-			for (Entry<Integer, Map<Integer, Long>> entry : mapFMAP.entrySet()) {
-				maxMemory += getObjectSize(entry.getKey());
-				for (Entry<Integer, Long> entry2 : entry.getValue().entrySet()) {
-					pairCount++;
-					maxMemory += getObjectSize(entry2.getKey()) + getObjectSize(entry2.getValue());
-				}
-			}
-			System.out.println("CMAP size " + maxMemory + " MB");
-			System.out.println("PAIR COUNT " + pairCount);
+			System.out.println("EUCS size " + eucs.getMemoryUsage() + " MB");
+			System.out.println("PAIR COUNT " + eucs.getPairCount());
 		}
 		System.out.println("===================================================");
 	}
-
-	/**
-	 * Get the size of a Java object (for debugging purposes)
-	 * 
-	 * @param object the object
-	 * @return the size in MB
-	 * @throws IOException
-	 */
-	private double getObjectSize(Object object) throws IOException {
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
-		ObjectOutputStream oos = new ObjectOutputStream(baos);
-		oos.writeObject(object);
-		oos.close();
-		double maxMemory = baos.size() / 1024d / 1024d;
-		return maxMemory;
-	}
 }
\ No newline at end of file
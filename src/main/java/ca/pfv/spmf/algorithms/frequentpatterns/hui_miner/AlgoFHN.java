@@ -19,13 +19,11 @@ package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -33,7 +31,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import ca.pfv.spmf.tools.MemoryLogger;
@@ -72,8 +69,8 @@ public class AlgoFHN {
 	/** writer to write the output file */
 	BufferedWriter writer = null;
 
-	/** The eucs structure: key: item key: another item value: twu */
-	Map<Integer, Map<Integer, Long>> mapFMAP;
+	/** The EUCS structure: the TWU of each pair of items */
+	EUCS eucs;
 
 	/** enable LA-prune strategy */
 	boolean ENABLE_LA_PRUNE = true;
@@ -129,7 +126,6 @@ public class AlgoFHN {
 		itemsetBuffer = new int[BUFFERS_SIZE];
 
 		// Create the EUCP structure as described in the FHM and FHN papers
-		mapFMAP = new HashMap<Integer, Map<Integer, Long>>();
 
 		// record the start time of the algorithm
 		startTimestamp = System.currentTimeMillis();
@@ -223,6 +219,9 @@ public class AlgoFHN {
 			}
 		});
 
+		// create the EUCS for the promising items
+		eucs = EUCS.create(mapItemToUtilityList.keySet());
+
 		// SECOND DATABASE PASS TO CONSTRUCT THE UTILITY LISTS
 		// OF 1-ITEMSETS HAVING TWU >= minutil (promising items)
 		try {
@@ -312,20 +311,9 @@ public class AlgoFHN {
 					// if not a negative item
 					if (remainingUtility != 0) {
 						// =============================================
-						Map<Integer, Long> mapFMAPItem = mapFMAP.get(pair.item);
-						if (mapFMAPItem == null) {
-							mapFMAPItem = new HashMap<Integer, Long>();
-							mapFMAP.put(pair.item, mapFMAPItem);
-						}
-
 						for (int j = i + 1; j < revisedTransaction.size(); j++) {
 							Pair pairAfter = revisedTransaction.get(j);
-							Long twuSum = mapFMAPItem.get(pairAfter.item);
-							if (twuSum == null) {
-								mapFMAPItem.put(pairAfter.item, newTWU);
-							} else {
-								mapFMAPItem.put(pairAfter.item, twuSum + newTWU);
-							}
+							eucs.add(pair.item, pairAfter.item, newTWU);
 						}
 					}
 					// END OPTIMIZATION of FHM
@@ -418,12 +406,8 @@ public class AlgoFHN {
 					UtilityListFHN Y = ULs.get(j);
 
 					// ======================== NEW OPTIMIZATION USED IN FHM
-					Map<Integer, Long> mapTWUF = mapFMAP.get(X.item);
-					if (mapTWUF != null) {
-						Long twuF = mapTWUF.get(Y.item);
-						if (twuF == null || twuF < minUtility) {
-							continue;
-						}
+					if (eucs.get(X.item, Y.item) < minUtility) {
+						continue;
 					}
 					candidateCount++;
 					// =========================== END OF NEW OPTIMIZATION
@@ -573,34 +557,9 @@ public class AlgoFHN {
 		System.out.println(" Candidate count : " + candidateCount);
 
 		if (DEBUG) {
-			int pairCount = 0;
-			double maxMemory = getObjectSize(mapFMAP);
-			for (Entry<Integer, Map<Integer, Long>> entry : mapFMAP.entrySet()) {
-				maxMemory += getObjectSize(entry.getKey());
-				for (Entry<Integer, Long> entry2 : entry.getValue().entrySet()) {
-					pairCount++;
-					maxMemory += getObjectSize(entry2.getKey()) + getObjectSize(entry2.getValue());
-				}
-			}
-			System.out.println("CMAP size " + maxMemory + " MB");
-			System.out.println("PAIR COUNT " + pairCount);
+			System.out.println("EUCS size " + eucs.getMemoryUsage() + " MB");
+			System.out.println("PAIR COUNT " + eucs.getPairCount());
 		}
 		System.out.println("===================================================");
 	}
-
-	/**
-	 * This method is used to calculate the size of a Java object
-	 * 
-	 * @param object an object
-	 * @return the size in Megabytes (MB)
-	 * @throws IOException
-	 */
-	private double getObjectSize(Object object) throws IOException {
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
-		ObjectOutputStream oos = new ObjectOutputStream(baos);
-		oos.writeObject(object);
-		oos.close();
-		double maxMemory = baos.size() / 1024d / 1024d;
-		return maxMemory;
-	}
 }
\ No newline at end of file
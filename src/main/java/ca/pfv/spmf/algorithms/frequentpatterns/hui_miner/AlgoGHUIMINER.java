@@ -81,10 +81,10 @@ public class AlgoGHUIMINER {
 	BufferedWriter writer = null;
 
 	/**
-	 * NEW OPTIMIZATION - Structure used by the EUCP strategy Key: for an item x,
-	 * Value: a map of item where key is an item y and value is the TWU of {x,y}
+	 * NEW OPTIMIZATION - Structure used by the EUCP strategy. It stores the TWU of
+	 * each pair of items {x,y}
 	 */
-	Map<Integer, Map<Integer, Integer>> mapFMAP;
+	EUCS eucs;
 
 	/** number of transaction in the database */
 	private int transactionCount = 0;
@@ -297,7 +297,6 @@ public class AlgoGHUIMINER {
 		// initialize the structured for EUCP strategy introduced in FHM algorithm
 		// (Fournier-Viger et al., 2014)
 		// It will store the TWU of all pairs of items
-		mapFMAP = new HashMap<Integer, Map<Integer, Integer>>();
 
 		// save the minutil threshold
 		this.minUtility = minUtility;
@@ -393,6 +392,9 @@ public class AlgoGHUIMINER {
 		sortItemsInAllCHUIsByTWU();
 		// END NEW
 
+		// create the EUCS for the promising items
+		eucs = EUCS.create(mapItemToUtilityList.keySet());
+
 		// SECOND DATABASE PASS TO CONSTRUCT THE UTILITY LISTS
 		// OF 1-ITEMSETS HAVING TWU >= minutil (promising items)
 		try {
@@ -469,20 +471,9 @@ public class AlgoGHUIMINER {
 
 					// BEGIN CODE FOR UPDATING THE STRUCTURE USED BY THE EUCP STRATEGY
 					// TO STORE TWU OF ALL PAIRS OF TWO ITEMS CO-OCCURRING
-					Map<Integer, Integer> mapFMAPItem = mapFMAP.get(pair.item);
-					if (mapFMAPItem == null) {
-						mapFMAPItem = new HashMap<Integer, Integer>();
-						mapFMAP.put(pair.item, mapFMAPItem);
-					}
-
 					for (int j = i + 1; j < revisedTransaction.size(); j++) {
 						PairItemUtility pairAfter = revisedTransaction.get(j);
-						Integer twuSum = mapFMAPItem.get(pairAfter.item);
-						if (twuSum == null) {
-							mapFMAPItem.put(pairAfter.item, newTU);
-						} else {
-							mapFMAPItem.put(pairAfter.item, twuSum + newTU);
-						}
+						eucs.add(pair.item, pairAfter.item, newTU);
 					}
 					// END OF CODE FOR EUCP STRATEGY
 				}
@@ -696,13 +687,9 @@ public class AlgoGHUIMINER {
 	 * @return true if TWU({x,y} < minutil. Otherwise return false
 	 */
 	private boolean checkEUCPStrategy(int minUtility, int itemX, int itemY) {
-		Map<Integer, Integer> mapTWUF = mapFMAP.get(itemX);
-		if (mapTWUF != null) {
-			Integer twuF = mapTWUF.get(itemY);
-			if (twuF == null || twuF < minUtility) {
-				candidateAvoidedbyFHM++;
-				return true;
-			}
+		if (eucs.get(itemX, itemY) < minUtility) {
+			candidateAvoidedbyFHM++;
+			return true;
 		}
 		return false;
 	}
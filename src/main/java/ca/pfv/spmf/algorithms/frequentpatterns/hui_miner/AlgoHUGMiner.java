@@ -77,11 +77,10 @@ public class AlgoHUGMiner {
 	BufferedWriter writer = null;
 
 	/**
-	 * NEW OPTIMIZATION - Structure used by the EUCP strategy (as in the FHM paper)
-	 * Key: for an item x, Value: a map of item where key is an item y and value is
-	 * the TWU of {x,y}
+	 * NEW OPTIMIZATION - Structure used by the EUCP strategy (as in the FHM paper).
+	 * It stores the TWU of each pair of items {x,y}
 	 */
-	Map<Integer, Map<Integer, Integer>> mapFMAP;
+	EUCS eucs;
 
 	/** number of transaction in the database */
 	private int transactionCount = 0;
@@ -131,7 +130,6 @@ public class AlgoHUGMiner {
 		itemsetBuffer = new int[BUFFERS_SIZE];
 
 		// initialise the map used by the EUCP strategy
-		mapFMAP = new HashMap<Integer, Map<Integer, Integer>>();
 
 		// record start timestamp
 		startTimestamp = System.currentTimeMillis();
@@ -217,6 +215,9 @@ public class AlgoHUGMiner {
 			}
 		});
 
+		// create the EUCS for the promising items
+		eucs = EUCS.create(mapItemToUtilityList.keySet());
+
 		// PERFORM A SECOND DATABASE PASS TO CONSTRUCT THE UTILITY LISTS
 		// OF 1-ITEMSETS HAVING TWU >= minutil (promising items)
 		try {
@@ -293,20 +294,9 @@ public class AlgoHUGMiner {
 
 					// BEGIN NEW OPTIMIZATION for updating the map used
 					// BY THE FHM EUCP STRATEGY
-					Map<Integer, Integer> mapFMAPItem = mapFMAP.get(pair.item);
-					if (mapFMAPItem == null) {
-						mapFMAPItem = new HashMap<Integer, Integer>();
-						mapFMAP.put(pair.item, mapFMAPItem);
-					}
-
 					for (int j = i + 1; j < revisedTransaction.size(); j++) {
 						PairItemUtility pairAfter = revisedTransaction.get(j);
-						Integer twuSum = mapFMAPItem.get(pairAfter.item);
-						if (twuSum == null) {
-							mapFMAPItem.put(pairAfter.item, newTU);
-						} else {
-							mapFMAPItem.put(pairAfter.item, twuSum + newTU);
-						}
+						eucs.add(pair.item, pairAfter.item, newTU);
 					}
 
 					// END OPTIMIZATION of FHM EUCP STRATEGY
@@ -496,13 +486,9 @@ public class AlgoHUGMiner {
 	 * @return true if TWU({x,y} < minutil. Otherwise return false
 	 */
 	private boolean checkEUCPStrategy(int minUtility, int itemX, int itemY) {
-		Map<Integer, Integer> mapTWUF = mapFMAP.get(itemX);
-		if (mapTWUF != null) {
-			Integer twuF = mapTWUF.get(itemY);
-			if (twuF == null || twuF < minUtility) {
-				candidateAvoidedbyFHMPruning++;
-				return true;
-			}
+		if (eucs.get(itemX, itemY) < minUtility) {
+			candidateAvoidedbyFHMPruning++;
+			return true;
 		}
 		return false;
 	}
@@ -794,5 +780,4 @@ public class AlgoHUGMiner {
 		System.out.println(" HUGs count : " + hugsCount);
 		System.out.println("==============================================================");
 	}
-
 }
\ No newline at end of file
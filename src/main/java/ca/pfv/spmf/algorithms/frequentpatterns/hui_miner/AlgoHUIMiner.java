@@ -40,10 +40,16 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * <br/>
  * 
  * Liu, M., Qu, J. (2012). Mining High Utility Itemsets without Candidate
- * Generation. Proc. of CIKM 2012. pp.55-64.
+ * Generation. Proc. of CIKM 2012. pp.55-64. <br/>
+ * <br/>
+ * 
+ * The utility-lists can be stored in a UtilityListPool (see
+ * setUseUtilityListPool()) rather than as lists of Element objects. The
+ * itemsets found are the same.
  *
  * @see UtilityList
  * @see Element
+ * @see UtilityListPool
  * @author Philippe Fournier-Viger
  */
 public class AlgoHUIMiner {
@@ -73,6 +79,12 @@ public class AlgoHUIMiner {
 	final int BUFFERS_SIZE = 200;
 	private int[] itemsetBuffer = null;
 
+	/** if true, the utility-lists are stored in a UtilityListPool */
+	private boolean useUtilityListPool = false;
+
+	/** the pool storing the utility-lists (if it is used) */
+	private UtilityListPool pool = null;
+
 	/** this class represent an item and its utility in a transaction */
 	class Pair {
 		int item = 0;
@@ -85,6 +97,16 @@ public class AlgoHUIMiner {
 	public AlgoHUIMiner() {
 	}
 
+	/**
+	 * Set if the utility-lists should be stored in a UtilityListPool rather than
+	 * as lists of Element objects. By default, the pool is not used.
+	 * 
+	 * @param useUtilityListPool true to use the pool
+	 */
+	public void setUseUtilityListPool(boolean useUtilityListPool) {
+		this.useUtilityListPool = useUtilityListPool;
+	}
+
 	/**
 	 * Run the algorithm
 	 * 
@@ -254,8 +276,20 @@ public class AlgoHUIMiner {
 		// check the memory usage
 		MemoryLogger.getInstance().checkMemory();
 
-		// Mine the database recursively
-		huiMiner(itemsetBuffer, 0, null, listOfUtilityLists, minUtility);
+		if (useUtilityListPool) {
+			// copy the utility-lists of items to the pool
+			pool = new UtilityListPool(listOfUtilityLists);
+			listOfUtilityLists = null;
+			mapItemToUtilityList = null;
+
+			// Mine the database recursively
+			huiMiner(itemsetBuffer, 0, -1, 0, pool.mark(), minUtility);
+		} else {
+			pool = null;
+
+			// Mine the database recursively
+			huiMiner(itemsetBuffer, 0, null, listOfUtilityLists, minUtility);
+		}
 
 		// check the memory usage again and close the file.
 		MemoryLogger.getInstance().checkMemory();
@@ -362,6 +396,100 @@ public class AlgoHUIMiner {
 		return pxyUL;
 	}
 
+	/**
+	 * This is the recursive method to find all high utility itemsets, when the
+	 * utility-lists are stored in the UtilityListPool. It writes the itemsets to
+	 * the output file. The utility-lists of extensions of pX are created at the
+	 * end of the pool and are released after the recursive call.
+	 * 
+	 * @param prefix       This is the current prefix. Initially, it is empty.
+	 * @param prefixLength The current prefix length
+	 * @param pUL          This is the Utility List of the prefix. Initially, it is
+	 *                     -1.
+	 * @param firstUL      The first utility-list of the extensions of the prefix
+	 * @param endUL        The utility-list after the last extension of the prefix
+	 * @param minUtility   The minUtility threshold.
+	 * @throws IOException
+	 */
+	private void huiMiner(int[] prefix, int prefixLength, int pUL, int firstUL, int endUL, int minUtility)
+			throws IOException {
+
+		// For each extension X of prefix P
+		for (int X = firstUL; X < endUL; X++) {
+			long sumIutilsX = pool.getSumIutils(X);
+
+			// If pX is a high utility itemset.
+			// we save the itemset: pX
+			if (sumIutilsX >= minUtility) {
+				// save to file
+				writeOut(prefix, prefixLength, pool.getItem(X), sumIutilsX);
+			}
+
+			// If the sum of the remaining utilities for pX
+			// is higher than minUtility, we explore extensions of pX.
+			// (this is the pruning condition)
+			if (sumIutilsX + pool.getSumRutils(X) >= minUtility) {
+				// The utility-lists of pX extensions will be stored after this mark
+				int mark = pool.mark();
+				// For each extension of p appearing
+				// after X according to the ascending order
+				for (int Y = X + 1; Y < endUL; Y++) {
+					// we construct the extension pXY
+					// at the end of the pool
+					construct(pUL, X, Y);
+					joinCount++;
+				}
+				// We create new prefix pX
+				itemsetBuffer[prefixLength] = pool.getItem(X);
+
+				// We make a recursive call to discover all itemsets with the prefix pXY
+				huiMiner(itemsetBuffer, prefixLength + 1, X, mark, pool.mark(), minUtility);
+				// the utility-lists of pX extensions are not needed anymore
+				pool.release(mark);
+			}
+		}
+	}
+
+	/**
+	 * This method constructs the utility list of pXY at the end of the
+	 * UtilityListPool
+	 * 
+	 * @param P  : the utility list of prefix P (-1 if P is empty).
+	 * @param px : the utility list of pX
+	 * @param py : the utility list of pY
+	 * @return the utility list of pXY
+	 */
+	private int construct(int P, int px, int py) {
+		// create an empy utility list for pXY
+		int pxyUL = pool.createUtilityList(pool.getItem(py));
+		// for each element in the utility list of pX
+		int end = pool.getEnd(px);
+		for (int ex = pool.getStart(px); ex < end; ex++) {
+			int tid = pool.getTid(ex);
+			// do a binary search to find element ey in py with tid = ex.tid
+			int ey = pool.findElementWithTID(py, tid);
+			if (ey == -1) {
+				continue;
+			}
+			// if the prefix p is null
+			if (P == -1) {
+				// add the new element to the utility list of pXY
+				pool.addElement(tid, pool.getIutils(ex) + pool.getIutils(ey), pool.getRutils(ey));
+
+			} else {
+				// find the element in the utility list of p wih the same tid
+				int e = pool.findElementWithTID(P, tid);
+				if (e != -1) {
+					// add the new element to the utility list of pXY
+					pool.addElement(tid, pool.getIutils(ex) + pool.getIutils(ey) - pool.getIutils(e),
+							pool.getRutils(ey));
+				}
+			}
+		}
+		// return the utility list of pXY.
+		return pxyUL;
+	}
+
 	/**
 	 * Do a binary search to find the element with a given tid in a utility list
 	 * 
@@ -429,6 +557,11 @@ public class AlgoHUIMiner {
 		System.out.println(" Memory ~ " + MemoryLogger.getInstance().getMaxMemory() + " MB");
 		System.out.println(" High-utility itemsets count : " + huiCount);
 		System.out.println(" Join count : " + joinCount);
+		if (pool != null) {
+			System.out.println(" Utility-list pool : " + pool.getAddedElementCount() + " elements added, at most "
+					+ pool.getMaxElementCount() + " elements and " + pool.getMaxUtilityListCount()
+					+ " utility-lists stored, ~ " + pool.getMemoryUsage() + " MB");
+		}
 		System.out.println("===================================================");
 	}
 }
\ No newline at end of file
@@ -71,7 +71,8 @@ public class AlgoHUI_LIST_INS {
 	BufferedWriter writer = null;
 
 	// NEW OPTIMIZATION - EUCS (FAST)
-	Map<Integer, Map<Integer, Integer>> mapEUCS; // PAIR OF ITEMS , item --> item, twu
+	/** The EUCS structure: the TWU of each pair of items */
+	EUCS eucs;
 	// END NEW OPTIMIZATION
 
 	// variable for debug mode
@@ -135,8 +136,9 @@ public class AlgoHUI_LIST_INS {
 		writer = new BufferedWriter(new FileWriter(output));
 
 		// if first time
-		if (mapEUCS == null) {
-			mapEUCS = new HashMap<Integer, Map<Integer, Integer>>();
+		if (eucs == null) {
+			// the items are not known in advance
+			eucs = EUCS.create(null);
 			listOfUtilityLists = new ArrayList<UtilityList>();
 			mapItemToRank = new HashMap<Integer, Integer>();
 			mapItemToUtilityList = new HashMap<Integer, UtilityList>();
@@ -304,20 +306,9 @@ public class AlgoHUI_LIST_INS {
 						utilityListOfItem.addElement(element);
 
 						// BEGIN NEW OPTIMIZATION for FHM
-						Map<Integer, Integer> mapFMAPItem = mapEUCS.get(pair.item);
-						if (mapFMAPItem == null) {
-							mapFMAPItem = new HashMap<Integer, Integer>();
-							mapEUCS.put(pair.item, mapFMAPItem);
-						}
-
 						for (int j = i + 1; j < revisedTransaction.size(); j++) {
 							Pair pairAfter = revisedTransaction.get(j);
-							Integer twuSum = mapFMAPItem.get(pairAfter.item);
-							if (twuSum == null) {
-								mapFMAPItem.put(pairAfter.item, newTWU);
-							} else {
-								mapFMAPItem.put(pairAfter.item, twuSum + newTWU);
-							}
+							eucs.add(pair.item, pairAfter.item, newTWU);
 						}
 
 						// END OPTIMIZATION of FHM
@@ -423,12 +414,8 @@ public class AlgoHUI_LIST_INS {
 					UtilityList Y = ULs.get(j);
 
 					// ======================== NEW OPTIMIZATION USED IN FHM
-					Map<Integer, Integer> mapTWUF = mapEUCS.get(X.item);
-					if (mapTWUF != null) {
-						Integer twuF = mapTWUF.get(Y.item);
-						if (twuF == null || twuF < minUtility) {
-							continue;
-						}
+					if (eucs.get(X.item, Y.item) < minUtility) {
+						continue;
 					}
 					candidateCount++;
 					// =========================== END OF NEW OPTIMIZATION
@@ -580,5 +567,4 @@ public class AlgoHUI_LIST_INS {
 		System.out.println("TOTAL TIME FOR ALL RUNS:" + totalTimeForAllRuns + " ms");
 		System.out.println("===================================================");
 	}
-
 }
\ No newline at end of file
@@ -19,13 +19,11 @@ package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -46,10 +44,16 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * Fournier-Viger, P., Lin, C.W., Wu, C.-W., Tseng, V. S., Faghihi, U. (2016).
  * Mining Minimal High-Utility Itemsets. Proc. 27th Intern. Conf. on Database
  * and Expert Systems Applications (DEXA 2016). Springer, LNCS, 13 pages, to
- * appear
+ * appear <br/>
+ * <br/>
+ * 
+ * The utility-lists can be stored in a UtilityListPool (see
+ * setUseUtilityListPool()) rather than as lists of Element objects. The
+ * itemsets found are the same.
  *
  * @see UtilityList
  * @see Element
+ * @see UtilityListPool
  * @author Philippe Fournier-Viger
  */
 public class AlgoMinFHM {
@@ -71,8 +75,8 @@ public class AlgoMinFHM {
 	/** writer to write the output file */
 	BufferedWriter writer = null;
 
-	/** the EUCP structure */
-	Map<Integer, Map<Integer, Integer>> mapFMAP; // PAIR OF ITEMS , item --> item, twu
+	/** The EUCS structure: the TWU of each pair of items */
+	EUCS eucs;
 
 	/** variable to activate the debug mode */
 	boolean debug = false;
@@ -83,6 +87,12 @@ public class AlgoMinFHM {
 	/** The structure called the "itemset store" in the paper */
 	List<List<Itemset>> listItemsetsBySize = null;
 
+	/** if true, the utility-lists are stored in a UtilityListPool */
+	private boolean useUtilityListPool = false;
+
+	/** the pool storing the utility-lists (if it is used) */
+	private UtilityListPool pool = null;
+
 	/**
 	 * Check if there exists an itemset smaller than a given itemset in the
 	 * MinHUI-Store
@@ -128,7 +138,7 @@ public class AlgoMinFHM {
 	public void registerItemsetAndRemoveLarger(int[] itemset, long utility, int support) {
 //		// OPTIMIZATION: if it is an itemset of size 2, we set the pair to ZERO in the EUCS ===========
 		if (itemset.length == 2) {
-			mapFMAP.get(itemset[0]).put(itemset[1], 0);
+			eucs.set(itemset[0], itemset[1], 0);
 		}
 //		/// END OF OPTIMIZATION =======================
 
@@ -196,6 +206,16 @@ public class AlgoMinFHM {
 
 	}
 
+	/**
+	 * Set if the utility-lists should be stored in a UtilityListPool rather than
+	 * as lists of Element objects. By default, the pool is not used.
+	 * 
+	 * @param useUtilityListPool true to use the pool
+	 */
+	public void setUseUtilityListPool(boolean useUtilityListPool) {
+		this.useUtilityListPool = useUtilityListPool;
+	}
+
 	/**
 	 * Run the algorithm
 	 * 
@@ -208,8 +228,6 @@ public class AlgoMinFHM {
 		// reset maximum
 		MemoryLogger.getInstance().reset();
 
-		mapFMAP = new HashMap<Integer, Map<Integer, Integer>>();
-
 		startTimestamp = System.currentTimeMillis();
 
 		writer = new BufferedWriter(new FileWriter(output));
@@ -306,6 +324,9 @@ public class AlgoMinFHM {
 			}
 		});
 
+		// create the EUCS for the promising items
+		eucs = EUCS.create(mapItemToUtilityList.keySet());
+
 		// SECOND DATABASE PASS TO CONSTRUCT THE UTILITY LISTS
 		// OF 1-ITEMSETS HAVING TWU >= minutil (promising items)
 		try {
@@ -378,20 +399,9 @@ public class AlgoMinFHM {
 					utilityListOfItem.addElement(element);
 
 					// BEGIN NEW OPTIMIZATION for FHM
-					Map<Integer, Integer> mapFMAPItem = mapFMAP.get(pair.item);
-					if (mapFMAPItem == null) {
-						mapFMAPItem = new HashMap<Integer, Integer>();
-						mapFMAP.put(pair.item, mapFMAPItem);
-					}
-
 					for (int j = i + 1; j < revisedTransaction.size(); j++) {
 						Pair pairAfter = revisedTransaction.get(j);
-						Integer twuSum = mapFMAPItem.get(pairAfter.item);
-						if (twuSum == null) {
-							mapFMAPItem.put(pairAfter.item, newTWU);
-						} else {
-							mapFMAPItem.put(pairAfter.item, twuSum + newTWU);
-						}
+						eucs.add(pair.item, pairAfter.item, newTWU);
 					}
 
 					// END OPTIMIZATION of FHM
@@ -432,8 +442,20 @@ public class AlgoMinFHM {
 		}
 		// ========================= END SPECIFIC TO MMMINER ============
 
-		// Mine the database recursively
-		minfhm(new int[0], null, listOfUtilityLists, minUtility);
+		if (useUtilityListPool) {
+			// copy the utility-lists of items to the pool
+			pool = new UtilityListPool(listOfUtilityLists);
+			listOfUtilityLists = null;
+			mapItemToUtilityList = null;
+
+			// Mine the database recursively
+			minfhm(new int[0], -1, 0, pool.mark(), minUtility);
+		} else {
+			pool = null;
+
+			// Mine the database recursively
+			minfhm(new int[0], null, listOfUtilityLists, minUtility);
+		}
 
 		// SAVE ALL ITEMSETS TO THE FILE
 		for (List<Itemset> listItemsets : listItemsetsBySize) {
@@ -496,12 +518,8 @@ public class AlgoMinFHM {
 					UtilityList Y = ULs.get(j);
 
 					// ======================== NEW OPTIMIZATION USED IN FHM
-					Map<Integer, Integer> mapTWUF = mapFMAP.get(X.item);
-					if (mapTWUF != null) {
-						Integer twuF = mapTWUF.get(Y.item);
-						if (twuF == null || twuF < minUtility) {
-							continue;
-						}
+					if (eucs.get(X.item, Y.item) < minUtility) {
+						continue;
 					}
 					candidateCount++;
 					// =========================== END OF NEW OPTIMIZATION
@@ -587,6 +605,133 @@ public class AlgoMinFHM {
 		return pxyUL;
 	}
 
+	/**
+	 * This is the recursive method to find all high utility itemsets, when the
+	 * utility-lists are stored in the UtilityListPool. The utility-lists of
+	 * extensions of pX are created at the end of the pool and are released after
+	 * the recursive call.
+	 * 
+	 * @param prefix     This is the current prefix. Initially, it is empty.
+	 * @param pUL        This is the Utility List of the prefix. Initially, it is
+	 *                   -1.
+	 * @param firstUL    The first utility-list of the extensions of the prefix
+	 * @param endUL      The utility-list after the last extension of the prefix
+	 * @param minUtility The minUtility threshold.
+	 * @throws IOException
+	 */
+	private void minfhm(int[] prefix, int pUL, int firstUL, int endUL, int minUtility) throws IOException {
+
+		// For each extension X of prefix P
+		for (int X = firstUL; X < endUL; X++) {
+
+			// If the sum of the remaining utilities for pX
+			// is higher than minUtility, we explore extensions of pX.
+			// (this is the pruning condition)
+			if (pool.getSumIutils(X) + pool.getSumRutils(X) >= minUtility) {
+
+				int itemX = pool.getItem(X);
+				int[] newPrefix = ArraysAlgos.appendIntegerToArray(prefix, itemX);
+
+				// The utility-lists of pX extensions will be stored after this mark
+				int mark = pool.mark();
+				// For each extension of p appearing
+				// after X according to the ascending order
+				for (int Y = X + 1; Y < endUL; Y++) {
+					int itemY = pool.getItem(Y);
+
+					// ======================== NEW OPTIMIZATION USED IN FHM
+					if (eucs.get(itemX, itemY) < minUtility) {
+						continue;
+					}
+					candidateCount++;
+					// =========================== END OF NEW OPTIMIZATION
+
+					// we construct the extension pXY
+					// at the end of the pool
+					int pXY = construct(pUL, X, Y, minUtility);
+
+					// If the itemset pXY passes the LA-Prune strategy.
+					if (pXY != -1) {
+						// If pX is a high utility itemset.
+						// we save the itemset: pX
+						int[] itemset = ArraysAlgos.appendIntegerToArray(newPrefix, itemY);
+
+						// the utility-list of pXY is kept only if pXY is extended
+						if (pool.getSumIutils(pXY) >= minUtility && isSubsumingAFoundItemset(itemset) == false) {
+							registerItemsetAndRemoveLarger(itemset, pool.getSumIutils(pXY), pool.getSupport(pXY));
+							pool.removeLastUtilityList();
+						} else if (isSubsumingAFoundItemset(itemset) == false) {
+							pool.removeLastUtilityList();
+						}
+					}
+				}
+
+				// We make a recursive call to discover all itemsets with the prefix pXY
+				if (pool.mark() - mark > 1) {
+					minfhm(newPrefix, X, mark, pool.mark(), minUtility);
+				}
+				// the utility-lists of pX extensions are not needed anymore
+				pool.release(mark);
+			}
+		}
+		MemoryLogger.getInstance().checkMemory();
+	}
+
+	/**
+	 * This method constructs the utility list of pXY at the end of the
+	 * UtilityListPool
+	 * 
+	 * @param P  : the utility list of prefix P (-1 if P is empty).
+	 * @param px : the utility list of pX
+	 * @param py : the utility list of pY
+	 * @return the utility list of pXY, or -1 if it was pruned by LA-prune
+	 */
+	private int construct(int P, int px, int py, int minUtility) {
+		// create an empy utility list for pXY
+		int pxyUL = pool.createUtilityList(pool.getItem(py));
+
+		// == new optimization - LA-prune == /
+		// Initialize the sum of total utility
+		long totalUtility = pool.getSumIutils(px) + pool.getSumRutils(px);
+		// ================================================
+
+		// for each element in the utility list of pX
+		int end = pool.getEnd(px);
+		for (int ex = pool.getStart(px); ex < end; ex++) {
+			int tid = pool.getTid(ex);
+			// do a binary search to find element ey in py with tid = ex.tid
+			int ey = pool.findElementWithTID(py, tid);
+			if (ey == -1) {
+				// == new optimization - LA-prune == /
+				if (ENABLE_LA_PRUNE) {
+					totalUtility -= (pool.getIutils(ex) + pool.getRutils(ex));
+					if (totalUtility < minUtility) {
+						pool.removeLastUtilityList();
+						return -1;
+					}
+				}
+				// =============================================== /
+				continue;
+			}
+			// if the prefix p is null
+			if (P == -1) {
+				// add the new element to the utility list of pXY
+				pool.addElement(tid, pool.getIutils(ex) + pool.getIutils(ey), pool.getRutils(ey));
+
+			} else {
+				// find the element in the utility list of p wih the same tid
+				int e = pool.findElementWithTID(P, tid);
+				if (e != -1) {
+					// add the new element to the utility list of pXY
+					pool.addElement(tid, pool.getIutils(ex) + pool.getIutils(ey) - pool.getIutils(e),
+							pool.getRutils(ey));
+				}
+			}
+		}
+		// return the utility list of pXY.
+		return pxyUL;
+	}
+
 	/**
 	 * Do a binary search to find the element with a given tid in a utility list
 	 * 
@@ -685,30 +830,17 @@ public class AlgoMinFHM {
 		System.out.println(" Memory ~ " + MemoryLogger.getInstance().getMaxMemory() + " MB");
 		System.out.println(" MinHUIs count : " + huiCount);
 		System.out.println(" Candidate count : " + candidateCount);
+		if (pool != null) {
+			System.out.println(" Utility-list pool : " + pool.getAddedElementCount() + " elements added, at most "
+					+ pool.getMaxElementCount() + " elements and " + pool.getMaxUtilityListCount()
+					+ " utility-lists stored, ~ " + pool.getMemoryUsage() + " MB");
+		}
 
 		if (debug) {
-			int pairCount = 0;
-			double maxMemory = getObjectSize(mapFMAP);
-			for (Entry<Integer, Map<Integer, Integer>> entry : mapFMAP.entrySet()) {
-				maxMemory += getObjectSize(entry.getKey());
-				for (Entry<Integer, Integer> entry2 : entry.getValue().entrySet()) {
-					pairCount++;
-					maxMemory += getObjectSize(entry2.getKey()) + getObjectSize(entry2.getValue());
-				}
-			}
-			System.out.println("CMAP size " + maxMemory + " MB");
-			System.out.println("PAIR COUNT " + pairCount);
+			System.out.println("EUCS size " + eucs.getMemoryUsage() + " MB");
+			System.out.println("PAIR COUNT " + eucs.getPairCount());
 		}
 		System.out.println("===================================================");
 	}
 
-	private double getObjectSize(Object object) throws IOException {
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
-		ObjectOutputStream oos = new ObjectOutputStream(baos);
-		oos.writeObject(object);
-		oos.close();
-		double maxMemory = baos.size() / 1024d / 1024d;
-		return maxMemory;
-	}
-
 }
\ No newline at end of file
@@ -0,0 +1,216 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+
+import ca.pfv.spmf.tools.MiningMetrics;
+
+/**
+ * This class represents the EUCS (Estimated Utility Co-occurrence Structure)
+ * used by FHM and the other utility-list miners for the EUCP pruning strategy.
+ * It stores a value (usually a TWU) for each pair of items, without creating
+ * objects for the items or the values. The value of a pair that was never
+ * updated is 0. A pair of items {a, b} is the same as {b, a}. <br/>
+ * <br/>
+ *
+ * An EUCS should be created with create(), which chooses between:
+ * <ul>
+ * <li>EUCSDense: a triangular long[] with a cell for each pair of items. It is
+ * used when the items are known in advance and when there are at most
+ * DENSE_MAX_PAIR_COUNT pairs of items,</li>
+ * <li>EUCSSparse: a hash table of pairs with open addressing, which only stores
+ * the pairs that co-occur,</li>
+ * </ul>
+ * and createConcurrent() creates an EUCSConcurrent, which can be updated by
+ * several threads at the same time. The method build() constructs an EUCS from
+ * transactions stored in memory, with several threads (it is used by FHM, see
+ * AlgoFHM.setThreadCount()).
+ *
+ * @see AlgoFHM
+ */
+public abstract class EUCS {
+
+	/**
+	 * The maximum number of pairs of items of an EUCSDense (64 MB)
+	 */
+	public static final long DENSE_MAX_PAIR_COUNT = 1L << 23;
+
+	/**
+	 * Create an EUCS for some items. An EUCSDense is created if there are at most
+	 * DENSE_MAX_PAIR_COUNT pairs of items, otherwise an EUCSSparse.
+	 *
+	 * @param items the items that will be stored in the EUCS, or null if they are
+	 *              not known in advance
+	 * @return the EUCS
+	 */
+	public static EUCS create(Collection<Integer> items) {
+		if (items != null && EUCSDense.canStore(items)) {
+			return new EUCSDense(items);
+		}
+		return new EUCSSparse();
+	}
+
+	/**
+	 * Create an EUCS that can be updated by several threads at the same time
+	 *
+	 * @param threadCount the number of threads that will update the EUCS
+	 * @return the EUCS
+	 */
+	public static EUCS createConcurrent(int threadCount) {
+		return new EUCSConcurrent(threadCount * 4);
+	}
+
+	/**
+	 * Construct an EUCS from some transactions with several threads. For each
+	 * transaction, its utility is added to each pair of items of the
+	 * transaction. If an EUCSDense can be used, each thread fills its own
+	 * EUCSDense and they are summed at the end. Otherwise, the threads update the
+	 * same EUCSConcurrent.
+	 *
+	 * @param items        the items of the transactions
+	 * @param transactions the transactions
+	 * @param utilities    the utility of each transaction
+	 * @param threadCount  the number of threads
+	 * @return the EUCS
+	 */
+	public static EUCS build(Collection<Integer> items, final List<int[]> transactions, final long[] utilities,
+			int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		final boolean dense = EUCSDense.canStore(items);
+		final EUCS eucs = dense ? new EUCSDense(items) : createConcurrent(threadCount);
+		if (threadCount == 1) {
+			eucs.addTransactions(transactions, utilities, 0, transactions.size());
+			return eucs;
+		}
+
+		ForkJoinPool pool = MiningMetrics.current().newForkJoinPool(threadCount);
+		try {
+			// each task processes a range of transactions
+			List<Future<?>> tasks = new ArrayList<Future<?>>();
+			List<EUCS> taskEUCS = new ArrayList<EUCS>();
+			int rangeSize = (transactions.size() + threadCount - 1) / threadCount;
+			for (int start = 0; start < transactions.size(); start += rangeSize) {
+				final int from = start;
+				final int to = Math.min(start + rangeSize, transactions.size());
+				final EUCS target = dense && from > 0 ? new EUCSDense((EUCSDense) eucs) : eucs;
+				taskEUCS.add(target);
+				tasks.add(pool.submit(new RecursiveAction() {
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					protected void compute() {
+						target.addTransactions(transactions, utilities, from, to);
+					}
+				}));
+			}
+			for (int i = 0; i < tasks.size(); i++) {
+				try {
+					tasks.get(i).get();
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+				if (taskEUCS.get(i) != eucs) {
+					((EUCSDense) eucs).addAll((EUCSDense) taskEUCS.get(i));
+				}
+				taskEUCS.set(i, null);
+			}
+		} finally {
+			pool.shutdown();
+		}
+		return eucs;
+	}
+
+	/**
+	 * Add a value to the value of a pair of items
+	 *
+	 * @param item1 an item
+	 * @param item2 another item
+	 * @param value the value
+	 */
+	public abstract void add(int item1, int item2, long value);
+
+	/**
+	 * Replace the value of a pair of items
+	 *
+	 * @param item1 an item
+	 * @param item2 another item
+	 * @param value the value
+	 */
+	public abstract void set(int item1, int item2, long value);
+
+	/**
+	 * Get the value of a pair of items
+	 *
+	 * @param item1 an item
+	 * @param item2 another item
+	 * @return the value (0 if the pair was never updated)
+	 */
+	public abstract long get(int item1, int item2);
+
+	/**
+	 * Get the number of pairs of items having a value that is not 0
+	 *
+	 * @return the number of pairs
+	 */
+	public abstract long getPairCount();
+
+	/**
+	 * Get the size of the arrays of this EUCS
+	 *
+	 * @return the size in MB
+	 */
+	public abstract double getMemoryUsage();
+
+	/**
+	 * Add the utility of a transaction to each pair of items of the transaction
+	 *
+	 * @param items   the items of the transaction
+	 * @param length  the number of items of the transaction
+	 * @param utility the utility
+	 */
+	public void addTransaction(int[] items, int length, long utility) {
+		for (int i = 0; i < length; i++) {
+			for (int j = i + 1; j < length; j++) {
+				add(items[i], items[j], utility);
+			}
+		}
+	}
+
+	/**
+	 * Add the utility of some transactions to each pair of items of these
+	 * transactions
+	 *
+	 * @param transactions the transactions
+	 * @param utilities    the utility of each transaction
+	 * @param from         the first transaction
+	 * @param to           the transaction after the last transaction
+	 */
+	void addTransactions(List<int[]> transactions, long[] utilities, int from, int to) {
+		for (int i = from; i < to; i++) {
+			int[] transaction = transactions.get(i);
+			addTransaction(transaction, transaction.length, utilities[i]);
+		}
+	}
+}
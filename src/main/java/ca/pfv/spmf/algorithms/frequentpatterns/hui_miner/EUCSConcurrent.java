@@ -0,0 +1,110 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+/**
+ * This is an EUCS that can be updated by several threads at the same time. The
+ * pairs of items are divided into shards according to their hash code, and
+ * each shard is an EUCSSparse that is locked while it is read or updated. Thus,
+ * threads updating pairs of different shards do not wait for each other.
+ *
+ * @see EUCS
+ * @see EUCSSparse
+ */
+public class EUCSConcurrent extends EUCS {
+
+	/** the shards */
+	private final EUCSSparse[] shards;
+
+	/** the number of bits of the number of a shard */
+	private final int shardBits;
+
+	/**
+	 * Constructor
+	 *
+	 * @param shardCount the number of shards (rounded up to a power of two)
+	 */
+	public EUCSConcurrent(int shardCount) {
+		int length = Integer.highestOneBit(Math.max(shardCount, 1) * 2 - 1);
+		shardBits = Integer.numberOfTrailingZeros(length);
+		shards = new EUCSSparse[length];
+		for (int i = 0; i < length; i++) {
+			shards[i] = new EUCSSparse();
+		}
+	}
+
+	/**
+	 * Get the shard of a pair of items. The high bits of the hash code are used,
+	 * since the low bits are used inside the shard.
+	 *
+	 * @param item1 an item
+	 * @param item2 another item
+	 * @return the shard
+	 */
+	private EUCSSparse shard(int item1, int item2) {
+		if (shardBits == 0) {
+			return shards[0];
+		}
+		return shards[(int) (EUCSSparse.hash(EUCSSparse.key(item1, item2)) >>> (64 - shardBits))];
+	}
+
+	@Override
+	public void add(int item1, int item2, long value) {
+		EUCSSparse shard = shard(item1, item2);
+		synchronized (shard) {
+			shard.add(item1, item2, value);
+		}
+	}
+
+	@Override
+	public void set(int item1, int item2, long value) {
+		EUCSSparse shard = shard(item1, item2);
+		synchronized (shard) {
+			shard.set(item1, item2, value);
+		}
+	}
+
+	@Override
+	public long get(int item1, int item2) {
+		EUCSSparse shard = shard(item1, item2);
+		synchronized (shard) {
+			return shard.get(item1, item2);
+		}
+	}
+
+	@Override
+	public long getPairCount() {
+		long pairCount = 0;
+		for (EUCSSparse shard : shards) {
+			synchronized (shard) {
+				pairCount += shard.getPairCount();
+			}
+		}
+		return pairCount;
+	}
+
+	@Override
+	public double getMemoryUsage() {
+		double memory = 0;
+		for (EUCSSparse shard : shards) {
+			synchronized (shard) {
+				memory += shard.getMemoryUsage();
+			}
+		}
+		return memory;
+	}
+}
@@ -0,0 +1,183 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * This is an EUCS stored as a triangular array with a cell for each pair of
+ * items. Each item is given a number from 0 to n-1, and the value of the pair
+ * of items numbered i < j is in the cell j * (j - 1) / 2 + i. The numbers of
+ * the items are stored in an array indexed by item, so the items should be
+ * positive and not too large.
+ *
+ * @see EUCS
+ */
+public class EUCSDense extends EUCS {
+
+	/** the largest item that can be stored in an EUCSDense */
+	static final int MAX_ITEM = 1 << 22;
+
+	/** the number of each item (-1 if the item is not stored) */
+	private final int[] itemNumbers;
+
+	/** the values of the pairs of items */
+	private final long[] values;
+
+	/**
+	 * Constructor
+	 *
+	 * @param items the items
+	 */
+	public EUCSDense(Collection<Integer> items) {
+		int maxItem = 0;
+		for (Integer item : items) {
+			if (item < 0 || item > MAX_ITEM) {
+				throw new IllegalArgumentException("The items of an EUCSDense must be between 0 and " + MAX_ITEM);
+			}
+			maxItem = Math.max(maxItem, item);
+		}
+		itemNumbers = new int[maxItem + 1];
+		Arrays.fill(itemNumbers, -1);
+		int number = 0;
+		for (Integer item : items) {
+			if (itemNumbers[item] == -1) {
+				itemNumbers[item] = number++;
+			}
+		}
+		values = new long[(int) pairCount(number)];
+	}
+
+	/**
+	 * Constructor of an empty EUCSDense for the same items as another EUCSDense
+	 *
+	 * @param eucs the other EUCSDense
+	 */
+	EUCSDense(EUCSDense eucs) {
+		itemNumbers = eucs.itemNumbers;
+		values = new long[eucs.values.length];
+	}
+
+	/**
+	 * Check if an EUCSDense can be used for some items
+	 *
+	 * @param items the items
+	 * @return true if it can be used
+	 */
+	static boolean canStore(Collection<Integer> items) {
+		if (pairCount(items.size()) > DENSE_MAX_PAIR_COUNT) {
+			return false;
+		}
+		for (Integer item : items) {
+			if (item < 0 || item > MAX_ITEM) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Get the number of pairs of some items
+	 *
+	 * @param itemCount the number of items
+	 * @return the number of pairs
+	 */
+	private static long pairCount(long itemCount) {
+		return itemCount * (itemCount - 1) / 2;
+	}
+
+	/**
+	 * Get the cell of a pair of items
+	 *
+	 * @param item1 an item
+	 * @param item2 another item
+	 * @return the position of the cell in the array of values, or -1 if an item
+	 *         is not stored
+	 */
+	private int cell(int item1, int item2) {
+		if (item1 < 0 || item2 < 0 || item1 >= itemNumbers.length || item2 >= itemNumbers.length) {
+			return -1;
+		}
+		int number1 = itemNumbers[item1];
+		int number2 = itemNumbers[item2];
+		if (number1 == -1 || number2 == -1 || number1 == number2) {
+			return -1;
+		}
+		return number1 > number2 ? (number1 * (number1 - 1) >>> 1) + number2
+				: (number2 * (number2 - 1) >>> 1) + number1;
+	}
+
+	/**
+	 * Get the cell of a pair of items that must be stored
+	 *
+	 * @param item1 an item
+	 * @param item2 another item
+	 * @return the position of the cell in the array of values
+	 */
+	private int cellToUpdate(int item1, int item2) {
+		int cell = cell(item1, item2);
+		if (cell == -1) {
+			throw new IllegalArgumentException("The pair of items " + item1 + " " + item2
+					+ " cannot be stored in this EUCS");
+		}
+		return cell;
+	}
+
+	@Override
+	public void add(int item1, int item2, long value) {
+		values[cellToUpdate(item1, item2)] += value;
+	}
+
+	@Override
+	public void set(int item1, int item2, long value) {
+		values[cellToUpdate(item1, item2)] = value;
+	}
+
+	@Override
+	public long get(int item1, int item2) {
+		int cell = cell(item1, item2);
+		return cell == -1 ? 0 : values[cell];
+	}
+
+	/**
+	 * Add the values of another EUCSDense for the same items to this EUCSDense
+	 *
+	 * @param eucs the other EUCSDense
+	 */
+	void addAll(EUCSDense eucs) {
+		for (int i = 0; i < values.length; i++) {
+			values[i] += eucs.values[i];
+		}
+	}
+
+	@Override
+	public long getPairCount() {
+		long pairCount = 0;
+		for (long value : values) {
+			if (value != 0) {
+				pairCount++;
+			}
+		}
+		return pairCount;
+	}
+
+	@Override
+	public double getMemoryUsage() {
+		return (values.length * 8d + itemNumbers.length * 4d) / 1024d / 1024d;
+	}
+}
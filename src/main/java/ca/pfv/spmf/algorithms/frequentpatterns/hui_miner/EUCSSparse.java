@@ -0,0 +1,216 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * This is an EUCS stored as a hash table with open addressing (linear probing).
+ * A pair of items is stored as a long key (the smallest item in the 32 high
+ * bits and the largest item in the 32 low bits), and the keys and values are
+ * stored in two arrays. Only the pairs of items that were updated are stored.
+ *
+ * @see EUCS
+ */
+public class EUCSSparse extends EUCS {
+
+	/** the key of an empty cell (it is not the key of a pair of two items) */
+	private static final long EMPTY = -1L;
+
+	/** the keys */
+	private long[] keys;
+
+	/** the values */
+	private long[] values;
+
+	/** the number of keys */
+	private int size = 0;
+
+	/**
+	 * Constructor
+	 */
+	public EUCSSparse() {
+		this(1024);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param capacity the initial number of pairs that can be stored before the
+	 *                 table is enlarged
+	 */
+	public EUCSSparse(int capacity) {
+		int length = Integer.highestOneBit(Math.max(capacity, 8) * 2 - 1);
+		keys = new long[length];
+		Arrays.fill(keys, EMPTY);
+		values = new long[length];
+	}
+
+	/**
+	 * Get the key of a pair of items
+	 *
+	 * @param item1 an item
+	 * @param item2 another item
+	 * @return the key
+	 */
+	static long key(int item1, int item2) {
+		return item1 < item2 ? ((long) item1 << 32) | (item2 & 0xFFFFFFFFL)
+				: ((long) item2 << 32) | (item1 & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Get the hash code of a key (the finalizer of MurmurHash3)
+	 *
+	 * @param key the key
+	 * @return the hash code
+	 */
+	static long hash(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return key;
+	}
+
+	/**
+	 * Get the cell of a key, or the empty cell where it should be inserted
+	 *
+	 * @param key the key
+	 * @return the cell
+	 */
+	private int cell(long key) {
+		int mask = keys.length - 1;
+		int cell = (int) hash(key) & mask;
+		while (keys[cell] != key && keys[cell] != EMPTY) {
+			cell = (cell + 1) & mask;
+		}
+		return cell;
+	}
+
+	/**
+	 * Get the cell of a key, inserting the key if it is not in the table
+	 *
+	 * @param key the key
+	 * @return the cell
+	 */
+	private int cellToUpdate(long key) {
+		int cell = cell(key);
+		if (keys[cell] == EMPTY) {
+			// the table is enlarged when it is half full
+			if ((size + 1) * 2 > keys.length) {
+				enlarge();
+				cell = cell(key);
+			}
+			keys[cell] = key;
+			size++;
+		}
+		return cell;
+	}
+
+	/**
+	 * Double the size of the table
+	 */
+	private void enlarge() {
+		long[] oldKeys = keys;
+		long[] oldValues = values;
+		keys = new long[oldKeys.length * 2];
+		Arrays.fill(keys, EMPTY);
+		values = new long[oldValues.length * 2];
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int cell = cell(oldKeys[i]);
+				keys[cell] = oldKeys[i];
+				values[cell] = oldValues[i];
+			}
+		}
+	}
+
+	@Override
+	public void add(int item1, int item2, long value) {
+		// the cell is found first, since the arrays may be replaced
+		int cell = cellToUpdate(key(item1, item2));
+		values[cell] += value;
+	}
+
+	@Override
+	public void set(int item1, int item2, long value) {
+		int cell = cellToUpdate(key(item1, item2));
+		values[cell] = value;
+	}
+
+	@Override
+	public long get(int item1, int item2) {
+		int cell = cell(key(item1, item2));
+		return keys[cell] == EMPTY ? 0 : values[cell];
+	}
+
+	@Override
+	public long getPairCount() {
+		long pairCount = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != EMPTY && values[i] != 0) {
+				pairCount++;
+			}
+		}
+		return pairCount;
+	}
+
+	@Override
+	public double getMemoryUsage() {
+		return keys.length * 16d / 1024d / 1024d;
+	}
+
+	/**
+	 * Write the pairs of items having a value that is not 0 to a stream
+	 *
+	 * @param output the stream
+	 * @throws IOException if error while writing
+	 */
+	void write(DataOutputStream output) throws IOException {
+		output.writeLong(getPairCount());
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != EMPTY && values[i] != 0) {
+				output.writeLong(keys[i]);
+				output.writeLong(values[i]);
+			}
+		}
+	}
+
+	/**
+	 * Read an EUCS written by write()
+	 *
+	 * @param input the stream
+	 * @return the EUCS
+	 * @throws IOException if error while reading
+	 */
+	static EUCSSparse read(DataInputStream input) throws IOException {
+		long pairCount = input.readLong();
+		EUCSSparse eucs = new EUCSSparse((int) Math.min(pairCount, Integer.MAX_VALUE / 4));
+		for (long i = 0; i < pairCount; i++) {
+			long key = input.readLong();
+			long value = input.readLong();
+			// the cell is found first, since the arrays may be replaced
+			int cell = eucs.cellToUpdate(key);
+			eucs.values[cell] = value;
+		}
+		return eucs;
+	}
+}
@@ -0,0 +1,80 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import ca.pfv.spmf.tools.dataset_generator.TransactionDatabaseGenerator;
+import ca.pfv.spmf.tools.dataset_generator.TransactionDatasetUtilityGenerator;
+
+/**
+ * Example comparing FHM when its EUCS is constructed with 1, 2, 4, ... threads
+ * (see AlgoFHM.setThreadCount()), on a database generated by the
+ * TransactionDatabaseGenerator and the TransactionDatasetUtilityGenerator. For
+ * each number of threads, the time and the size of the EUCS are shown, and the
+ * itemsets are compared with those found with one thread. The arguments are:
+ * transaction count, number of distinct items, maximum number of items per
+ * transaction, minimum utility and maximum number of threads.
+ *
+ * @see AlgoFHM
+ * @see EUCS
+ */
+public class MainTestCompareFHMThreads {
+
+	public static void main(String[] arg) throws IOException {
+		int transactionCount = arg.length > 0 ? Integer.parseInt(arg[0]) : 20000;
+		int maxDistinctItems = arg.length > 1 ? Integer.parseInt(arg[1]) : 200;
+		int maxItemCountPerTransaction = arg.length > 2 ? Integer.parseInt(arg[2]) : 20;
+		int minUtility = arg.length > 3 ? Integer.parseInt(arg[3]) : 8000;
+		int maxThreadCount = arg.length > 4 ? Integer.parseInt(arg[4])
+				: Runtime.getRuntime().availableProcessors();
+
+		// generate the database
+		File transactions = File.createTempFile("transactions", ".txt");
+		transactions.deleteOnExit();
+		File file = File.createTempFile("utilities", ".txt");
+		file.deleteOnExit();
+		TransactionDatabaseGenerator generator = new TransactionDatabaseGenerator();
+		generator.generateDatabase(transactionCount, maxDistinctItems, maxItemCountPerTransaction,
+				transactions.getPath());
+		new TransactionDatasetUtilityGenerator().convert(transactions.getPath(), file.getPath(), 10, 1d);
+		System.out.println("Database: " + transactionCount + " transactions, " + maxDistinctItems
+				+ " distinct items, at most " + maxItemCountPerTransaction + " items per transaction, minutil "
+				+ minUtility + ", " + Runtime.getRuntime().availableProcessors() + " processors");
+
+		File sequentialOutput = File.createTempFile("itemsets", ".txt");
+		sequentialOutput.deleteOnExit();
+		File output = File.createTempFile("itemsets", ".txt");
+		output.deleteOnExit();
+
+		// a first run, so that the times do not include the loading of the classes
+		new AlgoFHM().runAlgorithm(file.getPath(), output.getPath(), minUtility);
+
+		System.out.println(" threads   time (ms)   EUCS pairs   itemsets   same itemsets");
+		for (int threadCount = 1; threadCount <= maxThreadCount; threadCount *= 2) {
+			AlgoFHM algo = new AlgoFHM();
+			algo.setThreadCount(threadCount);
+			File result = threadCount == 1 ? sequentialOutput : output;
+			algo.runAlgorithm(file.getPath(), result.getPath(), minUtility);
+			boolean same = Arrays.equals(Files.readAllBytes(sequentialOutput.toPath()),
+					Files.readAllBytes(result.toPath()));
+			System.out.println(String.format(" %7d %11d %12d %10d   %s", threadCount,
+					algo.endTimestamp - algo.startTimestamp, algo.eucs.getPairCount(), algo.huiCount, same));
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import ca.pfv.spmf.tools.dataset_generator.TransactionDatabaseGenerator;
+import ca.pfv.spmf.tools.dataset_generator.TransactionDatasetUtilityGenerator;
+
+/**
+ * Example comparing HUI-Miner, FHM and MinFHM with their default utility-lists
+ * (lists of Element objects) and with the UtilityListPool, on a database
+ * generated by the TransactionDatabaseGenerator and the
+ * TransactionDatasetUtilityGenerator. For each run, the time, the number and
+ * duration of garbage collections and the number of bytes allocated by the
+ * thread are shown. The arguments are: transaction count, number of distinct
+ * items, maximum number of items per transaction and minimum utility.
+ *
+ * @see UtilityListPool
+ */
+public class MainTestCompareUtilityLists {
+
+	public static void main(String[] arg) throws IOException {
+		int transactionCount = arg.length > 0 ? Integer.parseInt(arg[0]) : 20000;
+		int maxDistinctItems = arg.length > 1 ? Integer.parseInt(arg[1]) : 100;
+		int maxItemCountPerTransaction = arg.length > 2 ? Integer.parseInt(arg[2]) : 20;
+		int minUtility = arg.length > 3 ? Integer.parseInt(arg[3]) : 500000;
+
+		// generate the database
+		File transactions = File.createTempFile("transactions", ".txt");
+		transactions.deleteOnExit();
+		File file = File.createTempFile("utilities", ".txt");
+		file.deleteOnExit();
+		TransactionDatabaseGenerator generator = new TransactionDatabaseGenerator();
+		generator.generateDatabase(transactionCount, maxDistinctItems, maxItemCountPerTransaction,
+				transactions.getPath());
+		new TransactionDatasetUtilityGenerator().convert(transactions.getPath(), file.getPath(), 10, 1d);
+		System.out.println("Database: " + transactionCount + " transactions, " + maxDistinctItems
+				+ " distinct items, at most " + maxItemCountPerTransaction + " items per transaction, minutil "
+				+ minUtility);
+
+		File[] outputs = new File[2];
+		for (int i = 0; i < 2; i++) {
+			outputs[i] = File.createTempFile("itemsets", ".txt");
+			outputs[i].deleteOnExit();
+		}
+		System.out.println("                  time (ms)     GC count  GC time (ms)   allocated (MB)   itemsets");
+		for (String name : new String[] { "HUI-Miner", "FHM", "MinFHM" }) {
+			int itemsetCount = 0;
+			for (int i = 0; i < 2; i++) {
+				long[] before = profile();
+				if (name.equals("HUI-Miner")) {
+					AlgoHUIMiner algo = new AlgoHUIMiner();
+					algo.setUseUtilityListPool(i == 1);
+					algo.runAlgorithm(file.getPath(), outputs[i].getPath(), minUtility);
+					itemsetCount = algo.huiCount;
+				} else if (name.equals("FHM")) {
+					AlgoFHM algo = new AlgoFHM();
+					algo.setUseUtilityListPool(i == 1);
+					algo.runAlgorithm(file.getPath(), outputs[i].getPath(), minUtility);
+					itemsetCount = algo.huiCount;
+				} else {
+					AlgoMinFHM algo = new AlgoMinFHM();
+					algo.setUseUtilityListPool(i == 1);
+					algo.runAlgorithm(file.getPath(), outputs[i].getPath(), minUtility);
+					itemsetCount = algo.huiCount;
+				}
+				long[] after = profile();
+				System.out.println(String.format(" %-9s %-6s %9d %12d %13d %16.1f %10d", name,
+						i == 0 ? "before" : "after", after[0] - before[0], after[1] - before[1],
+						after[2] - before[2], (after[3] - before[3]) / 1024d / 1024d, itemsetCount));
+			}
+			boolean same = Arrays.equals(Files.readAllBytes(outputs[0].toPath()),
+					Files.readAllBytes(outputs[1].toPath()));
+			System.out.println(" " + name + " same itemsets: " + same);
+		}
+	}
+
+	/**
+	 * Get the current time, the number and duration of garbage collections and
+	 * the number of bytes allocated by the current thread (-1 if this JVM does not
+	 * measure it).
+	 *
+	 * @return these four values
+	 */
+	private static long[] profile() {
+		long gcCount = 0;
+		long gcTime = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			gcCount += Math.max(gc.getCollectionCount(), 0);
+			gcTime += Math.max(gc.getCollectionTime(), 0);
+		}
+		long allocatedBytes = -1;
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			allocatedBytes = ((com.sun.management.ThreadMXBean) threads)
+					.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return new long[] { System.currentTimeMillis(), gcCount, gcTime, allocatedBytes };
+	}
+}
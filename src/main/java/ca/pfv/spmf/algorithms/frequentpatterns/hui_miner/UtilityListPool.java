@@ -0,0 +1,406 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.hui_miner;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class stores utility-lists in flat arrays, for the algorithms of the
+ * HUI-Miner family (HUI-Miner, FHM, MinFHM). Instead of one Element object per
+ * transaction, the elements of all utility-lists are stored in three parallel
+ * arrays (tids, itemset utilities and remaining utilities), and a utility-list
+ * is a segment [start, end) of these arrays, identified by an int. The item and
+ * the sums of utilities of each utility-list are also stored in arrays. <br/>
+ * <br/>
+ *
+ * The pool is used as a stack, following the depth-first search: the
+ * utility-lists of the extensions of an itemset are created one after the
+ * other at the end of the pool, after a call to mark(), and are reclaimed by
+ * release() when the search backtracks. Thus, the memory of the arrays is
+ * reused during the whole search, and no object is created after the arrays
+ * have reached their largest size. This is the same idea as the utility-list
+ * buffer of ULB-Miner, without Element objects.
+ *
+ * @see UtilityList
+ * @see AlgoHUIMiner
+ * @see AlgoFHM
+ * @see AlgoMinFHM
+ */
+public class UtilityListPool {
+
+	/** the tids of the elements */
+	private int[] tids;
+	/** the itemset utilities of the elements */
+	private int[] iutils;
+	/** the remaining utilities of the elements */
+	private int[] rutils;
+	/** the number of elements in the pool */
+	private int elementCount = 0;
+
+	/** the item of each utility-list */
+	private int[] items;
+	/** the position of the first element of each utility-list */
+	private int[] starts;
+	/** the position after the last element of each utility-list */
+	private int[] ends;
+	/** the sum of itemset utilities of each utility-list */
+	private long[] sumIutils;
+	/** the sum of remaining utilities of each utility-list */
+	private long[] sumRutils;
+	/** the number of utility-lists in the pool */
+	private int listCount = 0;
+
+	// variables for statistics
+	/** the largest number of elements stored at the same time */
+	private int maxElementCount = 0;
+	/** the largest number of utility-lists stored at the same time */
+	private int maxListCount = 0;
+	/** the number of elements added since the pool was created */
+	private long addedElementCount = 0;
+	/** the number of times that the arrays were enlarged */
+	private int growCount = 0;
+
+	/**
+	 * Constructor
+	 */
+	public UtilityListPool() {
+		this(1024, 64);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param elementCapacity the initial number of elements of the arrays
+	 * @param listCapacity    the initial number of utility-lists of the arrays
+	 */
+	public UtilityListPool(int elementCapacity, int listCapacity) {
+		tids = new int[Math.max(elementCapacity, 16)];
+		iutils = new int[tids.length];
+		rutils = new int[tids.length];
+		items = new int[Math.max(listCapacity, 16)];
+		starts = new int[items.length];
+		ends = new int[items.length];
+		sumIutils = new long[items.length];
+		sumRutils = new long[items.length];
+	}
+
+	/**
+	 * Constructor, copying some utility-lists to the pool (e.g. the utility-lists
+	 * of items). The i-th utility-list of the list is the utility-list i of the
+	 * pool.
+	 *
+	 * @param utilityLists the utility-lists
+	 */
+	public UtilityListPool(List<UtilityList> utilityLists) {
+		this(countElements(utilityLists) * 2, utilityLists.size() * 2);
+		for (UtilityList utilityList : utilityLists) {
+			addUtilityList(utilityList);
+		}
+	}
+
+	/**
+	 * Count the elements of some utility-lists
+	 *
+	 * @param utilityLists the utility-lists
+	 * @return the number of elements
+	 */
+	private static int countElements(List<UtilityList> utilityLists) {
+		int elementCount = 0;
+		for (UtilityList utilityList : utilityLists) {
+			elementCount += utilityList.elements.size();
+		}
+		return elementCount;
+	}
+
+	/**
+	 * Create an empty utility-list at the end of the pool. The elements added by
+	 * addElement() are then added to this utility-list.
+	 *
+	 * @param item the item of the utility-list
+	 * @return the utility-list
+	 */
+	public int createUtilityList(int item) {
+		if (listCount == items.length) {
+			int capacity = items.length * 2;
+			items = Arrays.copyOf(items, capacity);
+			starts = Arrays.copyOf(starts, capacity);
+			ends = Arrays.copyOf(ends, capacity);
+			sumIutils = Arrays.copyOf(sumIutils, capacity);
+			sumRutils = Arrays.copyOf(sumRutils, capacity);
+			growCount++;
+		}
+		int list = listCount++;
+		items[list] = item;
+		starts[list] = elementCount;
+		ends[list] = elementCount;
+		sumIutils[list] = 0;
+		sumRutils[list] = 0;
+		if (listCount > maxListCount) {
+			maxListCount = listCount;
+		}
+		return list;
+	}
+
+	/**
+	 * Add an element to the last utility-list of the pool and update its sums at
+	 * the same time.
+	 *
+	 * @param tid   the transaction id
+	 * @param iutil the itemset utility
+	 * @param rutil the remaining utility
+	 */
+	public void addElement(int tid, int iutil, int rutil) {
+		if (elementCount == tids.length) {
+			int capacity = tids.length * 2;
+			tids = Arrays.copyOf(tids, capacity);
+			iutils = Arrays.copyOf(iutils, capacity);
+			rutils = Arrays.copyOf(rutils, capacity);
+			growCount++;
+		}
+		tids[elementCount] = tid;
+		iutils[elementCount] = iutil;
+		rutils[elementCount] = rutil;
+		elementCount++;
+		if (elementCount > maxElementCount) {
+			maxElementCount = elementCount;
+		}
+		addedElementCount++;
+
+		int list = listCount - 1;
+		ends[list] = elementCount;
+		sumIutils[list] += iutil;
+		sumRutils[list] += rutil;
+	}
+
+	/**
+	 * Copy a utility-list at the end of the pool.
+	 *
+	 * @param utilityList the utility-list
+	 * @return the utility-list in the pool
+	 */
+	public int addUtilityList(UtilityList utilityList) {
+		int list = createUtilityList(utilityList.item);
+		for (Element element : utilityList.elements) {
+			addElement(element.tid, element.iutils, element.rutils);
+		}
+		return list;
+	}
+
+	/**
+	 * Remove the last utility-list of the pool (e.g. a utility-list that was
+	 * pruned while it was constructed).
+	 */
+	public void removeLastUtilityList() {
+		listCount--;
+		elementCount = starts[listCount];
+	}
+
+	/**
+	 * Get a mark that can be given to release() to remove all utility-lists
+	 * created after this call.
+	 *
+	 * @return the mark
+	 */
+	public int mark() {
+		return listCount;
+	}
+
+	/**
+	 * Remove the utility-lists created after a call to mark(). Their elements
+	 * will be overwritten by the next utility-lists.
+	 *
+	 * @param mark a value returned by mark()
+	 */
+	public void release(int mark) {
+		if (mark < listCount) {
+			elementCount = starts[mark];
+			listCount = mark;
+		}
+	}
+
+	/**
+	 * Do a binary search to find the element with a given tid in a utility-list
+	 *
+	 * @param list the utility-list
+	 * @param tid  the tid
+	 * @return the position of the element or -1 if none has the tid.
+	 */
+	public int findElementWithTID(int list, int tid) {
+		int first = starts[list];
+		int last = ends[list] - 1;
+
+		// the binary search
+		while (first <= last) {
+			int middle = (first + last) >>> 1; // divide by 2
+
+			if (tids[middle] < tid) {
+				first = middle + 1;
+			} else if (tids[middle] > tid) {
+				last = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Get the item of a utility-list
+	 *
+	 * @param list the utility-list
+	 * @return the item
+	 */
+	public int getItem(int list) {
+		return items[list];
+	}
+
+	/**
+	 * Get the sum of itemset utilities of a utility-list
+	 *
+	 * @param list the utility-list
+	 * @return the sum
+	 */
+	public long getSumIutils(int list) {
+		return sumIutils[list];
+	}
+
+	/**
+	 * Get the sum of remaining utilities of a utility-list
+	 *
+	 * @param list the utility-list
+	 * @return the sum
+	 */
+	public long getSumRutils(int list) {
+		return sumRutils[list];
+	}
+
+	/**
+	 * Get the support of the itemset represented by a utility-list
+	 *
+	 * @param list the utility-list
+	 * @return the support as a number of transactions
+	 */
+	public int getSupport(int list) {
+		return ends[list] - starts[list];
+	}
+
+	/**
+	 * Get the position of the first element of a utility-list
+	 *
+	 * @param list the utility-list
+	 * @return the position
+	 */
+	public int getStart(int list) {
+		return starts[list];
+	}
+
+	/**
+	 * Get the position after the last element of a utility-list
+	 *
+	 * @param list the utility-list
+	 * @return the position
+	 */
+	public int getEnd(int list) {
+		return ends[list];
+	}
+
+	/**
+	 * Get the tid of an element
+	 *
+	 * @param position the position of the element
+	 * @return the tid
+	 */
+	public int getTid(int position) {
+		return tids[position];
+	}
+
+	/**
+	 * Get the itemset utility of an element
+	 *
+	 * @param position the position of the element
+	 * @return the itemset utility
+	 */
+	public int getIutils(int position) {
+		return iutils[position];
+	}
+
+	/**
+	 * Get the remaining utility of an element
+	 *
+	 * @param position the position of the element
+	 * @return the remaining utility
+	 */
+	public int getRutils(int position) {
+		return rutils[position];
+	}
+
+	/**
+	 * Get the number of utility-lists in the pool
+	 *
+	 * @return the number of utility-lists
+	 */
+	public int getUtilityListCount() {
+		return listCount;
+	}
+
+	/**
+	 * Get the largest number of elements that were stored at the same time
+	 *
+	 * @return the number of elements
+	 */
+	public int getMaxElementCount() {
+		return maxElementCount;
+	}
+
+	/**
+	 * Get the largest number of utility-lists that were stored at the same time
+	 *
+	 * @return the number of utility-lists
+	 */
+	public int getMaxUtilityListCount() {
+		return maxListCount;
+	}
+
+	/**
+	 * Get the number of elements added since the pool was created. Without the
+	 * pool, this is the number of Element objects that would have been created.
+	 *
+	 * @return the number of elements
+	 */
+	public long getAddedElementCount() {
+		return addedElementCount;
+	}
+
+	/**
+	 * Get the number of times that the arrays of the pool were enlarged
+	 *
+	 * @return the number of times
+	 */
+	public int getGrowCount() {
+		return growCount;
+	}
+
+	/**
+	 * Get the size of the arrays of the pool
+	 *
+	 * @return the size in MB
+	 */
+	public double getMemoryUsage() {
+		return (tids.length * 12d + items.length * 28d) / 1024d / 1024d;
+	}
+}
@@ -0,0 +1,616 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.itemsettree;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import ca.pfv.spmf.tools.MemoryLogger;
+
+/**
+ * An implementation of the Itemset-tree that can be updated and queried by
+ * several threads at the same time. It contains the same nodes as the
+ * ItemsetTree built with the same transactions, and its queries give the same
+ * results. <br/>
+ * <br/>
+ *
+ * The children of the root of an itemset-tree have different first items, and
+ * a transaction is always inserted below the child having the same first item.
+ * Thus, the tree is split in subtrees, one per first item, and each subtree has
+ * its own lock, so that transactions starting with different items are inserted
+ * in parallel. The nodes are never modified: a transaction is inserted by
+ * copying the nodes on the path from the root of its subtree, and the new root
+ * is then published. Thus, the queries never wait: they read the current root
+ * of each subtree and see each subtree as it was after some insertion. The
+ * children of a node are stored in an array, sorted by the first item that
+ * follows the itemset of the node. <br/>
+ * <br/>
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @see ItemsetTree
+ */
+public class ConcurrentItemsetTree extends AbstractItemsetTree {
+
+	/** the subtrees below the root, by first item */
+	private final ConcurrentSkipListMap<Integer, Subtree> subtrees = new ConcurrentSkipListMap<Integer, Subtree>();
+
+	/** the number of transactions (the support of the root) */
+	private final LongAdder transactionCount = new LongAdder();
+
+	/**
+	 * Default constructor
+	 */
+	public ConcurrentItemsetTree() {
+		super();
+	}
+
+	/**
+	 * Build the itemset-tree based on an input file containing transactions
+	 *
+	 * @param input an input file
+	 * @throws IOException exception if error while reading the file
+	 */
+	public void buildTree(String input) throws IOException {
+		// record start time
+		startTimestamp = System.currentTimeMillis();
+
+		// reset memory usage statistics
+		MemoryLogger.getInstance().reset();
+
+		// Scan the database to read the transactions
+		BufferedReader reader = new BufferedReader(new FileReader(input));
+		String line;
+		// for each line (transaction) until the end of file
+		while (((line = reader.readLine()) != null)) {
+			// if the line is a comment, is empty or is a
+			// kind of metadata
+			if (line.isEmpty() == true || line.charAt(0) == '#' || line.charAt(0) == '%' || line.charAt(0) == '@') {
+				continue;
+			}
+
+			// split the transaction into items
+			String[] lineSplited = line.split(" ");
+			// create a structure for storing the transaction
+			int[] itemset = new int[lineSplited.length];
+			// for each item in the transaction
+			for (int i = 0; i < lineSplited.length; i++) {
+				// convert the item to integer and add it to the structure
+				itemset[i] = Integer.parseInt(lineSplited[i]);
+			}
+			// add the transaction to the tree
+			addTransaction(itemset);
+		}
+		// close the input file
+		reader.close();
+
+		// check the memory usage
+		MemoryLogger.getInstance().checkMemory();
+		// close the file
+		endTimestamp = System.currentTimeMillis();
+	}
+
+	/**
+	 * Add a transaction to the itemset tree. This method can be called by several
+	 * threads at the same time.
+	 *
+	 * @param transaction the transaction to be added (array of ints, sorted)
+	 */
+	public void addTransaction(int[] transaction) {
+		transactionCount.increment();
+		if (transaction.length == 0) {
+			return;
+		}
+		Subtree subtree = getSubtree(transaction[0]);
+		synchronized (subtree) {
+			subtree.root = insert(subtree.root, transaction);
+		}
+	}
+
+	/**
+	 * Add several transactions to the itemset tree. The lock of each subtree is
+	 * taken once for all the transactions starting with its item, and the queries
+	 * see all these transactions or none of them in each subtree. This method can
+	 * be called by several threads at the same time.
+	 *
+	 * @param transactions the transactions to be added (arrays of ints, sorted)
+	 */
+	public void addTransactions(Collection<int[]> transactions) {
+		// group the transactions by first item
+		Map<Integer, List<int[]>> transactionsByItem = new TreeMap<Integer, List<int[]>>();
+		for (int[] transaction : transactions) {
+			transactionCount.increment();
+			if (transaction.length == 0) {
+				continue;
+			}
+			List<int[]> list = transactionsByItem.get(transaction[0]);
+			if (list == null) {
+				list = new ArrayList<int[]>();
+				transactionsByItem.put(transaction[0], list);
+			}
+			list.add(transaction);
+		}
+		// insert the transactions of each subtree
+		for (Map.Entry<Integer, List<int[]>> entry : transactionsByItem.entrySet()) {
+			Subtree subtree = getSubtree(entry.getKey());
+			synchronized (subtree) {
+				Node root = subtree.root;
+				for (int[] transaction : entry.getValue()) {
+					root = insert(root, transaction);
+				}
+				subtree.root = root;
+			}
+		}
+	}
+
+	/**
+	 * Get the subtree for a first item, and create it if there is none
+	 *
+	 * @param item the first item
+	 * @return the subtree
+	 */
+	private Subtree getSubtree(int item) {
+		Subtree subtree = subtrees.get(item);
+		if (subtree == null) {
+			Subtree newSubtree = new Subtree();
+			subtree = subtrees.putIfAbsent(item, newSubtree);
+			if (subtree == null) {
+				subtree = newSubtree;
+			}
+		}
+		return subtree;
+	}
+
+	/**
+	 * Insert an itemset in a subtree below the root of the tree.
+	 *
+	 * @param root the root of the subtree (null if it is empty)
+	 * @param s    the itemset to be inserted
+	 * @return the new root of the subtree
+	 */
+	private Node insert(Node root, int[] s) {
+		if (root == null) {
+			return new Node(s, 1, Node.NO_CHILDS);
+		}
+		return insertAt(root, s);
+	}
+
+	/**
+	 * Insert an itemset at a node having a common prefix with that itemset, or
+	 * below that node (cases of the method construct() of ItemsetTree).
+	 *
+	 * @param ci the node
+	 * @param s  the itemset to be inserted
+	 * @return the new version of the node
+	 */
+	private Node insertAt(Node ci, int[] s) {
+		// if the itemset of the node is the same as the one to be inserted,
+		// we just increase the support (case 2)
+		if (same(s, ci.itemset)) {
+			return new Node(ci.itemset, ci.support + 1, ci.childs);
+		}
+		// if the itemset to be inserted is an ancestor of the node,
+		// create a new node between ci and its parent (case 3)
+		if (ancestorOf(s, ci.itemset)) {
+			return new Node(s, ci.support + 1, new Node[] { ci });
+		}
+		// if the node is an ancestor of s, insert s below it (case 4)
+		if (ancestorOf(ci.itemset, s)) {
+			return insertBelow(ci, s);
+		}
+		// otherwise, create a node for the largest common ancestor, with
+		// ci and a new node for s as childs (case 5)
+		int[] ancestor = getLargestCommonAncestor(s, ci.itemset);
+		Node newNode = new Node(s, 1, Node.NO_CHILDS);
+		Node[] childs = ci.itemset[ancestor.length] < s[ancestor.length] ? new Node[] { ci, newNode }
+				: new Node[] { newNode, ci };
+		return new Node(ancestor, ci.support + 1, childs);
+	}
+
+	/**
+	 * Insert an itemset below a node that is an ancestor of that itemset.
+	 *
+	 * @param r the node
+	 * @param s the itemset to be inserted
+	 * @return the new version of the node
+	 */
+	private Node insertBelow(Node r, int[] s) {
+		// the child having a common prefix with s is the one having the same item
+		// after the itemset of r
+		int position = r.getChildPosition(s[r.itemset.length]);
+		Node[] childs;
+		if (position >= 0) {
+			childs = r.childs.clone();
+			childs[position] = insertAt(childs[position], s);
+		} else {
+			// no child has a common prefix with s, so a new node is
+			// created for s (case 1)
+			position = -position - 1;
+			childs = new Node[r.childs.length + 1];
+			System.arraycopy(r.childs, 0, childs, 0, position);
+			childs[position] = new Node(s, 1, Node.NO_CHILDS);
+			System.arraycopy(r.childs, position, childs, position + 1, r.childs.length - position);
+		}
+		return new Node(r.itemset, r.support + 1, childs);
+	}
+
+	/**
+	 * Get the roots of the subtrees having a first item smaller or equal to a given
+	 * item, as they are now.
+	 *
+	 * @param item the item
+	 * @return the roots
+	 */
+	private List<Node> getRoots(int item) {
+		ConcurrentNavigableMap<Integer, Subtree> head = subtrees.headMap(item, true);
+		List<Node> roots = new ArrayList<Node>(head.size());
+		for (Subtree subtree : head.values()) {
+			Node root = subtree.root;
+			if (root != null) {
+				roots.add(root);
+			}
+		}
+		return roots;
+	}
+
+	/**
+	 * Get the number of transactions added to the tree
+	 *
+	 * @return the number of transactions
+	 */
+	public long getTransactionCount() {
+		return transactionCount.sum();
+	}
+
+	/**
+	 * Print statistics about the time and maximum memory usage for the construction
+	 * of the itemset tree.
+	 */
+	public void printStatistics() {
+
+		System.out.println("========== CONCURRENT ITEMSET TREE CONSTRUCTION - STATS ============");
+		System.out.println(" Tree construction time ~: " + (endTimestamp - startTimestamp) + " ms");
+		System.out.println(" Max memory:" + MemoryLogger.getInstance().getMaxMemory());
+		nodeCount = 0;
+		totalItemCountInNodes = 0;
+		for (Node root : getRoots(Integer.MAX_VALUE)) {
+			recursiveStats(root);
+		}
+		System.out.println(" Transaction count: " + getTransactionCount());
+		System.out.println(" Node count: " + nodeCount);
+		System.out.println(" Sum of items in all node: " + totalItemCountInNodes + " avg per node :"
+				+ totalItemCountInNodes / ((double) nodeCount));
+		System.out.println("=====================================");
+	}
+
+	private void recursiveStats(Node root) {
+		nodeCount++;
+		totalItemCountInNodes += root.itemset.length;
+		for (Node node : root.childs) {
+			recursiveStats(node);
+		}
+	}
+
+	/**
+	 * Print the tree to System.out.
+	 */
+	public void printTree() {
+		System.out.println(toString());
+	}
+
+	/**
+	 * Return a string representation of the tree.
+	 */
+	public String toString() {
+		StringBuilder buffer = new StringBuilder();
+		buffer.append("{}   sup=");
+		buffer.append(getTransactionCount());
+		buffer.append("\n");
+		for (Node root : getRoots(Integer.MAX_VALUE)) {
+			root.toString(buffer, "  ");
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Get the support of a given itemset s.
+	 *
+	 * @param s the itemset
+	 * @return the support as an integer.
+	 */
+	public int getSupportOfItemset(int[] s) {
+		// call the method count on each subtree that may contain s
+		int count = 0;
+		for (Node ci : getRoots(s[0])) {
+			count += count(s, ci);
+		}
+		return count;
+	}
+
+	/**
+	 * This method calculate the support of an itemset by using a subtree defined by
+	 * its root, as ItemsetTree.count() does for each child of a node.
+	 *
+	 * @param s  the itemset
+	 * @param ci the root of the subtree
+	 * @return the support as an integer
+	 */
+	private int count(int[] s, Node ci) {
+		// if the first item of the itemset that we are looking for
+		// is smaller than the first item of the node, s is not in that tree.
+		if (ci.itemset[0] > s[0]) {
+			return 0;
+		}
+		// if s is included in ci, return the support of ci.
+		if (includedIn(s, ci.itemset)) {
+			return ci.support;
+		}
+		// otherwise, if the last item of ci is smaller than
+		// the last item of s, then explore the subtree where ci is the root
+		int count = 0;
+		if (ci.itemset[ci.itemset.length - 1] < s[s.length - 1]) {
+			for (Node child : ci.childs) {
+				count += count(s, child);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Check if an itemset is contained in another
+	 *
+	 * @param itemset1 the first itemset
+	 * @param itemset2 the second itemset
+	 * @return true if yes, otherwise false
+	 */
+	private boolean includedIn(int[] itemset1, int[] itemset2) {
+		int count = 0; // the current position of itemset1 that we want to find in itemset2
+
+		// for each item in itemset2
+		for (int i = 0; i < itemset2.length; i++) {
+			// if we found the item
+			if (itemset2[i] == itemset1[count]) {
+				// we will look for the next item of itemset1
+				count++;
+				// if we have found all items already, return true
+				if (count == itemset1.length) {
+					return true;
+				}
+			}
+		}
+		// it is not included, so return false!
+		return false;
+	}
+
+	/**
+	 * This method pass through the itemset tree to get all itemsets that are
+	 * subsuming a given itemset "s" and their support. Note that this method may
+	 * also return infrequent itemsets that can be filtered by additional processing
+	 * after.
+	 *
+	 * @param s the itemset
+	 * @return an hashtable countaining itemsets and their support.
+	 */
+	public HashTableIT getFrequentItemsetSubsuming(int[] s) {
+		// create a hash table to contain the itemsets to be more efficient
+		// we set the default size of the internal array to 1000
+		HashTableIT hash = new HashTableIT(1000);
+
+		// create an hashset to store the items of the itemset
+		HashSet<Integer> seti = new HashSet<Integer>();
+		for (int i = 0; i < s.length; i++) {
+			seti.add(s[i]);
+		}
+		// call the method selective mining for finding the sets subsuming s
+		List<Node> roots = getRoots(s[0]);
+		selectiveMining(s, seti, roots.toArray(new Node[roots.size()]), hash);
+		return hash;
+	}
+
+	/**
+	 * This method finds itemsets subsuming a given itemset. It is a recursive
+	 * method that scan the childs of a node, as ItemsetTree.selectiveMining()
+	 * does.
+	 *
+	 * @param s      the itemset s
+	 * @param seti   the items from the itemset s stored in a HashSet<Integer> for
+	 *               more efficiency for inclusion checking
+	 * @param childs the childs of the node
+	 * @param hash   the hashtable for storing the result
+	 * @return the cumulative support of the childs.
+	 */
+	private int selectiveMining(int[] s, HashSet<Integer> seti, Node[] childs, HashTableIT hash) {
+		// initializes the running cumulative support of the children
+		int childrenSup = 0;
+		// for all child nodes
+		for (Node ci : childs) {
+			// Add ci's support to the cumulative count
+			childrenSup += ci.support;
+			// if the first item of s is smaller or equal to the
+			// first item of the child
+			if (ci.itemset[0] <= s[0]) {
+				// Check if s is included in ci
+				if (includedIn(s, ci.itemset)) {
+					if (ci.childs.length == 0) {
+						hash.put(s, ci.support);
+						recursiveAdd(s, seti, ci.itemset, ci.support, hash, 0);
+					} else {
+						// the number of times that ci's itemset appeared by itself
+						int remainingSup = ci.support - selectiveMining(s, seti, ci.childs, hash);
+						if (remainingSup > 0) {
+							hash.put(s, remainingSup);
+							recursiveAdd(s, seti, ci.itemset, remainingSup, hash, 0);
+						}
+					}
+				} else if (ci.itemset[ci.itemset.length - 1] < s[s.length - 1]) {
+					// else if the last item of ci is smaller than the last
+					// item of s, we also need to recursively explore subtree
+					// with ci as root.
+					selectiveMining(s, seti, ci.childs, hash);
+				}
+			}
+		}
+		return childrenSup;
+	}
+
+	/**
+	 * Perform a recursive add (as based on the procedure presented in the paper by
+	 * Kubat et al.)
+	 *
+	 * @param s         an itemset s
+	 * @param seti      the items from the itemset s in a HashSet of integers
+	 * @param ci        an itemset tree node ci
+	 * @param cisupport the support of the itemset associated to ci
+	 * @param hash      an hashtable used to store itemset and their support
+	 * @param pos       the current position in the itemset ci
+	 */
+	private void recursiveAdd(int[] s, HashSet<Integer> seti, int[] ci, int cisupport, HashTableIT hash, int pos) {
+		// if we have reached the end of ci, then stop
+		if (pos >= ci.length) {
+			return;
+		}
+		// if the itemset i contain the item as position pos in ci
+		if (!seti.contains(ci[pos])) {
+			// create a new itemset "newS" by inserting the item at position pos
+			// in ci in the itemset s, so that it stays lexicographically ordered
+			int[] newS = new int[s.length + 1];
+			int j = 0; // current position
+			boolean added = false; // indicate if we have added the item at pos already
+			// for each item in s
+			for (int item : s) {
+				// if added already or the current item is smaller than the one at pos
+				if (added || item < ci[pos]) {
+					// we add the item from s
+					newS[j++] = item;
+				} else {
+					// otherwise, we insert the item at position pos
+					newS[j++] = ci[pos];
+					newS[j++] = item;
+					added = true;
+				}
+			}
+			// if the item at position pos was not yet added, it is
+			// greater than all other items
+			if (j < s.length + 1) {
+				newS[j++] = ci[pos];
+			}
+			// add the new itemset to the hashtable with the support of ci
+			hash.put(newS, cisupport);
+
+			// make a recursive call with the next position in ci with the new itemset
+			recursiveAdd(newS, seti, ci, cisupport, hash, pos + 1);
+		}
+		// make a recursive call with the next position in ci with itemset "S"
+		recursiveAdd(s, seti, ci, cisupport, hash, pos + 1);
+	}
+
+	/**
+	 * A subtree below the root, which contains the transactions starting with the
+	 * same item. Its lock is taken to insert a transaction.
+	 */
+	private static class Subtree {
+		/** the root of the subtree (null if it is empty) */
+		volatile Node root;
+	}
+
+	/**
+	 * A node of the concurrent itemset-tree. A node is not modified after it is
+	 * created, so that it can be read without lock.
+	 */
+	static final class Node {
+
+		/** the childs of a node without childs */
+		static final Node[] NO_CHILDS = new Node[0];
+
+		/** the itemset */
+		final int[] itemset;
+		/** the support */
+		final int support;
+		/**
+		 * the childs, sorted by the first item that follows the itemset of this
+		 * node
+		 */
+		final Node[] childs;
+
+		/**
+		 * The constructor
+		 *
+		 * @param itemset the itemset to be stored in this node.
+		 * @param support the support associated to this node.
+		 * @param childs  the childs
+		 */
+		Node(int[] itemset, int support, Node[] childs) {
+			this.itemset = itemset;
+			this.support = support;
+			this.childs = childs;
+		}
+
+		/**
+		 * Find the child having a given item after the itemset of this node.
+		 *
+		 * @param item the item
+		 * @return the position of the child, or (-(insertion point) - 1) if there is
+		 *         none, as Arrays.binarySearch()
+		 */
+		int getChildPosition(int item) {
+			int position = itemset.length;
+			int low = 0;
+			int high = childs.length - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				int middleItem = childs[middle].itemset[position];
+				if (middleItem < item) {
+					low = middle + 1;
+				} else if (middleItem > item) {
+					high = middle - 1;
+				} else {
+					return middle;
+				}
+			}
+			return -(low + 1);
+		}
+
+		/**
+		 * Append a string representation of this node
+		 *
+		 * @param buffer a strinbuffer for appending a string representation
+		 * @param space  the indentation that should be used on each line
+		 */
+		void toString(StringBuilder buffer, String space) {
+			buffer.append(space);
+			buffer.append("[");
+			for (int item : itemset) {
+				buffer.append(item);
+				buffer.append(" ");
+			}
+			buffer.append("]");
+			buffer.append("   sup=");
+			buffer.append(support);
+			buffer.append("\n");
+			for (Node node : childs) {
+				node.toString(buffer, space + "  ");
+			}
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.itemsettree;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Example comparing the throughput of a mixed workload of insertions and support
+ * queries with 1, 2, 4, ... threads, on the ConcurrentItemsetTree and on an
+ * ItemsetTree protected by a single lock. Each thread adds transactions and
+ * asks the support of itemsets, randomly generated. The arguments are:
+ * operation count, number of distinct items, maximum number of items per
+ * transaction, percentage of insertions and maximum number of threads.
+ *
+ * @see ConcurrentItemsetTree
+ */
+public class MainTestConcurrentItemsetTreeThroughput {
+
+	public static void main(String[] arg) throws InterruptedException {
+		int operationCount = arg.length > 0 ? Integer.parseInt(arg[0]) : 200000;
+		int maxDistinctItems = arg.length > 1 ? Integer.parseInt(arg[1]) : 100;
+		int maxItemCountPerTransaction = arg.length > 2 ? Integer.parseInt(arg[2]) : 10;
+		int insertPercentage = arg.length > 3 ? Integer.parseInt(arg[3]) : 20;
+		int maxThreadCount = arg.length > 4 ? Integer.parseInt(arg[4])
+				: Runtime.getRuntime().availableProcessors();
+
+		// generate the transactions and the queries
+		Random random = new Random(1);
+		int[][] itemsets = new int[operationCount][];
+		boolean[] insertions = new boolean[operationCount];
+		for (int i = 0; i < operationCount; i++) {
+			insertions[i] = random.nextInt(100) < insertPercentage;
+			int itemCount = 1 + random.nextInt(insertions[i] ? maxItemCountPerTransaction : 3);
+			TreeSet<Integer> items = new TreeSet<Integer>();
+			while (items.size() < Math.min(itemCount, maxDistinctItems)) {
+				items.add(1 + random.nextInt(maxDistinctItems));
+			}
+			itemsets[i] = new int[items.size()];
+			int j = 0;
+			for (Integer item : items) {
+				itemsets[i][j++] = item;
+			}
+		}
+		System.out.println("Workload: " + operationCount + " operations, " + insertPercentage + "% insertions, "
+				+ maxDistinctItems + " distinct items, at most " + maxItemCountPerTransaction
+				+ " items per transaction, " + Runtime.getRuntime().availableProcessors() + " processors");
+
+		// a first run, so that the times do not include the loading of the classes
+		run(new ConcurrentItemsetTree(), itemsets, insertions, 1);
+		run(null, itemsets, insertions, 1);
+
+		System.out.println(" threads   concurrent (ops/s)   single lock (ops/s)");
+		for (int threadCount = 1; threadCount <= maxThreadCount; threadCount *= 2) {
+			double concurrent = run(new ConcurrentItemsetTree(), itemsets, insertions, threadCount);
+			double singleLock = run(null, itemsets, insertions, threadCount);
+			System.out.println(String.format(" %7d %20.0f %21.0f", threadCount, concurrent, singleLock));
+		}
+	}
+
+	/**
+	 * Run the workload with several threads, each thread doing a part of the
+	 * operations
+	 *
+	 * @param tree        a concurrent itemset tree, or null to use an ItemsetTree
+	 *                    protected by a single lock
+	 * @param itemsets    the transaction or itemset of each operation
+	 * @param insertions  if each operation is an insertion or a query
+	 * @param threadCount the number of threads
+	 * @return the number of operations per second
+	 */
+	private static double run(final ConcurrentItemsetTree tree, final int[][] itemsets, final boolean[] insertions,
+			final int threadCount) throws InterruptedException {
+		final ItemsetTree lockedTree = new ItemsetTree();
+		lockedTree.root = new ItemsetTreeNode(null, 0);
+		Thread[] threads = new Thread[threadCount];
+		for (int t = 0; t < threadCount; t++) {
+			final int first = t;
+			threads[t] = new Thread() {
+				public void run() {
+					for (int i = first; i < itemsets.length; i += threadCount) {
+						if (tree != null) {
+							if (insertions[i]) {
+								tree.addTransaction(itemsets[i]);
+							} else {
+								tree.getSupportOfItemset(itemsets[i]);
+							}
+						} else {
+							synchronized (lockedTree) {
+								if (insertions[i]) {
+									lockedTree.addTransaction(itemsets[i]);
+								} else {
+									lockedTree.getSupportOfItemset(itemsets[i]);
+								}
+							}
+						}
+					}
+				}
+			};
+		}
+		long start = System.nanoTime();
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		long time = System.nanoTime() - start;
+		return itemsets.length / (time / 1e9);
+	}
+}
@@ -0,0 +1,178 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.streaming;
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+/**
+ * This class represents the transactions of a sliding window over a stream of
+ * transactions. A window can keep the last n transactions (count-based window),
+ * the transactions of the last milliseconds (time-based window), or both. The
+ * transactions are stored in a circular buffer, with their timestamp and a
+ * value given by the algorithm that processed them.
+ *
+ * @see StreamMiner
+ */
+public class SlidingWindow {
+
+	/** the maximum number of transactions */
+	private final int maxTransactionCount;
+
+	/** the duration of the window in milliseconds */
+	private final long duration;
+
+	/** the transactions */
+	private int[][] transactions = new int[16][];
+
+	/** the timestamp of each transaction */
+	private long[] timestamps = new long[16];
+
+	/** the value of each transaction */
+	private long[] values = new long[16];
+
+	/** the position of the oldest transaction */
+	private int head = 0;
+
+	/** the number of transactions */
+	private int size = 0;
+
+	/**
+	 * Constructor
+	 *
+	 * @param maxTransactionCount the maximum number of transactions
+	 * @param duration            the duration of the window in milliseconds
+	 */
+	private SlidingWindow(int maxTransactionCount, long duration) {
+		if (maxTransactionCount < 1 || duration < 1) {
+			throw new IllegalArgumentException("The size of a window must be at least 1");
+		}
+		this.maxTransactionCount = maxTransactionCount;
+		this.duration = duration;
+	}
+
+	/**
+	 * Create a window keeping the last transactions
+	 *
+	 * @param transactionCount the number of transactions
+	 * @return the window
+	 */
+	public static SlidingWindow countBased(int transactionCount) {
+		return new SlidingWindow(transactionCount, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Create a window keeping the transactions of the last milliseconds. A
+	 * transaction expires when a timestamp at least duration milliseconds after
+	 * its own timestamp is reached.
+	 *
+	 * @param duration the duration in milliseconds
+	 * @return the window
+	 */
+	public static SlidingWindow timeBased(long duration) {
+		return new SlidingWindow(Integer.MAX_VALUE, duration);
+	}
+
+	/**
+	 * Create a window keeping the transactions of the last milliseconds, but
+	 * never more than a given number of transactions
+	 *
+	 * @param transactionCount the maximum number of transactions
+	 * @param duration         the duration in milliseconds
+	 * @return the window
+	 */
+	public static SlidingWindow countAndTimeBased(int transactionCount, long duration) {
+		return new SlidingWindow(transactionCount, duration);
+	}
+
+	/**
+	 * Add a transaction as the most recent transaction of the window
+	 *
+	 * @param transaction the transaction
+	 * @param timestamp   its timestamp in milliseconds
+	 * @param value       a value given by the algorithm that processed it
+	 */
+	void add(int[] transaction, long timestamp, long value) {
+		if (size == transactions.length) {
+			// enlarge the buffer, so that the oldest transaction is at position 0
+			int[][] newTransactions = new int[size * 2][];
+			long[] newTimestamps = new long[size * 2];
+			long[] newValues = new long[size * 2];
+			for (int i = 0; i < size; i++) {
+				int position = (head + i) % size;
+				newTransactions[i] = transactions[position];
+				newTimestamps[i] = timestamps[position];
+				newValues[i] = values[position];
+			}
+			transactions = newTransactions;
+			timestamps = newTimestamps;
+			values = newValues;
+			head = 0;
+		}
+		int position = (head + size) % transactions.length;
+		transactions[position] = transaction;
+		timestamps[position] = timestamp;
+		values[position] = value;
+		size++;
+	}
+
+	/**
+	 * Check if the oldest transaction has expired
+	 *
+	 * @param now the current timestamp in milliseconds
+	 * @return true if it has expired
+	 */
+	boolean hasExpiredTransaction(long now) {
+		if (size == 0) {
+			return false;
+		}
+		return size > maxTransactionCount
+				|| (duration != Long.MAX_VALUE && now - timestamps[head] >= duration);
+	}
+
+	/**
+	 * Get the oldest transaction
+	 *
+	 * @return the transaction
+	 */
+	int[] getOldestTransaction() {
+		return transactions[head];
+	}
+
+	/**
+	 * Get the value of the oldest transaction
+	 *
+	 * @return the value
+	 */
+	long getOldestValue() {
+		return values[head];
+	}
+
+	/**
+	 * Remove the oldest transaction
+	 */
+	void removeOldestTransaction() {
+		transactions[head] = null;
+		head = (head + 1) % transactions.length;
+		size--;
+	}
+
+	/**
+	 * Get the number of transactions
+	 *
+	 * @return the number of transactions
+	 */
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,250 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.streaming;
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This is the front-end of a stream mining algorithm that processes the
+ * transactions of a stream by micro-batches, over a sliding window. Each
+ * transaction of a batch is given to the algorithm, and the transactions that
+ * leave the window are removed from the algorithm. The results of the algorithm
+ * are saved as a snapshot, which is returned by currentResults(). By default,
+ * the snapshot is made by currentResults() when the results changed since the
+ * last snapshot, so that the batches that are not followed by a call to
+ * currentResults() do not pay for it. If setSnapshotInterval() is called, the
+ * snapshot is rather made after every n batches by the thread processing them,
+ * and currentResults() returns the last snapshot without waiting for the batch
+ * being processed. Thus, a thread can process the batches while other threads
+ * read the results. <br/>
+ * <br/>
+ *
+ * A subclass gives the transactions to a stream mining algorithm (insert() and
+ * remove()) and makes the snapshot of its results (getResults()). The items of
+ * a transaction must be sorted.
+ *
+ * @param <R> the type of the results
+ * @see SlidingWindow
+ */
+public abstract class StreamMiner<R> {
+
+	/** the sliding window */
+	private final SlidingWindow window;
+
+	/** the last snapshot of the results */
+	private volatile R results;
+
+	/** true if the transactions changed since the last snapshot */
+	private volatile boolean resultsStale = false;
+
+	/**
+	 * the number of batches between two snapshots, or 0 if the snapshot is made by
+	 * currentResults()
+	 */
+	private volatile int snapshotInterval = 0;
+
+	/** the number of batches processed since the last snapshot */
+	private int batchCountSinceSnapshot = 0;
+
+	/** the number of transactions processed */
+	private long transactionCount = 0;
+
+	/** the number of transactions removed because they left the window */
+	private long expiredTransactionCount = 0;
+
+	/**
+	 * Constructor
+	 *
+	 * @param window the sliding window
+	 */
+	protected StreamMiner(SlidingWindow window) {
+		this.window = window;
+	}
+
+	/**
+	 * Set the number of batches after which a snapshot of the results is made by
+	 * the thread processing the batches. Then, currentResults() does not wait for
+	 * the batch being processed, but its results may not include the last
+	 * batches. By default (0), the snapshot is made by currentResults() when it is
+	 * called after a batch. It should be called before processing the first
+	 * batch.
+	 *
+	 * @param snapshotInterval the number of batches (0 or more)
+	 */
+	public synchronized void setSnapshotInterval(int snapshotInterval) {
+		if (snapshotInterval < 0) {
+			throw new IllegalArgumentException("The snapshot interval must be at least 0");
+		}
+		this.snapshotInterval = snapshotInterval;
+	}
+
+	/**
+	 * Process a batch of transactions having the same timestamp, then remove the
+	 * transactions that left the window.
+	 *
+	 * @param transactions the transactions (the items of each one are sorted)
+	 * @param timestamp    the timestamp in milliseconds
+	 */
+	public synchronized void processBatch(List<int[]> transactions, long timestamp) {
+		for (int[] transaction : transactions) {
+			long value = insert(transaction);
+			window.add(transaction, timestamp, value);
+			transactionCount++;
+			removeExpiredTransactions(timestamp);
+		}
+		removeExpiredTransactions(timestamp);
+		batchProcessed();
+	}
+
+	/**
+	 * Process a batch of transactions, with the current time as timestamp.
+	 *
+	 * @param transactions the transactions (the items of each one are sorted)
+	 */
+	public void processBatch(List<int[]> transactions) {
+		processBatch(transactions, System.currentTimeMillis());
+	}
+
+	/**
+	 * Process a single transaction (a batch containing a single transaction).
+	 *
+	 * @param transaction the transaction (its items are sorted)
+	 * @param timestamp   the timestamp in milliseconds
+	 */
+	public void processTransaction(int[] transaction, long timestamp) {
+		processBatch(Collections.singletonList(transaction), timestamp);
+	}
+
+	/**
+	 * Remove the transactions that left a time-based window at a given time,
+	 * without processing new transactions.
+	 *
+	 * @param timestamp the timestamp in milliseconds
+	 */
+	public synchronized void advanceTime(long timestamp) {
+		long expiredCount = expiredTransactionCount;
+		removeExpiredTransactions(timestamp);
+		if (expiredTransactionCount != expiredCount) {
+			batchProcessed();
+		}
+	}
+
+	/**
+	 * Mark the results as changed after a batch, and make a snapshot if the
+	 * snapshot interval is reached
+	 */
+	private void batchProcessed() {
+		resultsStale = true;
+		batchCountSinceSnapshot++;
+		if (snapshotInterval > 0 && batchCountSinceSnapshot >= snapshotInterval) {
+			saveResults();
+		}
+	}
+
+	/**
+	 * Make a snapshot of the results
+	 */
+	private void saveResults() {
+		results = getResults();
+		resultsStale = false;
+		batchCountSinceSnapshot = 0;
+	}
+
+	/**
+	 * Remove the transactions that left the window
+	 *
+	 * @param now the current timestamp
+	 */
+	private void removeExpiredTransactions(long now) {
+		while (window.hasExpiredTransaction(now)) {
+			remove(window.getOldestTransaction(), window.getOldestValue());
+			window.removeOldestTransaction();
+			expiredTransactionCount++;
+		}
+	}
+
+	/**
+	 * Get the results. If no snapshot interval is set and the results changed
+	 * since the last snapshot, a snapshot of the results after the last batch is
+	 * made, waiting for the batch being processed. Otherwise, the last snapshot
+	 * is returned without waiting.
+	 *
+	 * @return the results (null if no snapshot was made)
+	 */
+	public R currentResults() {
+		if (resultsStale && snapshotInterval == 0) {
+			synchronized (this) {
+				if (resultsStale && snapshotInterval == 0) {
+					saveResults();
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Get the number of transactions in the window
+	 *
+	 * @return the number of transactions
+	 */
+	public synchronized int getWindowSize() {
+		return window.size();
+	}
+
+	/**
+	 * Get the number of transactions processed
+	 *
+	 * @return the number of transactions
+	 */
+	public synchronized long getTransactionCount() {
+		return transactionCount;
+	}
+
+	/**
+	 * Get the number of transactions removed because they left the window
+	 *
+	 * @return the number of transactions
+	 */
+	public synchronized long getExpiredTransactionCount() {
+		return expiredTransactionCount;
+	}
+
+	/**
+	 * Give a new transaction to the algorithm
+	 *
+	 * @param transaction the transaction
+	 * @return a value that will be given to remove() when the transaction leaves
+	 *         the window
+	 */
+	protected abstract long insert(int[] transaction);
+
+	/**
+	 * Remove a transaction that left the window from the algorithm
+	 *
+	 * @param transaction the transaction
+	 * @param value       the value returned by insert() for this transaction
+	 */
+	protected abstract void remove(int[] transaction, long value);
+
+	/**
+	 * Make a snapshot of the results of the algorithm. The snapshot should not be
+	 * modified by the next transactions.
+	 *
+	 * @return the results
+	 */
+	protected abstract R getResults();
+}
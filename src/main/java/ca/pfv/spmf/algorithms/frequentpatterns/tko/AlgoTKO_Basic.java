@@ -7,6 +7,7 @@ import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -14,13 +15,25 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import ca.pfv.spmf.tools.MemoryLogger;
+import ca.pfv.spmf.tools.MiningMetrics;
 
 /**
  * A simple implementation of the TKO algorithm without some of the
- * optimizations described in the paper.
+ * optimizations described in the paper. <br/>
+ * <br/>
+ * 
+ * The search can be performed by several threads (see setThreadCount()). The
+ * subtree of each item of the first level is explored by a task of a
+ * ForkJoinPool. The tasks only read the utility lists of the items, and they
+ * add the itemsets that they find to the same TopKItemsets. Thus, as soon as a
+ * task raises the internal min utility, all the tasks use it for pruning. The
+ * result is the same as in a sequential execution, since the itemsets having
+ * the same utility as the k-th itemset are ranked by the order of their items.
  * 
  * @author Philippe Fournier-Viger et al.
  */
@@ -35,11 +48,13 @@ public class AlgoTKO_Basic {
 	/** the k parameter */
 	int k = 0;
 
-	/** the internal min utility variable */
-	long minutility = 0;
+	/**
+	 * the top k itemsets found until now and the internal min utility variable
+	 */
+	TopKItemsets kItemsets;
 
-	/** the top k rules found until now */
-	PriorityQueue<Itemset> kItemsets;
+	/** the number of threads used to explore the search space */
+	private int threadCount = 1;
 
 	/** We create a map to store the TWU of each item */
 	final Map<Integer, Integer> mapItemToTWU = new HashMap<Integer, Integer>();
@@ -71,10 +86,9 @@ public class AlgoTKO_Basic {
 	public void runAlgorithm(String input, String output, int k) throws IOException {
 		MemoryLogger.getInstance().reset();
 		long startTimestamp = System.currentTimeMillis();
-		this.minutility = 1;
 		this.k = k;
 
-		this.kItemsets = new PriorityQueue<Itemset>();
+		this.kItemsets = new TopKItemsets(k, 1);
 
 		// We scan the database a first time to calculate the TWU of each item.
 		BufferedReader myInput = null;
@@ -205,7 +219,12 @@ public class AlgoTKO_Basic {
 		MemoryLogger.getInstance().checkMemory();
 
 		// Mine the database recursively
-		search(new int[0], null, listItems);
+		if (threadCount > 1) {
+			// The subtrees of the items are explored by several threads
+			searchInParallel(listItems);
+		} else {
+			search(new int[0], null, listItems);
+		}
 
 		// check the memory usage again and close the file.
 		MemoryLogger.getInstance().checkMemory();
@@ -229,38 +248,100 @@ public class AlgoTKO_Basic {
 
 		// For each extension X of prefix P
 		for (int i = 0; i < ULs.size(); i++) {
-			UtilityList X = ULs.get(i);
+			searchForItem(prefix, pUL, ULs, i);
+		}
+	}
+
+	/**
+	 * Find the top-k high utility itemsets starting with the current prefix
+	 * extended with an item X.
+	 * 
+	 * @param prefix This is the current prefix.
+	 * @param pUL    This is the Utility List of the prefix.
+	 * @param ULs    The utility lists corresponding to each extension of the
+	 *               prefix.
+	 * @param i      The position of the utility list of X in ULs.
+	 * @throws IOException
+	 */
+	private void searchForItem(int[] prefix, UtilityList pUL, List<UtilityList> ULs, int i) throws IOException {
+		UtilityList X = ULs.get(i);
+
+		// If pX is a high utility itemset.
+		// we save the itemset: pX
+		if (X.sumIutils >= kItemsets.getMinUtility()) {
+			writeOut(prefix, X.item, X.sumIutils);
+		}
 
-			// If pX is a high utility itemset.
-			// we save the itemset: pX
-			if (X.sumIutils >= minutility) {
-				writeOut(prefix, X.item, X.sumIutils);
+		// If the sum of the remaining utilities for pX
+		// is higher than minUtility, we explore extensions of pX.
+		// (this is the pruning condition)
+		if (X.sumRutils + X.sumIutils >= kItemsets.getMinUtility()) {
+			// This list will contain the utility lists of pX extensions.
+			List<UtilityList> exULs = new ArrayList<UtilityList>();
+			// For each extension of p appearing
+			// after X according to the ascending order
+			for (int j = i + 1; j < ULs.size(); j++) {
+				UtilityList Y = ULs.get(j);
+				// we construct the extension pXY
+				// and add it to the list of extensions of pX
+				exULs.add(construct(pUL, X, Y));
 			}
+			// We create new prefix pX
+			int[] newPrefix = new int[prefix.length + 1];
+			System.arraycopy(prefix, 0, newPrefix, 0, prefix.length);
+			newPrefix[prefix.length] = X.item;
+
+			// We make a recursive call to discover all itemsets with the
+			// prefix pX
+			search(newPrefix, X, exULs);
+		}
+	}
 
-			// If the sum of the remaining utilities for pX
-			// is higher than minUtility, we explore extensions of pX.
-			// (this is the pruning condition)
-			if (X.sumRutils + X.sumIutils >= minutility) {
-				// This list will contain the utility lists of pX extensions.
-				List<UtilityList> exULs = new ArrayList<UtilityList>();
-				// For each extension of p appearing
-				// after X according to the ascending order
-				for (int j = i + 1; j < ULs.size(); j++) {
-					UtilityList Y = ULs.get(j);
-					// we construct the extension pXY
-					// and add it to the list of extensions of pX
-					exULs.add(construct(pUL, X, Y));
-				}
-				// We create new prefix pX
-				int[] newPrefix = new int[prefix.length + 1];
-				System.arraycopy(prefix, 0, newPrefix, 0, prefix.length);
-				newPrefix[prefix.length] = X.item;
-
-				// We make a recursive call to discover all itemsets with the
-				// prefix pX
-				search(newPrefix, X, exULs);
+	/**
+	 * Explore the subtree of each item of the first level in a task of a
+	 * ForkJoinPool, with threadCount threads.
+	 * 
+	 * @param ULs The utility lists of the items.
+	 */
+	private void searchInParallel(List<UtilityList> ULs) {
+		List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(ULs.size());
+		ForkJoinPool pool = MiningMetrics.current().newForkJoinPool(threadCount);
+		try {
+			for (int i = 0; i < ULs.size(); i++) {
+				tasks.add(pool.submit(new SearchTask(ULs, i)));
 			}
+			for (ForkJoinTask<?> task : tasks) {
+				task.join();
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * A task exploring the subtree of an item of the first level.
+	 */
+	private class SearchTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		// the utility lists of the items
+		private final List<UtilityList> ULs;
+		// the position of the item in the list
+		private final int itemIndex;
+
+		SearchTask(List<UtilityList> ULs, int itemIndex) {
+			this.ULs = ULs;
+			this.itemIndex = itemIndex;
+		}
 
+		@Override
+		protected void compute() {
+			try {
+				searchForItem(new int[0], null, ULs, itemIndex);
+			} catch (IOException e) {
+				// the itemsets are not written to a file during the search
+				throw new UncheckedIOException(e);
+			}
 		}
 	}
 
@@ -272,22 +353,9 @@ public class AlgoTKO_Basic {
 	 * @param utility the utility of the prefix concatenated with the item
 	 */
 	private void writeOut(int[] prefix, int item, long utility) {
-		Itemset itemset = new Itemset(prefix, item, utility);
-		kItemsets.add(itemset);
-		if (kItemsets.size() > k) {
-			if (utility > this.minutility) {
-				Itemset lower;
-				do {
-					lower = kItemsets.peek();
-					if (lower == null) {
-						break; // / IMPORTANT
-					}
-					kItemsets.remove(lower);
-				} while (kItemsets.size() > k);
-				this.minutility = kItemsets.peek().utility;
-//				System.out.println(this.minutility);
-			}
-		}
+		// the itemset is added if it is in the top-k, and the internal
+		// min utility is raised
+		kItemsets.add(prefix, item, utility);
 	}
 
 	/**
@@ -368,7 +436,7 @@ public class AlgoTKO_Basic {
 	 */
 	public void writeResultTofile(String path) throws IOException {
 		BufferedWriter writer = new BufferedWriter(new FileWriter(path));
-		Iterator<Itemset> iter = kItemsets.iterator();
+		Iterator<Itemset> iter = kItemsets.getItemsets().iterator();
 		while (iter.hasNext()) {
 			StringBuffer buffer = new StringBuffer();
 			Itemset itemset = (Itemset) iter.next();
@@ -393,6 +461,19 @@ public class AlgoTKO_Basic {
 		writer.close();
 	}
 
+	/**
+	 * Set the number of threads used to explore the search space. By default, a
+	 * single thread is used.
+	 * 
+	 * @param threadCount the number of threads (at least 1)
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
 	private int compareItems(int item1, int item2) {
 		int compare = mapItemToTWU.get(item1) - mapItemToTWU.get(item2);
 		// if the same, use the lexical order otherwise use the TWU
@@ -405,6 +486,7 @@ public class AlgoTKO_Basic {
 	public void printStats() {
 		System.out.println("=============  TKO-BASIC - v.2.28 =============");
 		System.out.println(" High-utility itemsets count : " + kItemsets.size());
+		System.out.println(" Threads : " + threadCount);
 		System.out.println(" Total time ~ " + totalTime + " s");
 		System.out.println(" Memory ~ " + MemoryLogger.getInstance().getMaxMemory() + " MB");
 		System.out.println("===================================================");
@@ -0,0 +1,86 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.tko;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import ca.pfv.spmf.tools.dataset_generator.TransactionDatabaseGenerator;
+import ca.pfv.spmf.tools.dataset_generator.TransactionDatasetUtilityGenerator;
+
+/**
+ * Example comparing the time of TKO with 1, 2, 4, ... threads on a database
+ * like DB_Utility.txt, but larger, generated by the TransactionDatabaseGenerator
+ * and the TransactionDatasetUtilityGenerator. For each number of threads, the
+ * speedup over one thread is shown, and the top-k itemsets are compared with
+ * those found by one thread. The arguments are: transaction count, number of
+ * distinct items, maximum number of items per transaction, k and maximum number
+ * of threads.
+ *
+ * @see AlgoTKO_Basic
+ */
+public class MainTestCompareTKOThreads {
+
+	public static void main(String[] arg) throws IOException {
+		int transactionCount = arg.length > 0 ? Integer.parseInt(arg[0]) : 10000;
+		int maxDistinctItems = arg.length > 1 ? Integer.parseInt(arg[1]) : 200;
+		int maxItemCountPerTransaction = arg.length > 2 ? Integer.parseInt(arg[2]) : 15;
+		int k = arg.length > 3 ? Integer.parseInt(arg[3]) : 100;
+		int maxThreadCount = arg.length > 4 ? Integer.parseInt(arg[4])
+				: Runtime.getRuntime().availableProcessors();
+
+		// generate the database
+		File transactions = File.createTempFile("transactions", ".txt");
+		transactions.deleteOnExit();
+		File file = File.createTempFile("utilities", ".txt");
+		file.deleteOnExit();
+		TransactionDatabaseGenerator generator = new TransactionDatabaseGenerator();
+		generator.generateDatabase(transactionCount, maxDistinctItems, maxItemCountPerTransaction,
+				transactions.getPath());
+		new TransactionDatasetUtilityGenerator().convert(transactions.getPath(), file.getPath(), 10, 1d);
+		System.out.println("Database: " + transactionCount + " transactions, " + maxDistinctItems
+				+ " distinct items, at most " + maxItemCountPerTransaction + " items per transaction, k " + k + ", "
+				+ Runtime.getRuntime().availableProcessors() + " processors");
+
+		File sequentialOutput = File.createTempFile("itemsets", ".txt");
+		sequentialOutput.deleteOnExit();
+		File output = File.createTempFile("itemsets", ".txt");
+		output.deleteOnExit();
+
+		// a first run, so that the times do not include the loading of the classes
+		new AlgoTKO_Basic().runAlgorithm(file.getPath(), output.getPath(), k);
+
+		System.out.println(" threads   time (ms)   speedup   itemsets   same itemsets");
+		long sequentialTime = 0;
+		for (int threadCount = 1; threadCount <= maxThreadCount; threadCount *= 2) {
+			AlgoTKO_Basic algo = new AlgoTKO_Basic();
+			algo.setThreadCount(threadCount);
+			long start = System.currentTimeMillis();
+			algo.runAlgorithm(file.getPath(), output.getPath(), k);
+			long time = System.currentTimeMillis() - start;
+			File result = threadCount == 1 ? sequentialOutput : output;
+			algo.writeResultTofile(result.getPath());
+			if (threadCount == 1) {
+				sequentialTime = time;
+			}
+			boolean same = Arrays.equals(Files.readAllBytes(sequentialOutput.toPath()),
+					Files.readAllBytes(result.toPath()));
+			System.out.println(String.format(" %7d %11d %9.2f %10d   %s", threadCount, time,
+					sequentialTime / (double) Math.max(time, 1), algo.kItemsets.size(), same));
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package ca.pfv.spmf.algorithms.frequentpatterns.tko;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class stores the top-k high-utility itemsets found by TKO, and the
+ * internal minimum utility, which is the utility of the k-th itemset once k
+ * itemsets have been found. Exactly k itemsets are kept: the itemsets having
+ * the same utility are ranked by the order of their items, so that the result
+ * does not depend on the order in which the itemsets are found. <br/>
+ * <br/>
+ *
+ * It can be updated by several threads at the same time. The minimum utility
+ * is an AtomicLong, which is only raised, so that it can be read without a
+ * lock to prune the search space. An itemset having a utility lower than the
+ * minimum utility is rejected without a lock, and the other itemsets are added
+ * while holding the lock of this object.
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @see AlgoTKO_Basic
+ */
+public class TopKItemsets {
+
+	/** the k parameter */
+	private final int k;
+
+	/**
+	 * The order of the top-k itemsets: by decreasing utility, then by lexical
+	 * order of their items
+	 */
+	private static final Comparator<Itemset> RANK = new Comparator<Itemset>() {
+		public int compare(Itemset o1, Itemset o2) {
+			if (o1.utility != o2.utility) {
+				return o1.utility > o2.utility ? -1 : 1;
+			}
+			int length1 = o1.itemset.length + 1;
+			int length2 = o2.itemset.length + 1;
+			for (int i = 0; i < length1 && i < length2; i++) {
+				int item1 = i < o1.itemset.length ? o1.itemset[i] : o1.item;
+				int item2 = i < o2.itemset.length ? o2.itemset[i] : o2.item;
+				if (item1 != item2) {
+					return item1 < item2 ? -1 : 1;
+				}
+			}
+			return length1 - length2;
+		}
+	};
+
+	/** the itemsets (the last one in the RANK order is the head) */
+	private final PriorityQueue<Itemset> itemsets = new PriorityQueue<Itemset>(11, Collections.reverseOrder(RANK));
+
+	/** the internal min utility variable */
+	private final AtomicLong minUtility;
+
+	/**
+	 * Constructor
+	 *
+	 * @param k          the parameter k
+	 * @param minUtility the initial minimum utility
+	 */
+	public TopKItemsets(int k, long minUtility) {
+		if (k < 1) {
+			throw new IllegalArgumentException("The parameter k must be at least 1");
+		}
+		this.k = k;
+		this.minUtility = new AtomicLong(minUtility);
+	}
+
+	/**
+	 * Get the internal minimum utility. An itemset having a lower utility cannot
+	 * be a top-k itemset.
+	 *
+	 * @return the minimum utility
+	 */
+	public long getMinUtility() {
+		return minUtility.get();
+	}
+
+	/**
+	 * Add an itemset if its utility is not lower than the minimum utility, and
+	 * remove the itemset that is no longer in the top-k. An itemset having the
+	 * minimum utility can still replace the k-th itemset if it comes first in the
+	 * order of the items.
+	 *
+	 * @param prefix  the prefix of the itemset
+	 * @param item    the last item of the itemset
+	 * @param utility the utility of the itemset
+	 */
+	public void add(int[] prefix, int item, long utility) {
+		// most itemsets are rejected without taking the lock
+		if (utility < minUtility.get()) {
+			return;
+		}
+		synchronized (this) {
+			if (utility < minUtility.get()) {
+				return;
+			}
+			Itemset itemset = new Itemset(prefix, item, utility);
+			if (itemsets.size() == k) {
+				if (RANK.compare(itemset, itemsets.peek()) >= 0) {
+					return;
+				}
+				itemsets.poll();
+			}
+			itemsets.add(itemset);
+
+			// raise the minimum utility
+			if (itemsets.size() == k && itemsets.peek().utility > minUtility.get()) {
+				minUtility.set(itemsets.peek().utility);
+			}
+		}
+	}
+
+	/**
+	 * Get the number of itemsets
+	 *
+	 * @return the number of itemsets
+	 */
+	public synchronized int size() {
+		return itemsets.size();
+	}
+
+	/**
+	 * Get the itemsets by decreasing utility. The itemsets having the same
+	 * utility are sorted by lexical order of their items.
+	 *
+	 * @return the itemsets
+	 */
+	public synchronized List<Itemset> getItemsets() {
+		List<Itemset> list = new ArrayList<Itemset>(itemsets);
+		Collections.sort(list, RANK);
+		return list;
+	}
+}
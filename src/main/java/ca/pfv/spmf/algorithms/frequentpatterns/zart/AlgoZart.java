@@ -20,14 +20,15 @@ import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Map;
 
-import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
+import ca.pfv.spmf.input.transaction_database_array_integers.TransactionDatabase;
 import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
 import ca.pfv.spmf.tools.MemoryLogger;
+import ca.pfv.spmf.tools.MiningMetrics;
+import ca.pfv.spmf.tools.MiningMetrics.Counter;
 
 /**
  * This is an implementation of Zart, an algorithm for mining frequent closed
@@ -41,8 +42,9 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * <br/>
  * 
  * This algorithm could be optimized in various way as described in the article
- * by Szathmary, for example, by using the Trie data structure and by removing
- * unfrequent items, but this was not done here.
+ * by Szathmary, for example, by using the Trie data structure, but this was not
+ * done here. Infrequent items are removed from a copy of the database, which is
+ * represented by arrays of integers.
  * 
  * @see TransactionDatabase
  * @see Itemset
@@ -59,7 +61,7 @@ public class AlgoZart {
 	// relative minimum support threshold
 	private int minsupRelative = 0;
 
-	// the input database
+	// the input database, without the infrequent items
 	private TransactionDatabase context = null;
 
 	// the TZ, TF and TC structures as described in the paper
@@ -70,6 +72,9 @@ public class AlgoZart {
 	// The list of frequent generators FG
 	private List<Itemset> frequentGeneratorsFG = null; // 2
 
+	// the statistics of the current run
+	private MiningMetrics metrics = MiningMetrics.current();
+
 	/**
 	 * Default constructor
 	 */
@@ -83,14 +88,26 @@ public class AlgoZart {
 	 * @param minsupp  the minimum support threshold
 	 * @return a set of closed itemsets and their associated generator(s)
 	 */
+	public TZTableClosed runAlgorithm(ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase database,
+			double minsupp) {
+		// the database is copied into arrays of integers, which are faster to scan
+		return runAlgorithm(new TransactionDatabase(database), minsupp);
+	}
+
+	/***
+	 * Run the algorithm on a transaction database represented by arrays of
+	 * integers. The database is not modified.
+	 * 
+	 * @param database a transaction database
+	 * @param minsupp  the minimum support threshold
+	 * @return a set of closed itemsets and their associated generator(s)
+	 */
 	public TZTableClosed runAlgorithm(TransactionDatabase database, double minsupp) {
 		// record the start time
 		startTimestamp = System.currentTimeMillis();
 		// reset the utility for recording the memory usage
 		MemoryLogger.getInstance().reset();
-
-		// save database received as parameter
-		this.context = database;
+		metrics = MiningMetrics.current();
 
 		// Initialize the FG, TZ,TF and TC structure
 		// used by the algorithm (as described in the paper)
@@ -103,55 +120,42 @@ public class AlgoZart {
 		// multiplying by the database size
 		minsupRelative = (int) Math.ceil(minsupp * database.size());
 
-		// (1) Scan the database and count the support of each item (in a map)
-		// for this map : key = item value = support
-		Map<Integer, Integer> mapItemSupport = new HashMap<Integer, Integer>();
-
-		// for each transaction
-		for (List<Integer> transaction : database.getTransactions()) {
-			// for each item in the transaction
-			for (Integer item : transaction) {
-				// increase the support count of the item
-				Integer count = mapItemSupport.get(item);
-				if (count == null) {
-					// if first time, then put 1
-					mapItemSupport.put(item, 1);
-				} else {
-					// otherwise increase by 1
-					mapItemSupport.put(item, ++count);
-				}
-			}
-		}
-
-		// (0) Remove infrequent items from each transaction.
-		// For each transaction
-		for (List<Integer> transaction : database.getTransactions()) {
-			// for each item
-			Iterator<Integer> it = transaction.iterator();
-			while (it.hasNext()) {
-				// get the item
-				Integer item = (Integer) it.next();
-				// if infrequent, then remove it
-				if (mapItemSupport.get(item) < minsupRelative) {
-					it.remove();
-				}
-			}
-		}
+		// (1) Scan the database and count the support of each item
+		// (the support of item i is at position i)
+		MiningMetrics.Phase phase = metrics.startPhase("scan");
+		int[] itemSupports = database.calculateItemSupports();
 
 		// (1) fill candidates with 1-itemsets (single items)
 		tableCandidate.levels.add(new ArrayList<Itemset>());
-		for (Integer item : mapItemSupport.keySet()) {
-			// create an itemset for the item and set its support
-			Itemset itemset = new Itemset(item);
-			itemset.setAbsoluteSupport(mapItemSupport.get(item));
+		BitSet frequentItems = new BitSet(itemSupports.length);
+		for (int item = database.getItems().nextSetBit(0); item >= 0; item = database.getItems()
+				.nextSetBit(item + 1)) {
 			// if the support is higher than minsup
-			if (mapItemSupport.get(item) >= minsupRelative) {
+			if (itemSupports[item] >= minsupRelative) {
+				// create an itemset for the item and set its support
+				Itemset itemset = new Itemset(item);
+				itemset.setAbsoluteSupport(itemSupports[item]);
 				// add it to frequent itemsets and candidates table
 				tableFrequent.addFrequentItemset(itemset);
 				tableCandidate.levels.get(0).add(itemset);
+				frequentItems.set(item);
 			}
 		}
 
+		// (0) Remove infrequent items from each transaction.
+		// This is done in a copy, so that the database received as parameter
+		// is not modified.
+		this.context = database.retainItems(frequentItems);
+		// array used to mark the items of the current transaction, when
+		// counting the support of candidates
+		int[] transactionMarks = new int[itemSupports.length];
+		phase.end();
+
+		// each item is a candidate, and the infrequent items are pruned
+		metrics.add(Counter.CANDIDATES_GENERATED, database.getItems().cardinality());
+		metrics.add(Counter.CANDIDATES_PRUNED, database.getItems().cardinality() - frequentItems.cardinality());
+		phase = metrics.startPhase("mining");
+
 //		// sort candidates
 //		Collections.sort(tableCandidate.levels.get(0), new Comparator<Itemset>() {
 //			public int compare(Itemset i1, Itemset i2) {
@@ -172,7 +176,7 @@ public class AlgoZart {
 				// assign the value true to l in the map for closed itemsets
 				tableFrequent.mapClosed.put(l, true); // 8
 				// If L has the support equal to the number of transactions in the database
-				if (l.getAbsoluteSupport() == database.getTransactions().size()) { // 9
+				if (l.getAbsoluteSupport() == database.size()) { // 9
 					// 10 The empty set is its generator (IMPORTANT)
 					tableFrequent.mapKey.put(l, false);
 					// there is an itemset shared by all transactions
@@ -221,21 +225,15 @@ public class AlgoZart {
 				// if there is an itemset of size i with its key value to true
 				if (tableCandidate.thereisARowKeyValueIsTrue(i)) { // 20
 					// 22 for each transaction
-					for (List<Integer> o : database.getTransactions()) { // 22
-						// for each subset of the candidate
-						for (Itemset s : subset(tableCandidate.levels.get(i), o)) { // 23, 24
-							if (tableCandidate.mapKey.get(s)) {
-								// increase its support count
-								s.increaseTransactionCount(); // 25
-							}
-						}
-					}
+					countSupportOfCandidates(tableCandidate.levels.get(i), transactionMarks); // 22 - 25
 				}
 
 				// for each candidate itemset of size i
 				for (Itemset c : tableCandidate.levels.get(i)) { // 28
-					// if it is a frequent itemset
-					if (c.getAbsoluteSupport() >= minsupRelative) {
+					// if it is not a frequent itemset, it is pruned
+					if (c.getAbsoluteSupport() < minsupRelative) {
+						metrics.increment(Counter.CANDIDATES_PRUNED);
+					} else { // if it is a frequent itemset
 						// 31
 						// if c is set to true in mapKey and its support is
 						// equal to the one of predSup
@@ -298,6 +296,12 @@ public class AlgoZart {
 
 		}
 
+		phase.end();
+		// the patterns are the closed itemsets
+		for (List<Itemset> level : tableClosed.levels) {
+			metrics.add(Counter.PATTERNS_EMITTED, level.size());
+		}
+
 		// check the memory usage
 		MemoryLogger.getInstance().checkMemory();
 		// record the end time
@@ -368,35 +372,46 @@ public class AlgoZart {
 	}
 
 	/**
-	 * This returns the list of itemsets from a list of itemsets s that are included
-	 * in a given itemset l.
+	 * Scan the database to increase the support count of the candidates that have
+	 * their key value set to true, for each transaction containing them.
 	 * 
-	 * @param s a list of itemsets S of the same size
-	 * @param l an itemset L.
-	 * @return the list of itemsets from S that are contained in L
+	 * @param candidates       a list of candidates of the same size
+	 * @param transactionMarks an array of at least (largest item + 1) elements,
+	 *                         where transactionMarks[item] is set to tid + 1 if
+	 *                         item appears in transaction tid
 	 */
-	private List<Itemset> subset(List<Itemset> s, List<Integer> l) {
-		// Initialize the list of subsets
-		List<Itemset> subset = new ArrayList<Itemset>();
-		// for each itemset in S
-		for (Itemset itemsetS : s) {
-			boolean allIncluded = true;
-			// for each item of this itemset,
-			for (int i = 0; i < itemsetS.size(); i++) {
-				// if that item is not contained in the itemset l
-				// then the itemset S is not included in l and we note it
-				if (!l.contains(itemsetS.get(i))) {
-					allIncluded = false;
-				}
+	private void countSupportOfCandidates(List<Itemset> candidates, int[] transactionMarks) {
+		// keep only the candidates that need to be counted
+		List<Itemset> keys = new ArrayList<Itemset>();
+		for (Itemset candidate : candidates) {
+			if (tableCandidate.mapKey.get(candidate)) {
+				keys.add(candidate);
 			}
-			// if s is included in l
-			if (allIncluded) {
-				// then add it to the list of subsets
-				subset.add(itemsetS);
+		}
+		// the marks of a previous scan must not be confused with this one
+		Arrays.fill(transactionMarks, 0);
+
+		int[] items = context.getItemPool();
+		// for each transaction
+		for (int tid = 0; tid < context.size(); tid++) {
+			// mark the items of this transaction
+			for (int position = context.getTransactionStart(tid); position < context
+					.getTransactionStart(tid + 1); position++) {
+				transactionMarks[items[position]] = tid + 1;
+			}
+			// for each candidate
+			loopCandidates: for (Itemset candidate : keys) {
+				// if an item of the candidate is not in the transaction, the candidate
+				// is not included in the transaction
+				for (int item : candidate.itemset) {
+					if (transactionMarks[item] != tid + 1) {
+						continue loopCandidates;
+					}
+				}
+				// increase its support count
+				candidate.increaseTransactionCount(); // 25
 			}
 		}
-		// return the list
-		return subset;
 	}
 
 	/**
@@ -408,6 +423,8 @@ public class AlgoZart {
 		// This method generates the candidates of size i
 		// (similar to apriori-gen).
 		prepareCandidateSizeI(i);
+		int candidateCount = tableCandidate.levels.get(i).size();
+		metrics.add(Counter.CANDIDATES_GENERATED, candidateCount);
 
 		// Then, for each candidate found in the previous step
 		// we check if all the subsets of size i-1 (also named k-1 here) are frequents.
@@ -419,7 +436,7 @@ public class AlgoZart {
 			// set the key to true
 			tableCandidate.mapKey.put(c, true); // 4
 			// set the support to database size +1.
-			tableCandidate.mapPredSupp.put(c, context.getTransactions().size() + 1);
+			tableCandidate.mapPredSupp.put(c, context.size() + 1);
 			// 7
 			// To generate all sets of size k-1: S, we will proceed
 			// by removing each element one by one.
@@ -471,6 +488,8 @@ public class AlgoZart {
 				c.setAbsoluteSupport(tableCandidate.mapPredSupp.get(c));
 			}
 		}
+		// the candidates having an infrequent subset were pruned
+		metrics.add(Counter.CANDIDATES_PRUNED, candidateCount - tableCandidate.levels.get(i).size());
 	}
 
 	/**
@@ -91,4 +91,47 @@ public class TFTableFrequent {
 		// return the list of itemsets (empty or not)
 		return levels.get(i + 1);
 	}
+
+	/**
+	 * Get the frequent itemsets of this table that have a support no less than a
+	 * given threshold. The result is the same as running Zart with that (higher)
+	 * threshold. The itemsets are shared with this table, not copied.
+	 * 
+	 * @param minsupRelative the minimum support, as a number of transactions
+	 * @return a new table
+	 */
+	public TFTableFrequent filter(int minsupRelative) {
+		TFTableFrequent filtered = new TFTableFrequent();
+		filtered.emptySetIsClosed = emptySetIsClosed;
+		// Like Zart, if no item is frequent, the result is empty
+		boolean hasFrequentItem = false;
+		// for each level
+		for (List<Itemset> level : levels) {
+			List<Itemset> filteredLevel = new ArrayList<Itemset>();
+			// keep the itemsets that are still frequent
+			for (Itemset itemset : level) {
+				if (itemset.getAbsoluteSupport() >= minsupRelative) {
+					filteredLevel.add(itemset);
+					copyEntry(mapPredSupp, filtered.mapPredSupp, itemset);
+					copyEntry(mapKey, filtered.mapKey, itemset);
+					copyEntry(mapClosed, filtered.mapClosed, itemset);
+					if (itemset.size() > 0) {
+						hasFrequentItem = true;
+					}
+				}
+			}
+			filtered.levels.add(filteredLevel);
+		}
+		return hasFrequentItem ? filtered : new TFTableFrequent();
+	}
+
+	/**
+	 * Copy the value associated to an itemset from a map to another map, if any.
+	 */
+	private static <V> void copyEntry(Map<Itemset, V> from, Map<Itemset, V> to, Itemset itemset) {
+		V value = from.get(itemset);
+		if (value != null) {
+			to.put(itemset, value);
+		}
+	}
 }
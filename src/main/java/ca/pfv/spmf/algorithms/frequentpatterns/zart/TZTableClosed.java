@@ -77,4 +77,38 @@ public class TZTableClosed {
 		// return the list of itemsets (empty or not)
 		return levels.get(i + 1);
 	}
+
+	/**
+	 * Get the closed itemsets of this table that have a support no less than a
+	 * given threshold, with their generators. Since the closure of an itemset
+	 * and its generators do not depend on the minimum support threshold, the
+	 * result is the same as running Zart with that (higher) threshold. The
+	 * itemsets are shared with this table, not copied.
+	 * 
+	 * @param minsupRelative the minimum support, as a number of transactions
+	 * @return a new table
+	 */
+	public TZTableClosed filter(int minsupRelative) {
+		TZTableClosed filtered = new TZTableClosed();
+		// Like Zart, if no item is frequent, the result is empty (even the empty set
+		// is not output). If an item is frequent, its closure is a frequent closed
+		// itemset, so it is enough to check the closed itemsets of size >= 1.
+		boolean hasFrequentItem = false;
+		// for each level
+		for (List<Itemset> level : levels) {
+			List<Itemset> filteredLevel = new ArrayList<Itemset>();
+			// keep the closed itemsets that are still frequent, with their generators
+			for (Itemset closed : level) {
+				if (closed.getAbsoluteSupport() >= minsupRelative) {
+					filteredLevel.add(closed);
+					filtered.mapGenerators.put(closed, mapGenerators.get(closed));
+					if (closed.size() > 0) {
+						hasFrequentItem = true;
+					}
+				}
+			}
+			filtered.levels.add(filteredLevel);
+		}
+		return hasFrequentItem ? filtered : new TZTableClosed();
+	}
 }
@@ -0,0 +1,274 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP;
+
+/*
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+import java.io.IOException;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.creators.AbstractionCreator;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.database.SequenceDatabase;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.savers.Saver;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.savers.SaverIntoFile;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.savers.SaverIntoMemory;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.tries.Trie;
+import ca.pfv.spmf.tools.MemoryLogger;
+import ca.pfv.spmf.tools.MiningMetrics;
+
+/**
+ * This is an implementation of a vertical algorithm for sequential patterns in
+ * the style of SPAM and CM-SPADE, with the co-occurrence map (CMAP) pruning of
+ * CM-ClaSP (Fournier-Viger et al., 2014). It finds all the frequent patterns or
+ * only the closed ones. <br/>
+ * <br/>
+ *
+ * The search only uses the join of the IdLists of the database, so it works
+ * with any IdListCreator, but it is meant for IdListCreatorBitmap, whose joins
+ * are operations on bitmaps of itemsets. The database must be loaded with the
+ * same IdListCreator, for example:
+ *
+ * <pre>
+ * AbstractionCreator abstractionCreator = AbstractionCreator_Qualitative.getInstance();
+ * SequenceDatabase database = new SequenceDatabase(abstractionCreator, IdListCreatorBitmap.getInstance());
+ * double minSupAbsolute = database.loadFile(input, 0.5);
+ * AlgoCM_ClaSP algorithm = new AlgoCM_ClaSP(minSupAbsolute, abstractionCreator, true);
+ * algorithm.runAlgorithm(database, true, false, output, false);
+ * </pre>
+ *
+ * NOTE: This implementation saves the pattern to a file as soon as they are
+ * found (or after the post-processing step for the closed patterns) or can
+ * keep the pattern into memory if no output path is provided by the user.
+ */
+public class AlgoCM_ClaSP {
+
+	/**
+	 * The absolute minimum support threshold, i.e. the minimum number of
+	 * sequences where the patterns have to be
+	 */
+	protected double minSupAbsolute;
+	/**
+	 * Saver variable to decide where the user want to save the results, if it the
+	 * case
+	 */
+	Saver saver = null;
+	/**
+	 * Start and End points in order to calculate the overall time taken by the
+	 * algorithm
+	 */
+	protected long overallStart, overallEnd;
+	/**
+	 * Start and End points in order to calculate the time taken by the main part of
+	 * the algorithm
+	 */
+	protected long mainMethodStart, mainMethodEnd;
+	/**
+	 * Start and End points in order to calculate the time taken by the
+	 * post-processing method of the algorithm
+	 */
+	protected long postProcessingStart, postProcessingEnd;
+	/**
+	 * The abstraction creator
+	 */
+	private AbstractionCreator abstractionCreator;
+	/**
+	 * Number of frequent patterns found by the algorithm
+	 */
+	private int numberOfFrequentPatterns = 0;
+	/**
+	 * Number of joins of IdLists
+	 */
+	private int joinCount = 0;
+	/**
+	 * Number of candidates pruned by the co-occurrence maps
+	 */
+	private int prunedByCoocurrenceMaps = 0;
+	/**
+	 * Number of patterns not extended because a longer pattern with an equal
+	 * IdList contains them (only when the closed patterns are wanted)
+	 */
+	private int prunedBySuperpatterns = 0;
+	/**
+	 * flag to indicate if we are interesting in only finding the closed sequences
+	 */
+	private boolean findClosedPatterns;
+
+	/**
+	 * Standard constructor. It takes the absolute minimum support threshold (the
+	 * value returned by SequenceDatabase.loadFile()) and an abstraction creator
+	 *
+	 * @param minSupAbsolute     the absolute minimum support threshold
+	 * @param abstractionCreator the abstraction creator
+	 * @param findClosedPatterns flag to indicate if we are interesting in only
+	 *                           finding the closed sequences
+	 */
+	public AlgoCM_ClaSP(double minSupAbsolute, AbstractionCreator abstractionCreator, boolean findClosedPatterns) {
+		this.minSupAbsolute = minSupAbsolute;
+		this.abstractionCreator = abstractionCreator;
+		this.findClosedPatterns = findClosedPatterns;
+	}
+
+	/**
+	 * Method that starts the execution of the algorithm.
+	 *
+	 * @param database                  The original database
+	 * @param keepPatterns              Flag indicating if the user want to keep the
+	 *                                  frequent patterns or he just want the amount
+	 *                                  of them
+	 * @param verbose                   Flag for debugging purposes
+	 * @param outputFilePath            Path pointing out to the file where the
+	 *                                  output, composed of frequent patterns, has
+	 *                                  to be kept. If, conversely, this parameter
+	 *                                  is null, we understand that the user wants
+	 *                                  the output in the main memory
+	 * @param outputSequenceIdentifiers if true, sequence identifiers will be output
+	 *                                  for each pattern
+	 * @throws IOException
+	 */
+	public void runAlgorithm(SequenceDatabase database, boolean keepPatterns, boolean verbose, String outputFilePath,
+			boolean outputSequenceIdentifiers) throws IOException {
+		if (this.minSupAbsolute < 1) { // protection
+			this.minSupAbsolute = 1;
+		}
+		// reset the stats about memory usage
+		MemoryLogger.getInstance().reset();
+		MiningMetrics metrics = MiningMetrics.current();
+		// keeping the starting time
+		overallStart = System.currentTimeMillis();
+		// If we do no have any file path
+		if (outputFilePath == null) {
+			// The user wants to save the results in memory
+			saver = new SaverIntoMemory(outputSequenceIdentifiers);
+		} else {
+			// Otherwise, the user wants to save them in the given file
+			saver = new SaverIntoFile(outputFilePath, outputSequenceIdentifiers);
+		}
+
+		// The frequent items, with their IdLists, in ascending order
+		Trie frequentItems = database.frequentItems();
+
+		FrequentPatternEnumeration_CMClaSP algorithm = new FrequentPatternEnumeration_CMClaSP(abstractionCreator,
+				(int) minSupAbsolute, saver, keepPatterns, findClosedPatterns);
+
+		MiningMetrics.Phase phase = metrics.startPhase("mining");
+		mainMethodStart = System.currentTimeMillis();
+		// We execute the search
+		algorithm.execute(frequentItems, database.getSequences());
+		mainMethodEnd = System.currentTimeMillis();
+		phase.end();
+
+		numberOfFrequentPatterns = algorithm.numberOfFrequentPatterns();
+		joinCount = algorithm.getJoinCount();
+		prunedByCoocurrenceMaps = algorithm.getPrunedByCoocurrenceMaps();
+		prunedBySuperpatterns = algorithm.getPrunedBySuperpatterns();
+
+		// check the memory usage for statistics
+		MemoryLogger.getInstance().checkMemory();
+
+		if (verbose) {
+			System.out.println("CM-ClaSP: The algorithm takes " + (mainMethodEnd - mainMethodStart) / 1000
+					+ " seconds and finds " + numberOfFrequentPatterns + " patterns");
+		}
+		// If the we are interested in closed patterns, we execute the post-processing
+		// step
+		if (findClosedPatterns) {
+			phase = metrics.startPhase("post-processing");
+			postProcessingStart = System.currentTimeMillis();
+			algorithm.removeNonClosedPatterns();
+			postProcessingEnd = System.currentTimeMillis();
+			phase.end();
+
+			numberOfFrequentPatterns = algorithm.numberOfFrequentPatterns();
+			if (verbose) {
+				System.out.println("CM-ClaSP: The post-processing algorithm to remove the non-Closed patterns takes "
+						+ (postProcessingEnd - postProcessingStart) / 1000 + " seconds and finds "
+						+ numberOfFrequentPatterns + " Closed patterns");
+			}
+		}
+		algorithm.clear();
+
+		// keeping the ending time
+		overallEnd = System.currentTimeMillis();
+		// Search for frequent patterns: Finished
+		saver.finish();
+	}
+
+	/**
+	 * Method to get the outlined information about the search for frequent
+	 * sequences by means of the algorithm as a string
+	 *
+	 * @return a string containing this information
+	 */
+	public String printStatistics() {
+		StringBuilder sb = new StringBuilder(200);
+		sb.append("=============  Algorithm - STATISTICS =============\n Total time ~ ");
+		sb.append(getRunningTime());
+		sb.append(" ms\n");
+		sb.append(" Frequent sequences count : ");
+		sb.append(numberOfFrequentPatterns);
+		sb.append('\n');
+		sb.append(" Join count : ");
+		sb.append(joinCount);
+		sb.append('\n');
+		sb.append(" Candidates pruned by the co-occurrence maps : ");
+		sb.append(prunedByCoocurrenceMaps);
+		sb.append('\n');
+		if (findClosedPatterns) {
+			sb.append(" Patterns not extended because of a superpattern : ");
+			sb.append(prunedBySuperpatterns);
+			sb.append('\n');
+		}
+		sb.append(" Max memory (mb):");
+		sb.append(MemoryLogger.getInstance().getMaxMemory());
+		sb.append('\n');
+		sb.append(saver.print());
+		sb.append('\n');
+		sb.append("\n===================================================\n");
+		return sb.toString();
+	}
+
+	public int getNumberOfFrequentPatterns() {
+		return numberOfFrequentPatterns;
+	}
+
+	/**
+	 * It gets the total time spent by the algoritm in its execution.
+	 *
+	 * @return the time
+	 */
+	public long getRunningTime() {
+		return (overallEnd - overallStart);
+	}
+
+	/**
+	 * It gets the absolute minimum support, i.e. the minimum number of database
+	 * sequences where a pattern has to appear
+	 *
+	 * @return the minimum support
+	 */
+	public double getAbsoluteMinSupport() {
+		return minSupAbsolute;
+	}
+
+	/**
+	 * It clears all the attributes of AlgoCM_ClaSP class
+	 */
+	public void clear() {
+		if (saver != null) {
+			saver.clear();
+			saver = null;
+		}
+		abstractionCreator = null;
+	}
+}
@@ -0,0 +1,476 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.Itemset;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.Sequence;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.abstracciones.Abstraction_Qualitative;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.abstracciones.ItemAbstractionPair;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.creators.AbstractionCreator;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.creators.ItemAbstractionPairCreator;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.patterns.Pattern;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.patterns.PatternCreator;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.idlists.IDList;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.savers.Saver;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.tries.Trie;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.tries.TrieNode;
+import ca.pfv.spmf.tools.MiningMetrics;
+import ca.pfv.spmf.tools.MiningMetrics.Counter;
+
+/**
+ * Class that implements the depth-first search of CM-ClaSP. It is a vertical
+ * search, as in SPAM: a pattern is extended by S-steps (the item is added in a
+ * new itemset) and by I-steps (the item is added to the last itemset), and the
+ * IdList of an extension is the join of the IdList of the pattern with the
+ * IdList of the item. The candidates of the extensions of a pattern are the
+ * S-extensions of its parent, so that the infrequent items are not joined
+ * again deeper in the search. <br/>
+ * <br/>
+ *
+ * Before the search, the co-occurrence maps (CMAP) count, for each pair of
+ * items (x, y), the sequences where y appears after x and the sequences where
+ * x and y appear in a same itemset. A candidate y of a pattern whose last item
+ * is x is pruned without any join if the pair (x, y) is not frequent. <br/>
+ * <br/>
+ *
+ * If only the closed patterns are wanted, the frequent patterns are kept in
+ * memory, grouped by the sequences where they appear, and the non-closed
+ * patterns are removed at the end, as in CloSpan. During the search, a pattern
+ * that is contained in a longer pattern already found with an equal IdList is
+ * not extended, as in the pruning of ClaSP: the IdLists of their extensions by
+ * the same items are equal too, so every extension of the pattern is contained
+ * in an extension of the longer one with the same support, and is not closed.
+ * The IdLists are compared with equals(), so this pruning only happens with
+ * IdLists that compare their contents, such as IDListBitmap.
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+public class FrequentPatternEnumeration_CMClaSP {
+
+	/**
+	 * The abstraction creator.
+	 */
+	private AbstractionCreator abstractionCreator;
+	/**
+	 * The absolute minimum support threshold, i.e. the minimum number of
+	 * sequences where the patterns have to be.
+	 */
+	private int minSupAbsolute;
+	/**
+	 * Saver variable to decide where the user want to save the results, if it the
+	 * case.
+	 */
+	private Saver saver;
+	/**
+	 * Flag indicating if the user want to keep the frequent patterns.
+	 */
+	private boolean keepPatterns;
+	/**
+	 * Flag indicating if we are interested in only finding the closed sequences.
+	 */
+	private boolean findClosedPatterns;
+	/**
+	 * For each item x, the number of sequences where each item y appears after x.
+	 */
+	private Map<Integer, Map<Integer, Integer>> coocMapAfter = new HashMap<Integer, Map<Integer, Integer>>();
+	/**
+	 * For each item x, the number of sequences where each item y greater than x
+	 * appears in a same itemset as x.
+	 */
+	private Map<Integer, Map<Integer, Integer>> coocMapEquals = new HashMap<Integer, Map<Integer, Integer>>();
+	/**
+	 * The frequent patterns with their IdLists, grouped by the sequences where
+	 * they appear, when only the closed patterns are wanted.
+	 */
+	private Map<BitSet, List<Entry<Pattern, IDList>>> patternsBySequences = new HashMap<BitSet, List<Entry<Pattern, IDList>>>();
+	/**
+	 * Number of frequent patterns found by the algorithm.
+	 */
+	private int numberOfFrequentPatterns = 0;
+	/**
+	 * Number of joins of IdLists.
+	 */
+	private int joinCount = 0;
+	/**
+	 * Number of candidates pruned by the co-occurrence maps.
+	 */
+	private int prunedByCoocurrenceMaps = 0;
+	/**
+	 * Number of candidates that were joined but are not frequent.
+	 */
+	private int infrequentCount = 0;
+	/**
+	 * Number of patterns not extended because a longer pattern with an equal
+	 * IdList contains them.
+	 */
+	private int prunedBySuperpatterns = 0;
+
+	/**
+	 * Standard constructor.
+	 *
+	 * @param abstractionCreator the abstraction creator
+	 * @param minSupAbsolute     the absolute minimum support
+	 * @param saver              the saver where the patterns are saved
+	 * @param keepPatterns       flag indicating if the user want to keep the
+	 *                           frequent patterns
+	 * @param findClosedPatterns flag indicating if we are interested in only
+	 *                           finding the closed sequences
+	 */
+	public FrequentPatternEnumeration_CMClaSP(AbstractionCreator abstractionCreator, int minSupAbsolute, Saver saver,
+			boolean keepPatterns, boolean findClosedPatterns) {
+		this.abstractionCreator = abstractionCreator;
+		this.minSupAbsolute = minSupAbsolute;
+		this.saver = saver;
+		this.keepPatterns = keepPatterns;
+		this.findClosedPatterns = findClosedPatterns;
+	}
+
+	/**
+	 * Execution of the search of frequent patterns.
+	 *
+	 * @param frequentItems the trie of the frequent items, in ascending order,
+	 *                      with their IdLists
+	 * @param sequences     the sequences of the database, without the infrequent
+	 *                      items
+	 */
+	public void execute(Trie frequentItems, List<Sequence> sequences) {
+		buildCoocurrenceMaps(sequences);
+		List<TrieNode> items = frequentItems.getNodes();
+		for (int i = 0; i < items.size(); i++) {
+			TrieNode node = items.get(i);
+			IDList idList = node.getChild().getIdList();
+			Pattern pattern = PatternCreator.getInstance().createPattern(node.getPair());
+			if (savePattern(pattern, idList)) {
+				// The I-extensions of an item are the items greater than it
+				dfs(pattern, itemOf(node), idList, items, items.subList(i + 1, items.size()));
+			}
+		}
+		MiningMetrics metrics = MiningMetrics.current();
+		metrics.add(Counter.CANDIDATES_GENERATED, joinCount + prunedByCoocurrenceMaps);
+		metrics.add(Counter.CANDIDATES_PRUNED, infrequentCount + prunedByCoocurrenceMaps);
+		metrics.add(Counter.PROJECTIONS_BUILT, joinCount);
+		if (!findClosedPatterns) {
+			metrics.add(Counter.PATTERNS_EMITTED, numberOfFrequentPatterns);
+		}
+	}
+
+	/**
+	 * It counts the pairs of items of the co-occurrence maps. A pair is only
+	 * counted once for each sequence. The items appearing after an item are only
+	 * counted for its first itemset, since they include the items appearing after
+	 * its other itemsets.
+	 *
+	 * @param sequences the sequences of the database
+	 */
+	private void buildCoocurrenceMaps(List<Sequence> sequences) {
+		for (Sequence sequence : sequences) {
+			Set<Integer> alreadySeen = new HashSet<Integer>();
+			Set<Long> alreadyCountedAfter = new HashSet<Long>();
+			Set<Long> alreadyCountedEquals = new HashSet<Long>();
+			for (int i = 0; i < sequence.size(); i++) {
+				Itemset itemset = sequence.get(i);
+				for (int j = 0; j < itemset.size(); j++) {
+					int item = (Integer) itemset.get(j).getId();
+					for (int k = j + 1; k < itemset.size(); k++) {
+						int other = (Integer) itemset.get(k).getId();
+						count(coocMapEquals, Math.min(item, other), Math.max(item, other), alreadyCountedEquals);
+					}
+					if (alreadySeen.add(item)) {
+						for (int m = i + 1; m < sequence.size(); m++) {
+							Itemset nextItemset = sequence.get(m);
+							for (int k = 0; k < nextItemset.size(); k++) {
+								count(coocMapAfter, item, (Integer) nextItemset.get(k).getId(), alreadyCountedAfter);
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * It increases the count of a pair of items in a co-occurrence map, if it was
+	 * not counted yet for the current sequence.
+	 *
+	 * @param coocMap        the co-occurrence map
+	 * @param item           the first item
+	 * @param other          the second item
+	 * @param alreadyCounted the pairs already counted for the current sequence
+	 */
+	private static void count(Map<Integer, Map<Integer, Integer>> coocMap, int item, int other,
+			Set<Long> alreadyCounted) {
+		if (alreadyCounted.add(((long) item << 32) | (other & 0xFFFFFFFFL))) {
+			Map<Integer, Integer> counts = coocMap.get(item);
+			if (counts == null) {
+				counts = new HashMap<Integer, Integer>();
+				coocMap.put(item, counts);
+			}
+			Integer support = counts.get(other);
+			counts.put(other, support == null ? 1 : support + 1);
+		}
+	}
+
+	/**
+	 * It checks in a co-occurrence map if a pair of items is frequent.
+	 *
+	 * @param counts the counts of the first item in the co-occurrence map
+	 * @param other  the second item
+	 * @return true if the pair is frequent, otherwise false
+	 */
+	private boolean isFrequent(Map<Integer, Integer> counts, int other) {
+		if (counts == null) {
+			return false;
+		}
+		Integer support = counts.get(other);
+		return support != null && support >= minSupAbsolute;
+	}
+
+	/**
+	 * The depth-first search of the extensions of a pattern.
+	 *
+	 * @param pattern     the pattern
+	 * @param lastItem    the last item of the pattern
+	 * @param idList      the IdList of the pattern
+	 * @param sCandidates the candidate items of the S-steps
+	 * @param iCandidates the candidate items of the I-steps, all greater than the
+	 *                    last item
+	 */
+	private void dfs(Pattern pattern, int lastItem, IDList idList, List<TrieNode> sCandidates,
+			List<TrieNode> iCandidates) {
+		// We keep the frequent S-extensions and I-extensions with their IdLists
+		List<TrieNode> sExtensions = new ArrayList<TrieNode>();
+		List<IDList> sIdLists = new ArrayList<IDList>();
+		Map<Integer, Integer> countsAfter = coocMapAfter.get(lastItem);
+		for (TrieNode candidate : sCandidates) {
+			if (!isFrequent(countsAfter, itemOf(candidate))) {
+				prunedByCoocurrenceMaps++;
+				continue;
+			}
+			IDList newIdList = join(idList, candidate, false);
+			if (newIdList != null) {
+				sExtensions.add(candidate);
+				sIdLists.add(newIdList);
+			}
+		}
+		List<TrieNode> iExtensions = new ArrayList<TrieNode>();
+		List<IDList> iIdLists = new ArrayList<IDList>();
+		Map<Integer, Integer> countsEquals = coocMapEquals.get(lastItem);
+		for (TrieNode candidate : iCandidates) {
+			if (!isFrequent(countsEquals, itemOf(candidate))) {
+				prunedByCoocurrenceMaps++;
+				continue;
+			}
+			IDList newIdList = join(idList, candidate, true);
+			if (newIdList != null) {
+				iExtensions.add(candidate);
+				iIdLists.add(newIdList);
+			}
+		}
+
+		for (int i = 0; i < sExtensions.size(); i++) {
+			TrieNode extension = sExtensions.get(i);
+			Pattern newPattern = extend(pattern, extension, false);
+			if (savePattern(newPattern, sIdLists.get(i))) {
+				dfs(newPattern, itemOf(extension), sIdLists.get(i), sExtensions,
+						sExtensions.subList(i + 1, sExtensions.size()));
+			}
+		}
+		for (int i = 0; i < iExtensions.size(); i++) {
+			TrieNode extension = iExtensions.get(i);
+			Pattern newPattern = extend(pattern, extension, true);
+			if (savePattern(newPattern, iIdLists.get(i))) {
+				dfs(newPattern, itemOf(extension), iIdLists.get(i), sExtensions,
+						iExtensions.subList(i + 1, iExtensions.size()));
+			}
+		}
+	}
+
+	/**
+	 * It joins the IdList of a pattern with the IdList of an item.
+	 *
+	 * @param idList the IdList of the pattern
+	 * @param item   the node of the item
+	 * @param equals true for an I-step, false for an S-step
+	 * @return the IdList of the extension, or null if it is not frequent
+	 */
+	private IDList join(IDList idList, TrieNode item, boolean equals) {
+		joinCount++;
+		IDList newIdList = idList.join(item.getChild().getIdList(), equals, minSupAbsolute);
+		if (newIdList.getSupport() < minSupAbsolute) {
+			infrequentCount++;
+			return null;
+		}
+		return newIdList;
+	}
+
+	/**
+	 * It creates the extension of a pattern with an item.
+	 *
+	 * @param pattern the pattern
+	 * @param item    the node of the item
+	 * @param equals  true if the item is added to the last itemset, false if it is
+	 *                added in a new itemset
+	 * @return the new pattern
+	 */
+	private Pattern extend(Pattern pattern, TrieNode item, boolean equals) {
+		ItemAbstractionPair pair = ItemAbstractionPairCreator.getInstance()
+				.getItemAbstractionPair(item.getPair().getItem(), Abstraction_Qualitative.create(equals));
+		return PatternCreator.getInstance().concatenate(pattern, pair);
+	}
+
+	/**
+	 * It saves a frequent pattern, or keeps it for the post-processing step if
+	 * only the closed patterns are wanted. In that case, the pattern is dropped if
+	 * a longer pattern already found with an equal IdList contains it.
+	 *
+	 * @param pattern the pattern
+	 * @param idList  its IdList
+	 * @return true if the extensions of the pattern have to be explored, false if
+	 *         they cannot be closed
+	 */
+	private boolean savePattern(Pattern pattern, IDList idList) {
+		numberOfFrequentPatterns++;
+		if (findClosedPatterns) {
+			idList.setAppearingIn(pattern);
+			List<Entry<Pattern, IDList>> patterns = patternsBySequences.get(pattern.getAppearingIn());
+			if (patterns == null) {
+				patterns = new ArrayList<Entry<Pattern, IDList>>();
+				patternsBySequences.put(pattern.getAppearingIn(), patterns);
+			} else {
+				for (Entry<Pattern, IDList> entry : patterns) {
+					Pattern other = entry.getKey();
+					if (other.size() > pattern.size() && idList.equals(entry.getValue())
+							&& pattern.isSubpattern(abstractionCreator, other)) {
+						prunedBySuperpatterns++;
+						return false;
+					}
+				}
+			}
+			patterns.add(new AbstractMap.SimpleEntry<Pattern, IDList>(pattern, idList));
+		} else if (keepPatterns) {
+			idList.setAppearingIn(pattern);
+			saver.savePattern(pattern);
+		}
+		return true;
+	}
+
+	/**
+	 * It removes the non-closed patterns from the frequent patterns, and saves
+	 * the closed ones. A pattern is not closed if a longer pattern appearing in
+	 * the same sequences contains it, so only the patterns of a same group are
+	 * compared.
+	 */
+	public void removeNonClosedPatterns() {
+		numberOfFrequentPatterns = 0;
+		for (List<Entry<Pattern, IDList>> patterns : patternsBySequences.values()) {
+			for (Entry<Pattern, IDList> entry : patterns) {
+				Pattern pattern = entry.getKey();
+				if (isClosed(pattern, patterns)) {
+					numberOfFrequentPatterns++;
+					if (keepPatterns) {
+						saver.savePattern(pattern);
+					}
+				}
+			}
+		}
+		patternsBySequences.clear();
+		MiningMetrics.current().add(Counter.PATTERNS_EMITTED, numberOfFrequentPatterns);
+	}
+
+	/**
+	 * It checks if a pattern is closed among the patterns of its group.
+	 *
+	 * @param pattern  the pattern
+	 * @param patterns the patterns appearing in the same sequences
+	 * @return true if no longer pattern of the group contains it
+	 */
+	private boolean isClosed(Pattern pattern, List<Entry<Pattern, IDList>> patterns) {
+		for (Entry<Pattern, IDList> entry : patterns) {
+			Pattern other = entry.getKey();
+			if (other.size() > pattern.size() && pattern.isSubpattern(abstractionCreator, other)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Get the item of a node of the trie of frequent items.
+	 *
+	 * @param node the node
+	 * @return the item
+	 */
+	private static int itemOf(TrieNode node) {
+		return (Integer) node.getPair().getItem().getId();
+	}
+
+	/**
+	 * It returns the number of frequent patterns found by the last execution of
+	 * the algorithm (or the number of closed patterns after the post-processing
+	 * step).
+	 *
+	 * @return the number of patterns
+	 */
+	public int numberOfFrequentPatterns() {
+		return numberOfFrequentPatterns;
+	}
+
+	/**
+	 * It returns the number of joins of IdLists.
+	 *
+	 * @return the number of joins
+	 */
+	public int getJoinCount() {
+		return joinCount;
+	}
+
+	/**
+	 * It returns the number of candidates pruned by the co-occurrence maps,
+	 * without any join.
+	 *
+	 * @return the number of candidates
+	 */
+	public int getPrunedByCoocurrenceMaps() {
+		return prunedByCoocurrenceMaps;
+	}
+
+	/**
+	 * It returns the number of patterns that were not extended because a longer
+	 * pattern with an equal IdList contains them.
+	 *
+	 * @return the number of patterns
+	 */
+	public int getPrunedBySuperpatterns() {
+		return prunedBySuperpatterns;
+	}
+
+	/**
+	 * It clears the attributes of this class.
+	 */
+	public void clear() {
+		coocMapAfter.clear();
+		coocMapEquals.clear();
+		patternsBySequences.clear();
+	}
+}
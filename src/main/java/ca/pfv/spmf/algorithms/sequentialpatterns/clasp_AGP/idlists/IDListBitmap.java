@@ -0,0 +1,439 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.idlists;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.patterns.Pattern;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.tries.Trie;
+
+/**
+ * Vertical IdList where the appearances of a pattern in a sequence are kept as
+ * a bitmap of itemsets (one bit for each itemset timestamp), as in SPAM. Only
+ * the sequences where the pattern appears have a bitmap (a block of long
+ * words), and the blocks are stored one after the other in a single array of
+ * longs, in the order of the sequence identifiers. <br/>
+ * <br/>
+ * The join of two IdLists goes through the sequences of both lists in order,
+ * and for each common sequence:
+ * <ul>
+ * <li>the S-step (after relation) keeps the bits of the item that are after the
+ * first bit of the prefix, with a mask computed from the position of the first
+ * bit,</li>
+ * <li>the I-step (equal relation) is a AND of the two bitmaps.</li>
+ * </ul>
+ * The join stops as soon as the remaining sequences cannot reach the minimum
+ * support, so the IdList that it returns is incomplete when its support is
+ * lower than the minimum support.<br/>
+ * <br/>
+ * Two IdLists are equal if they have the same bitmaps for the same sequences.
+ * The positions of the items inside the itemsets are not kept, so the item
+ * index of the positions returned by appearingInMap() is always 0, and the
+ * number of elements after the prefixes (used by the pruning methods of ClaSP)
+ * is not computed. The appearances must be added in ascending order of the
+ * sequence identifiers.
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+public class IDListBitmap implements IDList {
+
+	/**
+	 * The identifiers of the sequences where the pattern appears, in ascending
+	 * order.
+	 */
+	private int[] sequences;
+	/**
+	 * The index of the first word of the bitmap of each sequence. The bitmap of
+	 * the sequence i goes from blockStarts[i] to blockStarts[i + 1].
+	 */
+	private int[] blockStarts;
+	/**
+	 * The bitmaps of all the sequences.
+	 */
+	private long[] words;
+	/**
+	 * The number of sequences where the pattern appears.
+	 */
+	private int size = 0;
+	private int totalElementsAfterPrefixes = 0;
+
+	/**
+	 * Standard constructor
+	 */
+	public IDListBitmap() {
+		this(4, 4);
+	}
+
+	/**
+	 * Constructor of an empty IdList with a given capacity
+	 *
+	 * @param sequenceCapacity the number of sequences that can be kept before
+	 *                         the arrays grow
+	 * @param wordCapacity     the number of words that can be kept before the
+	 *                         arrays grow
+	 */
+	private IDListBitmap(int sequenceCapacity, int wordCapacity) {
+		sequences = new int[Math.max(1, sequenceCapacity)];
+		blockStarts = new int[sequences.length + 1];
+		words = new long[Math.max(1, wordCapacity)];
+	}
+
+	@Override
+	public IDList join(IDList idList, boolean equals, int minSupport) {
+		IDListBitmap other = (IDListBitmap) idList;
+		// The result has at most the sequences of the shortest IdList, and most
+		// bitmaps have a single word
+		int capacity = Math.min(size, other.size);
+		IDListBitmap result = new IDListBitmap(capacity, capacity);
+		int i = 0;
+		int j = 0;
+		// We go through the sequences of both IdLists as in a merge, skipping the
+		// sequences of the longest one by exponential search
+		while (i < size && j < other.size) {
+			// We stop if the remaining sequences cannot make the result frequent
+			if (result.size + Math.min(size - i, other.size - j) < minSupport) {
+				break;
+			}
+			if (sequences[i] < other.sequences[j]) {
+				i = search(sequences, i + 1, size, other.sequences[j]);
+			} else if (sequences[i] > other.sequences[j]) {
+				j = search(other.sequences, j + 1, other.size, sequences[i]);
+			} else {
+				if (equals) {
+					result.equalOperation(sequences[i], words, blockStarts[i], blockStarts[i + 1], other.words,
+							other.blockStarts[j], other.blockStarts[j + 1]);
+				} else {
+					result.laterOperation(sequences[i], words, blockStarts[i], blockStarts[i + 1], other.words,
+							other.blockStarts[j], other.blockStarts[j + 1]);
+				}
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * It searches the first sequence identifier that is equal to or greater than
+	 * a given one, by exponential search and then binary search, so that the
+	 * join of a short IdList with a long one does not go through all the
+	 * sequences of the long one.
+	 *
+	 * @param sequences the sequence identifiers, in ascending order
+	 * @param from      the first index where the search starts
+	 * @param to        the end of the sequence identifiers
+	 * @param sid       the sequence identifier to search
+	 * @return the index of the first sequence identifier equal to or greater than
+	 *         sid, or to if there is none
+	 */
+	private static int search(int[] sequences, int from, int to, int sid) {
+		int step = 1;
+		int low = from;
+		int high = from;
+		while (high < to && sequences[high] < sid) {
+			low = high + 1;
+			high += step;
+			step <<= 1;
+		}
+		if (high > to) {
+			high = to;
+		}
+		// The index is between low and high
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (sequences[middle] < sid) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * It adds to this IdList the bitmap of a sequence for an after relation: the
+	 * itemsets of the item that are after the first itemset of the prefix.
+	 *
+	 * @param sid         the sequence identifier
+	 * @param prefix      the words of the prefix
+	 * @param prefixStart the first word of the bitmap of the prefix
+	 * @param prefixEnd   the end of the bitmap of the prefix
+	 * @param item        the words of the item
+	 * @param itemStart   the first word of the bitmap of the item
+	 * @param itemEnd     the end of the bitmap of the item
+	 */
+	private void laterOperation(int sid, long[] prefix, int prefixStart, int prefixEnd, long[] item, int itemStart,
+			int itemEnd) {
+		// We search the first itemset where the prefix appears
+		int first = prefixStart;
+		while (first < prefixEnd && prefix[first] == 0) {
+			first++;
+		}
+		if (first == prefixEnd) {
+			return;
+		}
+		int firstWord = first - prefixStart;
+		int firstBit = Long.numberOfTrailingZeros(prefix[first]);
+		if (firstWord >= itemEnd - itemStart) {
+			return;
+		}
+		// The bits before the first word are removed, and the bits of the first
+		// word up to the first bit too (-2L << 63 is 0)
+		int start = beginSequence(sid, itemEnd - itemStart);
+		for (int k = 0; k < firstWord; k++) {
+			words[start + k] = 0L;
+		}
+		int length = 0;
+		long word = item[itemStart + firstWord] & (-2L << firstBit);
+		words[start + firstWord] = word;
+		if (word != 0) {
+			length = firstWord + 1;
+		}
+		for (int k = firstWord + 1; k < itemEnd - itemStart; k++) {
+			word = item[itemStart + k];
+			words[start + k] = word;
+			if (word != 0) {
+				length = k + 1;
+			}
+		}
+		endSequence(start, length);
+	}
+
+	/**
+	 * It adds to this IdList the bitmap of a sequence for an equal relation: the
+	 * itemsets where both the prefix and the item appear.
+	 *
+	 * @param sid         the sequence identifier
+	 * @param prefix      the words of the prefix
+	 * @param prefixStart the first word of the bitmap of the prefix
+	 * @param prefixEnd   the end of the bitmap of the prefix
+	 * @param item        the words of the item
+	 * @param itemStart   the first word of the bitmap of the item
+	 * @param itemEnd     the end of the bitmap of the item
+	 */
+	private void equalOperation(int sid, long[] prefix, int prefixStart, int prefixEnd, long[] item, int itemStart,
+			int itemEnd) {
+		int wordCount = Math.min(prefixEnd - prefixStart, itemEnd - itemStart);
+		int start = beginSequence(sid, wordCount);
+		int length = 0;
+		for (int k = 0; k < wordCount; k++) {
+			long word = prefix[prefixStart + k] & item[itemStart + k];
+			words[start + k] = word;
+			if (word != 0) {
+				length = k + 1;
+			}
+		}
+		endSequence(start, length);
+	}
+
+	/**
+	 * It reserves the words of the bitmap of a new sequence at the end of this
+	 * IdList. The sequence is only kept if endSequence() is called with a non-zero
+	 * length.
+	 *
+	 * @param sid       the sequence identifier
+	 * @param wordCount the maximum number of words of the bitmap
+	 * @return the index of the first word of the bitmap
+	 */
+	private int beginSequence(int sid, int wordCount) {
+		if (size == sequences.length) {
+			int[] newSequences = new int[size * 2];
+			int[] newBlockStarts = new int[size * 2 + 1];
+			System.arraycopy(sequences, 0, newSequences, 0, size);
+			System.arraycopy(blockStarts, 0, newBlockStarts, 0, size + 1);
+			sequences = newSequences;
+			blockStarts = newBlockStarts;
+		}
+		int start = blockStarts[size];
+		if (start + wordCount > words.length) {
+			long[] newWords = new long[Math.max(start + wordCount, words.length * 2)];
+			System.arraycopy(words, 0, newWords, 0, words.length);
+			words = newWords;
+		}
+		sequences[size] = sid;
+		return start;
+	}
+
+	/**
+	 * It keeps the bitmap of the sequence started by beginSequence(), if it is
+	 * not empty.
+	 *
+	 * @param start  the index of the first word of the bitmap
+	 * @param length the number of words of the bitmap, without the empty words at
+	 *               the end
+	 */
+	private void endSequence(int start, int length) {
+		if (length > 0) {
+			blockStarts[size + 1] = start + length;
+			size++;
+		}
+	}
+
+	@Override
+	public int getSupport() {
+		return size;
+	}
+
+	/**
+	 * It adds an appearance <sid, itemset timestamp> to this IdList. The
+	 * sequence identifier must be equal to or greater than the one of the last
+	 * appearance.
+	 *
+	 * @param sequence the sequence identifier
+	 * @param itemset  the itemset timestamp
+	 */
+	public void addAppearance(int sequence, int itemset) {
+		int wordIndex = itemset >>> 6;
+		int start;
+		int length;
+		if (size > 0 && sequences[size - 1] == sequence) {
+			start = blockStarts[size - 1];
+			length = blockStarts[size] - start;
+			size--;
+		} else if (size > 0 && sequences[size - 1] > sequence) {
+			throw new IllegalArgumentException("The appearances must be added in ascending order of the sequences");
+		} else {
+			start = blockStarts[size];
+			length = 0;
+		}
+		int newLength = Math.max(length, wordIndex + 1);
+		beginSequence(sequence, newLength);
+		for (int k = length; k < newLength; k++) {
+			words[start + k] = 0L;
+		}
+		words[start + wordIndex] |= 1L << (itemset & 63);
+		endSequence(start, newLength);
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if (this == object) {
+			return true;
+		}
+		if (!(object instanceof IDListBitmap)) {
+			return false;
+		}
+		IDListBitmap other = (IDListBitmap) object;
+		if (size != other.size || blockStarts[size] != other.blockStarts[other.size]) {
+			return false;
+		}
+		// The bitmaps have no empty word at the end, so equal bitmaps have the
+		// same number of words
+		for (int i = 0; i < size; i++) {
+			if (sequences[i] != other.sequences[i] || blockStarts[i + 1] != other.blockStarts[i + 1]) {
+				return false;
+			}
+		}
+		for (int k = 0; k < blockStarts[size]; k++) {
+			if (words[k] != other.words[k]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = size;
+		for (int i = 0; i < size; i++) {
+			hash = 31 * hash + sequences[i];
+		}
+		for (int k = 0; k < blockStarts[size]; k++) {
+			hash = 31 * hash + Long.hashCode(words[k]);
+		}
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < size; i++) {
+			result.append("\t").append(sequences[i]).append(" {");
+			for (int k = blockStarts[i]; k < blockStarts[i + 1]; k++) {
+				long word = words[k];
+				while (word != 0) {
+					result.append(((k - blockStarts[i]) << 6) + Long.numberOfTrailingZeros(word)).append(",");
+					word &= word - 1;
+				}
+			}
+			result.deleteCharAt(result.length() - 1);
+			result.append("}\n");
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Get the set of the sequences where the pattern appears.
+	 *
+	 * @return the bitset of the sequence identifiers
+	 */
+	private BitSet sequenceSet() {
+		BitSet result = new BitSet(size > 0 ? sequences[size - 1] + 1 : 0);
+		for (int i = 0; i < size; i++) {
+			result.set(sequences[i]);
+		}
+		return result;
+	}
+
+	@Override
+	public void setAppearingIn(Trie trie) {
+		trie.setAppearingIn(sequenceSet());
+	}
+
+	@Override
+	public void setAppearingIn(Pattern pattern) {
+		pattern.setAppearingIn(sequenceSet());
+	}
+
+	@Override
+	public void clear() {
+		size = 0;
+	}
+
+	@Override
+	public Map<Integer, List<Position>> appearingInMap() {
+		Map<Integer, List<Position>> result = new HashMap<Integer, List<Position>>(size);
+		for (int i = 0; i < size; i++) {
+			List<Position> positions = new ArrayList<Position>();
+			for (int k = blockStarts[i]; k < blockStarts[i + 1]; k++) {
+				long word = words[k];
+				while (word != 0) {
+					positions.add(new Position(((k - blockStarts[i]) << 6) + Long.numberOfTrailingZeros(word), 0));
+					word &= word - 1;
+				}
+			}
+			result.put(sequences[i], positions);
+		}
+		return result;
+	}
+
+	@Override
+	public int getTotalElementsAfterPrefixes() {
+		return totalElementsAfterPrefixes;
+	}
+
+	@Override
+	public void setTotalElementsAfterPrefixes(int i) {
+		this.totalElementsAfterPrefixes = i;
+	}
+
+	@Override
+	public void SetOriginalSequenceLengths(Map<Integer, Integer> map) {
+		// the lengths of the sequences are not used by the bitmaps
+	}
+}
@@ -0,0 +1,437 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.idlists;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.patterns.Pattern;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.tries.Trie;
+
+/**
+ * IdList with the same content as IDListStandard_Map, but kept in arrays of
+ * primitives instead of a map of lists of Position objects. The identifiers of
+ * the sequences are kept in ascending order, and the positions of each
+ * sequence are a run of longs, where a position is the itemset index in the
+ * high 32 bits and the item index in the low 32 bits, in ascending order.
+ * <br/>
+ * <br/>
+ * The joins go through the sequences of both IdLists as in a merge, and then
+ * through the positions of each common sequence as in a merge. They write the
+ * result in buffers that are reused by all the joins of a thread, and only
+ * allocate the arrays of the result if it is frequent. A join stops as soon as
+ * the remaining sequences cannot reach the minimum support, and then returns
+ * an empty IdList.
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+public class IDListPositions implements IDList {
+
+	private static final int[] NO_SEQUENCES = new int[0];
+	private static final int[] NO_STARTS = new int[1];
+	private static final long[] NO_POSITIONS = new long[0];
+
+	/**
+	 * The buffers where the joins of each thread write their result.
+	 */
+	private static final ThreadLocal<IDListPositions> buffers = new ThreadLocal<IDListPositions>() {
+		@Override
+		protected IDListPositions initialValue() {
+			return new IDListPositions();
+		}
+	};
+
+	/**
+	 * The original length of each sequence (its number of items), indexed by
+	 * the sequence identifier.
+	 */
+	private static int[] originalSizeOfSequences = NO_SEQUENCES;
+
+	/**
+	 * The identifiers of the sequences where the pattern appears, in ascending
+	 * order.
+	 */
+	private int[] sequences;
+	/**
+	 * The index of the first position of each sequence. The positions of the
+	 * sequence i go from starts[i] to starts[i + 1].
+	 */
+	private int[] starts;
+	/**
+	 * The positions of all the sequences.
+	 */
+	private long[] positions;
+	/**
+	 * The number of sequences where the pattern appears.
+	 */
+	private int size = 0;
+	private int totalElementsAfterPrefixes = 0;
+
+	/**
+	 * Standard constructor
+	 */
+	public IDListPositions() {
+		sequences = new int[4];
+		starts = new int[5];
+		positions = new long[4];
+	}
+
+	/**
+	 * Constructor of an IdList with the given arrays
+	 *
+	 * @param sequences the sequence identifiers
+	 * @param starts    the index of the first position of each sequence
+	 * @param positions the positions
+	 * @param size      the number of sequences
+	 */
+	private IDListPositions(int[] sequences, int[] starts, long[] positions, int size) {
+		this.sequences = sequences;
+		this.starts = starts;
+		this.positions = positions;
+		this.size = size;
+	}
+
+	/**
+	 * Pack a position in a long
+	 *
+	 * @param itemset the itemset index
+	 * @param item    the item index
+	 * @return the position
+	 */
+	private static long position(int itemset, int item) {
+		return ((long) itemset << 32) | (item & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Get the itemset index of a position
+	 *
+	 * @param position the position
+	 * @return the itemset index
+	 */
+	private static int itemsetIndex(long position) {
+		return (int) (position >>> 32);
+	}
+
+	/**
+	 * Get the item index of a position
+	 *
+	 * @param position the position
+	 * @return the item index
+	 */
+	private static int itemIndex(long position) {
+		return (int) position;
+	}
+
+	@Override
+	public IDList join(IDList idList, boolean equals, int minSupport) {
+		IDListPositions other = (IDListPositions) idList;
+		IDListPositions result = buffers.get();
+		result.size = 0;
+		result.starts[0] = 0;
+		int newTotalElementsAfterPrefixes = 0;
+		int i = 0;
+		int j = 0;
+		while (i < size && j < other.size) {
+			// We stop if the remaining sequences cannot make the result frequent
+			if (result.size + Math.min(size - i, other.size - j) < minSupport) {
+				return new IDListPositions(NO_SEQUENCES, NO_STARTS, NO_POSITIONS, 0);
+			}
+			if (sequences[i] < other.sequences[j]) {
+				i++;
+			} else if (sequences[i] > other.sequences[j]) {
+				j++;
+			} else {
+				if (equals) {
+					newTotalElementsAfterPrefixes += result.equalOperation(sequences[i], positions, starts[i],
+							starts[i + 1], other.positions, other.starts[j], other.starts[j + 1]);
+				} else {
+					newTotalElementsAfterPrefixes += result.laterOperation(sequences[i], positions[starts[i]],
+							other.positions, other.starts[j], other.starts[j + 1]);
+				}
+				i++;
+				j++;
+			}
+		}
+		if (result.size < minSupport) {
+			return new IDListPositions(NO_SEQUENCES, NO_STARTS, NO_POSITIONS, 0);
+		}
+		// The result is frequent, so it is copied from the buffers
+		int positionCount = result.starts[result.size];
+		int[] newSequences = new int[result.size];
+		int[] newStarts = new int[result.size + 1];
+		long[] newPositions = new long[positionCount];
+		System.arraycopy(result.sequences, 0, newSequences, 0, result.size);
+		System.arraycopy(result.starts, 0, newStarts, 0, result.size + 1);
+		System.arraycopy(result.positions, 0, newPositions, 0, positionCount);
+		IDListPositions output = new IDListPositions(newSequences, newStarts, newPositions, result.size);
+		output.setTotalElementsAfterPrefixes(newTotalElementsAfterPrefixes);
+		return output;
+	}
+
+	/**
+	 * It adds to this IdList the positions of a sequence for an after relation:
+	 * the positions of the item whose itemset is after the first itemset of the
+	 * prefix.
+	 *
+	 * @param sid         the sequence identifier
+	 * @param firstPrefix the first position of the prefix
+	 * @param item        the positions of the item
+	 * @param itemStart   the first position of the item in the sequence
+	 * @param itemEnd     the end of the positions of the item in the sequence
+	 * @return the number of elements after the first position that is kept
+	 */
+	private int laterOperation(int sid, long firstPrefix, long[] item, int itemStart, int itemEnd) {
+		int firstItemset = itemsetIndex(firstPrefix);
+		int index = itemStart;
+		while (index < itemEnd && itemsetIndex(item[index]) <= firstItemset) {
+			index++;
+		}
+		if (index == itemEnd) {
+			return 0;
+		}
+		int start = beginSequence(sid, itemEnd - index);
+		System.arraycopy(item, index, positions, start, itemEnd - index);
+		endSequence(start + itemEnd - index);
+		return originalSize(sid) - itemIndex(item[index]);
+	}
+
+	/**
+	 * It adds to this IdList the positions of a sequence for an equal relation:
+	 * for each itemset where both the prefix and the item appear, the position
+	 * with the greatest item index.
+	 *
+	 * @param sid         the sequence identifier
+	 * @param prefix      the positions of the prefix
+	 * @param prefixStart the first position of the prefix in the sequence
+	 * @param prefixEnd   the end of the positions of the prefix in the sequence
+	 * @param item        the positions of the item
+	 * @param itemStart   the first position of the item in the sequence
+	 * @param itemEnd     the end of the positions of the item in the sequence
+	 * @return the number of elements after the first position that is kept
+	 */
+	private int equalOperation(int sid, long[] prefix, int prefixStart, int prefixEnd, long[] item, int itemStart,
+			int itemEnd) {
+		int start = beginSequence(sid, Math.min(prefixEnd - prefixStart, itemEnd - itemStart));
+		int end = start;
+		int p = prefixStart;
+		int q = itemStart;
+		while (p < prefixEnd && q < itemEnd) {
+			int prefixItemset = itemsetIndex(prefix[p]);
+			int itemItemset = itemsetIndex(item[q]);
+			if (prefixItemset < itemItemset) {
+				p++;
+			} else if (prefixItemset > itemItemset) {
+				q++;
+			} else {
+				positions[end++] = itemIndex(item[q]) > itemIndex(prefix[p]) ? item[q] : prefix[p];
+				p++;
+				q++;
+			}
+		}
+		if (end == start) {
+			return 0;
+		}
+		endSequence(end);
+		return originalSize(sid) - itemIndex(positions[start]);
+	}
+
+	/**
+	 * It reserves the positions of a new sequence at the end of this IdList. The
+	 * sequence is only kept if endSequence() is called.
+	 *
+	 * @param sid           the sequence identifier
+	 * @param positionCount the maximum number of positions
+	 * @return the index of the first position
+	 */
+	private int beginSequence(int sid, int positionCount) {
+		if (size == sequences.length) {
+			int[] newSequences = new int[size * 2];
+			int[] newStarts = new int[size * 2 + 1];
+			System.arraycopy(sequences, 0, newSequences, 0, size);
+			System.arraycopy(starts, 0, newStarts, 0, size + 1);
+			sequences = newSequences;
+			starts = newStarts;
+		}
+		int start = starts[size];
+		if (start + positionCount > positions.length) {
+			long[] newPositions = new long[Math.max(start + positionCount, positions.length * 2)];
+			System.arraycopy(positions, 0, newPositions, 0, positions.length);
+			positions = newPositions;
+		}
+		sequences[size] = sid;
+		return start;
+	}
+
+	/**
+	 * It keeps the sequence started by beginSequence()
+	 *
+	 * @param end the end of the positions of the sequence
+	 */
+	private void endSequence(int end) {
+		starts[size + 1] = end;
+		size++;
+	}
+
+	/**
+	 * Get the original length of a sequence
+	 *
+	 * @param sid the sequence identifier
+	 * @return the length, or 0 if it is unknown
+	 */
+	private static int originalSize(int sid) {
+		return sid < originalSizeOfSequences.length ? originalSizeOfSequences[sid] : 0;
+	}
+
+	@Override
+	public int getSupport() {
+		return size;
+	}
+
+	/**
+	 * It adds an appearance <sid, <itemset index, item index>> to this IdList.
+	 * The appearances must be added in ascending order of the sequences and of
+	 * the positions.
+	 *
+	 * @param sequence the sequence identifier
+	 * @param itemset  the itemset index
+	 * @param item     the item index
+	 */
+	public void addAppearance(int sequence, int itemset, int item) {
+		int start;
+		int length;
+		if (size > 0 && sequences[size - 1] == sequence) {
+			start = starts[size - 1];
+			length = starts[size] - start;
+			size--;
+		} else if (size > 0 && sequences[size - 1] > sequence) {
+			throw new IllegalArgumentException("The appearances must be added in ascending order of the sequences");
+		} else {
+			start = starts[size];
+			length = 0;
+		}
+		beginSequence(sequence, length + 1);
+		positions[start + length] = position(itemset, item);
+		endSequence(start + length + 1);
+	}
+
+	/**
+	 * It adds several appearances in a same sequence
+	 *
+	 * @param sid     the sequence identifier
+	 * @param itemset the positions, in ascending order
+	 */
+	public void addAppearancesInSequence(int sid, List<Position> itemset) {
+		for (Position position : itemset) {
+			addAppearance(sid, position.getItemsetIndex(), position.getItemIndex());
+		}
+	}
+
+	/**
+	 * It sets the number of elements after the prefixes of an IdList of an item,
+	 * from its first appearance in each sequence. The original lengths of the
+	 * sequences must have been set before.
+	 */
+	public void initializeTotalElementsAfterPrefixes() {
+		totalElementsAfterPrefixes = 0;
+		for (int i = 0; i < size; i++) {
+			totalElementsAfterPrefixes += originalSize(sequences[i]) - itemIndex(positions[starts[i]]);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < size; i++) {
+			result.append("\t").append(sequences[i]).append(" {");
+			for (int k = starts[i]; k < starts[i + 1]; k++) {
+				result.append(itemsetIndex(positions[k])).append(",");
+			}
+			result.deleteCharAt(result.length() - 1);
+			result.append("}\n");
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Get the set of the sequences where the pattern appears.
+	 *
+	 * @return the bitset of the sequence identifiers
+	 */
+	private BitSet sequenceSet() {
+		BitSet result = new BitSet(size > 0 ? sequences[size - 1] + 1 : 0);
+		for (int i = 0; i < size; i++) {
+			result.set(sequences[i]);
+		}
+		return result;
+	}
+
+	@Override
+	public void setAppearingIn(Trie trie) {
+		trie.setAppearingIn(sequenceSet());
+	}
+
+	@Override
+	public void setAppearingIn(Pattern pattern) {
+		pattern.setAppearingIn(sequenceSet());
+	}
+
+	@Override
+	public void clear() {
+		size = 0;
+	}
+
+	@Override
+	public Map<Integer, List<Position>> appearingInMap() {
+		Map<Integer, List<Position>> result = new HashMap<Integer, List<Position>>(size);
+		for (int i = 0; i < size; i++) {
+			List<Position> sequencePositions = new ArrayList<Position>(starts[i + 1] - starts[i]);
+			for (int k = starts[i]; k < starts[i + 1]; k++) {
+				sequencePositions.add(new Position(itemsetIndex(positions[k]), itemIndex(positions[k])));
+			}
+			result.put(sequences[i], sequencePositions);
+		}
+		return result;
+	}
+
+	@Override
+	public int getTotalElementsAfterPrefixes() {
+		return totalElementsAfterPrefixes;
+	}
+
+	@Override
+	public void setTotalElementsAfterPrefixes(int i) {
+		this.totalElementsAfterPrefixes = i;
+	}
+
+	@Override
+	public void SetOriginalSequenceLengths(Map<Integer, Integer> map) {
+		int maxSequence = 0;
+		for (Integer sid : map.keySet()) {
+			maxSequence = Math.max(maxSequence, sid);
+		}
+		int[] lengths = new int[maxSequence + 1];
+		for (Map.Entry<Integer, Integer> entry : map.entrySet()) {
+			lengths[entry.getKey()] = entry.getValue();
+		}
+		originalSizeOfSequences = lengths;
+	}
+
+	public static void sclear() {
+		originalSizeOfSequences = NO_SEQUENCES;
+		buffers.remove();
+	}
+}
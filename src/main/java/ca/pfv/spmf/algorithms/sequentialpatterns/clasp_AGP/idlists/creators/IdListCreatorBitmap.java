@@ -0,0 +1,110 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.idlists.creators;
+
+import java.util.List;
+import java.util.Map;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.Item;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.idlists.IDList;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.idlists.IDListBitmap;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.idlists.Position;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.tries.TrieNode;
+
+/**
+ * Creator of a IdList based on bitmaps of itemsets (see IDListBitmap).
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+public class IdListCreatorBitmap implements IdListCreator {
+
+	/**
+	 * Static reference in order to make the class singleton.
+	 */
+	private static IdListCreatorBitmap instance = null;
+
+	/**
+	 * It removes the static fields.
+	 */
+	public static void clear() {
+		instance = null;
+	}
+
+	/**
+	 * Standard Constructor.
+	 */
+	private IdListCreatorBitmap() {
+	}
+
+	/**
+	 * Get the static reference of the singleton IdList based on bitmaps.
+	 * 
+	 * @return the instance of this singleton
+	 */
+	public static IdListCreator getInstance() {
+		if (instance == null) {
+			instance = new IdListCreatorBitmap();
+		}
+		return instance;
+	}
+
+	/**
+	 * It creates an empty IdList of bitmaps.
+	 * 
+	 * @return the idlist
+	 */
+	public IDList create() {
+		return new IDListBitmap();
+	}
+
+	/**
+	 * It adds to an Idlist of bitmaps an appearance <sid,<tid,item position>>.
+	 * Only the itemset timestamp is kept.
+	 */
+	public void addAppearance(IDList idlist, Integer sequence, Integer timestamp, Integer item) {
+		IDListBitmap id = (IDListBitmap) idlist;
+		id.addAppearance(sequence, timestamp);
+	}
+
+	/**
+	 * It adds to an Idlist of bitmaps several appearances in a same sequence
+	 * <sid, {<tid_1,item1 position>,<tid_2, item2 position>, ...,<tid_n, item2
+	 * position>}>
+	 */
+	public void addAppearancesInSequence(IDList idlist, Integer sequence, List<Position> itemsets) {
+		IDListBitmap id = (IDListBitmap) idlist;
+		for (Position position : itemsets) {
+			id.addAppearance(sequence, position.getItemsetIndex());
+		}
+	}
+
+	/**
+	 * The bitmaps do not keep the number of elements after the prefixes, which is
+	 * only used by the pruning methods of ClaSP, so nothing is initialized.
+	 */
+	@Override
+	public void initializeMaps(Map<Item, TrieNode> frequentItems,
+			Map<Item, Map<Integer, List<Integer>>> projectingDistance, Map<Integer, Integer> sequenceSize,
+			Map<Integer, List<Integer>> sequenceItemsetsSize) {
+	}
+
+	/**
+	 * The projection distances are not used by the bitmaps (see initializeMaps),
+	 * so they are not kept.
+	 */
+	@Override
+	public void updateProjectionDistance(Map<Item, Map<Integer, List<Integer>>> projectingDistance, Item item, int id,
+			int itemsetCount, int itemsCount) {
+	}
+}
@@ -0,0 +1,116 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.idlists.creators;
+
+import java.util.List;
+import java.util.Map;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.dataStructures.Item;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.idlists.IDList;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.idlists.IDListPositions;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.idlists.Position;
+import ca.pfv.spmf.algorithms.sequentialpatterns.clasp_AGP.tries.TrieNode;
+
+/**
+ * Creator of a IdList based on arrays of sequence identifiers and of packed
+ * positions (see IDListPositions).
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ */
+public class IdListCreatorPositions implements IdListCreator {
+
+	/**
+	 * Static reference in order to make the class singleton.
+	 */
+	private static IdListCreatorPositions instance = null;
+
+	/**
+	 * It removes the static fields.
+	 */
+	public static void clear() {
+		instance = null;
+	}
+
+	/**
+	 * Standard Constructor.
+	 */
+	private IdListCreatorPositions() {
+	}
+
+	/**
+	 * Get the static reference of the singleton IdList based on arrays of
+	 * positions.
+	 * 
+	 * @return the instance of this singleton
+	 */
+	public static IdListCreator getInstance() {
+		if (instance == null) {
+			instance = new IdListCreatorPositions();
+		}
+		return instance;
+	}
+
+	/**
+	 * It creates an empty IdList of arrays of positions.
+	 * 
+	 * @return the idlist
+	 */
+	public IDList create() {
+		return new IDListPositions();
+	}
+
+	/**
+	 * It adds to an Idlist of arrays of positions an appearance <sid,<tid,item
+	 * position>>
+	 */
+	public void addAppearance(IDList idlist, Integer sequence, Integer timestamp, Integer item) {
+		IDListPositions id = (IDListPositions) idlist;
+		id.addAppearance(sequence, timestamp, item);
+	}
+
+	/**
+	 * It adds to an Idlist of arrays of positions several appearances in a same
+	 * sequence <sid, {<tid_1,item1 position>,<tid_2, item2 position>,
+	 * ...,<tid_n, item2 position>}>
+	 */
+	public void addAppearancesInSequence(IDList idlist, Integer sequence, List<Position> itemsets) {
+		IDListPositions id = (IDListPositions) idlist;
+		id.addAppearancesInSequence(sequence, itemsets);
+	}
+
+	/**
+	 * The number of elements after the prefixes of each frequent item is
+	 * computed from the first position of its IdList in each sequence, which is
+	 * the first projecting distance kept by IdListCreatorStandard_Map.
+	 */
+	@Override
+	public void initializeMaps(Map<Item, TrieNode> frequentItems,
+			Map<Item, Map<Integer, List<Integer>>> projectingDistance, Map<Integer, Integer> sequenceSize,
+			Map<Integer, List<Integer>> sequenceItemsetsSize) {
+		IDList id = new IDListPositions();
+		id.SetOriginalSequenceLengths(sequenceSize);
+		for (TrieNode node : frequentItems.values()) {
+			((IDListPositions) node.getChild().getIdList()).initializeTotalElementsAfterPrefixes();
+		}
+	}
+
+	/**
+	 * The projection distances are not needed (see initializeMaps), so they are
+	 * not kept.
+	 */
+	@Override
+	public void updateProjectionDistance(Map<Item, Map<Integer, List<Integer>>> projectingDistance, Item item, int id,
+			int itemsetCount, int itemsCount) {
+	}
+}
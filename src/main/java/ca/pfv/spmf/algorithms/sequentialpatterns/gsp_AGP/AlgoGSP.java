@@ -40,6 +40,12 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * and Agrawal 1996. <br/>
  * <br/>
  *
+ * The support of the candidates of a level is counted by means of a hash tree
+ * of candidates, taking into account the time constraints (minimum gap, maximum
+ * gap and window size), and it can be counted by several threads (see
+ * setThreadCount()). <br/>
+ * <br/>
+ *
  * NOTE: This implementation saves the patterns to a file as soon as a level of
  * patterns is found or can keep the patterns into memory if no output path is
  * provided by the user.
@@ -52,6 +58,15 @@ public class AlgoGSP {
 	 * minimum support threshold. Range: from 0 up to 1
 	 */
 	protected double minSupRelative;
+	/**
+	 * Time constraints, in the unit of the timestamps of the itemsets. The first
+	 * itemset of an element of a pattern has to be more than minGap after the last
+	 * itemset of the previous element, and the last itemset of an element at most
+	 * maxGap after the first itemset of the previous element. An element can be
+	 * found in several itemsets whose timestamps are at most windowSize apart.
+	 * With minGap = 0, maxGap = Integer.MAX_VALUE and windowSize = 0, there is no
+	 * time constraint.
+	 */
 	protected double minGap;
 	protected double maxGap;
 	protected double windowSize;
@@ -80,6 +95,9 @@ public class AlgoGSP {
 	// save sequence identifiers to file
 	boolean outputSequenceIdentifiers = false;
 
+	// the number of threads used to count the support of the candidates
+	private int threadCount = 1;
+
 	/**
 	 * Constructor for GSP algorithm. It initializes most of the class' attributes.
 	 */
@@ -127,8 +145,9 @@ public class AlgoGSP {
 			this.minSupAbsolute = 1;
 		}
 
-		CandidateGeneration candidateGenerator = new CandidateGeneration();
-		SupportCounting supportCounter = new SupportCounting(database, abstractionCreator);
+		CandidateGeneration candidateGenerator = new CandidateGeneration(maxGap < Integer.MAX_VALUE);
+		SupportCounting supportCounter = new SupportCounting(database, abstractionCreator, minGap, maxGap, windowSize,
+				threadCount);
 
 		// reset the stats about memory usage
 		MemoryLogger.getInstance().reset();
@@ -344,6 +363,20 @@ public class AlgoGSP {
 		return (end - start);
 	}
 
+	/**
+	 * Set the number of threads used to count the support of the candidates of
+	 * each level. The database is split in partitions counted in parallel. By
+	 * default, a single thread is used. The patterns found are the same.
+	 * 
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
 	/**
 	 * Return the absolute minimum support, i.e. the minimum number of sequences
 	 * where a patter must appear
@@ -6,6 +6,7 @@ import java.util.Map;
 import java.util.Set;
 
 import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.Item;
+import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.abstractions.Abstraction_Generic;
 import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.creators.AbstractionCreator;
 import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.patterns.Pattern;
 
@@ -36,6 +37,31 @@ import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.patterns.Pattern;
  */
 class CandidateGeneration {
 
+	/**
+	 * Flag indicating if only the contiguous subsequences of a candidate can be
+	 * used to prune it, i.e. if there is a maximum gap constraint. In that case, a
+	 * candidate can be frequent even if the subsequence obtained by removing an
+	 * element of a single item, which is neither the first element nor the last
+	 * one, is not frequent.
+	 */
+	private boolean onlyContiguousSubsequences;
+
+	/**
+	 * Constructor for a candidate generation without maximum gap constraint
+	 */
+	public CandidateGeneration() {
+		this(false);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param onlyContiguousSubsequences true if there is a maximum gap constraint
+	 */
+	public CandidateGeneration(boolean onlyContiguousSubsequences) {
+		this.onlyContiguousSubsequences = onlyContiguousSubsequences;
+	}
+
 	/**
 	 * Main method that creates, from frequent (k-1)-sequence set (aka L(k-1)) the
 	 * new set of (k)-sequences candidates. Before returning the candidate set, the
@@ -126,6 +152,10 @@ class CandidateGeneration {
 			boolean isInfrequent = false;
 			// for each one of its element
 			for (int i = 0; i < candidate.getElements().size() && !isInfrequent; i++) {
+				// with a maximum gap, we skip the middle elements of a single item
+				if (onlyContiguousSubsequences && isMiddleElementOfSingleItem(candidate, i, abstractionCreator)) {
+					continue;
+				}
 				// we obtain the subpattern resulting of removing the element chosen just above
 				Pattern subpattern = abstractionCreator.getSubpattern(candidate, i);
 				// and if this subpattern does not appear in the frequent (k-1)-sequence set,
@@ -143,4 +173,24 @@ class CandidateGeneration {
 		}
 		return candidatePatterns;
 	}
+
+	/**
+	 * Check if an item of a candidate is alone in its element, and if this element
+	 * is neither the first nor the last one of the candidate.
+	 * 
+	 * @param candidate          the candidate
+	 * @param i                  the index of the item
+	 * @param abstractionCreator the abstraction creator
+	 * @return true if removing the item does not give a contiguous subsequence
+	 */
+	private boolean isMiddleElementOfSingleItem(Pattern candidate, int i, AbstractionCreator abstractionCreator) {
+		if (i == 0 || i == candidate.size() - 1) {
+			return false;
+		}
+		// An item starts a new element if it has the default abstraction, i.e. it
+		// appears in an itemset later than its predecessor
+		Abstraction_Generic newElement = abstractionCreator.CreateDefaultAbstraction();
+		return candidate.getIthElement(i).getAbstraction().equals(newElement)
+				&& candidate.getIthElement(i + 1).getAbstraction().equals(newElement);
+	}
 }
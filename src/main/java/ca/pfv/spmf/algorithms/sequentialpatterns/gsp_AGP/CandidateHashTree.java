@@ -0,0 +1,314 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP;
+
+import java.util.Arrays;
+import java.util.List;
+
+import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.Item;
+import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.Itemset;
+import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.Sequence;
+import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.patterns.Pattern;
+
+/**
+ * This class represents the hash tree of candidates used by GSP to find which
+ * candidates may appear in a sequence (Srikant and Agrawal, 1996), in the style
+ * of the itemset hash tree of AprioriHT. An interior node at depth d hashes the
+ * (d+1)-th item of the candidates, and a leaf keeps the indices of its
+ * candidates in the candidate list. A leaf is only split when it has more than
+ * maximumLeafSize candidates. <br/>
+ * <br/>
+ *
+ * To find the candidates of a sequence, the root hashes every item of the
+ * sequence, and the node reached with an item at time t hashes the items whose
+ * time is within [t - windowSize, t + max(windowSize, maxGap)], since the next
+ * item of a candidate has to be found there. The candidates returned have to be
+ * checked afterwards, by means of the CandidateInSequenceFinder class. <br/>
+ * <br/>
+ *
+ * The tree is only read during the search, so it can be shared by several
+ * threads, each of them with its own Visit.
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @see SupportCounting
+ */
+class CandidateHashTree {
+
+	/**
+	 * The candidates inserted in the tree
+	 */
+	private final List<Pattern> candidates;
+	/**
+	 * The number of items of the candidates
+	 */
+	private final int k;
+	/**
+	 * The number of child nodes of an interior node
+	 */
+	private final int branchCount;
+	/**
+	 * The maximum number of candidates of a leaf which is not at depth k
+	 */
+	private final int maximumLeafSize;
+	/**
+	 * The time constraints that bound the items hashed after an item
+	 */
+	private final double windowSize;
+	private final double maxDistance;
+	/**
+	 * The root of the tree
+	 */
+	private final Node root;
+	/**
+	 * The number of nodes of the tree, used to identify them
+	 */
+	private int nodeCount = 0;
+
+	/**
+	 * Constructor. It builds the tree with all the candidates of a level.
+	 *
+	 * @param candidates      the candidate k-sequences
+	 * @param k               the number of items of the candidates
+	 * @param maxGap          the maximum gap between two consecutive elements
+	 * @param windowSize      the maximum time span of an element
+	 * @param branchCount     the number of child nodes of an interior node
+	 * @param maximumLeafSize the number of candidates that a leaf can keep
+	 *                        before being split
+	 */
+	CandidateHashTree(List<Pattern> candidates, int k, double maxGap, double windowSize, int branchCount,
+			int maximumLeafSize) {
+		this.candidates = candidates;
+		this.k = k;
+		this.branchCount = branchCount;
+		this.maximumLeafSize = maximumLeafSize;
+		this.windowSize = windowSize;
+		this.maxDistance = Math.max(windowSize, maxGap);
+		root = new Node(0);
+		for (int i = 0; i < candidates.size(); i++) {
+			insert(root, i);
+		}
+	}
+
+	/**
+	 * Inserts a candidate in the subtree of a node, splitting the leaf where it
+	 * is inserted if it becomes too large.
+	 *
+	 * @param node      the node
+	 * @param candidate the index of the candidate
+	 */
+	private void insert(Node node, int candidate) {
+		while (node.children != null) {
+			node = node.child(hash(item(candidate, node.depth)));
+		}
+		if (node.count == node.candidates.length) {
+			node.candidates = Arrays.copyOf(node.candidates, node.count * 2);
+		}
+		node.candidates[node.count++] = candidate;
+		if (node.count > maximumLeafSize && node.depth < k) {
+			// we split the leaf, hashing the next item of its candidates
+			int[] leafCandidates = node.candidates;
+			int leafCount = node.count;
+			node.candidates = null;
+			node.count = 0;
+			node.children = new Node[branchCount];
+			for (int i = 0; i < leafCount; i++) {
+				insert(node, leafCandidates[i]);
+			}
+		}
+	}
+
+	/**
+	 * Get an item of a candidate
+	 *
+	 * @param candidate the index of the candidate
+	 * @param i         the index of the item in the candidate
+	 * @return the item
+	 */
+	private Item item(int candidate, int i) {
+		return candidates.get(candidate).getIthElement(i).getItem();
+	}
+
+	/**
+	 * Get the branch of an item in an interior node
+	 *
+	 * @param item the item
+	 * @return the index of the child node
+	 */
+	private int hash(Item item) {
+		return (item.hashCode() & Integer.MAX_VALUE) % branchCount;
+	}
+
+	/**
+	 * Create the state needed to search the candidates of sequences. A visit is
+	 * used by a single thread.
+	 *
+	 * @return a new visit
+	 */
+	Visit createVisit() {
+		return new Visit();
+	}
+
+	/**
+	 * Find the candidates that may appear in a sequence. Their indices are kept in
+	 * visit.found, from 0 to the returned value.
+	 *
+	 * @param sequence the sequence
+	 * @param visit    the state of the calling thread
+	 * @return the number of candidates found
+	 */
+	int findCandidates(Sequence sequence, Visit visit) {
+		visit.load(sequence);
+		visit.foundCount = 0;
+		visit.stamp++;
+		visit(root, -1, visit);
+		return visit.foundCount;
+	}
+
+	/**
+	 * Recursive method to explore a node with the items of the sequence that can
+	 * follow the item at a given position. The item at that position is hashed
+	 * again, which only adds candidates to be checked.
+	 *
+	 * @param node     the node
+	 * @param position the position of the last item hashed (-1 for the root)
+	 * @param visit    the state of the calling thread
+	 */
+	private void visit(Node node, int position, Visit visit) {
+		boolean visited = visit.nodeStamps[node.id] == visit.stamp;
+		visit.nodeStamps[node.id] = visit.stamp;
+		if (node.children == null) {
+			// a leaf: we keep its candidates, if it was not already reached
+			if (!visited) {
+				for (int i = 0; i < node.count; i++) {
+					int candidate = node.candidates[i];
+					if (visit.marks[candidate] != visit.stamp) {
+						visit.marks[candidate] = visit.stamp;
+						visit.found[visit.foundCount++] = candidate;
+					}
+				}
+			}
+			return;
+		}
+		int first = 0;
+		int last = visit.length - 1;
+		if (position >= 0) {
+			long time = visit.times[position];
+			while (first < position && time - visit.times[first] > windowSize) {
+				first++;
+			}
+			while (last > position && visit.times[last] - time > maxDistance) {
+				last--;
+			}
+		}
+		// what is found below a child only depends on the position of the item that
+		// leads to it, so we skip the positions already explored from this node,
+		// which are kept as an interval
+		int coveredFirst = visit.coveredFirsts[node.id];
+		int coveredLast = visit.coveredLasts[node.id];
+		if (visited && first <= coveredLast + 1 && last >= coveredFirst - 1) {
+			explore(node, first, coveredFirst - 1, visit);
+			explore(node, coveredLast + 1, last, visit);
+			visit.coveredFirsts[node.id] = Math.min(first, coveredFirst);
+			visit.coveredLasts[node.id] = Math.max(last, coveredLast);
+		} else {
+			visit.coveredFirsts[node.id] = first;
+			visit.coveredLasts[node.id] = last;
+			explore(node, first, last, visit);
+		}
+	}
+
+	/**
+	 * Explore the children of an interior node with the items of the sequence
+	 * between two positions.
+	 *
+	 * @param node  the node
+	 * @param first the first position
+	 * @param last  the last position
+	 * @param visit the state of the calling thread
+	 */
+	private void explore(Node node, int first, int last, Visit visit) {
+		for (int i = first; i <= last; i++) {
+			Node child = node.children[visit.branches[i]];
+			if (child != null) {
+				visit(child, i, visit);
+			}
+		}
+	}
+
+	/**
+	 * A node of the tree. It is a leaf if it has no children.
+	 */
+	private class Node {
+		final int id;
+		final int depth;
+		Node[] children = null;
+		int[] candidates = new int[4];
+		int count = 0;
+
+		Node(int depth) {
+			this.id = nodeCount++;
+			this.depth = depth;
+		}
+
+		Node child(int branch) {
+			Node child = children[branch];
+			if (child == null) {
+				child = new Node(depth + 1);
+				children[branch] = child;
+			}
+			return child;
+		}
+	}
+
+	/**
+	 * The state of a thread searching the candidates of sequences: the items of
+	 * the current sequence with their times and branches, and the candidates
+	 * found.
+	 */
+	class Visit {
+		// the candidates found for the current sequence
+		final int[] found = new int[candidates.size()];
+		int foundCount = 0;
+		// marks[c] == stamp if the candidate c was found for the current sequence
+		private final int[] marks = new int[candidates.size()];
+		private int stamp = 0;
+		// nodeStamps[n] == stamp if the node n was reached for the current
+		// sequence, and then the positions from coveredFirsts[n] to coveredLasts[n]
+		// were explored from it
+		private final int[] nodeStamps = new int[nodeCount];
+		private final int[] coveredFirsts = new int[nodeCount];
+		private final int[] coveredLasts = new int[nodeCount];
+		// the branch and the time of each item of the current sequence
+		private int[] branches = new int[16];
+		private long[] times = new long[16];
+		private int length = 0;
+
+		private void load(Sequence sequence) {
+			length = 0;
+			for (int i = 0; i < sequence.size(); i++) {
+				Itemset itemset = sequence.get(i);
+				for (int j = 0; j < itemset.size(); j++) {
+					if (length == branches.length) {
+						branches = Arrays.copyOf(branches, length * 2);
+						times = Arrays.copyOf(times, length * 2);
+					}
+					branches[length] = hash(itemset.get(j));
+					times[length] = itemset.getTimestamp();
+					length++;
+				}
+			}
+		}
+	}
+}
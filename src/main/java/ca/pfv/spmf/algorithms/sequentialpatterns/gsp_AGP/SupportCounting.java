@@ -1,11 +1,15 @@
 package ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.CandidateInSequenceFinder;
 import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.Item;
@@ -14,6 +18,7 @@ import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.SequenceDatabase;
 import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.abstractions.ItemAbstractionPair;
 import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.creators.AbstractionCreator;
 import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.patterns.Pattern;
+import ca.pfv.spmf.tools.MiningMetrics;
 
 /**
  * This is an implementation of the counting of support phase addressed in GSP
@@ -22,6 +27,12 @@ import ca.pfv.spmf.algorithms.sequentialpatterns.gsp_AGP.items.patterns.Pattern;
  * check which of those sequences are actually frequent and which can be ruled
  * out.
  *
+ * The candidates of a level are kept in a hash tree (see CandidateHashTree), so
+ * that each sequence is only checked against the candidates whose items it
+ * contains, within the time constraints. The database is split in partitions,
+ * which can be counted in parallel, each one with its own buffer of the
+ * candidates found, merged in the candidates as the partition is counted.
+ *
  * Copyright Antonio Gomariz Peñalver 2013
  * 
  * This file is part of the SPMF DATA MINING SOFTWARE
@@ -53,17 +64,80 @@ class SupportCounting {
 	 */
 	private Map<Item, Set<Pattern>> indexationMap;
 	private AbstractionCreator abstractionCreator;
+	/**
+	 * The time constraints of GSP
+	 */
+	private double minGap;
+	private double maxGap;
+	private double windowSize;
+	/**
+	 * Flag indicating if a time constraint has to be checked
+	 */
+	private boolean timeConstraints;
+	/**
+	 * The number of threads used to count the support
+	 */
+	private int threadCount;
 
 	/**
-	 * The only constructor
+	 * the bounds of the number of child nodes of an interior node of the hash tree,
+	 * which is the number of items of the candidates within these bounds
+	 */
+	private static final int HASH_TREE_MINIMUM_BRANCH_COUNT = 30;
+	private static final int HASH_TREE_MAXIMUM_BRANCH_COUNT = 1024;
+	/** the number of candidates that a leaf of the hash tree keeps before being split */
+	private static final int HASH_TREE_MAXIMUM_LEAF_SIZE = 16;
+	/** the minimum number of sequences of a partition */
+	private static final int MINIMUM_SPLIT_THRESHOLD = 64;
+	/** the size of the buffer of appearances of a partition */
+	private static final int APPEARANCE_BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Constructor for a support counting without time constraints, in a single
+	 * thread
 	 * 
 	 * @param database the original sequence database
 	 * @param creador
 	 */
 	public SupportCounting(SequenceDatabase database, AbstractionCreator creador) {
+		this(database, creador, 0, Integer.MAX_VALUE, 0, 1);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param database    the original sequence database
+	 * @param creador     the abstraction creator
+	 * @param minGap      the minimum gap between two consecutive elements
+	 * @param maxGap      the maximum gap between two consecutive elements
+	 *                    (Integer.MAX_VALUE or more for no maximum gap)
+	 * @param windowSize  the maximum time span of the itemsets matching an element
+	 * @param threadCount the number of threads used to count the support
+	 */
+	public SupportCounting(SequenceDatabase database, AbstractionCreator creador, double minGap, double maxGap,
+			double windowSize, int threadCount) {
 		this.database = database;
 		this.abstractionCreator = creador;
 		this.indexationMap = new HashMap<Item, Set<Pattern>>();
+		this.minGap = minGap;
+		this.maxGap = maxGap;
+		this.windowSize = windowSize;
+		this.timeConstraints = hasTimeConstraints(minGap, maxGap, windowSize);
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Check if some time constraints restrict the patterns, in comparison with the
+	 * default search where an element is found in a single itemset, after the
+	 * itemset of the previous element
+	 * 
+	 * @param minGap     the minimum gap between two consecutive elements
+	 * @param maxGap     the maximum gap between two consecutive elements
+	 * @param windowSize the maximum time span of the itemsets matching an element
+	 * @return true if there is some time constraint
+	 */
+	static boolean hasTimeConstraints(double minGap, double maxGap, double windowSize) {
+		return minGap > 0 || maxGap < Integer.MAX_VALUE || windowSize > 0;
 	}
 
 	/**
@@ -79,10 +153,42 @@ class SupportCounting {
 	 */
 	public Set<Pattern> countSupport(List<Pattern> candidateSet, int k, double minSupportAbsolute) {
 		indexationMap.clear();
-		// For each sequence of the original database
-		for (Sequence sequence : database.getSequences()) {
-			// we check for each candidate if it appears in that sequence
-			checkCandidateInSequence(sequence, k, candidateSet);
+		// We insert the candidates in a hash tree, with a branch per item if possible
+		Set<Item> items = new HashSet<Item>();
+		for (Pattern candidate : candidateSet) {
+			for (ItemAbstractionPair pair : candidate.getElements()) {
+				items.add(pair.getItem());
+			}
+		}
+		int branchCount = Math.min(HASH_TREE_MAXIMUM_BRANCH_COUNT,
+				Math.max(HASH_TREE_MINIMUM_BRANCH_COUNT, items.size()));
+		CandidateHashTree tree = new CandidateHashTree(candidateSet, k, maxGap, windowSize, branchCount,
+				HASH_TREE_MAXIMUM_LEAF_SIZE);
+		List<Sequence> sequences = database.getSequences();
+		// We split the database in partitions, which are counted in parallel if
+		// several threads are used
+		int splitThreshold = Math.max(MINIMUM_SPLIT_THRESHOLD, sequences.size() / (threadCount * 16));
+		List<CountingTask> partitions = new ArrayList<CountingTask>();
+		for (int from = 0; from < sequences.size(); from += splitThreshold) {
+			partitions.add(
+					new CountingTask(tree, candidateSet, k, from, Math.min(sequences.size(), from + splitThreshold)));
+		}
+		if (threadCount > 1) {
+			ForkJoinPool pool = MiningMetrics.current().newForkJoinPool(threadCount);
+			try {
+				for (CountingTask partition : partitions) {
+					pool.execute(partition);
+				}
+				for (int i = partitions.size() - 1; i >= 0; i--) {
+					partitions.get(i).join();
+				}
+			} finally {
+				pool.shutdown();
+			}
+		} else {
+			for (CountingTask partition : partitions) {
+				partition.compute();
+			}
 		}
 		Set<Pattern> result = new LinkedHashSet<Pattern>();
 		// We keep all the frequent candidates and we put them in the indexation map
@@ -98,31 +204,114 @@ class SupportCounting {
 	}
 
 	/**
-	 * We check, for a sequence, if each candidate from the candidate set it appears
-	 * or not
+	 * We check, for a sequence, if a candidate appears or not
 	 * 
-	 * @param sequence     a sequence
-	 * @param k            he level where we are checking
-	 * @param candidateSet the candidate set
+	 * @param sequence  a sequence
+	 * @param k         he level where we are checking
+	 * @param candidate the candidate
+	 * @param finder    the finder of candidates of the calling thread
+	 * @return true if the candidate appears in the sequence
 	 */
-	private void checkCandidateInSequence(Sequence sequence, int k, List<Pattern> candidateSet) {
-		// For each candidate
-		for (Pattern candidate : candidateSet) {
+	private boolean checkCandidateInSequence(Sequence sequence, int k, Pattern candidate,
+			CandidateInSequenceFinder finder) {
+		finder.setPresent(false);
+		if (timeConstraints) {
+			finder.isCandidatePresentInTheSequence_timeConstraints(candidate, sequence, minGap, maxGap, windowSize);
+		} else {
 			// We define a list of k positions, all initialized at itemset 0, item 0, i.e.
 			// first itemset, first item.
 			List<int[]> position = new ArrayList<int[]>(k);
 			for (int i = 0; i < k; i++) {
 				position.add(new int[] { 0, 0 });
 			}
-			CandidateInSequenceFinder finder = new CandidateInSequenceFinder(abstractionCreator);
 			// we check if the current candidate appears in the sequence
 			abstractionCreator.isCandidateInSequence(finder, candidate, sequence, k, 0, position);
-			if (finder.isPresent()) {
-				/*
-				 * if we have a positive result, we add the sequence Id to the list of
-				 * appearances associated with the candidate pattern
-				 */
-				candidate.addAppearance(sequence.getId());
+		}
+		return finder.isPresent();
+	}
+
+	/**
+	 * A task counting the support of the candidates in a partition of the
+	 * database. The candidates found in a sequence are recorded as pairs
+	 * (candidate index, sequence id) in the task, since the appearance sets of the
+	 * candidates cannot be updated by several threads, and they are merged in the
+	 * candidates when the buffer of the task is full and at the end of the task.
+	 */
+	private class CountingTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final CandidateHashTree tree;
+		private final List<Pattern> candidateSet;
+		private final int k;
+		// the partition of the database, from the sequence "from" to "to" excluded
+		private final int from;
+		private final int to;
+		// the pairs (candidate index, sequence id) found in the partition, and not
+		// merged yet
+		private int[] appearances = null;
+		private int appearanceCount = 0;
+
+		CountingTask(CandidateHashTree tree, List<Pattern> candidateSet, int k, int from, int to) {
+			this.tree = tree;
+			this.candidateSet = candidateSet;
+			this.k = k;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			List<Sequence> sequences = database.getSequences();
+			CandidateHashTree.Visit visit = tree.createVisit();
+			CandidateInSequenceFinder finder = new CandidateInSequenceFinder(abstractionCreator);
+			appearances = new int[APPEARANCE_BUFFER_SIZE];
+			for (int s = from; s < to; s++) {
+				countSupport(sequences.get(s), visit, finder);
+			}
+			mergeAppearances();
+			appearances = null;
+		}
+
+		/**
+		 * We merge the appearances of the buffer in the appearance sets of the
+		 * candidates
+		 */
+		private void mergeAppearances() {
+			synchronized (candidateSet) {
+				for (int i = 0; i < appearanceCount; i += 2) {
+					candidateSet.get(appearances[i]).addAppearance(appearances[i + 1]);
+				}
+			}
+			appearanceCount = 0;
+		}
+
+		/**
+		 * We check which candidates appear in a sequence
+		 * 
+		 * @param sequence a sequence
+		 * @param visit    the state of the hash tree search of this task
+		 * @param finder   the finder of candidates of this task
+		 */
+		private void countSupport(Sequence sequence, CandidateHashTree.Visit visit,
+				CandidateInSequenceFinder finder) {
+			// we check the candidates of the hash tree that may appear in the sequence
+			int count = tree.findCandidates(sequence, visit);
+			// in the order of the candidate set, where the candidates sharing a prefix
+			// are close, so that they are checked in the same parts of the sequence
+			Arrays.sort(visit.found, 0, count);
+			for (int i = 0; i < count; i++) {
+				int candidate = visit.found[i];
+				if (checkCandidateInSequence(sequence, k, candidateSet.get(candidate), finder)) {
+					if (appearanceCount == appearances.length) {
+						mergeAppearances();
+					}
+					/*
+					 * if we have a positive result, we keep the sequence Id as an appearance of
+					 * the candidate pattern
+					 */
+					appearances[appearanceCount++] = candidate;
+					appearances[appearanceCount++] = sequence.getId();
+				}
 			}
 		}
 	}
@@ -42,6 +42,16 @@ public class CandidateInSequenceFinder {
 	 * flag to indicate if a candidate is present in the sequence
 	 */
 	private boolean present = false;
+	/**
+	 * State of the search under time constraints, kept while the finder checks
+	 * candidates in the same sequence: the timestamps of its itemsets, and the
+	 * starting itemsets of an element already known to fail (failures[e * m + s]
+	 * is equal to search)
+	 */
+	private Sequence timedSequence = null;
+	private long[] timestamps = new long[0];
+	private int[] failures = new int[0];
+	private int search = 0;
 
 	/**
 	 * Standard constructor. It only needs the abstraction creator.
@@ -154,6 +164,123 @@ public class CandidateInSequenceFinder {
 		}
 	}
 
+	/**
+	 * Method to search for a candidate in a sequence under the time constraints of
+	 * GSP. An element of the candidate, i.e. the items related by an equal
+	 * relation, can be found in several itemsets whose timestamps are at most
+	 * windowSize apart. The first itemset of an element has to be more than minGap
+	 * after the last itemset of the previous element, and the last itemset of an
+	 * element at most maxGap after the first itemset of the previous element. The
+	 * flag present is set to true if the candidate appears in the sequence, and to
+	 * false otherwise, so that a finder can check several candidates in a row.
+	 *
+	 * @param candidate  to find in the sequence
+	 * @param sequence   the sequence where we will search for the candidate
+	 * @param minGap     the minimum gap between two consecutive elements
+	 * @param maxGap     the maximum gap between two consecutive elements
+	 * @param windowSize the maximum time span of the itemsets matching an element
+	 */
+	public void isCandidatePresentInTheSequence_timeConstraints(Pattern candidate, Sequence sequence, double minGap,
+			double maxGap, double windowSize) {
+		// We split the candidate in elements: an element starts with every item that
+		// has not an equal relation with the previous one
+		Abstraction_Generic defaultAbstraction = creator.CreateDefaultAbstraction();
+		int[] elementStarts = new int[candidate.size() + 1];
+		int elementCount = 0;
+		for (int i = 0; i < candidate.size(); i++) {
+			if (i == 0 || candidate.getIthElement(i).getAbstraction().equals(defaultAbstraction)) {
+				elementStarts[elementCount++] = i;
+			}
+		}
+		elementStarts[elementCount] = candidate.size();
+
+		int m = sequence.size();
+		if (sequence != timedSequence) {
+			timedSequence = sequence;
+			if (timestamps.length < m) {
+				timestamps = new long[m];
+			}
+			for (int i = 0; i < m; i++) {
+				timestamps[i] = sequence.get(i).getTimestamp();
+			}
+		}
+		if (failures.length < elementCount * m) {
+			failures = new int[elementCount * m];
+			search = 0;
+		}
+		search++;
+		present = findElement(candidate, sequence, elementStarts, elementCount, 0, 0, 0, 0, minGap, maxGap,
+				windowSize);
+	}
+
+	/**
+	 * Recursive method to search for an element of a candidate, and for the
+	 * following elements, under the time constraints of GSP. For each itemset
+	 * where the element can start, we keep the first itemset that completes it,
+	 * since it is the best choice for the constraints of the following element.
+	 *
+	 * @param candidate      the candidate
+	 * @param sequence       the sequence where we search for the candidate
+	 * @param elementStarts  the index of the first item of each element
+	 * @param elementCount   the number of elements of the candidate
+	 * @param element        the element to find
+	 * @param firstItemset   the first itemset where the element can start
+	 * @param previousStart  the timestamp where the previous element starts
+	 * @param previousEnd    the timestamp where the previous element ends
+	 * @param minGap         the minimum gap between two consecutive elements
+	 * @param maxGap         the maximum gap between two consecutive elements
+	 * @param windowSize     the maximum time span of an element
+	 * @return true if the candidate elements from element on are found
+	 */
+	private boolean findElement(Pattern candidate, Sequence sequence, int[] elementStarts, int elementCount,
+			int element, int firstItemset, long previousStart, long previousEnd, double minGap, double maxGap,
+			double windowSize) {
+		int m = sequence.size();
+		for (int start = firstItemset; start < m; start++) {
+			long startTime = timestamps[start];
+			if (element > 0) {
+				if (startTime - previousEnd <= minGap) {
+					continue;
+				}
+				// The following itemsets cannot end the element soon enough either
+				if (startTime - previousStart > maxGap) {
+					return false;
+				}
+			}
+			if (failures[element * m + start] == search) {
+				continue;
+			}
+			// We look for the first itemset that completes the element within the window
+			int end = start;
+			for (int i = elementStarts[element]; i < elementStarts[element + 1] && end >= 0; i++) {
+				Item item = candidate.getIthElement(i).getItem();
+				int itemset = start;
+				while (itemset < m && timestamps[itemset] - startTime <= windowSize
+						&& sequence.get(itemset).binarySearch(item) < 0) {
+					itemset++;
+				}
+				if (itemset == m || timestamps[itemset] - startTime > windowSize) {
+					end = -1;
+				} else if (itemset > end) {
+					end = itemset;
+				}
+			}
+			if (end < 0) {
+				failures[element * m + start] = search;
+				continue;
+			}
+			if (element > 0 && timestamps[end] - previousStart > maxGap) {
+				continue;
+			}
+			if (element + 1 == elementCount || findElement(candidate, sequence, elementStarts, elementCount,
+					element + 1, end + 1, startTime, timestamps[end], minGap, maxGap, windowSize)) {
+				return true;
+			}
+			failures[element * m + start] = search;
+		}
+		return false;
+	}
+
 	/**
 	 * It answers if the candidate appears in the sequence
 	 * 
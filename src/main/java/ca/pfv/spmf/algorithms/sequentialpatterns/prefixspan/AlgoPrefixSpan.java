@@ -3,14 +3,21 @@ package ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 import ca.pfv.spmf.patterns.itemset_list_integers_without_support.Itemset;
 import ca.pfv.spmf.tools.MemoryLogger;
+import ca.pfv.spmf.tools.MiningMetrics;
+import ca.pfv.spmf.tools.MiningMetrics.Counter;
 
 /***
  * This is a 2016 implementation of the PrefixSpan algorithm. PrefixSpan was
@@ -25,6 +32,20 @@ import ca.pfv.spmf.tools.MemoryLogger;
  * This new implementation can be 10 times faster than the 2008 implementation,
  * since I have added more optimizations
  *
+ * If the itemsets of the database contain single items, the frequent items
+ * are remapped to 1, 2, 3... and the projected databases are stored in the
+ * arrays of a ProjectionArena, which are reused when the search backtracks,
+ * while the items are counted by an ItemCounter (except if a memory budget is
+ * set, because the projected databases are then kept in lists that can be
+ * spilled to files).
+ *
+ * The projected databases can be explored by several threads (see
+ * setThreadCount()). The projected database of each frequent item is explored
+ * by a task of a ForkJoinPool with its own pattern buffer, and a task forks a
+ * new task for each large projected database that it finds. The patterns are
+ * saved by synchronized methods, so they are the same as in a sequential
+ * execution, but not in the same order.
+ *
  * Copyright (c) 2008-2012 Philippe Fournier-Viger
  * 
  * This file is part of the SPMF DATA MINING SOFTWARE
@@ -89,12 +110,93 @@ public class AlgoPrefixSpan {
 	 */
 	boolean containsItemsetsWithMultipleItems = false;
 
+	/**
+	 * the memory budget for the projected databases waiting to be explored, in
+	 * bytes (Long.MAX_VALUE if there is no budget)
+	 */
+	private long memoryBudget = Long.MAX_VALUE;
+
+	/** the object keeping the projected databases waiting to be explored */
+	private ProjectionSpiller spiller;
+
+	/** the statistics of the current run (shared with the workers) */
+	private MiningMetrics metrics = MiningMetrics.current();
+
+	/** the number of threads used to explore the projected databases */
+	private int threadCount = 1;
+
+	/**
+	 * When the algorithm is run in parallel, the minimum number of sequences of a
+	 * projected database for exploring it in a separate task (smaller projected
+	 * databases are explored by the current task). It is calculated from the size
+	 * of the database.
+	 */
+	private int splitThreshold = 0;
+
+	/** the minimum value of splitThreshold */
+	private static final int MINIMUM_SPLIT_THRESHOLD = 64;
+
+	/**
+	 * the algorithm that saves the patterns (this algorithm, or the algorithm
+	 * that is run if this object is a worker)
+	 */
+	private AlgoPrefixSpan sink = this;
+
+	/** the subtasks forked by this worker (null if this is not a worker) */
+	private List<ForkJoinTask<?>> forkedTasks = null;
+
+	/**
+	 * If the itemsets contain single items, the item of each remapped item (1, 2,
+	 * 3...), in ascending order (null otherwise)
+	 */
+	private int[] frequentItems = null;
+
+	/**
+	 * the projected databases (if the itemsets contain single items and there is
+	 * no memory budget, null otherwise)
+	 */
+	private ProjectionArena arena = null;
+
+	/** the object counting the items of a projected database in the arena */
+	private ItemCounter counter = null;
+
 	/**
 	 * Default constructor
 	 */
 	public AlgoPrefixSpan() {
 	}
 
+	/**
+	 * Constructor of a worker that explores projected databases in a task, when
+	 * the algorithm is run in parallel. A worker has its own pattern buffer and
+	 * its own spiller, and the memory budget is shared by the threads.
+	 * 
+	 * @param algorithm the algorithm that is run, or the worker forking the task
+	 */
+	private AlgoPrefixSpan(AlgoPrefixSpan algorithm) {
+		this.sink = algorithm.sink;
+		this.minsuppAbsolute = algorithm.minsuppAbsolute;
+		this.maximumPatternLength = algorithm.maximumPatternLength;
+		this.showSequenceIdentifiers = algorithm.showSequenceIdentifiers;
+		this.sequenceCount = algorithm.sequenceCount;
+		this.sequenceDatabase = algorithm.sequenceDatabase;
+		this.containsItemsetsWithMultipleItems = algorithm.containsItemsetsWithMultipleItems;
+		this.threadCount = algorithm.threadCount;
+		this.splitThreshold = algorithm.splitThreshold;
+		this.memoryBudget = algorithm.memoryBudget;
+		if (algorithm == sink && memoryBudget != Long.MAX_VALUE) {
+			this.memoryBudget = Math.max(1, memoryBudget / threadCount);
+		}
+		this.spiller = new ProjectionSpiller(memoryBudget);
+		this.forkedTasks = new ArrayList<ForkJoinTask<?>>();
+		this.metrics = algorithm.metrics;
+		this.frequentItems = algorithm.frequentItems;
+		if (algorithm.arena != null) {
+			this.arena = new ProjectionArena();
+			this.counter = new ItemCounter(frequentItems.length - 1);
+		}
+	}
+
 	/**
 	 * Run the algorithm
 	 * 
@@ -111,9 +213,13 @@ public class AlgoPrefixSpan {
 		// record start time
 		startTime = System.currentTimeMillis();
 
+		metrics = MiningMetrics.current();
+
 		// Load the sequence database
+		MiningMetrics.Phase phase = metrics.startPhase("load");
 		sequenceDatabase = new SequenceDatabase();
 		sequenceDatabase.loadFile(inputFile);
+		phase.end();
 		sequenceCount = sequenceDatabase.size();
 
 		// convert to a absolute minimum support
@@ -123,7 +229,9 @@ public class AlgoPrefixSpan {
 		}
 
 		// run the algorithm
+		phase = metrics.startPhase("mining");
 		prefixSpan(sequenceDatabase, outputFilePath);
+		phase.end();
 
 		sequenceDatabase = null;
 
@@ -155,12 +263,18 @@ public class AlgoPrefixSpan {
 		// save the start time
 		startTime = System.currentTimeMillis();
 
+		metrics = MiningMetrics.current();
+
 		// Load the sequence database
+		MiningMetrics.Phase phase = metrics.startPhase("load");
 		sequenceDatabase = new SequenceDatabase();
 		sequenceDatabase.loadFile(inputFile);
+		phase.end();
 
 		// run the algorithm
+		phase = metrics.startPhase("mining");
 		prefixSpan(sequenceDatabase, outputFilePath);
+		phase.end();
 
 		sequenceDatabase = null;
 
@@ -195,21 +309,38 @@ public class AlgoPrefixSpan {
 
 		sequenceCount = sequenceDatabase.size();
 
+		spiller = new ProjectionSpiller(memoryBudget);
+
 		// ============== CALCULATE FREQUENCY OF SINGLE ITEMS =============
 		// We have to scan the database to find all frequent sequential patterns of size
 		// 1.
 		// We note the sequences in which the items appear.
 		Map<Integer, List<Integer>> mapSequenceID = findSequencesContainingItems();
+		metrics.add(Counter.CANDIDATES_GENERATED, mapSequenceID.size());
+		for (List<Integer> sequenceIDs : mapSequenceID.values()) {
+			if (sequenceIDs.size() < minsuppAbsolute) {
+				metrics.increment(Counter.CANDIDATES_PRUNED);
+			}
+		}
 
 		// ====== Remove infrequent items and explore each projected database
 		// ================
-		// if this database have multiple items per itemset
-		if (containsItemsetsWithMultipleItems) {
-			prefixspanWithMultipleItems(mapSequenceID);
-		} else {
-			// if this database does not have multiple items per itemset
-			// we use an optimize version of the same code
-			prefixspanWithSingleItems(mapSequenceID);
+		try {
+			if (threadCount > 1) {
+				// explore the projected databases with several threads
+				mineInParallel(mapSequenceID);
+			} else if (containsItemsetsWithMultipleItems) {
+				// if this database have multiple items per itemset
+				prefixspanWithMultipleItems(mapSequenceID);
+			} else {
+				// if this database does not have multiple items per itemset
+				// we use an optimize version of the same code
+				prefixspanWithSingleItems(mapSequenceID);
+			}
+		} finally {
+			// delete the files of the projected databases that were not explored
+			// if the algorithm was stopped by an error
+			spiller.deleteFiles();
 		}
 	}
 
@@ -221,6 +352,27 @@ public class AlgoPrefixSpan {
 	 * @throws IOException if error writing to file
 	 */
 	private void prefixspanWithSingleItems(Map<Integer, List<Integer>> mapSequenceID) throws IOException {
+		// =============== REMAP THE FREQUENT ITEMS ========================
+		// The frequent items are replaced by 1, 2, 3... in ascending order, so that
+		// they can be counted in arrays
+		List<Integer> items = new ArrayList<Integer>();
+		for (Entry<Integer, List<Integer>> entry : mapSequenceID.entrySet()) {
+			if (entry.getValue().size() >= minsuppAbsolute) {
+				items.add(entry.getKey());
+			}
+		}
+		Collections.sort(items);
+		frequentItems = new int[items.size() + 1];
+		Map<Integer, Integer> mapItemRemappedItem = new HashMap<Integer, Integer>();
+		for (int i = 0; i < items.size(); i++) {
+			frequentItems[i + 1] = items.get(i);
+			mapItemRemappedItem.put(items.get(i), i + 1);
+		}
+		if (memoryBudget == Long.MAX_VALUE) {
+			arena = new ProjectionArena();
+			counter = new ItemCounter(items.size());
+		}
+
 		// =============== REMOVE INFREQUENT ITEMS ========================
 		// We scan the database to remove infrequent items and resize sequences after
 		// removal
@@ -241,12 +393,12 @@ public class AlgoPrefixSpan {
 
 				// if it is an item
 				if (token > 0) {
-					boolean isFrequent = mapSequenceID.get(token).size() >= minsuppAbsolute;
+					Integer remappedItem = mapItemRemappedItem.get(token);
 
 					// if the item is frequent
-					if (isFrequent) {
-						// copy the item to the current position
-						sequence[currentPosition] = token;
+					if (remappedItem != null) {
+						// copy the remapped item to the current position
+						sequence[currentPosition] = remappedItem;
 						// increment the current position
 						currentPosition++;
 					}
@@ -273,31 +425,54 @@ public class AlgoPrefixSpan {
 		// ============= WE EXPLORE EACH PROJECTED DATABASE
 		// ================================
 		// For each frequent item
-		for (Entry<Integer, List<Integer>> entry : mapSequenceID.entrySet()) {
-			int support = entry.getValue().size();
-			// if the item is frequent (has a support >= minsup)
-			if (support >= minsuppAbsolute) {
-				int item = entry.getKey();
-
-				// The prefix is a frequent sequential pattern.
-				// We save it in the result.
-				savePattern(item, support, entry.getValue());
-
-				// We make a recursive call to try to find larger sequential
-				// patterns starting with this prefix
-				if (maximumPatternLength > 1) {
-
-					// Create the prefix for this projected database by copying the item in the
-					// buffer
-					patternBuffer[0] = item;
+		for (int remappedItem = 1; remappedItem < frequentItems.length; remappedItem++) {
+			List<Integer> sequenceIDs = mapSequenceID.get(frequentItems[remappedItem]);
+
+			// The prefix is a frequent sequential pattern.
+			// We save it in the result.
+			savePattern(frequentItems[remappedItem], sequenceIDs.size(), sequenceIDs);
+
+			// We make a recursive call to try to find larger sequential
+			// patterns starting with this prefix
+			if (maximumPatternLength > 1 && forkedTasks != null) {
+				// if the algorithm is run in parallel, the projected database is built
+				// and explored by another task
+				forkTask(remappedItem, sequenceIDs);
+			} else if (maximumPatternLength > 1) {
+				exploreSingleItem(remappedItem, sequenceIDs);
+			}
+		}
+	}
 
-					// build the projected database for that item
-					List<PseudoSequence> projectedDatabase = buildProjectedDatabaseSingleItems(item, entry.getValue());
+	/**
+	 * Build and explore the projected database of a frequent item, if the
+	 * itemsets contain single items
+	 * 
+	 * @param remappedItem the item (remapped)
+	 * @param sequenceIDs  the sequences containing the item
+	 * @throws IOException if error writing to file
+	 */
+	private void exploreSingleItem(int remappedItem, List<Integer> sequenceIDs) throws IOException {
+		// Create the prefix for this projected database by copying the item in the
+		// buffer
+		patternBuffer[0] = frequentItems[remappedItem];
+
+		if (arena != null) {
+			// build the projected database for that item in the first level of the
+			// arena
+			arena.clear(0);
+			buildProjectedDatabaseSingleItems(remappedItem, sequenceIDs, arena);
+			metrics.increment(Counter.PROJECTIONS_BUILT);
+
+			// recursive call
+			recursionSingleItems(0, 0, arena.size(0), 2, 0);
+		} else {
+			// build the projected database for that item
+			List<PseudoSequence> projectedDatabase = buildProjectedDatabaseSingleItems(remappedItem, sequenceIDs);
+			metrics.increment(Counter.PROJECTIONS_BUILT);
 
-					// recursive call
-					recursionSingleItems(projectedDatabase, 2, 0);
-				}
-			}
+			// recursive call
+			recursionSingleItems(projectedDatabase, 2, 0);
 		}
 	}
 
@@ -389,7 +564,11 @@ public class AlgoPrefixSpan {
 
 				// We make a recursive call to try to find larger sequential
 				// patterns starting with this prefix
-				if (maximumPatternLength > 1) {
+				if (maximumPatternLength > 1 && forkedTasks != null) {
+					// if the algorithm is run in parallel, the projected database is built
+					// and explored by another task
+					forkTask(item, entry.getValue());
+				} else if (maximumPatternLength > 1) {
 
 					// Create the prefix for this projected database by copying the item in the
 					// buffer
@@ -398,6 +577,7 @@ public class AlgoPrefixSpan {
 					// build the projected database for that item
 					List<PseudoSequence> projectedDatabase = buildProjectedDatabaseFirstTimeMultipleItems(item,
 							entry.getValue());
+					metrics.increment(Counter.PROJECTIONS_BUILT);
 
 					// recursive call
 					recursion(patternBuffer, projectedDatabase, 2, 0);
@@ -417,11 +597,8 @@ public class AlgoPrefixSpan {
 	 * @throws IOException exception if error while writing the output file.
 	 */
 	private void savePattern(int item, int support, List<Integer> sequenceIDs) throws IOException {
-		// increase the number of pattern found for statistics purposes
-		patternCount++;
-
 		// if the result should be saved to a file
-		if (writer != null) {
+		if (sink.writer != null) {
 			// create a StringBuilder
 			StringBuilder r = new StringBuilder();
 			r.append(item);
@@ -435,16 +612,14 @@ public class AlgoPrefixSpan {
 				}
 			}
 			// write the string to the file
-			writer.write(r.toString());
-			// start a new line
-			writer.newLine();
+			sink.writePattern(r.toString());
 		}
 		// otherwise the result is kept into memory
 		else {
 			SequentialPattern pattern = new SequentialPattern();
 			pattern.addItemset(new Itemset(item));
 			pattern.setSequenceIDs(sequenceIDs);
-			patterns.addSequence(pattern, 1);
+			sink.addPattern(pattern, 1);
 		}
 	}
 
@@ -455,15 +630,36 @@ public class AlgoPrefixSpan {
 	 * @param lastBufferPosition the last position in the buffer for this pattern
 	 * @param pseudoSequences    the list of pseudosequences where this pattern
 	 *                           appears.
-	 * @param length             the pattern length in terms of number of items.
 	 * @throws IOException if error when writing to file
 	 */
 	private void savePattern(int lastBufferPosition, List<PseudoSequence> pseudoSequences) throws IOException {
-		// increase the number of pattern found for statistics purposes
-		patternCount++;
+		// the sequence IDs are only needed if they are shown or kept into memory
+		int[] sequenceIDs = null;
+		if (showSequenceIdentifiers || sink.writer == null) {
+			sequenceIDs = new int[pseudoSequences.size()];
+			for (int i = 0; i < sequenceIDs.length; i++) {
+				sequenceIDs[i] = pseudoSequences.get(i).sequenceID;
+			}
+		}
+		savePattern(lastBufferPosition, pseudoSequences.size(), sequenceIDs, 0);
+	}
 
+	/**
+	 * Save a pattern containing two or more items to the output file (or in memory,
+	 * depending on what the user prefer)
+	 * 
+	 * @param lastBufferPosition the last position in the buffer for this pattern
+	 * @param support            the number of sequences where this pattern
+	 *                           appears.
+	 * @param sequenceIDs        an array containing the IDs of these sequences
+	 *                           (it may be null if the sequence identifiers are not
+	 *                           shown and the result is saved to a file)
+	 * @param start              the position of the first ID in the array
+	 * @throws IOException if error when writing to file
+	 */
+	private void savePattern(int lastBufferPosition, int support, int[] sequenceIDs, int start) throws IOException {
 		// if the result should be saved to a file
-		if (writer != null) {
+		if (sink.writer != null) {
 
 			// create a StringBuilder
 			StringBuilder r = new StringBuilder();
@@ -479,18 +675,16 @@ public class AlgoPrefixSpan {
 			}
 			// -------------------------------------
 			r.append("#SUP: ");
-			r.append(pseudoSequences.size());
+			r.append(support);
 			if (showSequenceIdentifiers) {
 				r.append(" #SID: ");
-				for (PseudoSequence sequence : pseudoSequences) {
-					r.append(sequence.sequenceID);
+				for (int i = start; i < start + support; i++) {
+					r.append(sequenceIDs[i]);
 					r.append(" ");
 				}
 			}
 			// write the string to the file
-			writer.write(r.toString());
-			// start a new line
-			writer.newLine();
+			sink.writePattern(r.toString());
 		}
 		// otherwise the result is kept into memory
 		else {
@@ -510,16 +704,48 @@ public class AlgoPrefixSpan {
 			pattern.addItemset(currentItemset);
 			itemsetCount++;
 
-			List<Integer> sequencesIDs = new ArrayList<Integer>(pseudoSequences.size());
-			for (int i = 0; i < pseudoSequences.size(); i++) {
-				sequencesIDs.add(pseudoSequences.get(i).sequenceID);
+			List<Integer> sequencesIDs = new ArrayList<Integer>(support);
+			for (int i = start; i < start + support; i++) {
+				sequencesIDs.add(sequenceIDs[i]);
 			}
 			pattern.setSequenceIDs(sequencesIDs);
 //			System.out.println(pattern);
-			patterns.addSequence(pattern, itemsetCount);
+			sink.addPattern(pattern, itemsetCount);
 		}
 	}
 
+	/**
+	 * Write a pattern to the output file. The workers of a parallel execution
+	 * call this method of the algorithm that is run, so it is synchronized.
+	 * 
+	 * @param pattern the pattern, with its support
+	 * @throws IOException if error when writing to file
+	 */
+	private synchronized void writePattern(String pattern) throws IOException {
+		// increase the number of pattern found for statistics purposes
+		patternCount++;
+		metrics.increment(Counter.PATTERNS_EMITTED);
+
+		writer.write(pattern);
+		// start a new line
+		writer.newLine();
+	}
+
+	/**
+	 * Keep a pattern into memory. The workers of a parallel execution call this
+	 * method of the algorithm that is run, so it is synchronized.
+	 * 
+	 * @param pattern      the pattern
+	 * @param itemsetCount the number of itemsets of the pattern
+	 */
+	private synchronized void addPattern(SequentialPattern pattern, int itemsetCount) {
+		// increase the number of pattern found for statistics purposes
+		patternCount++;
+		metrics.increment(Counter.PATTERNS_EMITTED);
+
+		patterns.addSequence(pattern, itemsetCount);
+	}
+
 	/**
 	 * For each item, calculate the sequence id of sequences containing that item
 	 * 
@@ -609,6 +835,33 @@ public class AlgoPrefixSpan {
 		return projectedDatabase; // return the projected database
 	}
 
+	/**
+	 * Create a projected database by pseudo-projection with the initial database
+	 * and a given item, in the first level of a ProjectionArena.
+	 * 
+	 * @param item        The item to use to make the pseudo-projection
+	 * @param sequenceIDs The set of sequence ids containing the item
+	 * @param arena       The arena where the projected database is stored
+	 */
+	private void buildProjectedDatabaseSingleItems(int item, List<Integer> sequenceIDs, ProjectionArena arena) {
+		// for each sequence that contains the current item
+		loopSeq: for (int sequenceID : sequenceIDs) {
+			int[] sequence = sequenceDatabase.getSequences().get(sequenceID);
+
+			// for each token in this sequence (item or end of sequence (-2)
+			for (int j = 0; sequence[j] != -2; j++) {
+				// if it is the item that we want to use for projection
+				if (sequence[j] == item) {
+					// if it is not the end of the sequence
+					if (sequence[j + 1] != -2) {
+						arena.add(0, sequenceID, j + 1);
+					}
+					continue loopSeq;
+				}
+			}
+		}
+	}
+
 	/**
 	 * Create a projected database by pseudo-projection with the initial database
 	 * and a given item.
@@ -675,6 +928,10 @@ public class AlgoPrefixSpan {
 		// release the memory used by the database
 		database = null;
 
+		// each item found is a candidate, and its projected database was built
+		metrics.add(Counter.CANDIDATES_GENERATED, itemsPseudoSequences.size());
+		metrics.add(Counter.PROJECTIONS_BUILT, itemsPseudoSequences.size());
+
 //		for(Pair pair : pairs){
 //			System.out.print(pair.item + " isPostfix? " + pair.isPostfix() + "    " );
 //			for(PseudoSequence seq: pair.getPseudoSequences()){
@@ -684,23 +941,123 @@ public class AlgoPrefixSpan {
 //		}
 //		System.out.println("DEBUG");
 
-		// For each pair found (a pair is an item with a boolean indicating if it
-		// appears in an itemset that is cut (a postfix) or not, and the sequence IDs
-		// where it appears in the projected database).
+		// For each item found, keep the projected database if the item is frequent
+		// in the current projected database. The projected databases wait to be
+		// explored, and may be spilled to files if there is a memory budget.
+		List<ProjectedDatabase> projectedDatabases = new ArrayList<ProjectedDatabase>();
 		for (Entry<Integer, List<PseudoSequence>> entry : itemsPseudoSequences.entrySet()) {
-			// if the item is frequent in the current projected database
 			if (entry.getValue().size() >= minsuppAbsolute) {
+				ProjectedDatabase projectedDatabase = new ProjectedDatabase(entry.getKey(), false, entry.getValue());
+				projectedDatabases.add(projectedDatabase);
+				spiller.add(projectedDatabase);
+			}
+		}
+		metrics.add(Counter.CANDIDATES_PRUNED, itemsPseudoSequences.size() - projectedDatabases.size());
+		itemsPseudoSequences = null;
 
-				// Create the new pattern by appending the item as a new itemset to the sequence
-				patternBuffer[lastBufferPosition + 1] = -1;
-				patternBuffer[lastBufferPosition + 2] = entry.getKey();
+		// For each frequent item
+		for (ProjectedDatabase projectedDatabase : projectedDatabases) {
+			List<PseudoSequence> pseudoSequences = spiller.take(projectedDatabase);
+
+			// Create the new pattern by appending the item as a new itemset to the sequence
+			patternBuffer[lastBufferPosition + 1] = -1;
+			patternBuffer[lastBufferPosition + 2] = frequentItems[projectedDatabase.item];
+
+			// save the pattern
+			savePattern(lastBufferPosition + 2, pseudoSequences);
+
+			// make a recursive call (or explore the projected database in another task
+			// if the algorithm is run in parallel and it is large enough)
+			if (k < maximumPatternLength) {
+				if (forkedTasks != null && pseudoSequences.size() >= splitThreshold) {
+					forkTask(pseudoSequences, k + 1, lastBufferPosition + 2);
+				} else {
+					recursionSingleItems(pseudoSequences, k + 1, lastBufferPosition + 2);
+				}
+			}
+		}
 
-				// save the pattern
-				savePattern(lastBufferPosition + 2, entry.getValue());
+		// check the current memory usage
+		MemoryLogger.getInstance().checkMemory();
+	}
+
+	/**
+	 * Method to recursively grow a given sequential pattern, when the projected
+	 * databases are stored in the arena. The items are counted in a first pass
+	 * over the projected database, and the projected databases of the frequent
+	 * items are written in the next level of the arena in a second pass.
+	 * 
+	 * @param level              the level of the arena containing the current
+	 *                           projected sequence database
+	 * @param start              the position of its first pseudo-sequence
+	 * @param size               its number of pseudo-sequences
+	 * @param k                  the prefix length in terms of items
+	 * @param lastBufferPosition the last position used in the buffer for storing
+	 *                           the current prefix
+	 * @throws IOException exception if there is an error writing to the output file
+	 */
+	private void recursionSingleItems(int level, int start, int size, int k, int lastBufferPosition)
+			throws IOException {
+		List<int[]> sequences = sequenceDatabase.getSequences();
+		int[] sequenceIDs = arena.getSequenceIDs(level);
+		int[] positions = arena.getPositions(level);
+
+		// count the items of the current projected database
+		for (int i = start; i < start + size; i++) {
+			int[] sequence = sequences.get(sequenceIDs[i]);
+			for (int j = positions[i]; sequence[j] != -2; j++) {
+				counter.count(sequence[j], i);
+			}
+		}
+		int[] items = counter.getFrequentItems(minsuppAbsolute);
+		int[] supports = new int[items.length];
+		int[] starts = new int[items.length];
+
+		// each item found is a candidate
+		metrics.add(Counter.CANDIDATES_GENERATED, counter.getItemCount());
+		metrics.add(Counter.CANDIDATES_PRUNED, counter.getItemCount() - items.length);
+		metrics.add(Counter.PROJECTIONS_BUILT, items.length);
+
+		// reserve the space of the projected database of each frequent item in the
+		// next level, and write their pseudo-sequences
+		arena.clear(level + 1);
+		for (int x = 0; x < items.length; x++) {
+			supports[x] = counter.getSupport(items[x]);
+			starts[x] = arena.reserve(level + 1, supports[x]);
+			counter.setPosition(items[x], starts[x]);
+		}
+		int[] newSequenceIDs = arena.getSequenceIDs(level + 1);
+		int[] newPositions = arena.getPositions(level + 1);
+		if (items.length > 0) {
+			for (int i = start; i < start + size; i++) {
+				int[] sequence = sequences.get(sequenceIDs[i]);
+				for (int j = positions[i]; sequence[j] != -2; j++) {
+					int position = counter.nextPosition(sequence[j], i);
+					if (position != -1) {
+						newSequenceIDs[position] = sequenceIDs[i];
+						newPositions[position] = j + 1;
+					}
+				}
+			}
+		}
+		counter.clear();
 
-				// make a recursive call
-				if (k < maximumPatternLength) {
-					recursionSingleItems(entry.getValue(), k + 1, lastBufferPosition + 2);
+		// For each frequent item
+		for (int x = 0; x < items.length; x++) {
+			// Create the new pattern by appending the item as a new itemset to the sequence
+			patternBuffer[lastBufferPosition + 1] = -1;
+			patternBuffer[lastBufferPosition + 2] = frequentItems[items[x]];
+
+			// save the pattern
+			savePattern(lastBufferPosition + 2, supports[x], newSequenceIDs, starts[x]);
+
+			// make a recursive call (or explore the projected database in another task
+			// if the algorithm is run in parallel and it is large enough)
+			if (k < maximumPatternLength) {
+				if (forkedTasks != null && supports[x] >= splitThreshold) {
+					forkTask(level + 1, starts[x], supports[x], k + 1, lastBufferPosition + 2);
+				} else {
+					recursionSingleItems(level + 1, starts[x], supports[x], k + 1, lastBufferPosition + 2);
 				}
 			}
 		}
@@ -742,6 +1099,11 @@ public class AlgoPrefixSpan {
 		// release the memory used by the database
 		database = null;
 
+		// each pair found is a candidate, and its projected database was built
+		int pairCount = mapsPairs.mapPairs.size() + mapsPairs.mapPairsInPostfix.size();
+		metrics.add(Counter.CANDIDATES_GENERATED, pairCount);
+		metrics.add(Counter.PROJECTIONS_BUILT, pairCount);
+
 //		for(Pair pair : pairs){
 //			System.out.print(pair.item + " isPostfix? " + pair.isPostfix() + "    " );
 //			for(PseudoSequence seq: pair.getPseudoSequences()){
@@ -751,50 +1113,58 @@ public class AlgoPrefixSpan {
 //		}
 //		System.out.println("DEBUG");
 
-		// For each pair found that is in a postfix itemset(a pair is an item with a
-		// boolean indicating if it
+		// For each pair found (a pair is an item with a boolean indicating if it
 		// appears in an itemset that is cut (a postfix) or not, and the sequence IDs
-		// where it appears in the projected database).
+		// where it appears in the projected database), keep the projected database
+		// if the item is frequent in the current projected database. The pairs in a
+		// postfix itemset are explored first. The projected databases wait to be
+		// explored, and may be spilled to files if there is a memory budget.
+		List<ProjectedDatabase> projectedDatabases = new ArrayList<ProjectedDatabase>();
 		for (Entry<Pair, Pair> entry : mapsPairs.mapPairsInPostfix.entrySet()) {
 			Pair pair = entry.getKey();
-
-			// if the item is frequent in the current projected database
 			if (pair.getCount() >= minsuppAbsolute) {
-
-				int newBuferPosition = lastBufferPosition;
-				// we append it to the last itemset of the prefix
-				newBuferPosition++;
-				patternBuffer[newBuferPosition] = pair.item;
-
-				// save the pattern
-				savePattern(newBuferPosition, pair.getPseudoSequences());
-
-				// make a recursive call
-				if (k < maximumPatternLength) {
-					recursion(patternBuffer, pair.getPseudoSequences(), k + 1, newBuferPosition);
-				}
+				ProjectedDatabase projectedDatabase = new ProjectedDatabase(pair.item, true,
+						pair.getPseudoSequences());
+				projectedDatabases.add(projectedDatabase);
+				spiller.add(projectedDatabase);
 			}
 		}
-
-		// For each pair found representing an item that is not in a postfix
 		for (Entry<Pair, Pair> entry : mapsPairs.mapPairs.entrySet()) {
 			Pair pair = entry.getKey();
-			// if the item is frequent in the current projected database
 			if (pair.getCount() >= minsuppAbsolute) {
+				ProjectedDatabase projectedDatabase = new ProjectedDatabase(pair.item, false,
+						pair.getPseudoSequences());
+				projectedDatabases.add(projectedDatabase);
+				spiller.add(projectedDatabase);
+			}
+		}
+		metrics.add(Counter.CANDIDATES_PRUNED, pairCount - projectedDatabases.size());
+		mapsPairs = null;
 
-				int newBuferPosition = lastBufferPosition;
-				// we append it to the last itemset of the prefix
-				newBuferPosition++;
+		// For each frequent item
+		for (ProjectedDatabase projectedDatabase : projectedDatabases) {
+			List<PseudoSequence> pseudoSequences = spiller.take(projectedDatabase);
+
+			int newBuferPosition = lastBufferPosition;
+			// if the item is in a postfix, we append it to the last itemset of the
+			// prefix, otherwise we append it as a new itemset
+			newBuferPosition++;
+			if (projectedDatabase.isPostfix == false) {
 				patternBuffer[newBuferPosition] = -1;
 				newBuferPosition++;
-				patternBuffer[newBuferPosition] = pair.item;
-
-				// save the pattern
-				savePattern(newBuferPosition, pair.getPseudoSequences());
-
-				// make a recursive call
-				if (k < maximumPatternLength) {
-					recursion(patternBuffer, pair.getPseudoSequences(), k + 1, newBuferPosition);
+			}
+			patternBuffer[newBuferPosition] = projectedDatabase.item;
+
+			// save the pattern
+			savePattern(newBuferPosition, pseudoSequences);
+
+			// make a recursive call (or explore the projected database in another task
+			// if the algorithm is run in parallel and it is large enough)
+			if (k < maximumPatternLength) {
+				if (forkedTasks != null && pseudoSequences.size() >= splitThreshold) {
+					forkTask(pseudoSequences, k + 1, newBuferPosition);
+				} else {
+					recursion(patternBuffer, pseudoSequences, k + 1, newBuferPosition);
 				}
 			}
 		}
@@ -803,6 +1173,162 @@ public class AlgoPrefixSpan {
 		MemoryLogger.getInstance().checkMemory();
 	}
 
+	/**
+	 * Explore the projected databases of the frequent items with several threads.
+	 * 
+	 * @param mapSequenceID the set of items with the sequences containing them
+	 * @throws IOException if error while writing the output file or a file of the
+	 *                     projected databases
+	 */
+	private void mineInParallel(Map<Integer, List<Integer>> mapSequenceID) throws IOException {
+		// the projected databases having at least this number of sequences are
+		// explored in separate tasks
+		splitThreshold = Math.max(MINIMUM_SPLIT_THRESHOLD, sequenceCount / (threadCount * 16));
+
+		AlgoPrefixSpan worker = new AlgoPrefixSpan(this);
+		ForkJoinPool pool = metrics.newForkJoinPool(threadCount);
+		try {
+			pool.invoke(worker.new MiningTask(mapSequenceID));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Fork a task to build and explore the projected database of a frequent item.
+	 * 
+	 * @param item        the item (remapped if the itemsets contain single items)
+	 * @param sequenceIDs the sequences containing the item
+	 */
+	private void forkTask(int item, List<Integer> sequenceIDs) {
+		AlgoPrefixSpan worker = new AlgoPrefixSpan(this);
+		forkedTasks.add(worker.new MiningTask(item, sequenceIDs).fork());
+	}
+
+	/**
+	 * Fork a task to explore a projected database of the arena. It is copied in
+	 * the first level of the arena of the task.
+	 * 
+	 * @param level              the level of the projected database
+	 * @param start              the position of its first pseudo-sequence
+	 * @param size               its number of pseudo-sequences
+	 * @param k                  the prefix length in terms of items
+	 * @param lastBufferPosition the last position used in the buffer for storing
+	 *                           the current prefix
+	 */
+	private void forkTask(int level, int start, int size, int k, int lastBufferPosition) {
+		AlgoPrefixSpan worker = new AlgoPrefixSpan(this);
+		System.arraycopy(patternBuffer, 0, worker.patternBuffer, 0, lastBufferPosition + 1);
+		worker.arena.clear(0);
+		worker.arena.copy(0, arena, level, start, size);
+		forkedTasks.add(worker.new MiningTask(k, lastBufferPosition).fork());
+	}
+
+	/**
+	 * Fork a task to explore the projected database of the current prefix.
+	 * 
+	 * @param database           the projected database
+	 * @param k                  the prefix length in terms of items
+	 * @param lastBufferPosition the last position used in the buffer for storing
+	 *                           the current prefix
+	 */
+	private void forkTask(List<PseudoSequence> database, int k, int lastBufferPosition) {
+		AlgoPrefixSpan worker = new AlgoPrefixSpan(this);
+		System.arraycopy(patternBuffer, 0, worker.patternBuffer, 0, lastBufferPosition + 1);
+		forkedTasks.add(worker.new MiningTask(database, k, lastBufferPosition).fork());
+	}
+
+	/**
+	 * A task exploring projected databases, when the algorithm is run in
+	 * parallel. The sequence database is only read, so it is shared by the tasks
+	 * (after the infrequent items were removed by the first task).
+	 */
+	private class MiningTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		// the sequences containing each item, to explore the projected databases of
+		// all frequent items (null otherwise)
+		private final Map<Integer, List<Integer>> mapSequenceID;
+		// the item whose projected database is built and explored, and the
+		// sequences containing it (null otherwise)
+		private final int item;
+		private final List<Integer> sequenceIDs;
+		// the projected database explored by the task (null if it is the first
+		// level of the arena, or if the task explores the projected databases of
+		// items)
+		private final List<PseudoSequence> database;
+		private final int k;
+		private final int lastBufferPosition;
+
+		MiningTask(Map<Integer, List<Integer>> mapSequenceID) {
+			this(mapSequenceID, 0, null, null, 1, -1);
+		}
+
+		MiningTask(int item, List<Integer> sequenceIDs) {
+			this(null, item, sequenceIDs, null, 2, 0);
+		}
+
+		MiningTask(List<PseudoSequence> database, int k, int lastBufferPosition) {
+			this(null, 0, null, database, k, lastBufferPosition);
+		}
+
+		MiningTask(int k, int lastBufferPosition) {
+			this(null, 0, null, null, k, lastBufferPosition);
+		}
+
+		private MiningTask(Map<Integer, List<Integer>> mapSequenceID, int item, List<Integer> sequenceIDs,
+				List<PseudoSequence> database, int k, int lastBufferPosition) {
+			this.mapSequenceID = mapSequenceID;
+			this.item = item;
+			this.sequenceIDs = sequenceIDs;
+			this.database = database;
+			this.k = k;
+			this.lastBufferPosition = lastBufferPosition;
+		}
+
+		@Override
+		protected void compute() {
+			try {
+				if (mapSequenceID != null) {
+					if (containsItemsetsWithMultipleItems) {
+						prefixspanWithMultipleItems(mapSequenceID);
+					} else {
+						prefixspanWithSingleItems(mapSequenceID);
+					}
+				} else if (sequenceIDs != null) {
+					// build and explore the projected database of the item
+					if (containsItemsetsWithMultipleItems) {
+						patternBuffer[0] = item;
+						List<PseudoSequence> projectedDatabase = buildProjectedDatabaseFirstTimeMultipleItems(item,
+								sequenceIDs);
+						metrics.increment(Counter.PROJECTIONS_BUILT);
+						recursion(patternBuffer, projectedDatabase, k, lastBufferPosition);
+					} else {
+						exploreSingleItem(item, sequenceIDs);
+					}
+				} else if (database == null) {
+					recursionSingleItems(0, 0, arena.size(0), k, lastBufferPosition);
+				} else if (containsItemsetsWithMultipleItems) {
+					recursion(patternBuffer, database, k, lastBufferPosition);
+				} else {
+					recursionSingleItems(database, k, lastBufferPosition);
+				}
+			} catch (IOException e) {
+				// the exception is thrown again by mineInParallel()
+				throw new UncheckedIOException(e);
+			} finally {
+				spiller.deleteFiles();
+				sink.spiller.addStatistics(spiller);
+			}
+			// wait for the subtasks
+			for (int i = forkedTasks.size() - 1; i >= 0; i--) {
+				forkedTasks.get(i).join();
+			}
+		}
+	}
+
 	/**
 	 * Method to find all frequent items in a projected sequence database
 	 * 
@@ -1027,6 +1553,13 @@ public class AlgoPrefixSpan {
 		r.append(" Pattern count : ");
 		r.append(patternCount);
 		r.append('\n');
+		if (memoryBudget != Long.MAX_VALUE) {
+			r.append(" Memory budget (bytes) : " + memoryBudget);
+			r.append('\n');
+			r.append(" Spilled projected databases : " + spiller.getSpilledProjectionCount() + " ("
+					+ spiller.getSpilledBytes() + " bytes)");
+			r.append('\n');
+		}
 		r.append("===================================================\n");
 		// if the result was save into memory, print it
 		if (patterns != null) {
@@ -1053,6 +1586,53 @@ public class AlgoPrefixSpan {
 		this.maximumPatternLength = maximumPatternLength;
 	}
 
+	/**
+	 * Set a memory budget for the projected databases waiting to be explored. When
+	 * their estimated size exceeds the budget, the largest ones are written to
+	 * temporary files until they are explored.
+	 * 
+	 * @param memoryBudget the budget in bytes
+	 */
+	public void setMemoryBudget(long memoryBudget) {
+		if (memoryBudget < 1) {
+			throw new IllegalArgumentException("The memory budget must be at least 1 byte");
+		}
+		this.memoryBudget = memoryBudget;
+	}
+
+	/**
+	 * Get the number of projected databases that were written to files during the
+	 * last execution
+	 * 
+	 * @return the number of projected databases
+	 */
+	public int getSpilledProjectionCount() {
+		return spiller == null ? 0 : spiller.getSpilledProjectionCount();
+	}
+
+	/**
+	 * Get the number of bytes written to files during the last execution
+	 * 
+	 * @return the number of bytes
+	 */
+	public long getSpilledBytes() {
+		return spiller == null ? 0 : spiller.getSpilledBytes();
+	}
+
+	/**
+	 * Set the number of threads used to explore the projected databases. By
+	 * default, a single thread is used. The patterns found are the same, but they
+	 * are not saved in the same order if several threads are used.
+	 * 
+	 * @param threadCount the number of threads
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least 1");
+		}
+		this.threadCount = threadCount;
+	}
+
 	/**
 	 * Set that the sequence identifiers should be shown (true) or not (false) for
 	 * each pattern found
@@ -0,0 +1,170 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan;
+
+import java.util.Arrays;
+
+/**
+ * This counts the support of the items of a projected database in arrays
+ * indexed by the items, instead of a map. The items must be remapped to small
+ * integers (1, 2, 3...) for the arrays to be small. It is used in two passes:
+ * <ol>
+ * <li>count() is called for each occurrence of an item in the pseudo-sequences,
+ * and getFrequentItems() returns the items that are frequent,</li>
+ * <li>setPosition() gives the position in a ProjectionArena where the
+ * projected database of each frequent item is written, and nextPosition() is
+ * called for each occurrence of an item in the pseudo-sequences to obtain the
+ * position of the pseudo-sequence to write (only for the first occurrence of
+ * a frequent item in a pseudo-sequence).</li>
+ * </ol>
+ * Then clear() resets the items that were counted, so that the counter can be
+ * reused for another projected database, without going through all items.
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @see ProjectionArena
+ * @see AlgoPrefixSpan
+ */
+public class ItemCounter {
+
+	/** the support of each item */
+	private final int[] supports;
+
+	/** the last pseudo-sequence where each item was found, or -1 */
+	private final int[] lastSequences;
+
+	/** the next position where a pseudo-sequence of each item is written, or -1 */
+	private final int[] positions;
+
+	/** the items that were counted */
+	private final int[] items;
+
+	/** the number of items that were counted */
+	private int itemCount = 0;
+
+	/**
+	 * Constructor
+	 *
+	 * @param maxItem the largest item
+	 */
+	public ItemCounter(int maxItem) {
+		supports = new int[maxItem + 1];
+		lastSequences = new int[maxItem + 1];
+		positions = new int[maxItem + 1];
+		items = new int[maxItem + 1];
+		Arrays.fill(lastSequences, -1);
+		Arrays.fill(positions, -1);
+	}
+
+	/**
+	 * Count an occurrence of an item. The support is only increased for the
+	 * first occurrence in a pseudo-sequence.
+	 *
+	 * @param item     the item
+	 * @param sequence the pseudo-sequence (for example its position in a
+	 *                 ProjectionArena)
+	 */
+	public void count(int item, int sequence) {
+		if (lastSequences[item] != sequence) {
+			lastSequences[item] = sequence;
+			if (supports[item]++ == 0) {
+				items[itemCount++] = item;
+			}
+		}
+	}
+
+	/**
+	 * Get the number of items that were counted
+	 *
+	 * @return the number of items
+	 */
+	public int getItemCount() {
+		return itemCount;
+	}
+
+	/**
+	 * Get the support of an item
+	 *
+	 * @param item the item
+	 * @return the support
+	 */
+	public int getSupport(int item) {
+		return supports[item];
+	}
+
+	/**
+	 * Get the items having a minimum support
+	 *
+	 * @param minsup the minimum support
+	 * @return the items, in ascending order
+	 */
+	public int[] getFrequentItems(int minsup) {
+		int frequentItemCount = 0;
+		for (int i = 0; i < itemCount; i++) {
+			if (supports[items[i]] >= minsup) {
+				frequentItemCount++;
+			}
+		}
+		int[] frequentItems = new int[frequentItemCount];
+		frequentItemCount = 0;
+		for (int i = 0; i < itemCount; i++) {
+			if (supports[items[i]] >= minsup) {
+				frequentItems[frequentItemCount++] = items[i];
+			}
+		}
+		Arrays.sort(frequentItems);
+		return frequentItems;
+	}
+
+	/**
+	 * Set the position where the pseudo-sequences of an item will be written
+	 *
+	 * @param item     the item
+	 * @param position the position
+	 */
+	public void setPosition(int item, int position) {
+		positions[item] = position;
+		lastSequences[item] = -1;
+	}
+
+	/**
+	 * Get the position where the pseudo-sequence of an occurrence of an item must
+	 * be written, if it is the first occurrence in the pseudo-sequence of an item
+	 * having a position
+	 *
+	 * @param item     the item
+	 * @param sequence the pseudo-sequence
+	 * @return the position, or -1 if no pseudo-sequence must be written
+	 */
+	public int nextPosition(int item, int sequence) {
+		if (positions[item] == -1 || lastSequences[item] == sequence) {
+			return -1;
+		}
+		lastSequences[item] = sequence;
+		return positions[item]++;
+	}
+
+	/**
+	 * Reset the items that were counted
+	 */
+	public void clear() {
+		for (int i = 0; i < itemCount; i++) {
+			int item = items[i];
+			supports[item] = 0;
+			lastSequences[item] = -1;
+			positions[item] = -1;
+		}
+		itemCount = 0;
+	}
+}
@@ -0,0 +1,64 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * This represents a projected database of PrefixSpan that is waiting to be
+ * explored, that is the projection of the current prefix extended with an item.
+ * Its pseudo-sequences are either in memory or in a temporary file, if they were
+ * spilled by the ProjectionSpiller.
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @see ProjectionSpiller
+ * @see AlgoPrefixSpan
+ */
+class ProjectedDatabase {
+
+	/** the item extending the prefix */
+	final int item;
+
+	/**
+	 * true if the item is appended to the last itemset of the prefix
+	 * (i-extension), false if it is appended as a new itemset (s-extension)
+	 */
+	final boolean isPostfix;
+
+	/** the number of pseudo-sequences (the support of the extended prefix) */
+	final int size;
+
+	/** the pseudo-sequences, or null if they were spilled or taken */
+	List<PseudoSequence> pseudoSequences;
+
+	/** the file containing the pseudo-sequences, if they were spilled */
+	File file;
+
+	/**
+	 * Constructor
+	 *
+	 * @param item            the item extending the prefix
+	 * @param isPostfix       true if it is an i-extension, false if it is an
+	 *                        s-extension
+	 * @param pseudoSequences the pseudo-sequences
+	 */
+	ProjectedDatabase(int item, boolean isPostfix, List<PseudoSequence> pseudoSequences) {
+		this.item = item;
+		this.isPostfix = isPostfix;
+		this.size = pseudoSequences.size();
+		this.pseudoSequences = pseudoSequences;
+	}
+}
@@ -0,0 +1,160 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan;
+
+/**
+ * This stores the projected databases of a depth-first search in arrays
+ * instead of lists of PseudoSequence objects. A pseudo-sequence is a sequence
+ * ID and the position of its first item in the sequence, and they are stored
+ * in two parallel int arrays. There is a pair of arrays for each level of the
+ * search: the projected databases of the extensions of a prefix are stored
+ * one after the other in the level following the level of the prefix. When the
+ * search backtracks and explores the next extension, its level is cleared and
+ * its arrays are reused, so that the arrays are only allocated when they must
+ * grow. <br/>
+ * <br/>
+ *
+ * A projected database is a range (start, size) of a level. The class does not
+ * depend on how the sequences are represented, so it can be used by other
+ * algorithms based on pseudo-projection (BIDE+, MaxSP, FEAT, FSGP...).
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @see ItemCounter
+ * @see AlgoPrefixSpan
+ */
+public class ProjectionArena {
+
+	/** the initial capacity of a level */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** the sequence IDs of the pseudo-sequences of each level */
+	private int[][] sequenceIDs = new int[8][];
+
+	/** the position of the first item of the pseudo-sequences of each level */
+	private int[][] positions = new int[8][];
+
+	/** the number of pseudo-sequences of each level */
+	private int[] sizes = new int[8];
+
+	/**
+	 * Remove the pseudo-sequences of a level, so that its arrays can be reused
+	 *
+	 * @param level the level
+	 */
+	public void clear(int level) {
+		if (level >= sizes.length) {
+			int length = Math.max(level + 1, sizes.length * 2);
+			int[][] newSequenceIDs = new int[length][];
+			int[][] newPositions = new int[length][];
+			int[] newSizes = new int[length];
+			System.arraycopy(sequenceIDs, 0, newSequenceIDs, 0, sizes.length);
+			System.arraycopy(positions, 0, newPositions, 0, sizes.length);
+			sequenceIDs = newSequenceIDs;
+			positions = newPositions;
+			sizes = newSizes;
+		}
+		if (sequenceIDs[level] == null) {
+			sequenceIDs[level] = new int[INITIAL_CAPACITY];
+			positions[level] = new int[INITIAL_CAPACITY];
+		}
+		sizes[level] = 0;
+	}
+
+	/**
+	 * Reserve space for a projected database at the end of a level. The arrays of
+	 * the level may be replaced by larger arrays, so they must be obtained again
+	 * after calling this method.
+	 *
+	 * @param level the level (it must have been cleared before)
+	 * @param count the number of pseudo-sequences of the projected database
+	 * @return the position of the first pseudo-sequence in the arrays of the level
+	 */
+	public int reserve(int level, int count) {
+		int start = sizes[level];
+		int size = start + count;
+		if (size > sequenceIDs[level].length) {
+			int capacity = Math.max(size, sequenceIDs[level].length * 2);
+			int[] newSequenceIDs = new int[capacity];
+			int[] newPositions = new int[capacity];
+			System.arraycopy(sequenceIDs[level], 0, newSequenceIDs, 0, start);
+			System.arraycopy(positions[level], 0, newPositions, 0, start);
+			sequenceIDs[level] = newSequenceIDs;
+			positions[level] = newPositions;
+		}
+		sizes[level] = size;
+		return start;
+	}
+
+	/**
+	 * Add a pseudo-sequence at the end of a level
+	 *
+	 * @param level      the level (it must have been cleared before)
+	 * @param sequenceID the sequence ID
+	 * @param position   the position of the first item of the pseudo-sequence
+	 */
+	public void add(int level, int sequenceID, int position) {
+		int index = reserve(level, 1);
+		sequenceIDs[level][index] = sequenceID;
+		positions[level][index] = position;
+	}
+
+	/**
+	 * Copy a projected database of another arena at the end of a level of this
+	 * arena
+	 *
+	 * @param level  the level (it must have been cleared before)
+	 * @param arena  the other arena
+	 * @param source the level of the projected database in the other arena
+	 * @param start  the position of its first pseudo-sequence
+	 * @param size   its number of pseudo-sequences
+	 * @return the position of the first pseudo-sequence in this arena
+	 */
+	public int copy(int level, ProjectionArena arena, int source, int start, int size) {
+		int index = reserve(level, size);
+		System.arraycopy(arena.sequenceIDs[source], start, sequenceIDs[level], index, size);
+		System.arraycopy(arena.positions[source], start, positions[level], index, size);
+		return index;
+	}
+
+	/**
+	 * Get the number of pseudo-sequences of a level
+	 *
+	 * @param level the level
+	 * @return the number of pseudo-sequences
+	 */
+	public int size(int level) {
+		return sizes[level];
+	}
+
+	/**
+	 * Get the sequence IDs of the pseudo-sequences of a level
+	 *
+	 * @param level the level
+	 * @return the array (it may be longer than the number of pseudo-sequences)
+	 */
+	public int[] getSequenceIDs(int level) {
+		return sequenceIDs[level];
+	}
+
+	/**
+	 * Get the position of the first item of the pseudo-sequences of a level
+	 *
+	 * @param level the level
+	 * @return the array (it may be longer than the number of pseudo-sequences)
+	 */
+	public int[] getPositions(int level) {
+		return positions[level];
+	}
+}
@@ -0,0 +1,239 @@
+package ca.pfv.spmf.algorithms.sequentialpatterns.prefixspan;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * This class keeps the projected databases of PrefixSpan that are waiting to be
+ * explored within a memory budget. PrefixSpan creates the projected databases of
+ * all the extensions of a prefix at once, and explores them one by one, so that
+ * the projected databases of the extensions of all the prefixes of the current
+ * branch wait in memory. The memory used by these projected databases is
+ * estimated, and when it exceeds the budget, the largest ones that are in memory
+ * are written to temporary files, until the estimation is within the budget.
+ * They are read again when they are explored. <br/>
+ * <br/>
+ *
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * SPMF. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @see ProjectedDatabase
+ * @see AlgoPrefixSpan
+ */
+class ProjectionSpiller {
+
+	/**
+	 * the estimated memory used by a pseudo-sequence in a list (an object with two
+	 * ints and a reference to it)
+	 */
+	static final long BYTES_PER_PSEUDO_SEQUENCE = 32;
+
+	/** the size of a pseudo-sequence in a file (two ints) */
+	private static final long FILE_BYTES_PER_PSEUDO_SEQUENCE = 8;
+
+	/** the memory budget in bytes */
+	private final long budget;
+
+	/** the estimated memory used by the projected databases in memory */
+	private long memoryUsage = 0;
+
+	/**
+	 * the projected databases that may be in memory, the largest first (those
+	 * that were spilled or taken are removed later)
+	 */
+	private PriorityQueue<ProjectedDatabase> largestFirst;
+
+	/** the number of projected databases in memory */
+	private int inMemoryCount = 0;
+
+	/** the files that were not read yet */
+	private final Set<File> files = new HashSet<File>();
+
+	/** the number of projected databases written to files */
+	private int spilledProjectionCount = 0;
+
+	/** the number of bytes written to files */
+	private long spilledBytes = 0;
+
+	/**
+	 * Constructor
+	 *
+	 * @param budget the memory budget in bytes (Long.MAX_VALUE if there is no
+	 *               budget)
+	 */
+	ProjectionSpiller(long budget) {
+		this.budget = budget;
+		this.largestFirst = new PriorityQueue<ProjectedDatabase>(11, new Comparator<ProjectedDatabase>() {
+			public int compare(ProjectedDatabase database1, ProjectedDatabase database2) {
+				return database2.size - database1.size;
+			}
+		});
+	}
+
+	/**
+	 * Add a projected database waiting to be explored, and spill the largest
+	 * projected databases if the budget is exceeded.
+	 *
+	 * @param database the projected database
+	 * @throws IOException if error while writing a file
+	 */
+	void add(ProjectedDatabase database) throws IOException {
+		memoryUsage += database.size * BYTES_PER_PSEUDO_SEQUENCE;
+		if (budget == Long.MAX_VALUE) {
+			return;
+		}
+		largestFirst.add(database);
+		inMemoryCount++;
+		while (memoryUsage > budget && !largestFirst.isEmpty()) {
+			ProjectedDatabase largest = largestFirst.poll();
+			// the projected databases that were taken are skipped
+			if (largest.pseudoSequences != null) {
+				spill(largest);
+			}
+		}
+	}
+
+	/**
+	 * Write the pseudo-sequences of a projected database to a temporary file
+	 *
+	 * @param database the projected database
+	 * @throws IOException if error while writing the file
+	 */
+	private void spill(ProjectedDatabase database) throws IOException {
+		File file = File.createTempFile("prefixspan", ".bin");
+		files.add(file);
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			for (PseudoSequence pseudoSequence : database.pseudoSequences) {
+				output.writeInt(pseudoSequence.sequenceID);
+				output.writeInt(pseudoSequence.indexFirstItem);
+			}
+		} finally {
+			output.close();
+		}
+		database.file = file;
+		database.pseudoSequences = null;
+		memoryUsage -= database.size * BYTES_PER_PSEUDO_SEQUENCE;
+		inMemoryCount--;
+		spilledProjectionCount++;
+		spilledBytes += database.size * FILE_BYTES_PER_PSEUDO_SEQUENCE;
+	}
+
+	/**
+	 * Get the pseudo-sequences of a projected database to explore it, reading them
+	 * from its file if it was spilled. The projected database does not use the
+	 * budget anymore.
+	 *
+	 * @param database the projected database
+	 * @return the pseudo-sequences
+	 * @throws IOException if error while reading the file
+	 */
+	List<PseudoSequence> take(ProjectedDatabase database) throws IOException {
+		List<PseudoSequence> pseudoSequences = database.pseudoSequences;
+		if (pseudoSequences != null) {
+			database.pseudoSequences = null;
+			memoryUsage -= database.size * BYTES_PER_PSEUDO_SEQUENCE;
+			if (budget != Long.MAX_VALUE) {
+				inMemoryCount--;
+				removeTakenDatabases();
+			}
+			return pseudoSequences;
+		}
+		pseudoSequences = new ArrayList<PseudoSequence>(database.size);
+		DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(database.file)));
+		try {
+			for (int i = 0; i < database.size; i++) {
+				pseudoSequences.add(new PseudoSequence(input.readInt(), input.readInt()));
+			}
+		} finally {
+			input.close();
+		}
+		files.remove(database.file);
+		database.file.delete();
+		database.file = null;
+		return pseudoSequences;
+	}
+
+	/**
+	 * Remove the projected databases that were taken from the queue, when they are
+	 * more than those in memory, so that the queue does not keep them all.
+	 */
+	private void removeTakenDatabases() {
+		if (largestFirst.size() <= inMemoryCount * 2 + 16) {
+			return;
+		}
+		PriorityQueue<ProjectedDatabase> newQueue = new PriorityQueue<ProjectedDatabase>(
+				Math.max(inMemoryCount, 1) * 2, largestFirst.comparator());
+		for (ProjectedDatabase database : largestFirst) {
+			if (database.pseudoSequences != null) {
+				newQueue.add(database);
+			}
+		}
+		largestFirst = newQueue;
+	}
+
+	/**
+	 * Delete the files that were not read (if the algorithm was stopped by an
+	 * error)
+	 */
+	void deleteFiles() {
+		for (File file : files) {
+			file.delete();
+		}
+		files.clear();
+	}
+
+	/**
+	 * Add the statistics of another spiller to the statistics of this spiller
+	 * (when the projected databases are explored by several threads, each thread
+	 * has its own spiller)
+	 *
+	 * @param spiller the other spiller
+	 */
+	synchronized void addStatistics(ProjectionSpiller spiller) {
+		spilledProjectionCount += spiller.spilledProjectionCount;
+		spilledBytes += spiller.spilledBytes;
+	}
+
+	/**
+	 * Get the number of projected databases written to files
+	 *
+	 * @return the number of projected databases
+	 */
+	int getSpilledProjectionCount() {
+		return spilledProjectionCount;
+	}
+
+	/**
+	 * Get the number of bytes written to files
+	 *
+	 * @return the number of bytes
+	 */
+	long getSpilledBytes() {
+		return spilledBytes;
+	}
+}
@@ -0,0 +1,153 @@
+package ca.pfv.spmf.datastructures.tidset;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * This class represents the set of transaction identifiers of an itemset, as
+ * created by a TidsetEngine. The transaction identifiers are stored either in
+ * a bitmap (an array of long, where only the words from "fromWord" to "toWord"
+ * are meaningful) or in an array of integers sorted in ascending order. <br/>
+ * <br/>
+ *
+ * The set can be a tidset (the transactions containing the itemset) or a
+ * diffset (the transactions containing the prefix of the itemset but not the
+ * itemset). In both cases, the support of the itemset is stored with the set.
+ *
+ * @see TidsetEngine
+ */
+public class Tidset {
+
+	/** the bitmap of transaction identifiers, or null if stored in "tids" */
+	long[] words;
+	/** the first word of the bitmap that may be non zero */
+	int fromWord;
+	/** the word after the last word of the bitmap that may be non zero */
+	int toWord;
+
+	/** the transaction identifiers in ascending order, or null if a bitmap */
+	int[] tids;
+
+	/** the number of transaction identifiers in this set */
+	int size;
+
+	/** true if this is a diffset rather than a tidset */
+	boolean diffset;
+
+	/** the support of the itemset */
+	int support;
+
+	/** the sum of the transaction identifiers of the tidset of the itemset */
+	long tidSum;
+
+	/**
+	 * Get the support of the itemset.
+	 *
+	 * @return the support
+	 */
+	public int getSupport() {
+		return support;
+	}
+
+	/**
+	 * Get the number of transaction identifiers in this set (the support if this
+	 * is a tidset).
+	 *
+	 * @return the number of transaction identifiers
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Check if this set is a diffset.
+	 *
+	 * @return true if it is a diffset, false if it is a tidset
+	 */
+	public boolean isDiffset() {
+		return diffset;
+	}
+
+	/**
+	 * Check if this set is stored as a bitmap.
+	 *
+	 * @return true if it is a bitmap, false if it is an array of integers
+	 */
+	public boolean isBitmap() {
+		return words != null;
+	}
+
+	/**
+	 * Get the sum of the transaction identifiers of the tidset of the itemset
+	 * (also for a diffset). It is only calculated if it was requested by calling
+	 * setComputeTidSums() on the TidsetEngine.
+	 *
+	 * @return the sum
+	 */
+	public long getTidSum() {
+		return tidSum;
+	}
+
+	/**
+	 * Get the transaction identifiers of this set.
+	 *
+	 * @return a new array containing the transaction identifiers in ascending
+	 *         order
+	 */
+	public int[] toArray() {
+		if (words == null) {
+			return Arrays.copyOf(tids, size);
+		}
+		int[] array = new int[size];
+		int position = 0;
+		for (int w = fromWord; w < toWord; w++) {
+			long word = words[w];
+			while (word != 0) {
+				array[position++] = (w << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+		return array;
+	}
+
+	/**
+	 * Get the transaction identifiers of this set as a BitSet.
+	 *
+	 * @return a new BitSet
+	 */
+	public BitSet toBitSet() {
+		if (words == null) {
+			BitSet bitset = new BitSet();
+			for (int i = 0; i < size; i++) {
+				bitset.set(tids[i]);
+			}
+			return bitset;
+		}
+		long[] copy = new long[toWord];
+		System.arraycopy(words, fromWord, copy, fromWord, toWord - fromWord);
+		return BitSet.valueOf(copy);
+	}
+
+	/**
+	 * Get a string representation of this set.
+	 */
+	public String toString() {
+		return (diffset ? "diffset " : "tidset ") + Arrays.toString(toArray()) + " #SUP: " + support;
+	}
+}
@@ -0,0 +1,638 @@
+package ca.pfv.spmf.datastructures.tidset;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+import java.util.List;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.charm.AlgoCharm_Bitset;
+import ca.pfv.spmf.algorithms.frequentpatterns.eclat.AlgoEclat;
+import ca.pfv.spmf.input.transaction_database_array_integers.TransactionDatabase;
+
+/**
+ * This class implements the vertical representation used by the Eclat,
+ * dEclat, Charm and dCharm algorithms when their tidset engine is activated.
+ * It creates the tidsets of single items and then combines the tidsets of two
+ * itemsets of an equivalence class to obtain the tidset of their union. <br/>
+ * <br/>
+ *
+ * For each equivalence class, chooseMode() selects how the itemsets of the
+ * class are stored, by estimating their density:
+ * <ul>
+ * <li>as tidsets or as diffsets (M. J. Zaki and K. Gouda. Fast vertical mining
+ * using Diffsets. 2001). Diffsets are used when the itemsets of the class are
+ * expected to appear in most of the transactions of their prefix. Once an
+ * equivalence class uses diffsets, all the classes that are derived from it
+ * also use diffsets.</li>
+ * <li>as bitmaps (arrays of long, combined a word at a time and counted with
+ * Long.bitCount()) or as sorted arrays of integers, depending on which one is
+ * faster to combine.</li>
+ * </ul>
+ *
+ * The support of the union is counted while it is calculated, and the
+ * calculation stops as soon as the union cannot be frequent anymore, in which
+ * case null is returned. The arrays of the sets that are not frequent or that
+ * are released are reused for the next sets, so that no array is allocated
+ * for each combination.
+ *
+ * @see Tidset
+ * @see AlgoEclat
+ * @see AlgoCharm_Bitset
+ */
+public class TidsetEngine {
+
+	/** mode flag: the itemsets of the class are stored as diffsets */
+	private static final int DIFFSET = 1;
+	/** mode flag: the itemsets of the class are stored as bitmaps */
+	private static final int BITMAP = 2;
+
+	/**
+	 * the sets containing at least this proportion of the transactions are stored
+	 * as bitmaps. Although a bitmap is larger than an array from a density of
+	 * 1/32, combining bitmaps a word at a time is faster than merging arrays
+	 * until a much lower density.
+	 */
+	private static final double BITMAP_MIN_DENSITY = 1.0 / 256;
+
+	/** the smallest array of integers that is created */
+	private static final int MIN_ARRAY_SIZE = 16;
+
+	/** the number of transactions */
+	private final int transactionCount;
+	/** the number of words of a bitmap */
+	private final int wordCount;
+	/** the minimum support (a number of transactions) */
+	private final int minsup;
+
+	/**
+	 * diffsets are used for an equivalence class if its expected density
+	 * (relative to its prefix) is at least this value
+	 */
+	private double diffsetThreshold = 0.5;
+
+	/** if true, the sum of transaction identifiers of each tidset is calculated */
+	private boolean computeTidSums = false;
+
+	/** the bitmaps that can be reused (they all have wordCount words) */
+	private long[][] freeBitmaps = new long[16][];
+	private int freeBitmapCount = 0;
+
+	/**
+	 * the arrays of integers that can be reused. The arrays at position i have at
+	 * least 2^i integers.
+	 */
+	private int[][][] freeArrays = new int[32][][];
+	private int[] freeArrayCounts = new int[32];
+
+	/** a tidset object that can be reused for the next combination */
+	private Tidset spare = null;
+
+	/**
+	 * Constructor
+	 *
+	 * @param transactionCount the number of transactions of the database
+	 * @param minsup           the minimum support (a number of transactions)
+	 */
+	public TidsetEngine(int transactionCount, int minsup) {
+		this.transactionCount = transactionCount;
+		this.wordCount = (transactionCount + 63) >>> 6;
+		this.minsup = minsup;
+	}
+
+	/**
+	 * Set the density (between 0 and 1) from which the itemsets of an
+	 * equivalence class are stored as diffsets (by default 0.5). The value 0
+	 * means that diffsets are used from 2-itemsets (as in dEclat) and a value
+	 * larger than 1 means that diffsets are never used.
+	 *
+	 * @param diffsetThreshold the density
+	 */
+	public void setDiffsetThreshold(double diffsetThreshold) {
+		this.diffsetThreshold = diffsetThreshold;
+	}
+
+	/**
+	 * Set if the sum of transaction identifiers of the tidset of each itemset
+	 * should be calculated (as used by the hash table of Charm).
+	 *
+	 * @param computeTidSums true or false
+	 */
+	public void setComputeTidSums(boolean computeTidSums) {
+		this.computeTidSums = computeTidSums;
+	}
+
+	/**
+	 * Create the tidsets of the items that are frequent.
+	 *
+	 * @param database the transaction database
+	 * @param supports the support of each item (as returned by
+	 *                 database.calculateItemSupports())
+	 * @return an array containing the tidset of each item, or null for the items
+	 *         that are not frequent
+	 */
+	public Tidset[] createItemTidsets(TransactionDatabase database, int[] supports) {
+		Tidset[] tidsets = new Tidset[supports.length];
+		for (int item = 0; item < supports.length; item++) {
+			if (supports[item] > 0 && supports[item] >= minsup) {
+				Tidset tidset = new Tidset();
+				if (supports[item] >= BITMAP_MIN_DENSITY * transactionCount) {
+					tidset.words = new long[wordCount];
+				} else {
+					tidset.tids = new int[supports[item]];
+				}
+				tidsets[item] = tidset;
+			}
+		}
+		// fill the tidsets, in ascending order of transaction identifiers
+		int[] items = database.getItemPool();
+		for (int tid = 0; tid < database.size(); tid++) {
+			int end = database.getTransactionStart(tid + 1);
+			for (int position = database.getTransactionStart(tid); position < end; position++) {
+				Tidset tidset = tidsets[items[position]];
+				if (tidset == null) {
+					continue;
+				}
+				if (tidset.words != null) {
+					int w = tid >>> 6;
+					// (an item appearing twice in a transaction is counted once)
+					if ((tidset.words[w] & (1L << tid)) != 0) {
+						continue;
+					}
+					if (tidset.size == 0) {
+						tidset.fromWord = w;
+					}
+					tidset.words[w] |= 1L << tid;
+					tidset.toWord = w + 1;
+				} else {
+					if (tidset.size > 0 && tidset.tids[tidset.size - 1] == tid) {
+						continue;
+					}
+					tidset.tids[tidset.size] = tid;
+				}
+				tidset.size++;
+				tidset.tidSum += tid;
+			}
+		}
+		for (int item = 0; item < supports.length; item++) {
+			if (tidsets[item] != null) {
+				tidsets[item].support = tidsets[item].size;
+			}
+		}
+		return tidsets;
+	}
+
+	/**
+	 * Choose how the itemsets of the equivalence class of an itemset X will be
+	 * stored. This equivalence class contains the unions of X with the itemsets
+	 * that are after X in the equivalence class of X.
+	 *
+	 * @param x                the tidset of X
+	 * @param prefixSupport    the support of the prefix of the equivalence class
+	 *                         of X (the number of transactions for single items)
+	 * @param equivalenceClass the tidsets of the equivalence class of X (some of
+	 *                         them may be null)
+	 * @param position         the position of X in the equivalence class
+	 * @return the mode, to be given to combine()
+	 */
+	public int chooseMode(Tidset x, int prefixSupport, List<Tidset> equivalenceClass, int position) {
+		// the density of the next itemsets of the class, relative to the prefix,
+		// which is the expected density of the new class relative to X
+		double density = 0;
+		long sizes = 0;
+		int count = 0;
+		for (int j = position + 1; j < equivalenceClass.size(); j++) {
+			Tidset y = equivalenceClass.get(j);
+			if (y != null) {
+				density += (double) y.support / prefixSupport;
+				sizes += y.size;
+				count++;
+			}
+		}
+		if (count == 0) {
+			return 0;
+		}
+		density /= count;
+
+		// the expected number of transaction identifiers of each set
+		int mode;
+		double expectedSize;
+		if (x.diffset) {
+			mode = DIFFSET;
+			expectedSize = Math.min((double) sizes / count, x.support - minsup);
+		} else if (density >= diffsetThreshold) {
+			mode = DIFFSET;
+			expectedSize = (1 - density) * x.support;
+		} else {
+			mode = 0;
+			expectedSize = density * x.support;
+		}
+		if (expectedSize >= BITMAP_MIN_DENSITY * transactionCount) {
+			mode |= BITMAP;
+		}
+		return mode;
+	}
+
+	/**
+	 * Calculate the tidset (or diffset) of the union of two itemsets X and Y of
+	 * the same equivalence class.
+	 *
+	 * @param x    the tidset of X
+	 * @param y    the tidset of Y
+	 * @param mode the mode chosen for the equivalence class of X
+	 * @return the tidset of the union, or null if the union is not frequent
+	 */
+	public Tidset combine(Tidset x, Tidset y, int mode) {
+		Tidset result = (spare != null) ? spare : new Tidset();
+		spare = null;
+		// a bitmap can only be created from two bitmaps
+		boolean toBitmap = (mode & BITMAP) != 0 && x.words != null && y.words != null;
+		boolean frequent;
+		if (x.diffset) {
+			// d(PXY) = d(PY) - d(PX)
+			frequent = subtract(y, x, x.support - minsup, toBitmap, result);
+			result.diffset = true;
+			result.support = x.support - result.size;
+		} else if ((mode & DIFFSET) != 0) {
+			// d(XY) = t(X) - t(Y)
+			frequent = subtract(x, y, x.support - minsup, toBitmap, result);
+			result.diffset = true;
+			result.support = x.support - result.size;
+		} else {
+			// t(XY) = t(X) intersected with t(Y). The loop is on the array of
+			// integers, or on the smallest set
+			Tidset a = x;
+			Tidset b = y;
+			if ((a.words == null) == (b.words == null) ? b.size < a.size : a.words != null) {
+				a = y;
+				b = x;
+			}
+			frequent = intersect(a, b, a.size - minsup, toBitmap, result);
+			result.diffset = false;
+			result.support = result.size;
+		}
+		if (!frequent) {
+			releaseArrays(result);
+			spare = result;
+			return null;
+		}
+		if (computeTidSums) {
+			long sum = sumOfTids(result);
+			result.tidSum = result.diffset ? x.tidSum - sum : sum;
+		}
+		return result;
+	}
+
+	/**
+	 * Calculate the intersection of two sets, stopping as soon as more than
+	 * maxLost transaction identifiers of the first set are not in the second
+	 * set.
+	 *
+	 * @return true if the intersection was calculated
+	 */
+	private boolean intersect(Tidset a, Tidset b, int maxLost, boolean toBitmap, Tidset result) {
+		if (maxLost < 0) {
+			return false;
+		}
+		int count = 0;
+		int lost = 0;
+		if (a.words != null && b.words != null) {
+			long[] aWords = a.words;
+			long[] bWords = b.words;
+			int from = Math.max(a.fromWord, b.fromWord);
+			int to = Math.min(a.toWord, b.toWord);
+			// the transactions of "a" that are outside of the words of "b" are lost
+			for (int w = a.fromWord; w < a.toWord; w++) {
+				if (w < from || w >= to) {
+					lost += Long.bitCount(aWords[w]);
+				}
+			}
+			if (lost > maxLost) {
+				return false;
+			}
+			if (toBitmap) {
+				long[] words = takeBitmap();
+				int first = -1;
+				int last = -1;
+				for (int w = from; w < to; w++) {
+					long word = aWords[w];
+					long and = word & bWords[w];
+					int bits = Long.bitCount(and);
+					lost += Long.bitCount(word) - bits;
+					if (lost > maxLost) {
+						giveBitmap(words);
+						return false;
+					}
+					words[w] = and;
+					if (and != 0) {
+						if (first < 0) {
+							first = w;
+						}
+						last = w;
+					}
+					count += bits;
+				}
+				setBitmap(result, words, first, last, count);
+			} else {
+				int[] tids = takeArray(a.size);
+				for (int w = from; w < to; w++) {
+					long word = aWords[w];
+					long and = word & bWords[w];
+					lost += Long.bitCount(word) - Long.bitCount(and);
+					if (lost > maxLost) {
+						giveArray(tids);
+						return false;
+					}
+					while (and != 0) {
+						tids[count++] = (w << 6) + Long.numberOfTrailingZeros(and);
+						and &= and - 1;
+					}
+				}
+				setArray(result, tids, count);
+			}
+		} else {
+			// "a" is an array of integers
+			int[] aTids = a.tids;
+			int[] tids = takeArray(a.size);
+			if (b.words != null) {
+				long[] bWords = b.words;
+				for (int i = 0; i < a.size; i++) {
+					int tid = aTids[i];
+					int w = tid >>> 6;
+					if (w >= b.fromWord && w < b.toWord && (bWords[w] & (1L << tid)) != 0) {
+						tids[count++] = tid;
+					} else if (++lost > maxLost) {
+						giveArray(tids);
+						return false;
+					}
+				}
+			} else {
+				int[] bTids = b.tids;
+				int j = 0;
+				for (int i = 0; i < a.size; i++) {
+					int tid = aTids[i];
+					while (j < b.size && bTids[j] < tid) {
+						j++;
+					}
+					if (j < b.size && bTids[j] == tid) {
+						tids[count++] = tid;
+						j++;
+					} else if (++lost > maxLost) {
+						giveArray(tids);
+						return false;
+					}
+				}
+			}
+			setArray(result, tids, count);
+		}
+		return true;
+	}
+
+	/**
+	 * Calculate the set of transaction identifiers of a set "a" that are not in
+	 * a set "b", stopping as soon as it contains more than maxSize transaction
+	 * identifiers.
+	 *
+	 * @return true if the difference was calculated
+	 */
+	private boolean subtract(Tidset a, Tidset b, int maxSize, boolean toBitmap, Tidset result) {
+		if (maxSize < 0) {
+			return false;
+		}
+		int count = 0;
+		if (a.words != null && b.words != null) {
+			long[] aWords = a.words;
+			long[] bWords = b.words;
+			int bFrom = b.fromWord;
+			int bTo = b.toWord;
+			if (toBitmap) {
+				long[] words = takeBitmap();
+				int first = -1;
+				int last = -1;
+				for (int w = a.fromWord; w < a.toWord; w++) {
+					long word = aWords[w];
+					if (w >= bFrom && w < bTo) {
+						word &= ~bWords[w];
+					}
+					count += Long.bitCount(word);
+					if (count > maxSize) {
+						giveBitmap(words);
+						return false;
+					}
+					words[w] = word;
+					if (word != 0) {
+						if (first < 0) {
+							first = w;
+						}
+						last = w;
+					}
+				}
+				setBitmap(result, words, first, last, count);
+			} else {
+				int[] tids = takeArray(Math.min(a.size, maxSize + 1));
+				for (int w = a.fromWord; w < a.toWord; w++) {
+					long word = aWords[w];
+					if (w >= bFrom && w < bTo) {
+						word &= ~bWords[w];
+					}
+					if (count + Long.bitCount(word) > maxSize) {
+						giveArray(tids);
+						return false;
+					}
+					while (word != 0) {
+						tids[count++] = (w << 6) + Long.numberOfTrailingZeros(word);
+						word &= word - 1;
+					}
+				}
+				setArray(result, tids, count);
+			}
+		} else if (a.words != null) {
+			// "a" is a bitmap and "b" an array of integers
+			long[] aWords = a.words;
+			int[] bTids = b.tids;
+			int[] tids = takeArray(Math.min(a.size, maxSize + 1));
+			int j = 0;
+			for (int w = a.fromWord; w < a.toWord; w++) {
+				long word = aWords[w];
+				while (word != 0) {
+					int tid = (w << 6) + Long.numberOfTrailingZeros(word);
+					word &= word - 1;
+					while (j < b.size && bTids[j] < tid) {
+						j++;
+					}
+					if (j == b.size || bTids[j] != tid) {
+						if (count == maxSize) {
+							giveArray(tids);
+							return false;
+						}
+						tids[count++] = tid;
+					}
+				}
+			}
+			setArray(result, tids, count);
+		} else {
+			// "a" is an array of integers
+			int[] aTids = a.tids;
+			int[] tids = takeArray(Math.min(a.size, maxSize + 1));
+			if (b.words != null) {
+				long[] bWords = b.words;
+				for (int i = 0; i < a.size; i++) {
+					int tid = aTids[i];
+					int w = tid >>> 6;
+					if (w < b.fromWord || w >= b.toWord || (bWords[w] & (1L << tid)) == 0) {
+						if (count == maxSize) {
+							giveArray(tids);
+							return false;
+						}
+						tids[count++] = tid;
+					}
+				}
+			} else {
+				int[] bTids = b.tids;
+				int j = 0;
+				for (int i = 0; i < a.size; i++) {
+					int tid = aTids[i];
+					while (j < b.size && bTids[j] < tid) {
+						j++;
+					}
+					if (j == b.size || bTids[j] != tid) {
+						if (count == maxSize) {
+							giveArray(tids);
+							return false;
+						}
+						tids[count++] = tid;
+					}
+				}
+			}
+			setArray(result, tids, count);
+		}
+		return true;
+	}
+
+	private void setBitmap(Tidset result, long[] words, int first, int last, int count) {
+		result.words = words;
+		result.tids = null;
+		if (first < 0) {
+			result.fromWord = 0;
+			result.toWord = 0;
+		} else {
+			result.fromWord = first;
+			result.toWord = last + 1;
+		}
+		result.size = count;
+	}
+
+	private void setArray(Tidset result, int[] tids, int count) {
+		result.words = null;
+		result.tids = tids;
+		result.size = count;
+	}
+
+	/**
+	 * Calculate the sum of the transaction identifiers of a set.
+	 */
+	private long sumOfTids(Tidset tidset) {
+		long sum = 0;
+		if (tidset.words != null) {
+			for (int w = tidset.fromWord; w < tidset.toWord; w++) {
+				long word = tidset.words[w];
+				while (word != 0) {
+					sum += (w << 6) + Long.numberOfTrailingZeros(word);
+					word &= word - 1;
+				}
+			}
+		} else {
+			for (int i = 0; i < tidset.size; i++) {
+				sum += tidset.tids[i];
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Release a tidset that is not used anymore, so that its array can be reused.
+	 *
+	 * @param tidset the tidset
+	 */
+	public void release(Tidset tidset) {
+		releaseArrays(tidset);
+		if (spare == null) {
+			spare = tidset;
+		}
+	}
+
+	/**
+	 * Release the tidsets of an equivalence class that are not used anymore.
+	 *
+	 * @param tidsets the tidsets (some of them may be null)
+	 */
+	public void release(List<Tidset> tidsets) {
+		for (Tidset tidset : tidsets) {
+			if (tidset != null) {
+				release(tidset);
+			}
+		}
+	}
+
+	private void releaseArrays(Tidset tidset) {
+		if (tidset.words != null) {
+			giveBitmap(tidset.words);
+			tidset.words = null;
+		} else if (tidset.tids != null) {
+			giveArray(tidset.tids);
+			tidset.tids = null;
+		}
+		tidset.size = 0;
+		tidset.tidSum = 0;
+	}
+
+	private long[] takeBitmap() {
+		if (freeBitmapCount > 0) {
+			return freeBitmaps[--freeBitmapCount];
+		}
+		return new long[wordCount];
+	}
+
+	private void giveBitmap(long[] words) {
+		if (freeBitmapCount == freeBitmaps.length) {
+			freeBitmaps = Arrays.copyOf(freeBitmaps, freeBitmapCount * 2);
+		}
+		freeBitmaps[freeBitmapCount++] = words;
+	}
+
+	private int[] takeArray(int capacity) {
+		// the smallest power of two that is at least the capacity
+		int position = 32 - Integer.numberOfLeadingZeros(Math.max(capacity, MIN_ARRAY_SIZE) - 1);
+		if (freeArrayCounts[position] > 0) {
+			return freeArrays[position][--freeArrayCounts[position]];
+		}
+		return new int[1 << position];
+	}
+
+	private void giveArray(int[] tids) {
+		if (tids.length < MIN_ARRAY_SIZE) {
+			return;
+		}
+		// the largest power of two that is at most the length
+		int position = 31 - Integer.numberOfLeadingZeros(tids.length);
+		if (freeArrays[position] == null) {
+			freeArrays[position] = new int[16][];
+		} else if (freeArrayCounts[position] == freeArrays[position].length) {
+			freeArrays[position] = Arrays.copyOf(freeArrays[position], freeArrayCounts[position] * 2);
+		}
+		freeArrays[position][freeArrayCounts[position]++] = tids;
+	}
+}
@@ -0,0 +1,447 @@
+package ca.pfv.spmf.input.transaction_database_array_integers;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import ca.pfv.spmf.input.transaction_database_binary.BinaryTransactionDatabase;
+
+/**
+ * This class represents a transaction database (a.k.a. binary context),
+ * implemented with arrays of primitive integers. It is an alternative to
+ * {@link ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase}
+ * that does not create an object per item. <br/>
+ * <br/>
+ *
+ * The items of all transactions are stored one after the other in a single
+ * array (the item pool), and a second array stores the position of the first
+ * item of each transaction in the pool (the offsets). The items of transaction
+ * "tid" are thus at positions getTransactionStart(tid) to
+ * getTransactionStart(tid + 1) - 1 of getItemPool(). This is the CSR
+ * (compressed sparse row) layout. The set of items of the database is kept
+ * in a BitSet. <br/>
+ * <br/>
+ *
+ * As in the SPMF format, items are positive integers. The order of items in a
+ * transaction is the order in which they were added.
+ *
+ * @see ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase
+ */
+public class TransactionDatabase {
+
+	// the items of all transactions, one transaction after the other
+	private int[] items;
+	// offsets[tid] is the position of the first item of transaction tid in
+	// "items", and offsets[size] is the number of items in the pool
+	private int[] offsets;
+	// the number of transactions
+	private int transactionCount = 0;
+	// the set of items appearing in this database
+	private final BitSet itemSet = new BitSet();
+	// the length of the longest transaction
+	private int maxTransactionLength = 0;
+
+	/**
+	 * Create an empty transaction database.
+	 */
+	public TransactionDatabase() {
+		this(1024, 8192);
+	}
+
+	/**
+	 * Create an empty transaction database with an initial capacity. The arrays
+	 * grow as needed, so the capacity only avoids copying them when the size of
+	 * the database is known in advance.
+	 *
+	 * @param transactionCapacity the expected number of transactions
+	 * @param itemCapacity        the expected total number of items
+	 */
+	public TransactionDatabase(int transactionCapacity, int itemCapacity) {
+		items = new int[Math.max(itemCapacity, 1)];
+		offsets = new int[Math.max(transactionCapacity, 1) + 1];
+	}
+
+	/**
+	 * Create a transaction database containing the transactions of a database
+	 * represented by lists of integers.
+	 *
+	 * @param database the database to be copied
+	 */
+	public TransactionDatabase(ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase database) {
+		this(database.size(), 1024);
+		int[] buffer = new int[64];
+		for (List<Integer> transaction : database.getTransactions()) {
+			if (buffer.length < transaction.size()) {
+				buffer = new int[transaction.size() * 2];
+			}
+			for (int i = 0; i < transaction.size(); i++) {
+				buffer[i] = transaction.get(i);
+			}
+			addTransaction(buffer, transaction.size());
+		}
+	}
+
+	/**
+	 * Create a transaction database containing the transactions of a database in
+	 * the SPMF binary format.
+	 *
+	 * @param database the database to be copied
+	 */
+	public TransactionDatabase(BinaryTransactionDatabase database) {
+		this(database.size(), (int) Math.min(database.getItemCount(), Integer.MAX_VALUE - 8));
+		int[] buffer = new int[database.getMaxTransactionLength()];
+		for (int tid = 0; tid < database.size(); tid++) {
+			int length = database.getItems(tid, buffer);
+			addTransaction(buffer, length);
+		}
+	}
+
+	/**
+	 * Method to add a new transaction to this database.
+	 *
+	 * @param transaction the items of the transaction
+	 */
+	public void addTransaction(int[] transaction) {
+		addTransaction(transaction, transaction.length);
+	}
+
+	/**
+	 * Method to add a new transaction to this database. The items are copied, so
+	 * the array can be reused by the caller.
+	 *
+	 * @param transaction an array containing the items of the transaction
+	 * @param length      the number of items (from position 0 in the array)
+	 */
+	public void addTransaction(int[] transaction, int length) {
+		int start = offsets[transactionCount];
+		ensureCapacity(transactionCount + 1, start + length);
+		for (int i = 0; i < length; i++) {
+			int item = transaction[i];
+			if (item < 0) {
+				throw new IllegalArgumentException("Items must be positive integers: " + item);
+			}
+			items[start + i] = item;
+			itemSet.set(item);
+		}
+		transactionCount++;
+		offsets[transactionCount] = start + length;
+		if (length > maxTransactionLength) {
+			maxTransactionLength = length;
+		}
+	}
+
+	/**
+	 * Method to add a new transaction to this database.
+	 *
+	 * @param transaction the transaction to be added
+	 */
+	public void addTransaction(List<Integer> transaction) {
+		int[] array = new int[transaction.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = transaction.get(i);
+		}
+		addTransaction(array, array.length);
+	}
+
+	/**
+	 * Grow the arrays so that they can hold a given number of transactions and
+	 * items.
+	 */
+	private void ensureCapacity(int transactionCapacity, int itemCapacity) {
+		if (offsets.length < transactionCapacity + 1) {
+			offsets = Arrays.copyOf(offsets, Math.max(transactionCapacity + 1, offsets.length * 2));
+		}
+		if (items.length < itemCapacity) {
+			if (itemCapacity < 0) {
+				throw new IllegalStateException("Too many items for a single database");
+			}
+			items = Arrays.copyOf(items, (int) Math.min(Math.max(itemCapacity, 2L * items.length),
+					Integer.MAX_VALUE - 8));
+		}
+	}
+
+	/**
+	 * Method to load a file containing a transaction database into memory. Lines
+	 * are parsed directly into the item pool, without splitting them into
+	 * strings.
+	 *
+	 * @param path the path of the file
+	 * @throws IOException exception if error reading the file
+	 */
+	public void loadFile(String path) throws IOException {
+		String thisLine; // variable to read each line
+		BufferedReader myInput = null; // object to read the file
+		int[] buffer = new int[64]; // the items of the current line
+		try {
+			FileInputStream fin = new FileInputStream(new File(path));
+			myInput = new BufferedReader(new InputStreamReader(fin));
+			// for each line
+			while ((thisLine = myInput.readLine()) != null) {
+				// if the line is not a comment, is not empty or is not other
+				// kind of metadata
+				if (thisLine.isEmpty() == false && thisLine.charAt(0) != '#' && thisLine.charAt(0) != '%'
+						&& thisLine.charAt(0) != '@') {
+					// parse the items separated by spaces
+					int length = 0;
+					int i = 0;
+					while (i < thisLine.length()) {
+						// skip the separators
+						while (i < thisLine.length() && thisLine.charAt(i) == ' ') {
+							i++;
+						}
+						if (i == thisLine.length()) {
+							break;
+						}
+						int start = i;
+						while (i < thisLine.length() && thisLine.charAt(i) != ' ') {
+							i++;
+						}
+						if (length == buffer.length) {
+							buffer = Arrays.copyOf(buffer, buffer.length * 2);
+						}
+						buffer[length++] = parseItem(thisLine, start, i);
+					}
+					addTransaction(buffer, length);
+				}
+			}
+		} finally {
+			if (myInput != null) {
+				myInput.close();
+			}
+		}
+	}
+
+	/**
+	 * Parse an item from a part of a line.
+	 */
+	private static int parseItem(String line, int start, int end) {
+		int value = 0;
+		for (int i = start; i < end; i++) {
+			char c = line.charAt(i);
+			if (c < '0' || c > '9' || value > (Integer.MAX_VALUE - (c - '0')) / 10) {
+				// not a positive integer: let Integer.parseInt report the error
+				return Integer.parseInt(line.substring(start, end));
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	/**
+	 * Release the unused capacity of the arrays, once all transactions have been
+	 * added.
+	 */
+	public void trimToSize() {
+		items = Arrays.copyOf(items, Math.max(offsets[transactionCount], 1));
+		offsets = Arrays.copyOf(offsets, transactionCount + 1);
+	}
+
+	/**
+	 * Method to print the content of the transaction database to the console.
+	 */
+	public void printDatabase() {
+		System.out.println("===================  TRANSACTION DATABASE ===================");
+		// for each transaction
+		for (int tid = 0; tid < transactionCount; tid++) {
+			StringBuilder r = new StringBuilder();
+			r.append(tid);
+			r.append(":  ");
+			// for each item in this transaction
+			for (int i = offsets[tid]; i < offsets[tid + 1]; i++) {
+				r.append(items[i]);
+				r.append(' ');
+			}
+			System.out.println(r); // print to System.out
+		}
+	}
+
+	/**
+	 * Get the number of transactions in this transaction database.
+	 *
+	 * @return the number of transactions.
+	 */
+	public int size() {
+		return transactionCount;
+	}
+
+	/**
+	 * Get the number of items in a transaction.
+	 *
+	 * @param tid the transaction id (from 0 to size() - 1)
+	 * @return the number of items
+	 */
+	public int getTransactionLength(int tid) {
+		return offsets[tid + 1] - offsets[tid];
+	}
+
+	/**
+	 * Get the position of the first item of a transaction in the item pool. The
+	 * items of transaction tid are at positions getTransactionStart(tid) to
+	 * getTransactionStart(tid + 1) - 1, and getTransactionStart(size()) is the
+	 * total number of items.
+	 *
+	 * @param tid the transaction id (from 0 to size())
+	 * @return the position
+	 */
+	public int getTransactionStart(int tid) {
+		return offsets[tid];
+	}
+
+	/**
+	 * Get an item of a transaction.
+	 *
+	 * @param tid      the transaction id (from 0 to size() - 1)
+	 * @param position the position of the item in the transaction
+	 * @return the item
+	 */
+	public int getItem(int tid, int position) {
+		return items[offsets[tid] + position];
+	}
+
+	/**
+	 * Get the array containing the items of all transactions (see
+	 * getTransactionStart()). The array is not copied, for fast iterations, and
+	 * should not be modified. It may be larger than the number of items.
+	 *
+	 * @return the item pool
+	 */
+	public int[] getItemPool() {
+		return items;
+	}
+
+	/**
+	 * Get the items of a transaction in a new array.
+	 *
+	 * @param tid the transaction id (from 0 to size() - 1)
+	 * @return the items
+	 */
+	public int[] getTransaction(int tid) {
+		return Arrays.copyOfRange(items, offsets[tid], offsets[tid + 1]);
+	}
+
+	/**
+	 * Get the set of items contained in this database. The set is not copied and
+	 * should not be modified.
+	 *
+	 * @return The set of items.
+	 */
+	public BitSet getItems() {
+		return itemSet;
+	}
+
+	/**
+	 * Get the largest item in this database.
+	 *
+	 * @return the largest item, or -1 if the database is empty
+	 */
+	public int getMaxItem() {
+		return itemSet.length() - 1;
+	}
+
+	/**
+	 * Get the length of the longest transaction.
+	 *
+	 * @return the length
+	 */
+	public int getMaxTransactionLength() {
+		return maxTransactionLength;
+	}
+
+	/**
+	 * Get the total number of items in the transactions of this database.
+	 *
+	 * @return the number of items
+	 */
+	public int getItemCount() {
+		return offsets[transactionCount];
+	}
+
+	/**
+	 * Calculate the support of each item (the number of transactions containing
+	 * it), assuming that an item appears at most once per transaction.
+	 *
+	 * @return an array where the value at position i is the support of item i
+	 */
+	public int[] calculateItemSupports() {
+		int[] supports = new int[getMaxItem() + 1];
+		int end = offsets[transactionCount];
+		for (int i = 0; i < end; i++) {
+			supports[items[i]]++;
+		}
+		return supports;
+	}
+
+	/**
+	 * Create a copy of this database where only some items are kept in each
+	 * transaction (for example, the frequent items). The order of items and the
+	 * transactions that become empty are kept.
+	 *
+	 * @param itemsToKeep the items to be kept
+	 * @return the new database
+	 */
+	public TransactionDatabase retainItems(BitSet itemsToKeep) {
+		TransactionDatabase database = new TransactionDatabase(transactionCount, offsets[transactionCount]);
+		int[] buffer = new int[Math.max(maxTransactionLength, 1)];
+		for (int tid = 0; tid < transactionCount; tid++) {
+			int length = 0;
+			for (int i = offsets[tid]; i < offsets[tid + 1]; i++) {
+				if (itemsToKeep.get(items[i])) {
+					buffer[length++] = items[i];
+				}
+			}
+			database.addTransaction(buffer, length);
+		}
+		database.trimToSize();
+		return database;
+	}
+
+	/**
+	 * Convert this database to a database represented by lists of integers, for
+	 * the algorithms that take such a database as input.
+	 *
+	 * @return the database
+	 */
+	public ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase toListDatabase() {
+		ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase database = new ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase();
+		for (int tid = 0; tid < transactionCount; tid++) {
+			List<Integer> transaction = new ArrayList<Integer>(getTransactionLength(tid));
+			for (int i = offsets[tid]; i < offsets[tid + 1]; i++) {
+				transaction.add(items[i]);
+			}
+			database.addTransaction(transaction);
+		}
+		return database;
+	}
+
+	/**
+	 * Estimate the memory used by this database, in bytes (the arrays and the set
+	 * of items, ignoring the object headers).
+	 *
+	 * @return the estimated size
+	 */
+	public long estimateMemory() {
+		return 4L * items.length + 4L * offsets.length + itemSet.size() / 8;
+	}
+}
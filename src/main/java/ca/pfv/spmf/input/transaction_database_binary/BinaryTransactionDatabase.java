@@ -0,0 +1,353 @@
+package ca.pfv.spmf.input.transaction_database_binary;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase;
+
+/**
+ * This class represents a transaction database stored in the SPMF binary
+ * format. The file is memory-mapped, so that opening a database does not
+ * require to parse it, and transactions are decoded on demand into arrays
+ * provided by the caller, without creating any object. <br/>
+ * <br/>
+ *
+ * The binary format is written by {@link BinaryTransactionDatabaseWriter}. It
+ * is organized in columns:
+ * <ul>
+ * <li>a header of {@link #HEADER_SIZE} bytes (magic number, version, flags,
+ * number of transactions, largest item, length of the longest transaction,
+ * total number of items and size of the columns),</li>
+ * <li>the offsets of the transactions in the item column (an int per
+ * transaction, plus one),</li>
+ * <li>if the database has utilities, the offsets of the transactions in the
+ * utility column (an int per transaction, plus one),</li>
+ * <li>the item column: for each transaction, its length followed by the
+ * difference between each item and the previous one (varints),</li>
+ * <li>if the database has utilities, the utility column: for each transaction,
+ * its transaction utility followed by the utility of each item (varints).</li>
+ * </ul>
+ * Differences and utilities are written in the zigzag encoding, so that the
+ * items of a transaction do not have to be sorted and utilities may be
+ * negative. A database is limited to 2 GB, the size of a single mapping.
+ *
+ * @see BinaryTransactionDatabaseWriter
+ */
+public class BinaryTransactionDatabase implements Closeable {
+
+	/** the magic number at the beginning of a file ("SPMB") */
+	public static final int MAGIC = 0x53504D42;
+	/** the version of the format */
+	public static final int VERSION = 1;
+	/** the flag indicating that the database has a utility column */
+	public static final int FLAG_UTILITIES = 1;
+	/** the size of the header in bytes */
+	public static final int HEADER_SIZE = 40;
+
+	// the file
+	private final RandomAccessFile file;
+	// the mapping of the file
+	private final MappedByteBuffer buffer;
+
+	// information from the header
+	private final boolean hasUtilities;
+	private final int transactionCount;
+	private final int maxItem;
+	private final int maxTransactionLength;
+	private final long itemCount;
+
+	// views of the offsets of the transactions in each column (not copied)
+	private final IntBuffer itemOffsets;
+	private final IntBuffer utilityOffsets;
+	// the position of each column in the file
+	private final int itemColumnStart;
+	private final int utilityColumnStart;
+
+	/**
+	 * Open a database in binary format.
+	 *
+	 * @param path the path of the file
+	 * @throws IOException if the file cannot be read or is not in the binary
+	 *                     format
+	 */
+	public BinaryTransactionDatabase(String path) throws IOException {
+		file = new RandomAccessFile(new File(path), "r");
+		try {
+			FileChannel channel = file.getChannel();
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("A binary transaction database is limited to 2 GB");
+			}
+			if (channel.size() < HEADER_SIZE) {
+				throw new IOException("Not a binary transaction database: " + path);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			// read the header
+			if (buffer.getInt(0) != MAGIC) {
+				throw new IOException("Not a binary transaction database: " + path);
+			}
+			if (buffer.getInt(4) != VERSION) {
+				throw new IOException("Unsupported version of the binary format: " + buffer.getInt(4));
+			}
+			hasUtilities = (buffer.getInt(8) & FLAG_UTILITIES) != 0;
+			transactionCount = buffer.getInt(12);
+			maxItem = buffer.getInt(16);
+			maxTransactionLength = buffer.getInt(20);
+			itemCount = buffer.getLong(24);
+			int itemColumnLength = buffer.getInt(32);
+
+			// create views of the offsets
+			int position = HEADER_SIZE;
+			itemOffsets = intView(position, transactionCount + 1);
+			position += 4 * (transactionCount + 1);
+			if (hasUtilities) {
+				utilityOffsets = intView(position, transactionCount + 1);
+				position += 4 * (transactionCount + 1);
+			} else {
+				utilityOffsets = null;
+			}
+			itemColumnStart = position;
+			utilityColumnStart = position + itemColumnLength;
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Create a view of a part of the file as integers, without copying it.
+	 */
+	private IntBuffer intView(int position, int length) {
+		ByteBuffer duplicate = buffer.duplicate();
+		duplicate.position(position);
+		duplicate.limit(position + 4 * length);
+		return duplicate.slice().asIntBuffer();
+	}
+
+	/**
+	 * Get the number of transactions in this database.
+	 *
+	 * @return the number of transactions.
+	 */
+	public int size() {
+		return transactionCount;
+	}
+
+	/**
+	 * Get the largest item in this database.
+	 *
+	 * @return the largest item
+	 */
+	public int getMaxItem() {
+		return maxItem;
+	}
+
+	/**
+	 * Get the length of the longest transaction. An array of this size can hold
+	 * any transaction of this database.
+	 *
+	 * @return the length
+	 */
+	public int getMaxTransactionLength() {
+		return maxTransactionLength;
+	}
+
+	/**
+	 * Get the total number of items in the transactions of this database.
+	 *
+	 * @return the number of items
+	 */
+	public long getItemCount() {
+		return itemCount;
+	}
+
+	/**
+	 * Check if this database has a utility column.
+	 *
+	 * @return true if it has utilities
+	 */
+	public boolean hasUtilities() {
+		return hasUtilities;
+	}
+
+	/**
+	 * Get the length of a transaction.
+	 *
+	 * @param tid the transaction id (from 0 to size() - 1)
+	 * @return the number of items in this transaction
+	 */
+	public int getTransactionLength(int tid) {
+		return value(readVarint(itemColumnStart + itemOffsets.get(tid)));
+	}
+
+	/**
+	 * Decode the items of a transaction in a given array. No object is created, so
+	 * the same array can be reused for every transaction.
+	 *
+	 * @param tid    the transaction id (from 0 to size() - 1)
+	 * @param items  an array of at least getMaxTransactionLength() elements where
+	 *               the items are written
+	 * @return the number of items of the transaction
+	 */
+	public int getItems(int tid, int[] items) {
+		long varint = readVarint(itemColumnStart + itemOffsets.get(tid));
+		int length = value(varint);
+		int item = 0;
+		for (int i = 0; i < length; i++) {
+			varint = readVarint(position(varint));
+			// each item is stored as the difference with the previous one
+			item += zigzagDecode(value(varint));
+			items[i] = item;
+		}
+		return length;
+	}
+
+	/**
+	 * Get the items of a transaction in a new array.
+	 *
+	 * @param tid the transaction id (from 0 to size() - 1)
+	 * @return the items
+	 */
+	public int[] getItems(int tid) {
+		int[] items = new int[getTransactionLength(tid)];
+		getItems(tid, items);
+		return items;
+	}
+
+	/**
+	 * Get the transaction utility of a transaction.
+	 *
+	 * @param tid the transaction id (from 0 to size() - 1)
+	 * @return the transaction utility
+	 * @throws IllegalStateException if this database has no utilities
+	 */
+	public int getTransactionUtility(int tid) {
+		checkUtilities();
+		return zigzagDecode(value(readVarint(utilityColumnStart + utilityOffsets.get(tid))));
+	}
+
+	/**
+	 * Decode the utilities of the items of a transaction in a given array. The
+	 * utility at position i is the utility of the item at position i in
+	 * getItems().
+	 *
+	 * @param tid       the transaction id (from 0 to size() - 1)
+	 * @param utilities an array of at least getMaxTransactionLength() elements
+	 *                  where the utilities are written
+	 * @return the number of items of the transaction
+	 * @throws IllegalStateException if this database has no utilities
+	 */
+	public int getUtilities(int tid, int[] utilities) {
+		checkUtilities();
+		int length = getTransactionLength(tid);
+		// skip the transaction utility
+		long varint = readVarint(utilityColumnStart + utilityOffsets.get(tid));
+		for (int i = 0; i < length; i++) {
+			varint = readVarint(position(varint));
+			utilities[i] = zigzagDecode(value(varint));
+		}
+		return length;
+	}
+
+	private void checkUtilities() {
+		if (hasUtilities == false) {
+			throw new IllegalStateException("This database has no utilities");
+		}
+	}
+
+	/**
+	 * Read a varint. To avoid creating objects, both the value and the position
+	 * following the varint are returned in a long (see value() and position()).
+	 *
+	 * @param position the position of the varint in the file
+	 * @return the value and the next position
+	 */
+	private long readVarint(int position) {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buffer.get(position++);
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+		return ((long) position << 32) | (value & 0xFFFFFFFFL);
+	}
+
+	/** Get the value of a varint returned by readVarint() */
+	private static int value(long varint) {
+		return (int) varint;
+	}
+
+	/** Get the position following a varint returned by readVarint() */
+	private static int position(long varint) {
+		return (int) (varint >>> 32);
+	}
+
+	/**
+	 * Decode an integer written in the zigzag encoding.
+	 */
+	static int zigzagDecode(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Encode an integer in the zigzag encoding.
+	 */
+	static int zigzagEncode(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	/**
+	 * Convert this database to a {@link TransactionDatabase}, for the algorithms
+	 * that take such a database as input.
+	 *
+	 * @return the database
+	 */
+	public TransactionDatabase toTransactionDatabase() {
+		TransactionDatabase database = new TransactionDatabase();
+		int[] items = new int[maxTransactionLength];
+		for (int tid = 0; tid < transactionCount; tid++) {
+			int length = getItems(tid, items);
+			List<Integer> transaction = new ArrayList<Integer>(length);
+			for (int i = 0; i < length; i++) {
+				transaction.add(items[i]);
+			}
+			database.addTransaction(transaction);
+		}
+		return database;
+	}
+
+	/**
+	 * Close the file. Note that the mapping stays valid until this object is
+	 * garbage collected.
+	 */
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+}
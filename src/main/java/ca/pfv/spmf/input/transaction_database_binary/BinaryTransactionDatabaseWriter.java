@@ -0,0 +1,202 @@
+package ca.pfv.spmf.input.transaction_database_binary;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+*
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * This class writes a transaction database in the SPMF binary format (see
+ * {@link BinaryTransactionDatabase} for a description of the format).
+ * Transactions are added one at a time and the file is written when the writer
+ * is closed. The columns are kept compressed in memory until then.
+ *
+ * @see BinaryTransactionDatabase
+ */
+public class BinaryTransactionDatabaseWriter implements Closeable {
+
+	// the path of the output file
+	private final String path;
+	// true if the database has a utility column
+	private final boolean withUtilities;
+
+	// the columns, as varints
+	private final ByteArray itemColumn = new ByteArray();
+	private final ByteArray utilityColumn = new ByteArray();
+	// the offsets of the transactions in each column
+	private int[] itemOffsets = new int[1024];
+	private int[] utilityOffsets = new int[1024];
+
+	// statistics written in the header
+	private int transactionCount = 0;
+	private int maxItem = 0;
+	private int maxTransactionLength = 0;
+	private long itemCount = 0;
+
+	/**
+	 * Constructor
+	 *
+	 * @param path          the path of the file to be written
+	 * @param withUtilities true if utilities will be given for each transaction
+	 */
+	public BinaryTransactionDatabaseWriter(String path, boolean withUtilities) {
+		this.path = path;
+		this.withUtilities = withUtilities;
+	}
+
+	/**
+	 * Add a transaction.
+	 *
+	 * @param items  the items of the transaction
+	 * @param length the number of items (from position 0 in the array)
+	 */
+	public void addTransaction(int[] items, int length) {
+		if (withUtilities) {
+			throw new IllegalStateException("This database has utilities");
+		}
+		writeItems(items, length);
+		transactionCount++;
+	}
+
+	/**
+	 * Add a transaction with utilities.
+	 *
+	 * @param items              the items of the transaction
+	 * @param utilities          the utility of each item
+	 * @param length             the number of items (from position 0 in the
+	 *                           arrays)
+	 * @param transactionUtility the transaction utility
+	 */
+	public void addTransaction(int[] items, int[] utilities, int length, int transactionUtility) {
+		if (withUtilities == false) {
+			throw new IllegalStateException("This database has no utilities");
+		}
+		writeItems(items, length);
+		// write the utility column
+		utilityOffsets = ensureCapacity(utilityOffsets, transactionCount + 2);
+		utilityOffsets[transactionCount] = utilityColumn.size;
+		utilityColumn.writeVarint(BinaryTransactionDatabase.zigzagEncode(transactionUtility));
+		for (int i = 0; i < length; i++) {
+			utilityColumn.writeVarint(BinaryTransactionDatabase.zigzagEncode(utilities[i]));
+		}
+		transactionCount++;
+	}
+
+	/**
+	 * Write the items of a transaction in the item column.
+	 */
+	private void writeItems(int[] items, int length) {
+		itemOffsets = ensureCapacity(itemOffsets, transactionCount + 2);
+		itemOffsets[transactionCount] = itemColumn.size;
+		itemColumn.writeVarint(length);
+		int previous = 0;
+		for (int i = 0; i < length; i++) {
+			// write the difference with the previous item
+			itemColumn.writeVarint(BinaryTransactionDatabase.zigzagEncode(items[i] - previous));
+			previous = items[i];
+			if (items[i] > maxItem) {
+				maxItem = items[i];
+			}
+		}
+		if (length > maxTransactionLength) {
+			maxTransactionLength = length;
+		}
+		itemCount += length;
+	}
+
+	private static int[] ensureCapacity(int[] array, int capacity) {
+		if (array.length >= capacity) {
+			return array;
+		}
+		return Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+	}
+
+	/**
+	 * Write the file.
+	 *
+	 * @throws IOException if an error occurs while writing the file
+	 */
+	@Override
+	public void close() throws IOException {
+		// the last offset is the end of the column
+		itemOffsets = ensureCapacity(itemOffsets, transactionCount + 1);
+		itemOffsets[transactionCount] = itemColumn.size;
+		utilityOffsets = ensureCapacity(utilityOffsets, transactionCount + 1);
+		utilityOffsets[transactionCount] = utilityColumn.size;
+
+		long size = BinaryTransactionDatabase.HEADER_SIZE + 4L * (transactionCount + 1) * (withUtilities ? 2 : 1)
+				+ itemColumn.size + utilityColumn.size;
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("A binary transaction database is limited to 2 GB");
+		}
+
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+		try {
+			// the header
+			output.writeInt(BinaryTransactionDatabase.MAGIC);
+			output.writeInt(BinaryTransactionDatabase.VERSION);
+			output.writeInt(withUtilities ? BinaryTransactionDatabase.FLAG_UTILITIES : 0);
+			output.writeInt(transactionCount);
+			output.writeInt(maxItem);
+			output.writeInt(maxTransactionLength);
+			output.writeLong(itemCount);
+			output.writeInt(itemColumn.size);
+			output.writeInt(utilityColumn.size);
+			// the offsets
+			for (int i = 0; i <= transactionCount; i++) {
+				output.writeInt(itemOffsets[i]);
+			}
+			if (withUtilities) {
+				for (int i = 0; i <= transactionCount; i++) {
+					output.writeInt(utilityOffsets[i]);
+				}
+			}
+			// the columns
+			output.write(itemColumn.bytes, 0, itemColumn.size);
+			output.write(utilityColumn.bytes, 0, utilityColumn.size);
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * A growable array of bytes, in which varints are written.
+	 */
+	private static class ByteArray {
+		byte[] bytes = new byte[4096];
+		int size = 0;
+
+		void writeVarint(int value) {
+			if (size + 5 > bytes.length) {
+				if (bytes.length > Integer.MAX_VALUE / 2) {
+					throw new IllegalStateException("A binary transaction database is limited to 2 GB");
+				}
+				bytes = Arrays.copyOf(bytes, bytes.length * 2);
+			}
+			// 7 bits at a time, the highest bit indicates that more bytes follow
+			while ((value & ~0x7F) != 0) {
+				bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			bytes[size++] = (byte) value;
+		}
+	}
+}
@@ -19,18 +19,54 @@ package ca.pfv.spmf.tools;
  * along with SPMF.  If not, see <http://www.gnu.org/licenses/>.
  */
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * This class is used to record the maximum memory usaged of an algorithm during
  * a given execution. It is implemented by using the "singleton" design pattern.
+ * <br/>
+ * <br/>
+ *
+ * The maximum memory usage is the peak usage of the memory pools of the heap,
+ * which the JVM tracks by itself, so checkMemory() does nothing and costs
+ * nothing in the loops of the algorithms, and the class is thread-safe. It is
+ * the sum of the peaks of the pools, so it may be a little higher than the
+ * highest usage of the heap as a whole. If the JVM has no memory pools, the
+ * usage of the heap is sampled by checkMemory(), as before. <br/>
+ * <br/>
+ *
+ * The heap is shared by all the algorithms running in the JVM, so this class
+ * cannot tell apart the memory of concurrent runs. The memory allocated by a
+ * single run is given by MiningMetrics.
  *
+ * @see MiningMetrics
  */
 public class MemoryLogger {
 
 	// the only instance of this class (this is the "singleton" design pattern)
 	private static MemoryLogger instance = new MemoryLogger();
 
-	// variable to store the maximum memory usage
-	private double maxMemory = 0;
+	// the memory pools of the heap, whose peak usage is recorded by the JVM
+	private final List<MemoryPoolMXBean> heapPools = new ArrayList<MemoryPoolMXBean>();
+
+	// the maximum memory usage in bytes, if the heap is sampled
+	private final AtomicLong maxSampledMemory = new AtomicLong();
+
+	/**
+	 * Constructor. The algorithms should use getInstance().
+	 */
+	public MemoryLogger() {
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+				heapPools.add(pool);
+			}
+		}
+	}
 
 	/**
 	 * Method to obtain the only instance of this class
@@ -47,24 +83,38 @@ public class MemoryLogger {
 	 * @return a double value indicating memory as megabytes
 	 */
 	public double getMaxMemory() {
-		return maxMemory;
+		if (heapPools.isEmpty()) {
+			return maxSampledMemory.get() / 1024d / 1024d;
+		}
+		long peak = 0;
+		for (MemoryPoolMXBean pool : heapPools) {
+			peak += pool.getPeakUsage().getUsed();
+		}
+		return peak / 1024d / 1024d;
 	}
 
 	/**
 	 * Reset the maximum amount of memory recorded.
 	 */
 	public void reset() {
-		maxMemory = 0;
+		for (MemoryPoolMXBean pool : heapPools) {
+			pool.resetPeakUsage();
+		}
+		maxSampledMemory.set(0);
 	}
 
 	/**
 	 * Check the current memory usage and record it if it is higher than the amount
-	 * of memory previously recorded.
+	 * of memory previously recorded. It only does something if the JVM has no
+	 * memory pools, since their peak usage is recorded by the JVM.
 	 */
 	public void checkMemory() {
-		double currentMemory = (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) / 1024d / 1024d;
-		if (currentMemory > maxMemory) {
-			maxMemory = currentMemory;
+		if (heapPools.isEmpty()) {
+			long currentMemory = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+			long max = maxSampledMemory.get();
+			while (currentMemory > max && !maxSampledMemory.compareAndSet(max, currentMemory)) {
+				max = maxSampledMemory.get();
+			}
 		}
 	}
 }
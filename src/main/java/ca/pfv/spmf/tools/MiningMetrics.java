@@ -0,0 +1,547 @@
+package ca.pfv.spmf.tools;
+/*
+ * This file is part of the SPMF DATA MINING SOFTWARE
+ * (http://www.philippe-fournier-viger.com/spmf).
+ *
+ * SPMF is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * SPMF is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with SPMF.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class records the statistics of a run of an algorithm: counters (the
+ * candidates generated and pruned, the projections built, the nodes created
+ * and the patterns emitted), and the time and the memory allocated during the
+ * run and during each phase of the algorithm. <br/>
+ * <br/>
+ *
+ * A run is started by start(), which binds a new MiningMetrics to the current
+ * thread, and ended by stop(), which notifies the listeners. An algorithm
+ * obtains the MiningMetrics of its run by calling current() when it starts, and
+ * keeps it in a field, so that the threads that it creates use it too. When no
+ * run was started, current() returns a disabled MiningMetrics that ignores
+ * everything, so that the algorithms can always call it. <br/>
+ * <br/>
+ *
+ * Only some algorithms record counters and phases (PrefixSpan, FP-Growth, Zart
+ * and CM-ClaSP). A run is instrumented once a phase is started, and the
+ * counters of a run that is not instrumented are unknown rather than 0: toMap()
+ * reports them as "not instrumented". The time and the memory allocated are
+ * known for every run. <br/>
+ * <br/>
+ *
+ * The memory allocated is measured with the ThreadMXBean of the JVM, and summed
+ * over the threads of the run: the thread that started it and the threads of
+ * the pools created by newForkJoinPool(), on which current() also returns the
+ * run. Unlike MemoryLogger, which samples the heap of the JVM, it does not count
+ * the memory allocated by other runs. It is -1 if the JVM does not support it.
+ */
+public class MiningMetrics {
+
+	/** The counters of a run */
+	public enum Counter {
+		CANDIDATES_GENERATED, CANDIDATES_PRUNED, PROJECTIONS_BUILT, NODES_CREATED, PATTERNS_EMITTED
+	}
+
+	/**
+	 * A listener that is notified when a run ends
+	 */
+	public interface Listener {
+		/**
+		 * Called by the thread that ran the algorithm, when the run ends
+		 *
+		 * @param metrics the statistics of the run
+		 */
+		void runFinished(MiningMetrics metrics);
+	}
+
+	/**
+	 * A phase of a run, whose time and allocated memory are recorded when it ends
+	 */
+	public class Phase {
+		private final String name;
+		private final long startTime;
+		private final long startAllocatedBytes;
+
+		private Phase(String name) {
+			this.name = name;
+			this.startTime = System.nanoTime();
+			this.startAllocatedBytes = enabled ? runAllocatedBytes() : -1;
+			instrumented = true;
+		}
+
+		/**
+		 * End this phase and record it
+		 */
+		public void end() {
+			if (enabled) {
+				long allocated = startAllocatedBytes == -1 ? -1 : runAllocatedBytes() - startAllocatedBytes;
+				recordPhase(name, System.nanoTime() - startTime, allocated);
+			}
+		}
+	}
+
+	/** the listeners notified at the end of each run */
+	private static final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+	/** the run of each thread */
+	private static final ThreadLocal<MiningMetrics> currentRun = new ThreadLocal<MiningMetrics>();
+
+	/** the object returned by current() when no run was started */
+	private static final MiningMetrics disabled = new MiningMetrics(null, false);
+
+	/** the bean to measure the memory allocated by a thread, or null */
+	private static final com.sun.management.ThreadMXBean threadBean = findThreadBean();
+
+	/** the name of the algorithm */
+	private final String algorithm;
+
+	/** true if the statistics are recorded */
+	private final boolean enabled;
+
+	/** true once the algorithm started a phase */
+	private volatile boolean instrumented = false;
+
+	/** the counters, by ordinal */
+	private final LongAdder[] counters = new LongAdder[Counter.values().length];
+
+	/** the time of each phase in nanoseconds, in the order of the phases */
+	private final Map<String, long[]> phases = new LinkedHashMap<String, long[]>();
+
+	/** the threads of this run */
+	private final List<RunThread> threads = new CopyOnWriteArrayList<RunThread>();
+
+	/** the thread that started this run */
+	private RunThread startThread;
+
+	/** the run that this run replaced on its thread (when runs are nested) */
+	private MiningMetrics previous;
+
+	/** the start and end time in nanoseconds */
+	private long startTime;
+	private long endTime;
+
+	/** the memory allocated during the run, or -1 */
+	private volatile long allocatedBytes = -1;
+
+	/**
+	 * Constructor
+	 *
+	 * @param algorithm the name of the algorithm
+	 * @param enabled   true if the statistics are recorded
+	 */
+	private MiningMetrics(String algorithm, boolean enabled) {
+		this.algorithm = algorithm;
+		this.enabled = enabled;
+		for (int i = 0; i < counters.length; i++) {
+			counters[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Start a run on the current thread. It must be ended by calling stop() on
+	 * the same thread.
+	 *
+	 * @param algorithm the name of the algorithm
+	 * @return the statistics of the run
+	 */
+	public static MiningMetrics start(String algorithm) {
+		MiningMetrics metrics = new MiningMetrics(algorithm, true);
+		metrics.previous = currentRun.get();
+		metrics.startTime = System.nanoTime();
+		metrics.startThread = metrics.new RunThread(Thread.currentThread());
+		metrics.threads.add(metrics.startThread);
+		currentRun.set(metrics);
+		return metrics;
+	}
+
+	/**
+	 * Get the run of the current thread
+	 *
+	 * @return the statistics of the run, or a disabled object if no run was
+	 *         started
+	 */
+	public static MiningMetrics current() {
+		MiningMetrics metrics = currentRun.get();
+		return metrics == null ? disabled : metrics;
+	}
+
+	/**
+	 * Create a ForkJoinPool whose threads take part in this run: the memory that
+	 * they allocate is counted in the run, and current() returns the run on them.
+	 *
+	 * @param parallelism the number of threads
+	 * @return the pool
+	 */
+	public ForkJoinPool newForkJoinPool(int parallelism) {
+		if (!enabled) {
+			return new ForkJoinPool(parallelism);
+		}
+		return new ForkJoinPool(parallelism, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+			@Override
+			public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+				return new WorkerThread(pool);
+			}
+		}, null, false);
+	}
+
+	/**
+	 * End this run and notify the listeners
+	 */
+	public void stop() {
+		if (!enabled || endTime != 0) {
+			return;
+		}
+		endTime = System.nanoTime();
+		startThread.end();
+		allocatedBytes = runAllocatedBytes();
+		if (currentRun.get() == this) {
+			if (previous == null) {
+				currentRun.remove();
+			} else {
+				currentRun.set(previous);
+			}
+		}
+		previous = null;
+		for (Listener listener : listeners) {
+			listener.runFinished(this);
+		}
+	}
+
+	/**
+	 * Add a listener notified at the end of each run
+	 *
+	 * @param listener the listener
+	 */
+	public static void addListener(Listener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Remove a listener
+	 *
+	 * @param listener the listener
+	 */
+	public static void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Increase a counter by one
+	 *
+	 * @param counter the counter
+	 */
+	public void increment(Counter counter) {
+		if (enabled) {
+			counters[counter.ordinal()].increment();
+		}
+	}
+
+	/**
+	 * Increase a counter
+	 *
+	 * @param counter the counter
+	 * @param value   the value to add
+	 */
+	public void add(Counter counter, long value) {
+		if (enabled) {
+			counters[counter.ordinal()].add(value);
+		}
+	}
+
+	/**
+	 * Start a phase of the run. It is recorded when its end() method is called.
+	 *
+	 * @param name the name of the phase
+	 * @return the phase
+	 */
+	public Phase startPhase(String name) {
+		return new Phase(name);
+	}
+
+	/**
+	 * Record a phase. If a phase with the same name was already recorded, the
+	 * time and the allocated memory are added to it.
+	 *
+	 * @param name           the name of the phase
+	 * @param time           the time in nanoseconds
+	 * @param allocatedBytes the memory allocated in bytes, or -1 if unknown
+	 */
+	public void recordPhase(String name, long time, long allocatedBytes) {
+		if (!enabled) {
+			return;
+		}
+		synchronized (phases) {
+			long[] values = phases.get(name);
+			if (values == null) {
+				phases.put(name, new long[] { time, allocatedBytes });
+			} else {
+				values[0] += time;
+				values[1] = values[1] == -1 || allocatedBytes == -1 ? -1 : values[1] + allocatedBytes;
+			}
+		}
+	}
+
+	/**
+	 * Check if the statistics are recorded
+	 *
+	 * @return false if this object was returned by current() without a run
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Check if the algorithm of this run records counters and phases
+	 *
+	 * @return true if a phase was started, otherwise the counters are unknown
+	 */
+	public boolean isInstrumented() {
+		return instrumented;
+	}
+
+	/**
+	 * Get the name of the algorithm
+	 *
+	 * @return the name
+	 */
+	public String getAlgorithm() {
+		return algorithm;
+	}
+
+	/**
+	 * Get the value of a counter
+	 *
+	 * @param counter the counter
+	 * @return the value
+	 */
+	public long getCount(Counter counter) {
+		return counters[counter.ordinal()].sum();
+	}
+
+	/**
+	 * Get the time of the run, until now if it is not ended
+	 *
+	 * @return the time in nanoseconds
+	 */
+	public long getTime() {
+		if (!enabled) {
+			return 0;
+		}
+		return (endTime == 0 ? System.nanoTime() : endTime) - startTime;
+	}
+
+	/**
+	 * Get the memory allocated during the run by its threads
+	 *
+	 * @return the memory in bytes, or -1 if the run is not ended or the JVM cannot
+	 *         measure it
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * Get the names of the phases that were recorded
+	 *
+	 * @return the names, in the order in which they were first recorded
+	 */
+	public List<String> getPhaseNames() {
+		synchronized (phases) {
+			return new ArrayList<String>(phases.keySet());
+		}
+	}
+
+	/**
+	 * Get the time of a phase
+	 *
+	 * @param name the name of the phase
+	 * @return the time in nanoseconds, or 0 if it was not recorded
+	 */
+	public long getPhaseTime(String name) {
+		synchronized (phases) {
+			long[] values = phases.get(name);
+			return values == null ? 0 : values[0];
+		}
+	}
+
+	/**
+	 * Get the memory allocated during a phase
+	 *
+	 * @param name the name of the phase
+	 * @return the memory in bytes, or -1 if it is unknown
+	 */
+	public long getPhaseAllocatedBytes(String name) {
+		synchronized (phases) {
+			long[] values = phases.get(name);
+			return values == null ? -1 : values[1];
+		}
+	}
+
+	/**
+	 * Get the statistics of the run as a map (to be shown or converted to JSON).
+	 * The counters and phases of a run that is not instrumented are the string
+	 * "not instrumented".
+	 *
+	 * @return a map
+	 */
+	public Map<String, Object> toMap() {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put("algorithm", algorithm);
+		map.put("timeMs", getTime() / 1000000);
+		map.put("allocatedBytes", allocatedBytes);
+		if (!instrumented) {
+			map.put("counters", "not instrumented");
+			map.put("phases", "not instrumented");
+			return map;
+		}
+		Map<String, Object> counts = new LinkedHashMap<String, Object>();
+		for (Counter counter : Counter.values()) {
+			counts.put(counter.name().toLowerCase(), getCount(counter));
+		}
+		map.put("counters", counts);
+		Map<String, Object> phaseMaps = new LinkedHashMap<String, Object>();
+		for (String name : getPhaseNames()) {
+			Map<String, Object> phase = new LinkedHashMap<String, Object>();
+			phase.put("timeMs", getPhaseTime(name) / 1000000);
+			phase.put("allocatedBytes", getPhaseAllocatedBytes(name));
+			phaseMaps.put(name, phase);
+		}
+		map.put("phases", phaseMaps);
+		return map;
+	}
+
+	/**
+	 * Get the memory allocated until now by the threads of this run, since they
+	 * joined it
+	 *
+	 * @return the memory in bytes or -1 if the JVM cannot measure it
+	 */
+	private long runAllocatedBytes() {
+		long total = 0;
+		for (RunThread thread : threads) {
+			long allocated = thread.allocatedBytes();
+			if (allocated == -1) {
+				return -1;
+			}
+			total += allocated;
+		}
+		return total;
+	}
+
+	/**
+	 * Get the memory allocated until now by a thread
+	 *
+	 * @param threadId the id of the thread
+	 * @return the memory in bytes or -1 if the JVM cannot measure it or the thread
+	 *         is not alive
+	 */
+	private static long threadAllocatedBytes(long threadId) {
+		if (threadBean == null) {
+			return -1;
+		}
+		return threadBean.getThreadAllocatedBytes(threadId);
+	}
+
+	/**
+	 * A thread of a run, with the memory it had allocated when it joined the run
+	 */
+	private class RunThread {
+		private final long threadId;
+		private final long startAllocatedBytes;
+		// the memory allocated by the thread when it left the run, or -1
+		private volatile long endAllocatedBytes = -1;
+
+		private RunThread(Thread thread) {
+			this.threadId = thread.getId();
+			this.startAllocatedBytes = threadAllocatedBytes(threadId);
+		}
+
+		/**
+		 * Record the memory allocated by the thread when it leaves the run. It is
+		 * called by the thread itself.
+		 */
+		private void end() {
+			endAllocatedBytes = threadAllocatedBytes(threadId);
+		}
+
+		/**
+		 * Get the memory allocated by the thread since it joined the run
+		 *
+		 * @return the memory in bytes or -1 if the JVM cannot measure it
+		 */
+		private long allocatedBytes() {
+			long end = endAllocatedBytes;
+			if (end == -1) {
+				end = threadAllocatedBytes(threadId);
+				if (end == -1) {
+					// the thread ended after the first read
+					end = endAllocatedBytes;
+				}
+			}
+			return startAllocatedBytes == -1 || end == -1 ? -1 : end - startAllocatedBytes;
+		}
+	}
+
+	/**
+	 * A thread of a pool created by newForkJoinPool()
+	 */
+	private class WorkerThread extends ForkJoinWorkerThread {
+		private RunThread runThread;
+
+		private WorkerThread(ForkJoinPool pool) {
+			super(pool);
+		}
+
+		@Override
+		protected void onStart() {
+			super.onStart();
+			runThread = new RunThread(this);
+			threads.add(runThread);
+			currentRun.set(MiningMetrics.this);
+		}
+
+		@Override
+		protected void onTermination(Throwable exception) {
+			runThread.end();
+			currentRun.remove();
+			super.onTermination(exception);
+		}
+	}
+
+	/**
+	 * Find the bean of the JVM that measures the memory allocated by a thread
+	 *
+	 * @return the bean or null if it is not available or not enabled
+	 */
+	private static com.sun.management.ThreadMXBean findThreadBean() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+			if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+				return sunBean;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,170 @@
+package ca.pfv.spmf.tools.dataset_converter;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+
+import ca.pfv.spmf.input.transaction_database_binary.BinaryTransactionDatabase;
+import ca.pfv.spmf.input.transaction_database_binary.BinaryTransactionDatabaseWriter;
+
+/**
+ * This class converts a transaction database from the SPMF text format to the
+ * SPMF binary format (see {@link BinaryTransactionDatabase}) and back. Two text
+ * formats are supported: the format of transaction databases (e.g. "1 2 3")
+ * and the format of transaction databases with utility values (e.g.
+ * "1 2 3:30:10 5 15").
+ *
+ * @see BinaryTransactionDatabase
+ */
+public class BinaryTransactionDatabaseConverter {
+
+	/**
+	 * Convert a transaction database from the SPMF text format to the binary
+	 * format.
+	 *
+	 * @param input         the path of the file in text format
+	 * @param output        the path of the file to be written in binary format
+	 * @param withUtilities true if the input file is a transaction database with
+	 *                      utility values
+	 * @throws IOException if an error occurs while reading/writing files
+	 */
+	public void convertToBinary(String input, String output, boolean withUtilities) throws IOException {
+		BinaryTransactionDatabaseWriter writer = new BinaryTransactionDatabaseWriter(output, withUtilities);
+		BufferedReader reader = new BufferedReader(new FileReader(input));
+		// buffers reused for each transaction
+		int[] items = new int[64];
+		int[] utilities = new int[64];
+		try {
+			String thisLine;
+			// for each line
+			while ((thisLine = reader.readLine()) != null) {
+				// if the line is a comment, is empty or is metadata, skip it
+				if (thisLine.isEmpty() == true || thisLine.charAt(0) == '#' || thisLine.charAt(0) == '%'
+						|| thisLine.charAt(0) == '@') {
+					continue;
+				}
+				if (withUtilities) {
+					// split the line into items, transaction utility and utility values
+					String[] split = thisLine.split(":");
+					String[] itemsString = split[0].split(" ");
+					String[] utilitiesString = split[2].split(" ");
+					if (items.length < itemsString.length) {
+						items = new int[itemsString.length * 2];
+						utilities = new int[itemsString.length * 2];
+					}
+					for (int i = 0; i < itemsString.length; i++) {
+						items[i] = Integer.parseInt(itemsString[i]);
+						utilities[i] = Integer.parseInt(utilitiesString[i]);
+					}
+					writer.addTransaction(items, utilities, itemsString.length, Integer.parseInt(split[1]));
+				} else {
+					String[] itemsString = thisLine.split(" ");
+					if (items.length < itemsString.length) {
+						items = new int[itemsString.length * 2];
+					}
+					for (int i = 0; i < itemsString.length; i++) {
+						items[i] = Integer.parseInt(itemsString[i]);
+					}
+					writer.addTransaction(items, itemsString.length);
+				}
+			}
+		} finally {
+			reader.close();
+			writer.close();
+		}
+	}
+
+	/**
+	 * Convert a transaction database from the binary format to the SPMF text
+	 * format.
+	 *
+	 * @param input  the path of the file in binary format
+	 * @param output the path of the file to be written in text format
+	 * @throws IOException if an error occurs while reading/writing files
+	 */
+	public void convertToText(String input, String output) throws IOException {
+		BinaryTransactionDatabase database = new BinaryTransactionDatabase(input);
+		BufferedWriter writer = new BufferedWriter(new FileWriter(output));
+		try {
+			int[] items = new int[database.getMaxTransactionLength()];
+			int[] utilities = new int[database.getMaxTransactionLength()];
+			// for each transaction
+			for (int tid = 0; tid < database.size(); tid++) {
+				int length = database.getItems(tid, items);
+				StringBuilder buffer = new StringBuilder();
+				appendArray(buffer, items, length);
+				if (database.hasUtilities()) {
+					database.getUtilities(tid, utilities);
+					buffer.append(':');
+					buffer.append(database.getTransactionUtility(tid));
+					buffer.append(':');
+					appendArray(buffer, utilities, length);
+				}
+				writer.write(buffer.toString());
+				writer.newLine();
+			}
+		} finally {
+			writer.close();
+			database.close();
+		}
+	}
+
+	/**
+	 * Append the first values of an array to a StringBuilder, separated by spaces.
+	 */
+	private static void appendArray(StringBuilder buffer, int[] array, int length) {
+		for (int i = 0; i < length; i++) {
+			if (i > 0) {
+				buffer.append(' ');
+			}
+			buffer.append(array[i]);
+		}
+	}
+
+	/**
+	 * Print the content of a database in binary format to System.out.
+	 *
+	 * @param input the path of the file in binary format
+	 * @throws IOException if an error occurs while reading the file
+	 */
+	public void printDatabase(String input) throws IOException {
+		BinaryTransactionDatabase database = new BinaryTransactionDatabase(input);
+		try {
+			System.out.println("===================  BINARY TRANSACTION DATABASE ===================");
+			System.out.println(" Transaction count: " + database.size() + " Item count: " + database.getItemCount()
+					+ " Largest item: " + database.getMaxItem() + " Longest transaction: "
+					+ database.getMaxTransactionLength());
+			for (int tid = 0; tid < database.size(); tid++) {
+				int[] items = database.getItems(tid);
+				System.out.print(tid + ":  " + Arrays.toString(items));
+				if (database.hasUtilities()) {
+					int[] utilities = new int[items.length];
+					database.getUtilities(tid, utilities);
+					System.out.print("  TU: " + database.getTransactionUtility(tid) + "  utilities: "
+							+ Arrays.toString(utilities));
+				}
+				System.out.println();
+			}
+		} finally {
+			database.close();
+		}
+	}
+}
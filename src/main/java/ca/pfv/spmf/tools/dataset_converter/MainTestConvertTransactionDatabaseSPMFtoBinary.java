@@ -0,0 +1,32 @@
+package ca.pfv.spmf.tools.dataset_converter;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+
+/**
+ * Example of how to convert a transaction database with utility values in SPMF
+ * format to the SPMF binary format, and then back to the text format.
+ */
+public class MainTestConvertTransactionDatabaseSPMFtoBinary {
+
+	public static void main(String[] arg) throws IOException {
+
+		String inputFile = fileToPath("DB_Utility.txt");
+		String binaryFile = ".//output.bin";
+		String outputFile = ".//output.txt";
+
+		BinaryTransactionDatabaseConverter converter = new BinaryTransactionDatabaseConverter();
+		// convert the file to the binary format
+		converter.convertToBinary(inputFile, binaryFile, true);
+		// print the binary database
+		converter.printDatabase(binaryFile);
+		// convert it back to the text format
+		converter.convertToText(binaryFile, outputFile);
+	}
+
+	public static String fileToPath(String filename) throws UnsupportedEncodingException {
+		URL url = MainTestConvertTransactionDatabaseSPMFtoBinary.class.getResource(filename);
+		return java.net.URLDecoder.decode(url.getPath(), "UTF-8");
+	}
+}
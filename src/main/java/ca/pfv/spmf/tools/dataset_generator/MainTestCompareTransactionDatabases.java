@@ -0,0 +1,115 @@
+package ca.pfv.spmf.tools.dataset_generator;
+
+/*
+* This file is part of the SPMF DATA MINING SOFTWARE
+* (http://www.philippe-fournier-viger.com/spmf).
+*
+* SPMF is free software: you can redistribute it and/or modify it under the
+* terms of the GNU General Public License as published by the Free Software
+* Foundation, either version 3 of the License, or (at your option) any later
+* version.
+* SPMF is distributed in the hope that it will be useful, but WITHOUT ANY
+* WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+* A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+* You should have received a copy of the GNU General Public License along with
+* SPMF. If not, see <http://www.gnu.org/licenses/>.
+*/
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.charm.AlgoCharm_Bitset;
+import ca.pfv.spmf.input.transaction_database_array_integers.TransactionDatabase;
+
+/**
+ * Example comparing the memory usage and the speed of the two representations
+ * of a transaction database in memory (lists of integers and arrays of
+ * integers), on large databases generated by the TransactionDatabaseGenerator.
+ * The size of the databases can be changed with the arguments: transaction
+ * count, number of distinct items and maximum number of items per
+ * transaction.
+ */
+public class MainTestCompareTransactionDatabases {
+
+	public static void main(String[] arg) throws IOException {
+		int transactionCount = arg.length > 0 ? Integer.parseInt(arg[0]) : 200000;
+		int maxDistinctItems = arg.length > 1 ? Integer.parseInt(arg[1]) : 1000;
+		int maxItemCountPerTransaction = arg.length > 2 ? Integer.parseInt(arg[2]) : 50;
+
+		// generate the database
+		File file = File.createTempFile("transactions", ".txt");
+		file.deleteOnExit();
+		TransactionDatabaseGenerator generator = new TransactionDatabaseGenerator();
+		generator.generateDatabase(transactionCount, maxDistinctItems, maxItemCountPerTransaction, file.getPath());
+		System.out.println("Database: " + transactionCount + " transactions, " + maxDistinctItems
+				+ " distinct items, at most " + maxItemCountPerTransaction + " items per transaction");
+
+		// (1) lists of integers
+		long memoryBefore = usedMemory();
+		long start = System.currentTimeMillis();
+		ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase listDatabase = new ca.pfv.spmf.input.transaction_database_list_integers.TransactionDatabase();
+		listDatabase.loadFile(file.getPath());
+		long listLoadTime = System.currentTimeMillis() - start;
+		long listMemory = usedMemory() - memoryBefore;
+		// count the support of each item
+		start = System.currentTimeMillis();
+		int[] supports = new int[maxDistinctItems + 1];
+		for (int repeat = 0; repeat < 10; repeat++) {
+			for (List<Integer> transaction : listDatabase.getTransactions()) {
+				for (Integer item : transaction) {
+					supports[item]++;
+				}
+			}
+		}
+		long listScanTime = (System.currentTimeMillis() - start) / 10;
+		// keep the database reachable until its memory has been measured
+		int listSize = listDatabase.size();
+		listDatabase = null;
+
+		// (2) arrays of integers
+		memoryBefore = usedMemory();
+		start = System.currentTimeMillis();
+		TransactionDatabase arrayDatabase = new TransactionDatabase();
+		arrayDatabase.loadFile(file.getPath());
+		arrayDatabase.trimToSize();
+		long arrayLoadTime = System.currentTimeMillis() - start;
+		long arrayMemory = usedMemory() - memoryBefore;
+		// count the support of each item
+		start = System.currentTimeMillis();
+		for (int repeat = 0; repeat < 10; repeat++) {
+			supports = arrayDatabase.calculateItemSupports();
+		}
+		long arrayScanTime = (System.currentTimeMillis() - start) / 10;
+
+		System.out.println("                   lists of integers   arrays of integers");
+		System.out.println(String.format(" Transactions     %18d %20d", listSize, arrayDatabase.size()));
+		System.out.println(String.format(" Memory (MB)      %18d %20d", listMemory / 1024 / 1024,
+				arrayMemory / 1024 / 1024));
+		System.out.println(String.format(" Loading (ms)     %18d %20d", listLoadTime, arrayLoadTime));
+		System.out.println(String.format(" Full scan (ms)   %18d %20d", listScanTime, arrayScanTime));
+
+		// (3) an algorithm using each representation. The list database is
+		// converted to arrays by the algorithm, so only the time of the
+		// conversion differs.
+		AlgoCharm_Bitset algo = new AlgoCharm_Bitset();
+		listDatabase = arrayDatabase.toListDatabase();
+		start = System.currentTimeMillis();
+		algo.runAlgorithm(null, listDatabase, 0.02, true, 10000);
+		long listMiningTime = System.currentTimeMillis() - start;
+		start = System.currentTimeMillis();
+		algo.runAlgorithm(null, arrayDatabase, 0.02, true, 10000);
+		long arrayMiningTime = System.currentTimeMillis() - start;
+		System.out.println(String.format(" Charm (ms)       %18d %20d", listMiningTime, arrayMiningTime));
+	}
+
+	/**
+	 * Get the memory used by the objects that are reachable.
+	 */
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -37,6 +37,16 @@ public class SequenceDatabaseGenerator {
 	// a random number generator
 	private static Random random = new Random(System.currentTimeMillis());
 
+	/**
+	 * Set the seed of the random number generator, so that the same database is
+	 * generated again with the same parameters (for example, for benchmarks).
+	 * 
+	 * @param seed the seed
+	 */
+	public void setSeed(long seed) {
+		random.setSeed(seed);
+	}
+
 	/**
 	 * This method randomly generates a sequence database according to parameters
 	 * provided.
@@ -38,6 +38,16 @@ public class TransactionDatabaseGenerator {
 	// the random number generator
 	private static Random random = new Random(System.currentTimeMillis());
 
+	/**
+	 * Set the seed of the random number generator, so that the same database is
+	 * generated again with the same parameters (for example, for benchmarks).
+	 * 
+	 * @param seed the seed
+	 */
+	public void setSeed(long seed) {
+		random.setSeed(seed);
+	}
+
 	/**
 	 * This method randomly generates a transaction database according to parameters
 	 * provided.
@@ -38,6 +38,19 @@ import java.util.Set;
  */
 public class TransactionDatasetUtilityGenerator {
 
+	// the random number generator
+	private final Random randomGenerator = new Random(System.currentTimeMillis());
+
+	/**
+	 * Set the seed of the random number generator, so that the same utilities are
+	 * generated again with the same parameters (for example, for benchmarks).
+	 * 
+	 * @param seed the seed
+	 */
+	public void setSeed(long seed) {
+		randomGenerator.setSeed(seed);
+	}
+
 	/**
 	 * Convert a transaction database to a transaction database with utility values
 	 * from the source code.
@@ -61,8 +74,6 @@ public class TransactionDatasetUtilityGenerator {
 		long avglength = 0;
 		long tidcount = 0;
 
-		Random randomGenerator = new Random(System.currentTimeMillis());
-
 		Map<Integer, Integer> externalUtilities = new HashMap<Integer, Integer>();
 
 		BufferedWriter writer = new BufferedWriter(new FileWriter(output));
@@ -0,0 +1,65 @@
+package com.example.demo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+
+import ca.pfv.spmf.algorithmmanager.DescriptionOfAlgorithm;
+
+/**
+ * A task running any SPMF algorithm through its {@link DescriptionOfAlgorithm}.
+ * Since these algorithms read and write files, each task uses its own
+ * temporary input and output files, so that concurrent jobs never share a
+ * file. The result is cached, keyed by the fingerprint of the input file, the
+ * algorithm and its parameters.
+ */
+public class AlgorithmMiningTask implements MiningTask {
+
+	private final DescriptionOfAlgorithm description;
+	private final String[] parameters;
+	private final File inputFile;
+	private final String inputFingerprint;
+	private final MiningResultCache cache;
+	private final File outputFile;
+
+	/**
+	 * Constructor
+	 *
+	 * @param description      the description of the algorithm to run
+	 * @param parameters       the parameters of the algorithm
+	 * @param inputFile        a temporary file containing the input of the
+	 *                         algorithm. It is deleted when the job is finished.
+	 * @param inputFingerprint a hash of the content of the input file
+	 * @param cache            the cache of results
+	 * @throws IOException if the output file cannot be created
+	 */
+	public AlgorithmMiningTask(DescriptionOfAlgorithm description, String[] parameters, File inputFile,
+			String inputFingerprint, MiningResultCache cache) throws IOException {
+		this.description = description;
+		this.parameters = parameters;
+		this.inputFile = inputFile;
+		this.inputFingerprint = inputFingerprint;
+		this.cache = cache;
+		this.outputFile = File.createTempFile("mining-output-", ".txt");
+	}
+
+	@Override
+	public List<String> run(MiningJob job) throws Exception {
+		List<String> lines = cache.getLines(description.getName(), inputFingerprint, parameters);
+		if (lines == null) {
+			description.runAlgorithm(parameters, inputFile.getPath(), outputFile.getPath());
+			job.setProgress(0.9);
+			lines = Files.readAllLines(outputFile.toPath(), Charset.defaultCharset());
+			cache.putLines(description.getName(), inputFingerprint, parameters, lines);
+		}
+		return lines;
+	}
+
+	@Override
+	public void cleanUp() {
+		inputFile.delete();
+		outputFile.delete();
+	}
+}
@@ -0,0 +1,101 @@
+package com.example.demo;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import ca.pfv.spmf.input.transaction_database_array_integers.TransactionDatabase;
+
+/**
+ * Computes a fingerprint (SHA-256) identifying the content of a dataset, used
+ * as part of the keys of the {@link MiningResultCache}. <br/>
+ * <br/>
+ *
+ * For a transaction database, the transactions are first canonicalized: the
+ * items of each transaction are sorted and then the transactions are sorted.
+ * Two databases containing the same transactions in a different order thus
+ * have the same fingerprint, since they also have the same patterns.
+ */
+public class DatasetFingerprint {
+
+	// orders transactions lexicographically
+	private static final Comparator<int[]> TRANSACTION_ORDER = new Comparator<int[]>() {
+		@Override
+		public int compare(int[] a, int[] b) {
+			int length = Math.min(a.length, b.length);
+			for (int i = 0; i < length; i++) {
+				if (a[i] != b[i]) {
+					return a[i] < b[i] ? -1 : 1;
+				}
+			}
+			return a.length - b.length;
+		}
+	};
+
+	/**
+	 * Get the fingerprint of a transaction database.
+	 *
+	 * @param database the database
+	 * @return the fingerprint, as an hexadecimal string
+	 */
+	public static String of(TransactionDatabase database) {
+		// canonicalize the transactions
+		int[][] canonical = new int[database.size()][];
+		for (int i = 0; i < canonical.length; i++) {
+			int[] items = database.getTransaction(i);
+			Arrays.sort(items);
+			canonical[i] = items;
+		}
+		Arrays.sort(canonical, TRANSACTION_ORDER);
+
+		// hash them
+		MessageDigest digest = newDigest();
+		byte[] buffer = new byte[4];
+		update(digest, buffer, canonical.length);
+		for (int[] items : canonical) {
+			update(digest, buffer, items.length);
+			for (int item : items) {
+				update(digest, buffer, item);
+			}
+		}
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * Create a SHA-256 digest.
+	 *
+	 * @return the digest
+	 */
+	public static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Convert a digest to an hexadecimal string.
+	 *
+	 * @param bytes the digest
+	 * @return the string
+	 */
+	public static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+			hex.append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+	private static void update(MessageDigest digest, byte[] buffer, int value) {
+		buffer[0] = (byte) (value >>> 24);
+		buffer[1] = (byte) (value >>> 16);
+		buffer[2] = (byte) (value >>> 8);
+		buffer[3] = (byte) value;
+		digest.update(buffer);
+	}
+}
@@ -0,0 +1,242 @@
+package com.example.demo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+
+/**
+ * A mining job submitted to the {@link MiningJobService}. A job goes through
+ * the states QUEUED, RUNNING and then one of SUCCEEDED, FAILED or CANCELLED.
+ * Its result is kept as a list of lines that can be fetched page by page.
+ * <br/><br/>
+ *
+ * The state of a job is updated by a worker thread and read by request
+ * threads, so state changes are synchronized and listeners are notified after
+ * each change.
+ */
+public class MiningJob {
+
+	/** The states of a job */
+	public enum Status {
+		QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+		/** @return true if a job in this state will not change anymore */
+		public boolean isFinished() {
+			return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+		}
+	}
+
+	/** A listener notified each time the status or progress of a job changes */
+	public interface Listener {
+		void jobChanged(MiningJob job);
+	}
+
+	private final String id;
+	private final String algorithm;
+	private final long submittedAt = System.currentTimeMillis();
+	private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+	private Status status = Status.QUEUED;
+	private double progress = 0;
+	private long startedAt = 0;
+	private long finishedAt = 0;
+	private String error = null;
+	private List<String> results = Collections.emptyList();
+	private Map<String, Object> metrics = null;
+	private volatile MiningTask task;
+	private volatile Future<?> future;
+
+	/**
+	 * Constructor
+	 *
+	 * @param id        the identifier of the job
+	 * @param algorithm the name of the algorithm run by the job
+	 */
+	MiningJob(String id, String algorithm) {
+		this.id = id;
+		this.algorithm = algorithm;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getAlgorithm() {
+		return algorithm;
+	}
+
+	public synchronized Status getStatus() {
+		return status;
+	}
+
+	public synchronized double getProgress() {
+		return progress;
+	}
+
+	/**
+	 * Update the progress of this job. It is called by the task running the job.
+	 *
+	 * @param progress a value between 0 and 1
+	 */
+	public void setProgress(double progress) {
+		synchronized (this) {
+			if (status != Status.RUNNING) {
+				return;
+			}
+			this.progress = progress;
+		}
+		notifyListeners();
+	}
+
+	/**
+	 * Set the statistics of the run of the algorithm. It is called by the worker
+	 * running the job.
+	 *
+	 * @param metrics the statistics (see MiningMetrics.toMap())
+	 */
+	synchronized void setMetrics(Map<String, Object> metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Get a page of the results.
+	 *
+	 * @param offset the index of the first line
+	 * @param limit  the maximum number of lines
+	 * @return the lines (empty if the job has not succeeded)
+	 */
+	public synchronized List<String> getResults(int offset, int limit) {
+		int from = Math.min(Math.max(offset, 0), results.size());
+		int to = Math.min(from + Math.max(limit, 0), results.size());
+		return new ArrayList<String>(results.subList(from, to));
+	}
+
+	/** @return the total number of result lines */
+	public synchronized int getResultCount() {
+		return results.size();
+	}
+
+	void setTask(MiningTask task, Future<?> future) {
+		this.task = task;
+		this.future = future;
+	}
+
+	MiningTask getTask() {
+		return task;
+	}
+
+	Future<?> getFuture() {
+		return future;
+	}
+
+	/**
+	 * Mark this job as running.
+	 *
+	 * @return false if the job was cancelled before it started
+	 */
+	boolean markRunning() {
+		synchronized (this) {
+			if (status != Status.QUEUED) {
+				return false;
+			}
+			status = Status.RUNNING;
+			startedAt = System.currentTimeMillis();
+		}
+		notifyListeners();
+		return true;
+	}
+
+	/**
+	 * Mark this job as succeeded.
+	 *
+	 * @param results the result lines
+	 * @return false if the job had already finished (e.g. it was cancelled)
+	 */
+	boolean markSucceeded(List<String> results) {
+		return finish(Status.SUCCEEDED, results, null);
+	}
+
+	/**
+	 * Mark this job as failed.
+	 *
+	 * @param error a description of the error
+	 * @return false if the job had already finished (e.g. it was cancelled)
+	 */
+	boolean markFailed(String error) {
+		return finish(Status.FAILED, Collections.<String>emptyList(), error);
+	}
+
+	/**
+	 * Mark this job as cancelled.
+	 *
+	 * @return false if the job had already finished
+	 */
+	boolean markCancelled() {
+		return finish(Status.CANCELLED, Collections.<String>emptyList(), null);
+	}
+
+	private boolean finish(Status newStatus, List<String> newResults, String newError) {
+		synchronized (this) {
+			if (status.isFinished()) {
+				return false;
+			}
+			status = newStatus;
+			results = newResults;
+			error = newError;
+			if (newStatus == Status.SUCCEEDED) {
+				progress = 1;
+			}
+			finishedAt = System.currentTimeMillis();
+		}
+		notifyListeners();
+		return true;
+	}
+
+	public void addListener(Listener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	private void notifyListeners() {
+		for (Listener listener : listeners) {
+			listener.jobChanged(this);
+		}
+	}
+
+	/**
+	 * Get a description of this job, to be returned as JSON.
+	 *
+	 * @return a map
+	 */
+	public synchronized Map<String, Object> toMap() {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put("id", id);
+		map.put("algorithm", algorithm);
+		map.put("status", status);
+		map.put("progress", progress);
+		map.put("submittedAt", submittedAt);
+		if (startedAt != 0) {
+			map.put("startedAt", startedAt);
+		}
+		if (finishedAt != 0) {
+			map.put("finishedAt", finishedAt);
+		}
+		if (status == Status.SUCCEEDED) {
+			map.put("resultCount", results.size());
+		}
+		if (error != null) {
+			map.put("error", error);
+		}
+		if (metrics != null) {
+			map.put("metrics", metrics);
+		}
+		return map;
+	}
+}
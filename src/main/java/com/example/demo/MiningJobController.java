@@ -0,0 +1,231 @@
+package com.example.demo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import ca.pfv.spmf.algorithmmanager.AlgorithmManager;
+import ca.pfv.spmf.algorithmmanager.DescriptionOfAlgorithm;
+import ca.pfv.spmf.algorithmmanager.DescriptionOfParameter;
+import ca.pfv.spmf.input.transaction_database_array_integers.TransactionDatabase;
+
+/**
+ * REST API to run mining jobs asynchronously: a job is submitted and its id is
+ * returned right away, then its status can be polled or streamed, it can be
+ * cancelled and its results can be fetched page by page.
+ */
+@RestController
+@RequestMapping("/api/jobs")
+public class MiningJobController {
+
+	private final MiningJobService jobService;
+	private final ZartMiner zartMiner;
+	private final MiningResultCache cache;
+
+	public MiningJobController(MiningJobService jobService, ZartMiner zartMiner, MiningResultCache cache) {
+		this.jobService = jobService;
+		this.zartMiner = zartMiner;
+		this.cache = cache;
+	}
+
+	/**
+	 * Submit a Zart job on the transactions posted in the "postcodes" array of the
+	 * request body (same format as /api/test/).
+	 */
+	@RequestMapping(value = "/", method = RequestMethod.POST)
+	public ResponseEntity<Object> submitZart(InputStream transactions,
+			@RequestParam(value = "minsup", defaultValue = "0.4") double minsup) throws IOException {
+		ZartMiner.checkMinsup(minsup);
+		TransactionDatabase database = TransactionJsonReader.readRequest(transactions);
+		return submit("Zart", new ZartMiningTask(zartMiner, database, minsup));
+	}
+
+	/**
+	 * Submit a job running any algorithm known by the {@link AlgorithmManager}.
+	 * The request body is the input file of the algorithm, in the SPMF text
+	 * format.
+	 */
+	@RequestMapping(value = "/algorithms/{name}", method = RequestMethod.POST)
+	public ResponseEntity<Object> submitAlgorithm(@PathVariable("name") String name,
+			@RequestParam(value = "parameters", required = false) String[] parameters, InputStream input)
+			throws Exception {
+		DescriptionOfAlgorithm description = AlgorithmManager.getInstance().getDescriptionOfAlgorithm(name);
+		if (description == null) {
+			return error(HttpStatus.NOT_FOUND, "Unknown algorithm: " + name);
+		}
+		if (parameters == null) {
+			parameters = new String[0];
+		}
+		// check the parameters
+		DescriptionOfParameter[] expected = description.getParametersDescription();
+		for (int i = 0; i < expected.length; i++) {
+			if (i >= parameters.length) {
+				if (expected[i].isOptional == false) {
+					return error(HttpStatus.BAD_REQUEST, "Missing parameter: " + expected[i].name);
+				}
+			} else if (description.isParameterOfCorrectType(parameters[i], i) == false) {
+				return error(HttpStatus.BAD_REQUEST, "Invalid value for parameter: " + expected[i].name);
+			}
+		}
+		// copy the input to a file owned by this job, and compute its fingerprint
+		File inputFile = File.createTempFile("mining-input-", ".txt");
+		AlgorithmMiningTask task = null;
+		try {
+			DigestInputStream digestInput = new DigestInputStream(input, DatasetFingerprint.newDigest());
+			Files.copy(digestInput, inputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			String fingerprint = DatasetFingerprint.toHex(digestInput.getMessageDigest().digest());
+			task = new AlgorithmMiningTask(description, parameters, inputFile, fingerprint, cache);
+		} finally {
+			// if the task could not be created (e.g. the client went away during the
+			// upload), nobody owns the input file, so it is deleted here
+			if (task == null) {
+				inputFile.delete();
+			}
+		}
+		return submit(description.getName(), task);
+	}
+
+	private ResponseEntity<Object> submit(String algorithm, MiningTask task) {
+		try {
+			MiningJob job = jobService.submit(algorithm, task);
+			return ResponseEntity.status(HttpStatus.ACCEPTED).body((Object) job.toMap());
+		} catch (RejectedExecutionException e) {
+			return error(HttpStatus.SERVICE_UNAVAILABLE, "Too many jobs are waiting, try again later");
+		}
+	}
+
+	/** Get the status and progress of a job */
+	@RequestMapping(value = "/{id}", method = RequestMethod.GET)
+	public ResponseEntity<Object> getStatus(@PathVariable("id") String id) {
+		MiningJob job = jobService.getJob(id);
+		if (job == null) {
+			return error(HttpStatus.NOT_FOUND, "Unknown job: " + id);
+		}
+		return ResponseEntity.ok((Object) job.toMap());
+	}
+
+	/**
+	 * Stream the status and progress of a job as server-sent events, until the
+	 * job is finished.
+	 */
+	@RequestMapping(value = "/{id}/events", method = RequestMethod.GET)
+	public SseEmitter streamStatus(@PathVariable("id") String id) {
+		final MiningJob job = jobService.getJob(id);
+		if (job == null) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown job: " + id);
+		}
+		final SseEmitter emitter = new SseEmitter(0L);
+		final MiningJob.Listener listener = new MiningJob.Listener() {
+			// true once the emitter is completed, so that nothing is sent after
+			private boolean done = false;
+
+			// synchronized because the first event is sent by this thread while the
+			// next ones are sent by the worker
+			@Override
+			public synchronized void jobChanged(MiningJob changedJob) {
+				if (done) {
+					return;
+				}
+				try {
+					emitter.send(changedJob.toMap());
+					if (changedJob.getStatus().isFinished()) {
+						done = true;
+						changedJob.removeListener(this);
+						emitter.complete();
+					}
+				} catch (IOException e) {
+					// the client went away
+					clientGone(changedJob, e);
+				} catch (IllegalStateException e) {
+					// the emitter was completed by a timeout or an error
+					clientGone(changedJob, e);
+				}
+			}
+
+			private void clientGone(MiningJob changedJob, Exception e) {
+				done = true;
+				changedJob.removeListener(this);
+				try {
+					emitter.completeWithError(e);
+				} catch (IllegalStateException alreadyCompleted) {
+					// nothing else to do
+				}
+			}
+		};
+		job.addListener(listener);
+		emitter.onCompletion(new Runnable() {
+			@Override
+			public void run() {
+				job.removeListener(listener);
+			}
+		});
+		// send the current state (the job may already be finished)
+		listener.jobChanged(job);
+		return emitter;
+	}
+
+	/** Cancel a job */
+	@RequestMapping(value = "/{id}", method = RequestMethod.DELETE)
+	public ResponseEntity<Object> cancel(@PathVariable("id") String id) {
+		MiningJob job = jobService.getJob(id);
+		if (job == null) {
+			return error(HttpStatus.NOT_FOUND, "Unknown job: " + id);
+		}
+		if (jobService.cancel(id) == false) {
+			return error(HttpStatus.CONFLICT, "The job is already finished");
+		}
+		return ResponseEntity.ok((Object) job.toMap());
+	}
+
+	/** Get a page of the results of a job */
+	@RequestMapping(value = "/{id}/results", method = RequestMethod.GET)
+	public ResponseEntity<Object> getResults(@PathVariable("id") String id,
+			@RequestParam(value = "offset", defaultValue = "0") int offset,
+			@RequestParam(value = "limit", defaultValue = "1000") int limit) {
+		MiningJob job = jobService.getJob(id);
+		if (job == null) {
+			return error(HttpStatus.NOT_FOUND, "Unknown job: " + id);
+		}
+		if (job.getStatus() != MiningJob.Status.SUCCEEDED) {
+			return error(HttpStatus.CONFLICT, "The job has no results, its status is " + job.getStatus());
+		}
+		Map<String, Object> page = new LinkedHashMap<String, Object>();
+		page.put("offset", offset);
+		page.put("total", job.getResultCount());
+		page.put("lines", job.getResults(offset, limit));
+		return ResponseEntity.ok((Object) page);
+	}
+
+	/**
+	 * Get metrics about the worker pool (queue depth, active threads...) and the
+	 * result cache
+	 */
+	@RequestMapping(value = "/metrics", method = RequestMethod.GET)
+	public Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = jobService.getMetrics();
+		metrics.put("cache", cache.getStatistics());
+		return metrics;
+	}
+
+	private static ResponseEntity<Object> error(HttpStatus status, String message) {
+		Map<String, Object> body = new LinkedHashMap<String, Object>();
+		body.put("error", message);
+		return ResponseEntity.status(status).body((Object) body);
+	}
+}
@@ -0,0 +1,258 @@
+package com.example.demo;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import ca.pfv.spmf.tools.MiningMetrics;
+
+/**
+ * Runs mining jobs on a bounded pool of worker threads, so that long mining
+ * tasks do not hold the request threads of the web server. <br/>
+ * <br/>
+ *
+ * The pool has a fixed number of threads and a bounded queue. When the queue
+ * is full, new jobs are rejected (admission control) instead of piling up. The
+ * finished jobs are kept in memory so that their results can be fetched, up to
+ * a configurable number of jobs. <br/>
+ * <br/>
+ *
+ * Each job is run as a MiningMetrics run, so that the statistics of the
+ * algorithm (counters, phases, allocated memory) are attached to the job and
+ * published to the MiningMetrics listeners.
+ */
+@Service
+public class MiningJobService {
+
+	// the worker pool
+	private final ThreadPoolExecutor executor;
+	// the jobs by id
+	private final Map<String, MiningJob> jobs = new ConcurrentHashMap<String, MiningJob>();
+	// the ids of the finished jobs, oldest first
+	private final Queue<String> finishedJobs = new ConcurrentLinkedQueue<String>();
+	// the maximum number of finished jobs kept in memory
+	private final int maxRetainedJobs;
+
+	// counters
+	private final AtomicLong submittedCount = new AtomicLong();
+	private final AtomicLong rejectedCount = new AtomicLong();
+	private final AtomicLong succeededCount = new AtomicLong();
+	private final AtomicLong failedCount = new AtomicLong();
+	private final AtomicLong cancelledCount = new AtomicLong();
+
+	/**
+	 * Constructor
+	 *
+	 * @param threads         the number of worker threads
+	 * @param queueCapacity   the maximum number of jobs waiting for a thread
+	 * @param maxRetainedJobs the maximum number of finished jobs kept in memory
+	 */
+	public MiningJobService(@Value("${mining.jobs.threads:4}") int threads,
+			@Value("${mining.jobs.queue-capacity:32}") int queueCapacity,
+			@Value("${mining.jobs.max-retained:1000}") int maxRetainedJobs) {
+		this.maxRetainedJobs = maxRetainedJobs;
+		this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(queueCapacity), new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "mining-worker-" + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				}, new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	/**
+	 * Submit a job.
+	 *
+	 * @param algorithm the name of the algorithm (for display)
+	 * @param task      the task to run
+	 * @return the job
+	 * @throws RejectedExecutionException if the queue of the pool is full
+	 */
+	public MiningJob submit(String algorithm, MiningTask task) {
+		MiningJob job = new MiningJob(UUID.randomUUID().toString(), algorithm);
+		jobs.put(job.getId(), job);
+		JobFuture future = new JobFuture(job, task);
+		job.setTask(task, future);
+		try {
+			executor.execute(future);
+		} catch (RejectedExecutionException e) {
+			jobs.remove(job.getId());
+			task.cleanUp();
+			rejectedCount.incrementAndGet();
+			throw e;
+		}
+		submittedCount.incrementAndGet();
+		return job;
+	}
+
+	/**
+	 * The future of a job in the pool. The task of the job is cleaned up and the
+	 * job is retired exactly once: by the worker after running it, or by done()
+	 * if the future is cancelled before a worker started it (whether the job was
+	 * still queued or already taken from the queue by a worker).
+	 */
+	private class JobFuture extends FutureTask<Void> {
+		private final MiningJob job;
+		private final MiningTask task;
+		// set by the first of the worker and done() to claim the job
+		private final AtomicBoolean claimed;
+
+		JobFuture(MiningJob job, MiningTask task) {
+			this(job, task, new AtomicBoolean());
+		}
+
+		private JobFuture(final MiningJob job, final MiningTask task, final AtomicBoolean claimed) {
+			super(new Runnable() {
+				@Override
+				public void run() {
+					if (claimed.compareAndSet(false, true)) {
+						try {
+							execute(job, task);
+						} finally {
+							task.cleanUp();
+							retire(job);
+						}
+					}
+				}
+			}, null);
+			this.job = job;
+			this.task = task;
+			this.claimed = claimed;
+		}
+
+		@Override
+		protected void done() {
+			// cancelled before a worker started it: it will never run
+			if (claimed.compareAndSet(false, true)) {
+				task.cleanUp();
+				retire(job);
+			}
+		}
+	}
+
+	/**
+	 * Run a job on a worker thread.
+	 */
+	private void execute(MiningJob job, MiningTask task) {
+		// if the job was cancelled while it was queued, there is nothing to do
+		if (job.markRunning() == false) {
+			return;
+		}
+		try {
+			List<String> results;
+			MiningMetrics metrics = MiningMetrics.start(job.getAlgorithm());
+			try {
+				results = task.run(job);
+			} finally {
+				metrics.stop();
+				job.setMetrics(metrics.toMap());
+			}
+			if (job.markSucceeded(results)) {
+				succeededCount.incrementAndGet();
+			}
+		} catch (Throwable e) {
+			if (job.markFailed(e.toString())) {
+				failedCount.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Get a job.
+	 *
+	 * @param id the id of the job
+	 * @return the job or null if there is no such job
+	 */
+	public MiningJob getJob(String id) {
+		return jobs.get(id);
+	}
+
+	/**
+	 * Cancel a job. A queued job is removed from the queue. A running job is
+	 * interrupted and its result is discarded.
+	 *
+	 * @param id the id of the job
+	 * @return false if the job does not exist or is already finished
+	 */
+	public boolean cancel(String id) {
+		MiningJob job = jobs.get(id);
+		if (job == null || job.markCancelled() == false) {
+			return false;
+		}
+		cancelledCount.incrementAndGet();
+		Future<?> future = job.getFuture();
+		if (future != null) {
+			// free the place of the job in the queue if it is still there
+			executor.remove((Runnable) future);
+			// if no worker started the job, it is cleaned up by JobFuture.done(),
+			// otherwise by the worker running it
+			future.cancel(true);
+		}
+		return true;
+	}
+
+	/**
+	 * Remember that a job is finished and forget the oldest finished jobs if
+	 * there are too many.
+	 */
+	private void retire(MiningJob job) {
+		finishedJobs.add(job.getId());
+		while (finishedJobs.size() > maxRetainedJobs) {
+			String oldest = finishedJobs.poll();
+			if (oldest != null) {
+				jobs.remove(oldest);
+			}
+		}
+	}
+
+	/**
+	 * Get metrics about the worker pool and the jobs.
+	 *
+	 * @return a map of metrics
+	 */
+	public Map<String, Object> getMetrics() {
+		Map<String, Object> metrics = new LinkedHashMap<String, Object>();
+		metrics.put("poolSize", executor.getMaximumPoolSize());
+		metrics.put("activeThreads", executor.getActiveCount());
+		metrics.put("queueDepth", executor.getQueue().size());
+		metrics.put("queueRemainingCapacity", executor.getQueue().remainingCapacity());
+		metrics.put("submitted", submittedCount.get());
+		metrics.put("rejected", rejectedCount.get());
+		metrics.put("succeeded", succeededCount.get());
+		metrics.put("failed", failedCount.get());
+		metrics.put("cancelled", cancelledCount.get());
+		metrics.put("retainedJobs", jobs.size());
+		return metrics;
+	}
+
+	/**
+	 * Stop the worker threads when the application shuts down.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,78 @@
+package com.example.demo;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.stereotype.Component;
+
+import ca.pfv.spmf.tools.MiningMetrics;
+import ca.pfv.spmf.tools.MiningMetrics.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Publishes the statistics of each mining run (see {@link MiningMetrics}) as
+ * Micrometer meters, so that they can be read from the actuator metrics
+ * endpoint (/actuator/metrics) or exported to a monitoring system. <br/>
+ * <br/>
+ *
+ * All meters are tagged with the name of the algorithm:
+ * <ul>
+ * <li>spmf.mining.runs: a timer of the runs, also tagged with "instrumented"
+ * (true or false, see MiningMetrics.isInstrumented())</li>
+ * <li>spmf.mining.phases: a timer of the phases, also tagged with the
+ * phase</li>
+ * <li>spmf.mining.allocated: the memory allocated by a run, in bytes</li>
+ * <li>spmf.mining.candidates.generated, spmf.mining.candidates.pruned,
+ * spmf.mining.projections.built, spmf.mining.nodes.created and
+ * spmf.mining.patterns.emitted: the counters of the instrumented runs. The
+ * runs of the other algorithms are not counted, rather than counted as 0.</li>
+ * </ul>
+ */
+@Component
+public class MiningMetricsPublisher implements MiningMetrics.Listener {
+
+	private final MeterRegistry registry;
+
+	/**
+	 * Constructor
+	 *
+	 * @param registry the registry of the meters
+	 */
+	public MiningMetricsPublisher(MeterRegistry registry) {
+		this.registry = registry;
+		MiningMetrics.addListener(this);
+	}
+
+	@Override
+	public void runFinished(MiningMetrics metrics) {
+		String algorithm = metrics.getAlgorithm();
+		registry.timer("spmf.mining.runs", "algorithm", algorithm, "instrumented",
+				String.valueOf(metrics.isInstrumented())).record(metrics.getTime(), TimeUnit.NANOSECONDS);
+		if (metrics.getAllocatedBytes() != -1) {
+			registry.summary("spmf.mining.allocated", "algorithm", algorithm).record(metrics.getAllocatedBytes());
+		}
+		if (!metrics.isInstrumented()) {
+			return;
+		}
+		for (String phase : metrics.getPhaseNames()) {
+			registry.timer("spmf.mining.phases", "algorithm", algorithm, "phase", phase)
+					.record(metrics.getPhaseTime(phase), TimeUnit.NANOSECONDS);
+		}
+		for (Counter counter : Counter.values()) {
+			long count = metrics.getCount(counter);
+			if (count != 0) {
+				String name = "spmf.mining." + counter.name().toLowerCase().replace('_', '.');
+				registry.counter(name, "algorithm", algorithm).increment(count);
+			}
+		}
+	}
+
+	/**
+	 * Stop publishing when the application shuts down.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		MiningMetrics.removeListener(this);
+	}
+}
@@ -0,0 +1,476 @@
+package com.example.demo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * A cache of mining results, so that a dataset already mined with the same
+ * algorithm and parameters is not mined again. <br/>
+ * <br/>
+ *
+ * Results are kept in memory, in a cache bounded both by a number of entries
+ * and by an estimated size in bytes. When it is full, the least recently used
+ * (LRU) or the least frequently used (LFU) entry is evicted. If a directory is
+ * configured, results are also written to disk, which forms a second, larger
+ * tier that survives restarts. <br/>
+ * <br/>
+ *
+ * Zart results are indexed by dataset fingerprint and minimum support. A
+ * request with a higher minimum support than a cached result for the same
+ * dataset is answered by filtering that result instead of mining again.
+ */
+@Component
+public class MiningResultCache {
+
+	/** The eviction policies of the memory tier */
+	public enum Policy {
+		LRU, LFU
+	}
+
+	/** An entry of the memory tier */
+	private static class Entry {
+		final Object value;
+		final long size;
+		long hits = 0;
+
+		Entry(Object value, long size) {
+			this.value = value;
+			this.size = size;
+		}
+	}
+
+	// the memory tier, in access order (least recently used first)
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	// for each dataset fingerprint, the minimum supports of the cached Zart results (in memory or on disk)
+	private final Map<String, TreeSet<Integer>> zartMinsups = new HashMap<String, TreeSet<Integer>>();
+	// the total estimated size of the memory tier
+	private long totalSize = 0;
+
+	private final int maxEntries;
+	private final long maxBytes;
+	private final Policy policy;
+	// the directory of the disk tier, or null if disabled
+	private final File directory;
+	private final int maxDiskEntries;
+
+	// statistics
+	private long hitCount = 0;
+	private long filteredHitCount = 0;
+	private long diskHitCount = 0;
+	private long missCount = 0;
+	private long evictionCount = 0;
+
+	/**
+	 * Constructor
+	 *
+	 * @param maxEntries     the maximum number of entries in memory
+	 * @param maxBytes       the maximum estimated size of the entries in memory
+	 * @param policy         the eviction policy of the memory tier
+	 * @param directory      the directory of the disk tier (empty to disable it)
+	 * @param maxDiskEntries the maximum number of entries on disk
+	 */
+	public MiningResultCache(@Value("${mining.cache.max-entries:256}") int maxEntries,
+			@Value("${mining.cache.max-bytes:268435456}") long maxBytes,
+			@Value("${mining.cache.policy:LRU}") Policy policy,
+			@Value("${mining.cache.directory:}") String directory,
+			@Value("${mining.cache.disk-max-entries:10000}") int maxDiskEntries) {
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+		this.policy = policy;
+		this.maxDiskEntries = maxDiskEntries;
+		if (directory == null || directory.isEmpty()) {
+			this.directory = null;
+		} else {
+			this.directory = new File(directory);
+			this.directory.mkdirs();
+			indexDiskTier();
+		}
+	}
+
+	// ===================== ZART RESULTS =====================
+
+	/**
+	 * Get the Zart result of a dataset for a minimum support. If it is not cached
+	 * but a result for a lower minimum support is, that result is filtered.
+	 *
+	 * @param fingerprint    the fingerprint of the dataset
+	 * @param minsupRelative the minimum support, as a number of transactions
+	 * @return the result or null if it cannot be obtained from the cache
+	 */
+	public ZartResult getZart(String fingerprint, int minsupRelative) {
+		Integer cachedMinsup;
+		synchronized (this) {
+			TreeSet<Integer> minsups = zartMinsups.get(fingerprint);
+			// the highest cached minimum support that is not higher than the one requested
+			cachedMinsup = minsups == null ? null : minsups.floor(minsupRelative);
+			if (cachedMinsup == null) {
+				missCount++;
+				return null;
+			}
+		}
+		ZartResult cached = (ZartResult) get(zartKey(fingerprint, cachedMinsup));
+		if (cached == null) {
+			// the entry was removed from the disk tier in the meantime
+			synchronized (this) {
+				missCount++;
+			}
+			return null;
+		}
+		if (cachedMinsup == minsupRelative) {
+			return cached;
+		}
+		synchronized (this) {
+			filteredHitCount++;
+		}
+		ZartResult filtered = cached.filter(minsupRelative);
+		putZart(fingerprint, filtered);
+		return filtered;
+	}
+
+	/**
+	 * Add a Zart result to the cache.
+	 *
+	 * @param fingerprint the fingerprint of the mined dataset
+	 * @param result      the result
+	 */
+	public void putZart(String fingerprint, ZartResult result) {
+		put(zartKey(fingerprint, result.minsupRelative), result, result.estimateSize());
+		synchronized (this) {
+			TreeSet<Integer> minsups = zartMinsups.get(fingerprint);
+			if (minsups == null) {
+				minsups = new TreeSet<Integer>();
+				zartMinsups.put(fingerprint, minsups);
+			}
+			minsups.add(result.minsupRelative);
+		}
+	}
+
+	private static String zartKey(String fingerprint, int minsupRelative) {
+		return "zart-" + fingerprint + "-" + minsupRelative;
+	}
+
+	// ===================== OTHER RESULTS =====================
+
+	/**
+	 * Get the result lines cached for an algorithm run.
+	 *
+	 * @param algorithm   the name of the algorithm
+	 * @param fingerprint the fingerprint of the input
+	 * @param parameters  the parameters of the algorithm
+	 * @return the lines, or null if not cached
+	 */
+	@SuppressWarnings("unchecked")
+	public List<String> getLines(String algorithm, String fingerprint, String[] parameters) {
+		List<String> lines = (List<String>) get(linesKey(algorithm, fingerprint, parameters));
+		if (lines == null) {
+			synchronized (this) {
+				missCount++;
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * Add the result lines of an algorithm run to the cache.
+	 *
+	 * @param algorithm   the name of the algorithm
+	 * @param fingerprint the fingerprint of the input
+	 * @param parameters  the parameters of the algorithm
+	 * @param lines       the result
+	 */
+	public void putLines(String algorithm, String fingerprint, String[] parameters, List<String> lines) {
+		put(linesKey(algorithm, fingerprint, parameters), lines, estimateSize(lines));
+	}
+
+	private static String linesKey(String algorithm, String fingerprint, String[] parameters) {
+		// the key is hashed since the name and parameters may contain any character
+		StringBuilder key = new StringBuilder(algorithm).append('\n').append(fingerprint);
+		for (String parameter : parameters) {
+			key.append('\n').append(parameter);
+		}
+		return "lines-" + DatasetFingerprint
+				.toHex(DatasetFingerprint.newDigest().digest(key.toString().getBytes(StandardCharsets.UTF_8)));
+	}
+
+	// ===================== MEMORY TIER =====================
+
+	/**
+	 * Get an entry from the memory tier, or else from the disk tier.
+	 */
+	private Object get(String key) {
+		synchronized (this) {
+			Entry entry = entries.get(key);
+			if (entry != null) {
+				entry.hits++;
+				hitCount++;
+				return entry.value;
+			}
+		}
+		if (directory == null) {
+			return null;
+		}
+		Object value = readFromDisk(key);
+		if (value != null) {
+			synchronized (this) {
+				diskHitCount++;
+			}
+			// promote it to the memory tier
+			putInMemory(key, value, estimateSize(value));
+		}
+		return value;
+	}
+
+	private void put(String key, Object value, long size) {
+		putInMemory(key, value, size);
+		if (directory != null) {
+			writeToDisk(key, value);
+		}
+	}
+
+	private synchronized void putInMemory(String key, Object value, long size) {
+		// a result larger than the whole cache is not kept in memory
+		if (size > maxBytes) {
+			return;
+		}
+		Entry previous = entries.put(key, new Entry(value, size));
+		if (previous != null) {
+			totalSize -= previous.size;
+		}
+		totalSize += size;
+		// evict entries until the limits are respected
+		while (entries.size() > maxEntries || totalSize > maxBytes) {
+			String victim = chooseVictim(key);
+			Entry evicted = entries.remove(victim);
+			totalSize -= evicted.size;
+			evictionCount++;
+			if (directory == null) {
+				forgetZart(victim);
+			}
+		}
+	}
+
+	/**
+	 * Choose the entry to evict from the memory tier. The entry being inserted is
+	 * only chosen if it is the last one: under LFU it has no hit yet, so it would
+	 * otherwise always be evicted once the other entries have been used.
+	 *
+	 * @param inserted the key of the entry being inserted
+	 */
+	private String chooseVictim(String inserted) {
+		Map.Entry<String, Entry> victim = null;
+		for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+			if (candidate.getKey().equals(inserted)) {
+				continue;
+			}
+			if (policy != Policy.LFU) {
+				// the least recently used entry
+				return candidate.getKey();
+			}
+			// the least frequently used entry. In case of a tie, the least recently
+			// used one is chosen since entries are in access order.
+			if (victim == null || candidate.getValue().hits < victim.getValue().hits) {
+				victim = candidate;
+			}
+		}
+		return victim == null ? inserted : victim.getKey();
+	}
+
+	/**
+	 * Remove a Zart result from the index of minimum supports.
+	 */
+	private synchronized void forgetZart(String key) {
+		if (key.startsWith("zart-") == false) {
+			return;
+		}
+		int separator = key.lastIndexOf('-');
+		String fingerprint = key.substring("zart-".length(), separator);
+		TreeSet<Integer> minsups = zartMinsups.get(fingerprint);
+		if (minsups != null) {
+			minsups.remove(Integer.valueOf(key.substring(separator + 1)));
+			if (minsups.isEmpty()) {
+				zartMinsups.remove(fingerprint);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static long estimateSize(Object value) {
+		if (value instanceof ZartResult) {
+			return ((ZartResult) value).estimateSize();
+		}
+		long size = 64;
+		for (String line : (List<String>) value) {
+			size += 48 + 2L * line.length();
+		}
+		return size;
+	}
+
+	// ===================== DISK TIER =====================
+
+	private static final byte TYPE_LINES = 0;
+	private static final byte TYPE_ZART = 1;
+
+	/**
+	 * Index the Zart results found in the directory of the disk tier.
+	 */
+	private void indexDiskTier() {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			String name = file.getName();
+			if (name.startsWith("zart-") && name.endsWith(".bin")) {
+				String key = name.substring(0, name.length() - ".bin".length());
+				int separator = key.lastIndexOf('-');
+				try {
+					String fingerprint = key.substring("zart-".length(), separator);
+					int minsup = Integer.parseInt(key.substring(separator + 1));
+					TreeSet<Integer> minsups = zartMinsups.get(fingerprint);
+					if (minsups == null) {
+						minsups = new TreeSet<Integer>();
+						zartMinsups.put(fingerprint, minsups);
+					}
+					minsups.add(minsup);
+				} catch (RuntimeException e) {
+					// not a file of the cache
+				}
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void writeToDisk(String key, Object value) {
+		File file = new File(directory, key + ".bin");
+		if (file.exists()) {
+			return;
+		}
+		// write to a temporary file first, so that readers never see a partial file
+		File temporary = new File(directory, key + "." + Thread.currentThread().getId() + ".tmp");
+		try {
+			DataOutputStream output = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(temporary)));
+			try {
+				if (value instanceof ZartResult) {
+					output.writeByte(TYPE_ZART);
+					((ZartResult) value).write(output);
+				} else {
+					List<String> lines = (List<String>) value;
+					output.writeByte(TYPE_LINES);
+					output.writeInt(lines.size());
+					for (String line : lines) {
+						byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+						output.writeInt(bytes.length);
+						output.write(bytes);
+					}
+				}
+			} finally {
+				output.close();
+			}
+			if (temporary.renameTo(file) == false) {
+				temporary.delete();
+			}
+		} catch (IOException e) {
+			// the disk tier is only an optimization
+			temporary.delete();
+		}
+		pruneDiskTier();
+	}
+
+	private Object readFromDisk(String key) {
+		File file = new File(directory, key + ".bin");
+		if (file.exists() == false) {
+			return null;
+		}
+		try {
+			DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try {
+				byte type = input.readByte();
+				if (type == TYPE_ZART) {
+					return ZartResult.read(input);
+				}
+				int count = input.readInt();
+				List<String> lines = new ArrayList<String>(count);
+				for (int i = 0; i < count; i++) {
+					byte[] bytes = new byte[input.readInt()];
+					input.readFully(bytes);
+					lines.add(new String(bytes, StandardCharsets.UTF_8));
+				}
+				return lines;
+			} finally {
+				input.close();
+			}
+		} catch (IOException e) {
+			// a corrupted file is removed
+			file.delete();
+			forgetZart(key);
+			return null;
+		}
+	}
+
+	/**
+	 * Remove the oldest files of the disk tier if there are too many.
+	 */
+	private void pruneDiskTier() {
+		File[] files = directory.listFiles();
+		if (files == null || files.length <= maxDiskEntries) {
+			return;
+		}
+		Arrays.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File a, File b) {
+				return Long.compare(a.lastModified(), b.lastModified());
+			}
+		});
+		for (int i = 0; i < files.length - maxDiskEntries; i++) {
+			String name = files[i].getName();
+			if (name.endsWith(".bin") && files[i].delete()) {
+				String key = name.substring(0, name.length() - ".bin".length());
+				synchronized (this) {
+					if (entries.containsKey(key) == false) {
+						forgetZart(key);
+					}
+				}
+			}
+		}
+	}
+
+	// ===================== STATISTICS =====================
+
+	/**
+	 * Get statistics about the cache.
+	 *
+	 * @return a map of statistics
+	 */
+	public synchronized Map<String, Object> getStatistics() {
+		Map<String, Object> statistics = new LinkedHashMap<String, Object>();
+		statistics.put("policy", policy);
+		statistics.put("entries", entries.size());
+		statistics.put("estimatedBytes", totalSize);
+		statistics.put("hits", hitCount);
+		statistics.put("filteredHits", filteredHitCount);
+		statistics.put("diskHits", diskHitCount);
+		statistics.put("misses", missCount);
+		statistics.put("evictions", evictionCount);
+		statistics.put("diskTier", directory != null);
+		return statistics;
+	}
+}
@@ -0,0 +1,25 @@
+package com.example.demo;
+
+import java.util.List;
+
+/**
+ * The work done by a {@link MiningJob}.
+ */
+public interface MiningTask {
+
+	/**
+	 * Run the algorithm. This method is called on a worker thread of the
+	 * {@link MiningJobService}.
+	 *
+	 * @param job the job, used to report progress
+	 * @return the result, as a list of lines
+	 * @throws Exception if the algorithm fails
+	 */
+	List<String> run(MiningJob job) throws Exception;
+
+	/**
+	 * Release the resources held by this task (e.g. temporary files). It is
+	 * called once the job is finished, whether it ran or not.
+	 */
+	void cleanUp();
+}
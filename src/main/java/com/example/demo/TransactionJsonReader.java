@@ -0,0 +1,207 @@
+package com.example.demo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+import ca.pfv.spmf.input.transaction_database_array_integers.TransactionDatabase;
+
+/**
+ * Reads the JSON body of a mining request and loads its "postcodes" array
+ * directly into a {@link TransactionDatabase}. The body is consumed with a
+ * streaming parser, so the payload is never held in memory as a single String
+ * and no temporary file is written. Items are parsed directly as primitive
+ * integers, since the database is represented by arrays of integers.
+ * <br/><br/>
+ *
+ * Each element of "postcodes" is a transaction, given either as a string of
+ * space-separated items (the SPMF text format, e.g. "1 2 3") or as an array of
+ * integers (e.g. [1, 2, 3]). Items are at most {@link #MAX_ITEM}, since the
+ * database and the miners keep arrays indexed by item.
+ */
+public class TransactionJsonReader {
+
+	/** the name of the field containing the transactions */
+	public static final String TRANSACTIONS_FIELD = "postcodes";
+
+	/** the largest item accepted in a request */
+	public static final int MAX_ITEM = 9999999;
+
+	// the factory is thread-safe and can be shared by all requests
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	// the parser of the request being read
+	private final JsonParser parser;
+	// the items of the transaction being read
+	private int[] buffer = new int[64];
+	// the number of items in the buffer
+	private int itemCount;
+
+	private TransactionJsonReader(JsonParser parser) {
+		this.parser = parser;
+	}
+
+	/**
+	 * Read a mining request, reporting an invalid body as a bad request (HTTP
+	 * 400).
+	 *
+	 * @param input the request body
+	 * @return a transaction database
+	 * @throws IOException if the body cannot be read
+	 */
+	public static TransactionDatabase readRequest(InputStream input) throws IOException {
+		try {
+			return read(input);
+		} catch (JsonProcessingException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getOriginalMessage());
+		}
+	}
+
+	/**
+	 * Read a mining request and return its transactions as a database.
+	 *
+	 * @param input the request body
+	 * @return a transaction database
+	 * @throws IOException if the body is not valid JSON or an item is not an
+	 *                     integer between 0 and MAX_ITEM
+	 */
+	public static TransactionDatabase read(InputStream input) throws IOException {
+		TransactionDatabase database = new TransactionDatabase();
+		JsonParser parser = JSON_FACTORY.createParser(input);
+		try {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new JsonParseException(parser, "The request body should be a JSON object");
+			}
+			// for each field of the root object
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				parser.nextToken();
+				if (TRANSACTIONS_FIELD.equals(field)) {
+					new TransactionJsonReader(parser).readTransactions(database);
+				} else {
+					// ignore other fields
+					parser.skipChildren();
+				}
+			}
+		} finally {
+			parser.close();
+		}
+		database.trimToSize();
+		return database;
+	}
+
+	/**
+	 * Read the array of transactions.
+	 *
+	 * @param database the database where transactions are added
+	 * @throws IOException if an error occurs
+	 */
+	private void readTransactions(TransactionDatabase database) throws IOException {
+		if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+			throw new JsonParseException(parser, "\"" + TRANSACTIONS_FIELD + "\" should be an array");
+		}
+		JsonToken token;
+		while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+			itemCount = 0;
+			boolean skip = false;
+			if (token == JsonToken.VALUE_STRING) {
+				// parse the characters of the string in place, without copying them
+				skip = parseLine(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()) == false;
+			} else if (token == JsonToken.START_ARRAY) {
+				while (parser.nextToken() == JsonToken.VALUE_NUMBER_INT) {
+					addItem(parser.getIntValue());
+				}
+				if (parser.getCurrentToken() != JsonToken.END_ARRAY) {
+					throw new JsonParseException(parser, "A transaction should only contain integers");
+				}
+			} else if (token == JsonToken.VALUE_NUMBER_INT) {
+				// a transaction containing a single item
+				addItem(parser.getIntValue());
+			} else {
+				throw new JsonParseException(parser, "Unexpected value in \"" + TRANSACTIONS_FIELD + "\"");
+			}
+			// like TransactionDatabase.loadFile(), empty lines are skipped
+			if (skip == false && itemCount > 0) {
+				database.addTransaction(buffer, itemCount);
+			}
+		}
+	}
+
+	/**
+	 * Add an item to the transaction being read.
+	 *
+	 * @param item the item
+	 * @throws IOException if the item is not a positive integer or is larger than
+	 *                     MAX_ITEM
+	 */
+	private void addItem(int item) throws IOException {
+		if (item < 0) {
+			throw new JsonParseException(parser, "Items should be positive integers");
+		}
+		if (item > MAX_ITEM) {
+			throw new JsonParseException(parser, "Items should not be larger than " + MAX_ITEM);
+		}
+		if (itemCount == buffer.length) {
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		}
+		buffer[itemCount++] = item;
+	}
+
+	/**
+	 * Parse a transaction in the SPMF text format (items separated by spaces) into
+	 * the buffer.
+	 *
+	 * @param chars  the buffer containing the line
+	 * @param offset the position of the first character of the line
+	 * @param length the number of characters of the line
+	 * @return false if the line is a comment or metadata
+	 * @throws IOException if an item is not an integer
+	 */
+	private boolean parseLine(char[] chars, int offset, int length) throws IOException {
+		int end = offset + length;
+		// skip leading spaces
+		int i = offset;
+		while (i < end && Character.isWhitespace(chars[i])) {
+			i++;
+		}
+		// same conventions as TransactionDatabase.loadFile()
+		if (i < end && (chars[i] == '#' || chars[i] == '%' || chars[i] == '@')) {
+			return false;
+		}
+		while (i < end) {
+			// read one item
+			boolean negative = chars[i] == '-';
+			if (negative) {
+				i++;
+			}
+			int start = i;
+			long item = 0;
+			while (i < end && chars[i] >= '0' && chars[i] <= '9') {
+				item = item * 10 + (chars[i] - '0');
+				if (item > Integer.MAX_VALUE) {
+					throw new JsonParseException(parser, "Item out of range");
+				}
+				i++;
+			}
+			if (i == start || (i < end && Character.isWhitespace(chars[i]) == false)) {
+				throw new JsonParseException(parser,
+						"Invalid item in transaction \"" + new String(chars, offset, length) + "\"");
+			}
+			addItem((int) (negative ? -item : item));
+			// skip the separators
+			while (i < end && Character.isWhitespace(chars[i])) {
+				i++;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,62 @@
+package com.example.demo;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.zart.AlgoZart;
+import ca.pfv.spmf.algorithms.frequentpatterns.zart.TZTableClosed;
+import ca.pfv.spmf.input.transaction_database_array_integers.TransactionDatabase;
+
+/**
+ * Runs the Zart algorithm, using the {@link MiningResultCache} to avoid mining
+ * the same dataset again.
+ */
+@Component
+public class ZartMiner {
+
+	private final MiningResultCache cache;
+
+	public ZartMiner(MiningResultCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Check the minimum support threshold of a request, reporting a value outside
+	 * of ]0, 1] as a bad request (HTTP 400). With 0, every subset of every
+	 * transaction would be frequent.
+	 *
+	 * @param minsup the minimum support threshold
+	 */
+	public static void checkMinsup(double minsup) {
+		if (!(minsup > 0 && minsup <= 1)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"The minimum support must be greater than 0 and at most 1: " + minsup);
+		}
+	}
+
+	/**
+	 * Get the closed itemsets, generators and frequent itemsets of a database.
+	 *
+	 * @param database the database
+	 * @param minsup   the minimum support threshold
+	 * @return the result
+	 */
+	public ZartResult mine(TransactionDatabase database, double minsup) {
+		int transactionCount = database.size();
+		// same conversion as AlgoZart
+		int minsupRelative = (int) Math.ceil(minsup * transactionCount);
+		String fingerprint = DatasetFingerprint.of(database);
+
+		ZartResult result = cache.getZart(fingerprint, minsupRelative);
+		if (result == null) {
+			// Apply the Zart algorithm
+			AlgoZart zart = new AlgoZart();
+			TZTableClosed closed = zart.runAlgorithm(database, minsup);
+			zart.printStatistics();
+			result = new ZartResult(transactionCount, minsupRelative, closed, zart.getTableFrequent());
+			cache.putZart(fingerprint, result);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,56 @@
+package com.example.demo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import ca.pfv.spmf.input.transaction_database_array_integers.TransactionDatabase;
+
+/**
+ * A task running the Zart algorithm on transactions already loaded in memory
+ * (see {@link TransactionJsonReader}).
+ */
+public class ZartMiningTask implements MiningTask {
+
+	private final ZartMiner miner;
+	private final TransactionDatabase database;
+	private final double minsup;
+
+	/**
+	 * Constructor
+	 *
+	 * @param miner    runs Zart (or gets its result from the cache)
+	 * @param database the transactions
+	 * @param minsup   the minimum support threshold
+	 */
+	public ZartMiningTask(ZartMiner miner, TransactionDatabase database, double minsup) {
+		this.miner = miner;
+		this.database = database;
+		this.minsup = minsup;
+	}
+
+	@Override
+	public List<String> run(MiningJob job) throws IOException {
+		// Apply the Zart algorithm
+		ZartResult result = miner.mine(database, minsup);
+		job.setProgress(0.9);
+
+		// Convert the result to lines
+		StringWriter writer = new StringWriter();
+		ZartResultWriter.write(writer, result.transactionCount, result.closed, result.frequent);
+		List<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new StringReader(writer.toString()));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			lines.add(line);
+		}
+		return lines;
+	}
+
+	@Override
+	public void cleanUp() {
+	}
+}
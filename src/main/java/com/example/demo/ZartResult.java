@@ -0,0 +1,171 @@
+package com.example.demo;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.zart.TFTableFrequent;
+import ca.pfv.spmf.algorithms.frequentpatterns.zart.TZTableClosed;
+import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
+
+/**
+ * The result of a run of Zart, as kept in the {@link MiningResultCache}. A
+ * result is never modified once created, so it can be shared by several
+ * requests.
+ */
+public class ZartResult {
+
+	/** the number of transactions that were mined */
+	public final int transactionCount;
+	/** the minimum support used, as a number of transactions */
+	public final int minsupRelative;
+	/** the closed itemsets and their generators */
+	public final TZTableClosed closed;
+	/** the frequent itemsets */
+	public final TFTableFrequent frequent;
+
+	public ZartResult(int transactionCount, int minsupRelative, TZTableClosed closed, TFTableFrequent frequent) {
+		this.transactionCount = transactionCount;
+		this.minsupRelative = minsupRelative;
+		this.closed = closed;
+		this.frequent = frequent;
+	}
+
+	/**
+	 * Get the result that Zart would find for a higher minimum support, by
+	 * filtering this result.
+	 *
+	 * @param newMinsupRelative the minimum support, as a number of transactions
+	 *                          (no less than the one of this result)
+	 * @return the filtered result
+	 */
+	public ZartResult filter(int newMinsupRelative) {
+		if (newMinsupRelative < minsupRelative) {
+			throw new IllegalArgumentException("Cannot filter with a lower minimum support");
+		}
+		if (newMinsupRelative == minsupRelative) {
+			return this;
+		}
+		return new ZartResult(transactionCount, newMinsupRelative, closed.filter(newMinsupRelative),
+				frequent.filter(newMinsupRelative));
+	}
+
+	/**
+	 * Estimate the memory used by this result, in bytes.
+	 *
+	 * @return the estimation
+	 */
+	public long estimateSize() {
+		long size = 64;
+		for (List<Itemset> level : frequent.levels) {
+			for (Itemset itemset : level) {
+				// object headers, array and map entries
+				size += 64 + 4L * itemset.size();
+			}
+		}
+		for (List<Itemset> level : closed.levels) {
+			for (Itemset itemset : level) {
+				size += 48;
+				for (Itemset generator : closed.mapGenerators.get(itemset)) {
+					size += 32 + 4L * generator.size();
+				}
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Write this result in a binary format.
+	 *
+	 * @param output the output
+	 * @throws IOException if an error occurs
+	 */
+	public void write(DataOutputStream output) throws IOException {
+		output.writeInt(transactionCount);
+		output.writeInt(minsupRelative);
+		// the closed itemsets and their generators, level by level
+		output.writeInt(closed.levels.size());
+		for (List<Itemset> level : closed.levels) {
+			output.writeInt(level.size());
+			for (Itemset itemset : level) {
+				writeItemset(output, itemset);
+				List<Itemset> generators = closed.mapGenerators.get(itemset);
+				output.writeInt(generators.size());
+				for (Itemset generator : generators) {
+					writeItemset(output, generator);
+				}
+			}
+		}
+		// the frequent itemsets, level by level
+		output.writeInt(frequent.levels.size());
+		for (List<Itemset> level : frequent.levels) {
+			output.writeInt(level.size());
+			for (Itemset itemset : level) {
+				writeItemset(output, itemset);
+			}
+		}
+		output.writeBoolean(frequent.emptySetIsClosed);
+	}
+
+	/**
+	 * Read a result written by {@link #write(DataOutputStream)}.
+	 *
+	 * @param input the input
+	 * @return the result
+	 * @throws IOException if an error occurs
+	 */
+	public static ZartResult read(DataInputStream input) throws IOException {
+		int transactionCount = input.readInt();
+		int minsupRelative = input.readInt();
+		TZTableClosed closed = new TZTableClosed();
+		int levelCount = input.readInt();
+		for (int i = 0; i < levelCount; i++) {
+			int size = input.readInt();
+			List<Itemset> level = new ArrayList<Itemset>(size);
+			for (int j = 0; j < size; j++) {
+				Itemset itemset = readItemset(input);
+				int generatorCount = input.readInt();
+				List<Itemset> generators = new ArrayList<Itemset>(generatorCount);
+				for (int k = 0; k < generatorCount; k++) {
+					generators.add(readItemset(input));
+				}
+				level.add(itemset);
+				closed.mapGenerators.put(itemset, generators);
+			}
+			closed.levels.add(level);
+		}
+		TFTableFrequent frequent = new TFTableFrequent();
+		levelCount = input.readInt();
+		for (int i = 0; i < levelCount; i++) {
+			int size = input.readInt();
+			List<Itemset> level = new ArrayList<Itemset>(size);
+			for (int j = 0; j < size; j++) {
+				level.add(readItemset(input));
+			}
+			frequent.levels.add(level);
+		}
+		frequent.emptySetIsClosed = input.readBoolean();
+		return new ZartResult(transactionCount, minsupRelative, closed, frequent);
+	}
+
+	private static void writeItemset(DataOutputStream output, Itemset itemset) throws IOException {
+		output.writeInt(itemset.getAbsoluteSupport());
+		output.writeInt(itemset.size());
+		for (int item : itemset.getItems()) {
+			output.writeInt(item);
+		}
+	}
+
+	private static Itemset readItemset(DataInputStream input) throws IOException {
+		int support = input.readInt();
+		int[] items = new int[input.readInt()];
+		for (int i = 0; i < items.length; i++) {
+			items[i] = input.readInt();
+		}
+		Itemset itemset = new Itemset(items);
+		itemset.setAbsoluteSupport(support);
+		return itemset;
+	}
+}
@@ -0,0 +1,74 @@
+package com.example.demo;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import ca.pfv.spmf.algorithms.frequentpatterns.zart.TFTableFrequent;
+import ca.pfv.spmf.algorithms.frequentpatterns.zart.TZTableClosed;
+import ca.pfv.spmf.patterns.itemset_array_integers_with_count.Itemset;
+
+/**
+ * Writes the result of the Zart algorithm (closed itemsets, their generators
+ * and all frequent itemsets) as text. The result is written directly to the
+ * output, so it can be streamed to the client instead of being built as one
+ * String.
+ */
+public class ZartResultWriter {
+
+	/**
+	 * Write the closed itemsets with their generators, followed by the frequent
+	 * itemsets.
+	 *
+	 * @param writer            the output
+	 * @param transactionCount  the number of transactions that were mined
+	 * @param results           the closed itemsets and their generators
+	 * @param frequents         the frequent itemsets
+	 * @throws IOException if an error occurs while writing
+	 */
+	public static void write(Writer writer, int transactionCount, TZTableClosed results, TFTableFrequent frequents)
+			throws IOException {
+		writer.write("***********************NUMBER OF TRANSACTIONS : ");
+		writer.write(Integer.toString(transactionCount));
+		writer.write('\n');
+
+		// FIRST, THE CLOSED ITEMSETS AND THEIR GENERATORS
+		int countClosed = 0;
+		int countGenerators = 0;
+		writer.write("======= List of closed itemsets and their generators ============ : \n");
+		for (int i = 0; i < results.levels.size(); i++) {
+			writer.write("LEVEL (SIZE) : " + i + "\n");
+			for (Itemset closed : results.levels.get(i)) {
+				writer.write("CLOSED :" + closed.toString() + "  supp : " + closed.getAbsoluteSupport());
+				countClosed++;
+				writer.write(" GENERATORS : : \n");
+
+				List<Itemset> generators = results.mapGenerators.get(closed);
+				// if there are some generators
+				if (generators.size() != 0) {
+					for (Itemset generator : generators) {
+						countGenerators++;
+						writer.write("  =" + generator.toString() + "\n");
+					}
+				} else {
+					// otherwise the closed itemset is a generator
+					countGenerators++;
+					writer.write("  =" + closed.toString() + "\n");
+				}
+			}
+		}
+		writer.write(" NUMBER OF CLOSED : " + countClosed + " NUMBER OF GENERATORS : " + countGenerators + "\n");
+
+		// SECOND, THE LIST OF ALL FREQUENT ITEMSETS
+		writer.write("======= List of all frequent itemsets ============ \n");
+		int countFrequent = 0;
+		for (int i = 0; i < frequents.levels.size(); i++) {
+			writer.write("LEVEL (SIZE) :" + i + "\n");
+			for (Itemset itemset : frequents.levels.get(i)) {
+				countFrequent++;
+				writer.write(" ITEMSET : " + itemset.toString() + "  supp : " + itemset.getAbsoluteSupport() + "\n");
+			}
+		}
+		writer.write("NB OF FREQUENT ITEMSETS : " + countFrequent + "\n");
+	}
+}